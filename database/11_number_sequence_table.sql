@@ -0,0 +1,9 @@
+-- 编号序列表
+-- 各节点按号段租用序列值，节点内无锁分配；未用完的号段随节点重启放弃，编号允许出现空洞
+CREATE TABLE IF NOT EXISTS `sys_number_sequences` (
+    `seq_key` VARCHAR(100) NOT NULL COMMENT '序列键，如 档案编号前缀:年份',
+    `next_value` BIGINT NOT NULL DEFAULT 1 COMMENT '下一个未租出的序列值',
+    `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`seq_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='编号序列表';
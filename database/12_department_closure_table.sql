@@ -0,0 +1,21 @@
+-- 部门层级闭包表
+-- 每个部门与其自身及全部祖先各保存一行（depth 为相隔层数，自身为0），
+-- 祖先、后代、子树人数和子树移动均可用单条集合语句完成
+CREATE TABLE IF NOT EXISTS `department_closure` (
+    `ancestor_id` BIGINT NOT NULL COMMENT '祖先部门ID',
+    `descendant_id` BIGINT NOT NULL COMMENT '后代部门ID',
+    `depth` INT NOT NULL COMMENT '相隔层数，自身为0',
+    PRIMARY KEY (`ancestor_id`, `descendant_id`),
+    INDEX `idx_descendant_depth` (`descendant_id`, `depth`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='部门层级闭包表';
+
+-- 按现有 parent_id 回填闭包关系
+INSERT IGNORE INTO `department_closure` (`ancestor_id`, `descendant_id`, `depth`)
+WITH RECURSIVE paths (`ancestor_id`, `descendant_id`, `depth`) AS (
+    SELECT `id`, `id`, 0 FROM `department`
+    UNION ALL
+    SELECT p.`ancestor_id`, d.`id`, p.`depth` + 1
+    FROM paths p
+    INNER JOIN `department` d ON d.`parent_id` = p.`descendant_id`
+)
+SELECT `ancestor_id`, `descendant_id`, `depth` FROM paths;
@@ -0,0 +1,17 @@
+-- 分块批处理任务检查点表
+-- 每个分块与其检查点在同一事务中提交；任务中断后由下一次执行（可能在其它节点）从游标处继续
+CREATE TABLE IF NOT EXISTS `sys_batch_job_checkpoint` (
+    `job_name` VARCHAR(64) NOT NULL COMMENT '任务名',
+    `run_id` VARCHAR(32) NOT NULL COMMENT '本轮执行标识',
+    `cursor_key` BIGINT DEFAULT NULL COMMENT '已处理到的最大主键，为空表示从头开始',
+    `status` VARCHAR(16) NOT NULL COMMENT '状态：RUNNING-执行中或已中断，COMPLETED-已完成，FAILED-失败待续跑',
+    `chunks` INT NOT NULL DEFAULT 0 COMMENT '本轮已提交的分块数',
+    `processed` BIGINT NOT NULL DEFAULT 0 COMMENT '本轮处理成功的条数',
+    `failed` BIGINT NOT NULL DEFAULT 0 COMMENT '本轮处理失败并跳过的条数',
+    `started_at` DATETIME NOT NULL COMMENT '本轮开始时间',
+    `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='分块批处理任务检查点表';
+
+-- 自动归档任务按状态和最后变动时间筛选候选档案
+CREATE INDEX `idx_status_update_time` ON `arc_archive` (`status`, `update_time`);
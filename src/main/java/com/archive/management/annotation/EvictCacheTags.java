@@ -0,0 +1,25 @@
+package com.archive.management.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 按标签失效缓存注解
+ * 方法正常返回后（有事务时在提交后）失效带有这些标签的缓存条目，
+ * 用于替代 allEntries = true 的整缓存清空
+ * 
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EvictCacheTags {
+    
+    /**
+     * 标签 SpEL 表达式，可引用方法参数；结果为集合时逐个作为标签
+     * 
+     * @return 标签表达式
+     */
+    String[] value();
+}
@@ -0,0 +1,67 @@
+package com.archive.management.aspect;
+
+import com.archive.management.annotation.EvictCacheTags;
+import com.archive.management.cache.CacheTagInvalidator;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存标签失效切面
+ * 解析 {@link EvictCacheTags} 上的标签表达式并交给 {@link CacheTagInvalidator}
+ * 
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CacheTagAspect {
+
+    private final CacheTagInvalidator cacheTagInvalidator;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @AfterReturning("@annotation(evictCacheTags)")
+    public void evictTags(JoinPoint joinPoint, EvictCacheTags evictCacheTags) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (joinPoint.getTarget() != null) {
+            method = AopUtils.getMostSpecificMethod(method, joinPoint.getTarget().getClass());
+        }
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+            null, method, joinPoint.getArgs(), parameterNameDiscoverer);
+
+        Set<String> tags = new LinkedHashSet<>();
+        for (String source : evictCacheTags.value()) {
+            Object value = expressions.computeIfAbsent(source, parser::parseExpression).getValue(context);
+            if (value instanceof Iterable) {
+                for (Object tag : (Iterable<?>) value) {
+                    if (tag != null) {
+                        tags.add(String.valueOf(tag));
+                    }
+                }
+            } else if (value != null) {
+                tags.add(String.valueOf(value));
+            }
+        }
+        cacheTagInvalidator.evict(tags);
+    }
+}
@@ -0,0 +1,537 @@
+package com.archive.management.audit;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.AuditLog;
+import com.archive.management.mapper.AuditLogMapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志异步批量写入
+ * 业务线程预分配ID后把审计日志放入无锁环形缓冲即返回，由单独的写入线程在缓冲达到批大小
+ * 或到达写入间隔时取出，按多行 INSERT 写库并失效审计日志缓存。
+ * 缓冲已满时按配置等待写入线程腾出空间或直接落盘为本地 JSONL 文件；
+ * 写库重试仍失败的批次同样落盘，落盘文件由写入线程定时补写，启动时也会先补写一次。
+ * 写库按ID去重，补写或重试重复提交不会产生重复记录。停机时写完缓冲，写不进库的落盘。
+ * 批次因内容被数据库拒绝时逐条写入，只落盘被拒绝的记录；
+ * 数据库不可用时补写整轮暂停；因内容本身写不进库而反复补写失败的文件改名为 .failed 隔离，不阻塞其余文件
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class AuditLogSink {
+
+    private static final String AUDIT_LOG_CACHE = "auditLogCache";
+    private static final String SPILL_SUFFIX = ".jsonl";
+    private static final String QUARANTINE_SUFFIX = ".failed";
+    private static final String POLICY_BLOCK = "BLOCK";
+
+    private final AuditLogMapper auditLogMapper;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader spillReader;
+    private final PerformanceProperties.Audit config;
+    private final MpscRingBuffer<AuditLog> buffer;
+    private final Path spillDir;
+
+    private final Counter writtenCounter;
+    private final Counter spilledCounter;
+    private final Counter replayedCounter;
+
+    private final LongAdder totalSubmitted = new LongAdder();
+    private final LongAdder totalWritten = new LongAdder();
+    private final LongAdder totalBatches = new LongAdder();
+    private final LongAdder totalBlocked = new LongAdder();
+    private final LongAdder totalSpilled = new LongAdder();
+    private final LongAdder totalReplayed = new LongAdder();
+    private final LongAdder totalFailedAttempts = new LongAdder();
+    private final LongAdder totalQuarantined = new LongAdder();
+    private final AtomicLong spillSequence = new AtomicLong();
+
+    /** 已通过停机检查、尚未完成入缓冲的提交数，写入线程停机前等其归零再取空缓冲 */
+    private final AtomicInteger appending = new AtomicInteger();
+
+    /** 落盘文件的补写失败次数，只在写入线程（及其启动前）访问 */
+    private final Map<Path, Integer> replayFailures = new HashMap<>();
+
+    private volatile Thread flusher;
+    private volatile boolean closed;
+
+    public AuditLogSink(AuditLogMapper auditLogMapper,
+                        CacheManager cacheManager,
+                        ObjectMapper objectMapper,
+                        PerformanceProperties performanceProperties,
+                        MeterRegistry meterRegistry) {
+        this.auditLogMapper = auditLogMapper;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        // 实体上 isLoginOperation() 等业务方法会被序列化为额外属性，补写时忽略
+        this.spillReader = objectMapper.readerFor(AuditLog.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.config = performanceProperties.getAudit();
+        this.buffer = new MpscRingBuffer<>(Math.max(1, config.getBufferCapacity()));
+        this.spillDir = StringUtils.hasText(config.getSpillDir())
+            ? Paths.get(config.getSpillDir())
+            : Paths.get(System.getProperty("java.io.tmpdir"), "archive-audit-spill");
+        this.writtenCounter = Counter.builder("audit.sink.records")
+            .description("审计日志异步写入条数")
+            .tag("result", "written")
+            .register(meterRegistry);
+        this.spilledCounter = Counter.builder("audit.sink.records")
+            .description("审计日志异步写入条数")
+            .tag("result", "spilled")
+            .register(meterRegistry);
+        this.replayedCounter = Counter.builder("audit.sink.records")
+            .description("审计日志异步写入条数")
+            .tag("result", "replayed")
+            .register(meterRegistry);
+        Gauge.builder("audit.sink.buffer.size", buffer, MpscRingBuffer::size)
+            .description("审计日志缓冲中待写入条数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 补写上次遗留的落盘文件并启动写入线程
+     */
+    @PostConstruct
+    public void start() {
+        if (!asyncEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(spillDir);
+        } catch (IOException e) {
+            log.error("创建审计日志落盘目录失败: {}", spillDir, e);
+        }
+        replaySpilled();
+        Thread thread = new Thread(this::runFlusher, "audit-log-flusher");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+        log.info("审计日志异步写入已启动: 缓冲容量{}, 批大小{}, 写入间隔{}ms, 满载策略{}",
+            buffer.capacity(), batchSize(), config.getFlushIntervalMs(), config.getOverflowPolicy());
+    }
+
+    /**
+     * 提交一条审计日志
+     * 异步写入时只入缓冲即返回；未启用异步或已停机时在调用线程同步写库，失败抛出异常
+     *
+     * @param auditLog 已校验的审计日志，ID 为空时在此分配
+     */
+    public void append(AuditLog auditLog) {
+        if (auditLog.getId() == null) {
+            auditLog.setId(IdWorker.getId());
+        }
+        if (auditLog.getCreateTime() == null) {
+            // 批量 INSERT 不经过自动填充，按提交时间记录
+            auditLog.setCreateTime(LocalDateTime.now());
+        }
+        totalSubmitted.increment();
+        Thread thread = flusher;
+        if (thread != null && enqueue(auditLog, thread)) {
+            return;
+        }
+        if (thread == null || closed) {
+            insert(List.of(auditLog));
+            return;
+        }
+        spill(List.of(auditLog));
+    }
+
+    /**
+     * 放入缓冲，已停机或缓冲已满且等待超时返回 false。
+     * 先登记再检查停机标志：检查时未停机的提交，写入线程会等它放入缓冲后才做最后一次取空
+     */
+    private boolean enqueue(AuditLog auditLog, Thread thread) {
+        appending.incrementAndGet();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (buffer.offer(auditLog)) {
+                if (buffer.size() >= batchSize()) {
+                    LockSupport.unpark(thread);
+                }
+                return true;
+            }
+            return POLICY_BLOCK.equalsIgnoreCase(config.getOverflowPolicy()) && offerBlocking(auditLog, thread);
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 缓冲和落盘状态
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("asyncEnabled", asyncEnabled());
+        statistics.put("bufferCapacity", buffer.capacity());
+        statistics.put("bufferSize", buffer.size());
+        statistics.put("totalSubmitted", totalSubmitted.sum());
+        statistics.put("totalWritten", totalWritten.sum());
+        statistics.put("totalBatches", totalBatches.sum());
+        statistics.put("totalBlocked", totalBlocked.sum());
+        statistics.put("totalSpilled", totalSpilled.sum());
+        statistics.put("totalReplayed", totalReplayed.sum());
+        statistics.put("totalFailedAttempts", totalFailedAttempts.sum());
+        statistics.put("totalQuarantined", totalQuarantined.sum());
+        statistics.put("pendingSpillFiles", listSpillFiles().size());
+        statistics.put("spillDir", spillDir.toString());
+        return statistics;
+    }
+
+    /**
+     * 停止写入线程并写完缓冲，写不进库的落盘
+     */
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = flusher;
+        closed = true;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(config.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.error("审计日志写入线程未在{}ms内结束，缓冲中仍有{}条未写入",
+                config.getShutdownTimeoutMs(), buffer.size());
+        } else {
+            log.info("审计日志异步写入已停止: 共写入{}条, 落盘{}条", totalWritten.sum(), totalSpilled.sum());
+        }
+    }
+
+    private void runFlusher() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, config.getFlushIntervalMs()));
+        long lastReplay = System.currentTimeMillis();
+        while (!closed) {
+            if (buffer.size() < batchSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            try {
+                flushBuffer(config.getMaxRetries());
+                long now = System.currentTimeMillis();
+                if (now - lastReplay >= config.getSpillReplayIntervalMs() && buffer.size() < batchSize()) {
+                    lastReplay = now;
+                    replaySpilled();
+                }
+            } catch (Throwable e) {
+                log.error("审计日志写入线程异常", e);
+            }
+        }
+        // 停机：等停机前已开始的提交放入缓冲，此后缓冲不再增加
+        while (appending.get() > 0) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        // 缓冲中剩余的只尝试一次，失败即落盘，保证在停机超时内结束
+        try {
+            flushBuffer(0);
+        } catch (Throwable e) {
+            log.error("停机写入审计日志失败", e);
+        }
+    }
+
+    /**
+     * 按批取空缓冲并写库
+     */
+    private void flushBuffer(int maxRetries) {
+        List<AuditLog> batch = new ArrayList<>(batchSize());
+        while (buffer.drain(batch::add, batchSize()) > 0) {
+            writeOrSpill(batch, maxRetries);
+            batch = new ArrayList<>(batchSize());
+        }
+    }
+
+    private void writeOrSpill(List<AuditLog> batch, int maxRetries) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                insert(batch);
+                return;
+            } catch (Exception e) {
+                totalFailedAttempts.increment();
+                if (!isDatabaseUnavailable(e)) {
+                    // 内容被拒绝时整批重试不会成功，逐条写入找出被拒绝的记录
+                    log.warn("审计日志批量写入被拒绝，{}条逐条写入", batch.size(), e);
+                    insertEachOrSpill(batch);
+                    return;
+                }
+                if (attempt >= maxRetries || closed) {
+                    log.warn("审计日志批量写入失败，{}条落盘", batch.size(), e);
+                    spill(batch);
+                    return;
+                }
+                log.debug("审计日志批量写入失败，第{}次重试", attempt + 1, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs() * (attempt + 1)));
+            }
+        }
+    }
+
+    private void insertEachOrSpill(List<AuditLog> batch) {
+        try {
+            List<AuditLog> rejected = insertEach(batch);
+            if (!rejected.isEmpty()) {
+                spill(rejected);
+            }
+        } catch (RuntimeException e) {
+            // 已写入的记录补写时按ID去重，整批落盘即可
+            log.warn("审计日志逐条写入时数据库不可用，{}条落盘", batch.size(), e);
+            spill(batch);
+        }
+    }
+
+    /**
+     * 逐条写入整批已被拒绝的记录，返回被数据库拒绝的记录；数据库不可用时抛出异常。
+     * 只有一条时即为被拒绝的记录，不再重写
+     */
+    private List<AuditLog> insertEach(List<AuditLog> batch) {
+        if (batch.size() == 1) {
+            return batch;
+        }
+        List<AuditLog> rejected = new ArrayList<>();
+        for (AuditLog auditLog : batch) {
+            try {
+                insert(List.of(auditLog));
+            } catch (RuntimeException e) {
+                if (isDatabaseUnavailable(e)) {
+                    throw e;
+                }
+                log.warn("审计日志被数据库拒绝: {}", auditLog.getId(), e);
+                rejected.add(auditLog);
+            }
+        }
+        return rejected;
+    }
+
+    private void insert(List<AuditLog> batch) {
+        auditLogMapper.batchInsertIfAbsent(batch);
+        totalWritten.add(batch.size());
+        totalBatches.increment();
+        writtenCounter.increment(batch.size());
+        Cache cache = cacheManager.getCache(AUDIT_LOG_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 等待写入线程腾出空间，超时返回 false
+     */
+    private boolean offerBlocking(AuditLog auditLog, Thread thread) {
+        totalBlocked.increment();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeoutMs());
+        do {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            if (buffer.offer(auditLog)) {
+                return true;
+            }
+        } while (System.nanoTime() < deadline && !closed);
+        return false;
+    }
+
+    /**
+     * 写入新的落盘文件：先写临时文件并刷盘，再原子改名，补写时不会读到写了一半的文件
+     */
+    void spill(List<AuditLog> batch) {
+        StringBuilder content = new StringBuilder();
+        try {
+            for (AuditLog auditLog : batch) {
+                content.append(objectMapper.writeValueAsString(auditLog)).append('\n');
+            }
+            String name = "audit-" + System.currentTimeMillis() + "-" + spillSequence.incrementAndGet();
+            Files.createDirectories(spillDir);
+            writeSpillFile(spillDir.resolve(name + SPILL_SUFFIX), content);
+            totalSpilled.add(batch.size());
+            spilledCounter.increment(batch.size());
+        } catch (IOException e) {
+            // 数据库和本地磁盘都不可用，只能记入应用日志
+            log.error("审计日志落盘失败，{}条记录写入应用日志: {}", batch.size(), content, e);
+        }
+    }
+
+    private void writeSpillFile(Path file, CharSequence content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+            StandardOpenOption.DSYNC);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 按文件名顺序补写落盘文件，写入成功的文件删除。
+     * 数据库不可用时停止本轮，下次从该文件重新补写；其他原因失败的文件跳过并计数，
+     * 达到上限后改名隔离，不再阻塞后面的文件。文件中部分记录被拒绝时其余记录照常写入，
+     * 文件改写为只含被拒绝的记录后按失败计数
+     */
+    void replaySpilled() {
+        for (Path file : listSpillFiles()) {
+            try {
+                int replayed = replayFile(file);
+                Files.deleteIfExists(file);
+                replayFailures.remove(file);
+                totalReplayed.add(replayed);
+                replayedCounter.increment(replayed);
+                log.info("审计日志落盘文件补写完成: {}, {}条", file.getFileName(), replayed);
+            } catch (Exception e) {
+                if (isDatabaseUnavailable(e)) {
+                    log.warn("数据库不可用，审计日志落盘文件稍后补写: {}", file.getFileName(), e);
+                    return;
+                }
+                int failures = replayFailures.merge(file, 1, Integer::sum);
+                if (failures >= Math.max(1, config.getSpillMaxReplayAttempts())) {
+                    quarantine(file, e);
+                } else {
+                    log.warn("审计日志落盘文件补写失败，第{}次，稍后重试: {}", failures, file.getFileName(), e);
+                }
+            }
+        }
+    }
+
+    private void quarantine(Path file, Exception cause) {
+        replayFailures.remove(file);
+        Path target = file.resolveSibling(file.getFileName() + QUARANTINE_SUFFIX);
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            totalQuarantined.increment();
+            log.error("审计日志落盘文件多次补写失败，已隔离，需人工处理: {}", target, cause);
+        } catch (IOException e) {
+            log.error("隔离审计日志落盘文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 连接失败、超时等暂时性错误，换一个文件补写也不会成功
+     */
+    static boolean isDatabaseUnavailable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                || cause instanceof TransientDataAccessException
+                || cause instanceof RecoverableDataAccessException
+                || cause instanceof SQLTransientException
+                || cause instanceof SQLRecoverableException
+                || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int replayFile(Path file) throws IOException {
+        int replayed = 0;
+        List<AuditLog> rejected = new ArrayList<>();
+        List<AuditLog> batch = new ArrayList<>(batchSize());
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                batch.add(spillReader.readValue(line));
+                if (batch.size() >= batchSize()) {
+                    replayed += replayBatch(batch, rejected);
+                    batch = new ArrayList<>(batchSize());
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            replayed += replayBatch(batch, rejected);
+        }
+        if (!rejected.isEmpty()) {
+            if (replayed > 0) {
+                StringBuilder content = new StringBuilder();
+                for (AuditLog auditLog : rejected) {
+                    content.append(objectMapper.writeValueAsString(auditLog)).append('\n');
+                }
+                writeSpillFile(file, content);
+                totalReplayed.add(replayed);
+                replayedCounter.increment(replayed);
+            }
+            throw new IllegalStateException(String.format("落盘文件中%d条审计日志被数据库拒绝，%d条已补写",
+                rejected.size(), replayed));
+        }
+        return replayed;
+    }
+
+    private int replayBatch(List<AuditLog> batch, List<AuditLog> rejected) {
+        try {
+            insert(batch);
+            return batch.size();
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            log.warn("补写审计日志批次被数据库拒绝，{}条逐条写入", batch.size(), e);
+            List<AuditLog> failed = insertEach(batch);
+            rejected.addAll(failed);
+            return batch.size() - failed.size();
+        }
+    }
+
+    private List<Path> listSpillFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(spillDir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDir, "audit-*" + SPILL_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("读取审计日志落盘目录失败: {}", spillDir, e);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private int batchSize() {
+        return Math.max(1, config.getBatchSize());
+    }
+
+    private boolean asyncEnabled() {
+        return Boolean.TRUE.equals(config.getAsyncEnabled());
+    }
+}
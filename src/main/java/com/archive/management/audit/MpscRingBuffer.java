@@ -0,0 +1,107 @@
+package com.archive.management.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者单消费者有界环形缓冲
+ * 生产者以 CAS 抢占尾序号后写入槽位，不加锁；消费者只有一个，按头序号顺序读取，
+ * 槽位为空表示抢到该序号的生产者尚未写入，本次读取到此为止。
+ * 消费者先清空槽位再推进头序号，生产者看到新的头序号时对应槽位一定已可复用
+ *
+ * @param <E> 元素类型
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+
+    /** 下一个可抢占的序号，生产者共享 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 下一个待读取的序号，只由消费者推进 */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param requestedCapacity 期望容量，按2的幂向上取整
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("缓冲容量必须大于0");
+        }
+        int size = requestedCapacity > (1 << 30) ? 1 << 30 : Integer.highestOneBit(requestedCapacity);
+        if (size < requestedCapacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * 放入元素，可由任意线程调用
+     *
+     * @param element 元素，不能为空
+     * @return 缓冲已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("元素不能为空");
+        }
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head.get() >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int) (sequence & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 按放入顺序取出元素，只能由唯一的消费者线程调用
+     *
+     * @param consumer 处理取出的元素
+     * @param limit    最多取出的数量
+     * @return 实际取出的数量
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long sequence = head.get();
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (sequence & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            head.lazySet(++sequence);
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    /**
+     * 当前元素数，包含已抢占序号但尚未写入的槽位
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
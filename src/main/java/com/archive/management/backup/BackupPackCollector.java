@@ -0,0 +1,112 @@
+package com.archive.management.backup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 备份数据包回收
+ * 数据块按哈希寻址后，一个数据包可能被此后多次备份的索引引用，删除备份时不能直接删除其数据包。
+ * 先读取目录中仍存在的全部快照索引，标记被引用的数据包，再删除未被任何索引引用的数据包；
+ * 任一索引无法读取时不删除任何数据包
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+public final class BackupPackCollector {
+
+    private BackupPackCollector() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 删除未被任何快照索引引用的数据包
+     *
+     * @param packDir      数据包目录
+     * @param objectMapper 索引反序列化
+     * @return 回收结果
+     */
+    public static Result collect(Path packDir, ObjectMapper objectMapper) throws IOException {
+        if (!Files.isDirectory(packDir)) {
+            return new Result(0, 0, 0);
+        }
+
+        List<Path> indexes = list(packDir, ChunkedBackupWriter.INDEX_SUFFIX);
+        Set<String> referenced = new HashSet<>();
+        for (Path indexFile : indexes) {
+            FileSnapshotIndex index;
+            try {
+                index = objectMapper.readValue(indexFile.toFile(), FileSnapshotIndex.class);
+            } catch (IOException e) {
+                throw new IOException("快照索引无法读取，跳过数据包回收: " + indexFile.getFileName(), e);
+            }
+            if (index.getPack() != null) {
+                referenced.add(index.getPack());
+            }
+            for (FileSnapshotIndex.FileEntry entry : index.getFiles()) {
+                for (FileSnapshotIndex.ChunkRef chunk : entry.getChunks()) {
+                    referenced.add(chunk.getPack());
+                }
+            }
+        }
+
+        int deleted = 0;
+        long freedBytes = 0;
+        for (Path pack : list(packDir, ChunkedBackupWriter.PACK_SUFFIX)) {
+            if (referenced.contains(pack.getFileName().toString())) {
+                continue;
+            }
+            long size = Files.size(pack);
+            if (Files.deleteIfExists(pack)) {
+                deleted++;
+                freedBytes += size;
+            }
+        }
+        log.info("备份数据包回收完成: indexes={}, referencedPacks={}, deletedPacks={}, freedBytes={}",
+            indexes.size(), referenced.size(), deleted, freedBytes);
+        return new Result(indexes.size(), deleted, freedBytes);
+    }
+
+    private static List<Path> list(Path dir, String suffix) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(path -> path.getFileName().toString().endsWith(suffix))
+                .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * 回收结果
+     */
+    @Getter
+    public static final class Result {
+
+        /** 参与标记的索引数 */
+        private final int indexes;
+
+        /** 删除的数据包数 */
+        private final int deletedPacks;
+
+        /** 释放的字节数 */
+        private final long freedBytes;
+
+        private Result(int indexes, int deletedPacks, long freedBytes) {
+            this.indexes = indexes;
+            this.deletedPacks = deletedPacks;
+            this.freedBytes = freedBytes;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.archive.management.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 分块备份恢复工具
+ * 按快照索引从各数据包读取数据块，解压并校验 SHA-256 后还原文件内容和修改时间
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class ChunkedBackupReader {
+
+    private ChunkedBackupReader() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 将快照中的全部文件恢复到目标目录
+     *
+     * @param index      快照索引
+     * @param packDir    数据包目录
+     * @param targetRoot 目标目录
+     * @return 恢复的文件数
+     */
+    public static int restore(FileSnapshotIndex index, Path packDir, Path targetRoot) throws IOException {
+        Path root = targetRoot.toAbsolutePath().normalize();
+        Map<String, FileChannel> packs = new HashMap<>();
+        Inflater inflater = new Inflater();
+        try {
+            for (FileSnapshotIndex.FileEntry entry : index.getFiles()) {
+                Path target = root.resolve(entry.getPath()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException("快照文件路径非法: " + entry.getPath());
+                }
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 16)) {
+                    for (FileSnapshotIndex.ChunkRef chunk : entry.getChunks()) {
+                        FileChannel channel = packs.get(chunk.getPack());
+                        if (channel == null) {
+                            channel = FileChannel.open(packDir.resolve(chunk.getPack()), StandardOpenOption.READ);
+                            packs.put(chunk.getPack(), channel);
+                        }
+                        out.write(readChunk(channel, chunk, inflater));
+                    }
+                }
+                Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getLastModified()));
+            }
+            return index.getFiles().size();
+        } finally {
+            inflater.end();
+            for (FileChannel channel : packs.values()) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 读取并解压单个数据块，校验长度和哈希
+     */
+    static byte[] readChunk(FileChannel channel, FileSnapshotIndex.ChunkRef chunk, Inflater inflater) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(chunk.getLength());
+        long position = chunk.getOffset();
+        while (compressed.hasRemaining()) {
+            int n = channel.read(compressed, position);
+            if (n < 0) {
+                throw new IOException("数据包长度不足: " + chunk.getPack());
+            }
+            position += n;
+        }
+
+        // 多留一个字节，确保读到压缩流结尾并能发现实际内容比索引记录的更长
+        byte[] buffer = new byte[chunk.getSize() + 1];
+        int total = 0;
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            while (!inflater.finished() && total < buffer.length) {
+                int n = inflater.inflate(buffer, total, buffer.length - total);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("数据块解压失败: " + chunk.getHash(), e);
+        }
+        if (!inflater.finished() || total != chunk.getSize()) {
+            throw new IOException("数据块长度校验失败: " + chunk.getHash());
+        }
+
+        byte[] data = Arrays.copyOf(buffer, total);
+        if (!ChunkedBackupWriter.sha256(data).equals(chunk.getHash())) {
+            throw new IOException("数据块哈希校验失败: " + chunk.getHash());
+        }
+        return data;
+    }
+}
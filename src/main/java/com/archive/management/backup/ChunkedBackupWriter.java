@@ -0,0 +1,304 @@
+package com.archive.management.backup;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+
+/**
+ * 并行分块备份写入器
+ * 调用线程顺序读取文件并切分为定长数据块，哈希与压缩提交到有界线程池并行执行，
+ * 同时在途的数据块数有上限；结果按提交顺序取回并追加写入本次备份的数据包。
+ * 数据块按 SHA-256 寻址：已存在于上次索引中的数据块不再压缩和写入，
+ * 大小与修改时间均未变化的文件直接沿用上次索引，不再读取
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+public class ChunkedBackupWriter {
+
+    /** 数据包文件后缀 */
+    public static final String PACK_SUFFIX = ".pack";
+
+    /** 快照索引文件后缀 */
+    public static final String INDEX_SUFFIX = ".idx.json";
+
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxInFlightChunks;
+    private final int compressionLevel;
+
+    public ChunkedBackupWriter(Executor executor, int chunkSize, int maxInFlightChunks, int compressionLevel) {
+        if (chunkSize <= 0 || maxInFlightChunks <= 0) {
+            throw new IllegalArgumentException("数据块大小和在途数据块数必须大于0");
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxInFlightChunks = maxInFlightChunks;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * 写入文件快照
+     *
+     * @param sources  待备份文件，按列表顺序写入
+     * @param packDir  数据包目录
+     * @param packName 本次数据包名（不含后缀）
+     * @param previous 上次快照索引，用于跳过未变化的文件和数据块，可为空
+     * @param progress 进度回调（0-100）
+     * @return 本次快照索引
+     */
+    public FileSnapshotIndex write(List<SourceFile> sources, Path packDir, String packName,
+                                   FileSnapshotIndex previous, IntConsumer progress) throws IOException {
+        Map<String, FileSnapshotIndex.FileEntry> previousFiles = new HashMap<>();
+        Map<String, FileSnapshotIndex.ChunkRef> knownChunks = new ConcurrentHashMap<>();
+        if (previous != null) {
+            for (FileSnapshotIndex.FileEntry entry : previous.getFiles()) {
+                previousFiles.put(entry.getPath(), entry);
+                for (FileSnapshotIndex.ChunkRef chunk : entry.getChunks()) {
+                    if (Files.exists(packDir.resolve(chunk.getPack()))) {
+                        knownChunks.putIfAbsent(chunk.getHash(), chunk);
+                    }
+                }
+            }
+        }
+
+        List<BasicFileAttributes> attributes = new ArrayList<>(sources.size());
+        long totalBytes = 0;
+        for (SourceFile source : sources) {
+            BasicFileAttributes attrs = Files.readAttributes(source.getFile(), BasicFileAttributes.class);
+            attributes.add(attrs);
+            totalBytes += attrs.size();
+        }
+
+        String packFileName = packName + PACK_SUFFIX;
+        Path packFile = packDir.resolve(packFileName);
+        FileSnapshotIndex index = new FileSnapshotIndex();
+        index.setTotalBytes(totalBytes);
+        PackOutput output = new PackOutput(packFileName, knownChunks, totalBytes, progress);
+        Deque<PendingChunk> pending = new ArrayDeque<>();
+
+        Files.createDirectories(packDir);
+        try (OutputStream pack = new BufferedOutputStream(Files.newOutputStream(packFile), 1 << 16)) {
+            for (int i = 0; i < sources.size(); i++) {
+                SourceFile source = sources.get(i);
+                BasicFileAttributes attrs = attributes.get(i);
+                FileSnapshotIndex.FileEntry entry = new FileSnapshotIndex.FileEntry(
+                    source.getPath(), attrs.size(), attrs.lastModifiedTime().toMillis(), new ArrayList<>());
+                index.getFiles().add(entry);
+
+                List<FileSnapshotIndex.ChunkRef> reused = reusableChunks(previousFiles.get(entry.getPath()), entry, knownChunks);
+                if (reused != null) {
+                    entry.setChunks(reused);
+                    index.setReusedFiles(index.getReusedFiles() + 1);
+                    output.advance(entry.getSize());
+                    continue;
+                }
+
+                try (InputStream in = Files.newInputStream(source.getFile())) {
+                    byte[] data;
+                    while ((data = in.readNBytes(chunkSize)).length > 0) {
+                        if (pending.size() >= maxInFlightChunks) {
+                            output.drain(pending.poll(), pack);
+                        }
+                        final byte[] chunk = data;
+                        pending.add(new PendingChunk(entry,
+                            CompletableFuture.supplyAsync(() -> encode(chunk, knownChunks), executor)));
+                        if (data.length < chunkSize) {
+                            break;
+                        }
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                output.drain(pending.poll(), pack);
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(p -> p.future.cancel(false));
+            Files.deleteIfExists(packFile);
+            throw e;
+        }
+
+        if (output.offset == 0) {
+            Files.deleteIfExists(packFile);
+        } else {
+            index.setPack(packFileName);
+        }
+        index.setStoredBytes(output.offset);
+        log.info("文件快照写入完成: pack={}, files={}, reusedFiles={}, totalBytes={}, storedBytes={}",
+            packFileName, index.getFiles().size(), index.getReusedFiles(), totalBytes, output.offset);
+        return index;
+    }
+
+    /**
+     * 大小与修改时间均未变化且数据块仍可读取时，沿用上次索引的数据块列表
+     */
+    private static List<FileSnapshotIndex.ChunkRef> reusableChunks(FileSnapshotIndex.FileEntry previous,
+                                                                  FileSnapshotIndex.FileEntry current,
+                                                                  Map<String, FileSnapshotIndex.ChunkRef> knownChunks) {
+        if (previous == null || previous.getSize() != current.getSize()
+            || previous.getLastModified() != current.getLastModified()) {
+            return null;
+        }
+        for (FileSnapshotIndex.ChunkRef chunk : previous.getChunks()) {
+            if (!knownChunks.containsKey(chunk.getHash())) {
+                return null;
+            }
+        }
+        return new ArrayList<>(previous.getChunks());
+    }
+
+    /**
+     * 计算数据块哈希，未知数据块再进行压缩（在线程池中执行）
+     */
+    private EncodedChunk encode(byte[] data, Map<String, FileSnapshotIndex.ChunkRef> knownChunks) {
+        String hash = sha256(data);
+        if (knownChunks.containsKey(hash)) {
+            return new EncodedChunk(hash, data.length, null);
+        }
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length / 2, 64));
+            byte[] buffer = new byte[Math.min(data.length + 64, 1 << 16)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return new EncodedChunk(hash, data.length, out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 待备份文件
+     */
+    @Getter
+    public static final class SourceFile {
+
+        /** 本地文件 */
+        private final Path file;
+
+        /** 快照中的相对路径 */
+        private final String path;
+
+        public SourceFile(Path file, String path) {
+            this.file = file;
+            this.path = path;
+        }
+    }
+
+    /**
+     * 数据包写出状态，只在调用线程中访问
+     */
+    private static final class PackOutput {
+        private final String packFileName;
+        private final Map<String, FileSnapshotIndex.ChunkRef> knownChunks;
+        private final long totalBytes;
+        private final IntConsumer progress;
+        private long offset;
+        private long processedBytes;
+        private int lastPercent = -1;
+
+        private PackOutput(String packFileName, Map<String, FileSnapshotIndex.ChunkRef> knownChunks,
+                           long totalBytes, IntConsumer progress) {
+            this.packFileName = packFileName;
+            this.knownChunks = knownChunks;
+            this.totalBytes = totalBytes;
+            this.progress = progress;
+        }
+
+        /**
+         * 按提交顺序取回一个数据块：已知数据块只记录引用，新数据块追加到数据包
+         */
+        private void drain(PendingChunk pendingChunk, OutputStream pack) throws IOException {
+            EncodedChunk chunk;
+            try {
+                chunk = pendingChunk.future.join();
+            } catch (CompletionException e) {
+                throw new IOException("备份数据块处理失败: " + e.getCause().getMessage(), e.getCause());
+            }
+
+            FileSnapshotIndex.ChunkRef ref = knownChunks.get(chunk.hash);
+            if (ref == null) {
+                pack.write(chunk.data);
+                ref = new FileSnapshotIndex.ChunkRef(chunk.hash, packFileName, offset, chunk.data.length, chunk.size);
+                offset += chunk.data.length;
+                knownChunks.put(chunk.hash, ref);
+            }
+            pendingChunk.entry.getChunks().add(ref);
+            advance(chunk.size);
+        }
+
+        private void advance(long bytes) {
+            processedBytes += bytes;
+            int percent = totalBytes == 0 ? 100 : (int) (processedBytes * 100 / totalBytes);
+            if (percent != lastPercent && progress != null) {
+                lastPercent = percent;
+                progress.accept(percent);
+            }
+        }
+    }
+
+    private static final class PendingChunk {
+        private final FileSnapshotIndex.FileEntry entry;
+        private final CompletableFuture<EncodedChunk> future;
+
+        private PendingChunk(FileSnapshotIndex.FileEntry entry, CompletableFuture<EncodedChunk> future) {
+            this.entry = entry;
+            this.future = future;
+        }
+    }
+
+    private static final class EncodedChunk {
+        private final String hash;
+        private final int size;
+        /** 压缩数据，已知数据块为空 */
+        private final byte[] data;
+
+        private EncodedChunk(String hash, int size, byte[] data) {
+            this.hash = hash;
+            this.size = size;
+            this.data = data;
+        }
+    }
+}
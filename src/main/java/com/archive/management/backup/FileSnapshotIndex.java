@@ -0,0 +1,88 @@
+package com.archive.management.backup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件快照索引
+ * 记录一次文件备份中每个文件由哪些数据块组成，数据块按内容哈希寻址，
+ * 未变化的数据块直接引用此前备份写入的数据包，恢复时按索引从各数据包读取并校验
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Data
+@NoArgsConstructor
+public class FileSnapshotIndex {
+
+    /** 索引格式版本 */
+    private int formatVersion = 1;
+
+    /** 所属备份ID */
+    private Long backupId;
+
+    /** 本次备份新写入的数据包文件名，全部数据块均复用时为空 */
+    private String pack;
+
+    /** 快照中文件的原始总字节数 */
+    private long totalBytes;
+
+    /** 本次新写入数据包的压缩后字节数 */
+    private long storedBytes;
+
+    /** 按大小和修改时间判定未变化、直接复用上次索引的文件数 */
+    private int reusedFiles;
+
+    /** 文件列表 */
+    private List<FileEntry> files = new ArrayList<>();
+
+    /**
+     * 快照中的单个文件
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileEntry {
+
+        /** 相对路径（使用 / 分隔） */
+        private String path;
+
+        /** 原始字节数 */
+        private long size;
+
+        /** 最后修改时间（毫秒） */
+        private long lastModified;
+
+        /** 按顺序排列的数据块 */
+        private List<ChunkRef> chunks = new ArrayList<>();
+    }
+
+    /**
+     * 数据块引用
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkRef {
+
+        /** 原始内容的 SHA-256 */
+        private String hash;
+
+        /** 所在数据包文件名 */
+        private String pack;
+
+        /** 在数据包中的偏移 */
+        private long offset;
+
+        /** 压缩后字节数 */
+        private int length;
+
+        /** 原始字节数 */
+        private int size;
+    }
+}
@@ -0,0 +1,53 @@
+package com.archive.management.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存失效广播消息
+ * 编码格式：节点ID \n 缓存名称 \n 缓存键（清空时无第三段）
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+
+    private static final String SEPARATOR = "\n";
+
+    /** 发送节点ID */
+    private String nodeId;
+
+    /** 缓存名称 */
+    private String cacheName;
+
+    /** 缓存键，为 null 表示清空整个缓存 */
+    private String key;
+
+    /**
+     * 编码为字符串
+     */
+    public String encode() {
+        return key == null
+            ? nodeId + SEPARATOR + cacheName
+            : nodeId + SEPARATOR + cacheName + SEPARATOR + key;
+    }
+
+    /**
+     * 从字符串解码，格式不正确时返回 null
+     */
+    public static CacheInvalidationMessage decode(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split(SEPARATOR, 3);
+        if (parts.length < 2) {
+            return null;
+        }
+        return new CacheInvalidationMessage(parts[0], parts[1], parts.length == 3 ? parts[2] : null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.archive.management.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 缓存标签失效
+ * 事务内调用时延迟到提交后执行，避免提交前被并发读取重新加载旧数据
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheTagInvalidator {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    /**
+     * 失效带有任一标签的缓存条目
+     *
+     * @param tags 标签
+     */
+    public void evict(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = new ArrayList<>(tags);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(snapshot);
+                }
+            });
+        } else {
+            evictNow(snapshot);
+        }
+    }
+
+    private void evictNow(List<String> tags) {
+        try {
+            cacheManager.evictTags(tags);
+        } catch (Exception e) {
+            // 标签索引不可用时条目最迟在 TTL 到期后失效
+            log.warn("按标签失效缓存失败: tags={}", tags, e);
+        }
+    }
+}
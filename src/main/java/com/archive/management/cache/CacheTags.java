@@ -0,0 +1,104 @@
+package com.archive.management.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 缓存标签
+ * 缓存条目按其数据来源（角色、权限、用户等ID）打标签，数据变更时按标签失效相关条目，
+ * 不必清空整个缓存。在 @Cacheable 的 key 中使用：
+ * <pre>
+ * key = "T(com.archive.management.cache.CacheTags).key('tree:' + #roleId, 'role:' + #roleId)"
+ * </pre>
+ * 带标签的键在缓存中以原始键存储，失效时仍可按原始键精确失效
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class CacheTags {
+
+    /** 角色标签前缀 */
+    public static final String ROLE = "role:";
+
+    /** 权限标签前缀 */
+    public static final String PERMISSION = "permission:";
+
+    /** 用户标签前缀 */
+    public static final String USER = "user:";
+
+    /** 角色列表、统计等依赖全部角色的条目 */
+    public static final String ROLE_ALL = "role:*";
+
+    /** 权限列表、权限树等依赖全部权限的条目 */
+    public static final String PERMISSION_ALL = "permission:*";
+
+    /** 按权限编码反查角色等依赖全部角色授权关系的条目 */
+    public static final String ROLE_PERMISSION_ALL = "role-permission:*";
+
+    private CacheTags() {
+    }
+
+    /**
+     * 构造带标签的缓存键
+     *
+     * @param key  原始键
+     * @param tags 标签
+     * @return 带标签的键
+     */
+    public static TaggedKey key(Object key, Object... tags) {
+        List<String> values = new ArrayList<>(tags.length);
+        for (Object tag : tags) {
+            if (tag != null) {
+                values.add(String.valueOf(tag));
+            }
+        }
+        return new TaggedKey(key, Collections.unmodifiableList(values));
+    }
+
+    /**
+     * 取原始键，普通键原样返回
+     */
+    public static Object plainKey(Object key) {
+        return key instanceof TaggedKey ? ((TaggedKey) key).getKey() : key;
+    }
+
+    /**
+     * 带标签的缓存键，相等性只取决于原始键
+     */
+    public static final class TaggedKey {
+
+        private final Object key;
+        private final List<String> tags;
+
+        private TaggedKey(Object key, List<String> tags) {
+            this.key = key;
+            this.tags = tags;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || other instanceof TaggedKey && Objects.equals(key, ((TaggedKey) other).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key);
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(key);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.archive.management.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 二级缓存
+ * L1 为进程内 Caffeine 缓存，L2 为 Redis 缓存：读时先查 L1，未命中再查 L2 并回填 L1；
+ * 写入、失效、清空同时作用于两级，并通过 Redis 发布订阅通知其它节点失效各自的 L1。
+ * 带标签的键（{@link CacheTags.TaggedKey}）写入时登记标签，以原始键存储；
+ * 同步加载时同一键的并发未命中只有一个线程执行加载，其余线程等待其结果。
+ * L2 读写失败（Redis 不可用、值无法序列化等）时退化为只用 L1，不影响调用方
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private final Cache redisCache;
+    private final BiConsumer<String, Object> invalidationPublisher;
+    private final BiConsumer<String, CacheTags.TaggedKey> tagRegistrar;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param name                  缓存名称
+     * @param localCache            L1 本地缓存
+     * @param redisCache            L2 Redis 缓存
+     * @param invalidationPublisher 失效广播（缓存名称, 键；键为 null 表示清空）
+     * @param tagRegistrar          标签登记（缓存名称, 带标签的键）
+     */
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+                         Cache redisCache,
+                         BiConsumer<String, Object> invalidationPublisher,
+                         BiConsumer<String, CacheTags.TaggedKey> tagRegistrar) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.tagRegistrar = tagRegistrar;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 返回 L1 本地缓存，便于统计命中率
+     */
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            return value;
+        }
+        value = getRemote(key);
+        if (value != null) {
+            localCache.put(localKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(localKey, flight);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+        // 加载放在 Caffeine 的计算锁之外，加载函数内访问本缓存的其他键不会互相阻塞
+        try {
+            Object loaded = load(key, localKey, valueLoader);
+            flight.complete(loaded);
+            return (T) loaded;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        putRemote(key, value);
+        localCache.put(localKey(key), value);
+        registerTags(key);
+        invalidationPublisher.accept(name, CacheTags.plainKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(CacheTags.plainKey(key));
+        localCache.invalidate(localKey(key));
+        invalidationPublisher.accept(name, CacheTags.plainKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * 仅失效本节点 L1（处理其它节点的失效广播）
+     *
+     * @param key 缓存键，为 null 时清空
+     */
+    public void invalidateLocal(Object key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(localKey(key));
+        }
+    }
+
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        Object cached = getRemote(key);
+        if (cached != null) {
+            localCache.put(localKey, cached);
+            return cached;
+        }
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (loaded != null) {
+            putRemote(key, loaded);
+            localCache.put(localKey, loaded);
+            registerTags(key);
+        }
+        return loaded;
+    }
+
+    /**
+     * 读取 L2，读取或反序列化失败按未命中处理
+     */
+    private Object getRemote(Object key) {
+        try {
+            ValueWrapper wrapper = redisCache.get(CacheTags.plainKey(key));
+            return wrapper == null ? null : wrapper.get();
+        } catch (RuntimeException e) {
+            log.warn("读取二级缓存失败，按未命中处理: cache={}, key={}", name, key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入 L2，失败时只保留 L1，其它节点未命中后各自加载
+     */
+    private void putRemote(Object key, Object value) {
+        try {
+            redisCache.put(CacheTags.plainKey(key), value);
+        } catch (RuntimeException e) {
+            log.warn("写入二级缓存失败，仅保留本地缓存: cache={}, key={}, type={}",
+                name, key, value.getClass().getName(), e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void registerTags(Object key) {
+        if (key instanceof CacheTags.TaggedKey && !((CacheTags.TaggedKey) key).getTags().isEmpty()) {
+            tagRegistrar.accept(name, (CacheTags.TaggedKey) key);
+        }
+    }
+
+    /**
+     * L1 统一使用字符串键，保证广播到其它节点后能定位到同一条目
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
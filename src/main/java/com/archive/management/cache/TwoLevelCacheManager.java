@@ -0,0 +1,215 @@
+package com.archive.management.cache;
+
+import com.archive.management.config.CacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 二级缓存管理器
+ * 按缓存名称从 CacheProperties 读取 L1 容量/过期时间和 L2 TTL，
+ * 为每个缓存组装 Caffeine + Redis 的 TwoLevelCache，并负责失效消息的收发。
+ * 标签索引存放在 Redis 集合中（标签 -> 缓存名称与键），任一节点都能按标签失效其他节点写入的条目；
+ * 只有本地一级的缓存（如认证主体缓存）也可登记到同一失效频道，由各节点按名称分发
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    /** 登记标签，标签集合的过期时间只延长不缩短 */
+    private static final DefaultRedisScript<Long> TAG_REGISTER_SCRIPT = new DefaultRedisScript<>(
+        "for i = 1, #KEYS do " +
+        "  redis.call('SADD', KEYS[i], ARGV[1]) " +
+        "  if redis.call('TTL', KEYS[i]) < tonumber(ARGV[2]) then " +
+        "    redis.call('EXPIRE', KEYS[i], ARGV[2]) " +
+        "  end " +
+        "end " +
+        "return 1", Long.class);
+
+    /** 取出并删除标签集合，避免取出后新登记的条目被一并删除 */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final DefaultRedisScript<List> TAG_DRAIN_SCRIPT = new DefaultRedisScript<>(
+        "local members = {} " +
+        "for i = 1, #KEYS do " +
+        "  for _, member in ipairs(redis.call('SMEMBERS', KEYS[i])) do " +
+        "    table.insert(members, member) " +
+        "  end " +
+        "  redis.call('DEL', KEYS[i]) " +
+        "end " +
+        "return members", List.class);
+
+    private static final String TAG_MEMBER_SEPARATOR = "\n";
+
+    /** 当前节点标识，用于忽略自己发出的失效消息 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheProperties cacheProperties;
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Map<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<String>> localInvalidators = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheProperties cacheProperties,
+                                RedisCacheManager redisCacheManager,
+                                StringRedisTemplate stringRedisTemplate) {
+        this.cacheProperties = cacheProperties;
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        Collection<Cache> caches = new ArrayList<>();
+        for (String cacheName : cacheProperties.getCaches().keySet()) {
+            caches.add(createCache(cacheName));
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    /**
+     * 处理其它节点发来的失效消息
+     *
+     * @param message 失效消息
+     */
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (message == null || nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        TwoLevelCache cache = twoLevelCaches.get(message.getCacheName());
+        if (cache != null) {
+            cache.invalidateLocal(message.getKey());
+            log.debug("收到缓存失效广播: cache={}, key={}", message.getCacheName(), message.getKey());
+            return;
+        }
+        Consumer<String> invalidator = localInvalidators.get(message.getCacheName());
+        if (invalidator != null) {
+            invalidator.accept(message.getKey());
+            log.debug("收到本地缓存失效广播: cache={}, key={}", message.getCacheName(), message.getKey());
+        }
+    }
+
+    /**
+     * 登记只有本地一级的缓存，收到其它节点对该名称的失效消息时回调
+     *
+     * @param cacheName   缓存名称，不能与二级缓存重名
+     * @param invalidator 失效回调（键；键为 null 表示清空）
+     */
+    public void registerLocalCache(String cacheName, Consumer<String> invalidator) {
+        localInvalidators.put(cacheName, invalidator);
+    }
+
+    /**
+     * 向其它节点广播失效消息（供只有本地一级的缓存使用）
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存键，为 null 表示清空
+     */
+    public void broadcastInvalidation(String cacheName, Object key) {
+        publishInvalidation(cacheName, key);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 按标签失效缓存条目（立即执行，事务内调用方应自行延迟到提交后）
+     *
+     * @param tags 标签
+     * @return 失效的条目数
+     */
+    @SuppressWarnings("unchecked")
+    public int evictTags(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            keys.add(cacheProperties.getTagKeyPrefix() + tag);
+        }
+        List<Object> members = stringRedisTemplate.execute(TAG_DRAIN_SCRIPT, keys);
+        if (members == null) {
+            return 0;
+        }
+        int evicted = 0;
+        for (Object member : members) {
+            String[] parts = String.valueOf(member).split(TAG_MEMBER_SEPARATOR, 2);
+            if (parts.length == 2) {
+                createCache(parts[0]).evict(parts[1]);
+                evicted++;
+            }
+        }
+        log.debug("按标签失效缓存: tags={}, entries={}", tags, evicted);
+        return evicted;
+    }
+
+    /**
+     * 登记带标签的缓存条目
+     */
+    private void registerTags(String cacheName, CacheTags.TaggedKey key) {
+        try {
+            List<String> keys = new ArrayList<>(key.getTags().size());
+            for (String tag : key.getTags()) {
+                keys.add(cacheProperties.getTagKeyPrefix() + tag);
+            }
+            CacheProperties.CacheConfig config = cacheProperties.getCaches()
+                .getOrDefault(cacheName, cacheProperties.getDefaultConfig());
+            stringRedisTemplate.execute(TAG_REGISTER_SCRIPT, keys,
+                cacheName + TAG_MEMBER_SEPARATOR + key.getKey(), String.valueOf(config.getTtl().getSeconds()));
+        } catch (Exception e) {
+            // 未登记的条目不会被标签失效，最迟在 TTL 到期后恢复一致
+            log.warn("登记缓存标签失败: cache={}, key={}, tags={}", cacheName, key, key.getTags(), e);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        return twoLevelCaches.computeIfAbsent(name, cacheName -> {
+            CacheProperties.CacheConfig config = cacheProperties.getCaches()
+                .getOrDefault(cacheName, cacheProperties.getDefaultConfig());
+
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .expireAfterAccess(config.getExpireAfterAccess());
+            if (config.isRecordStats()) {
+                builder.recordStats();
+            }
+
+            Cache redisCache = redisCacheManager.getCache(cacheName);
+            log.info("初始化二级缓存: name={}, l1MaximumSize={}, l2Ttl={}",
+                cacheName, config.getMaximumSize(), config.getTtl());
+            return new TwoLevelCache(cacheName, builder.build(), redisCache, this::publishInvalidation, this::registerTags);
+        });
+    }
+
+    private void publishInvalidation(String cacheName, Object key) {
+        try {
+            CacheInvalidationMessage message = new CacheInvalidationMessage(
+                nodeId, cacheName, key == null ? null : TwoLevelCache.localKey(key));
+            stringRedisTemplate.convertAndSend(cacheProperties.getInvalidationTopic(), message.encode());
+        } catch (Exception e) {
+            // 广播失败时其它节点的 L1 最迟在过期后恢复一致
+            log.warn("发布缓存失效消息失败: cache={}, key={}", cacheName, key, e);
+        }
+    }
+}
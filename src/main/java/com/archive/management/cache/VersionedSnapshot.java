@@ -0,0 +1,77 @@
+package com.archive.management.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 带版本号的只读快照
+ * 数据变更时调用 invalidate 递增版本号，下次读取发现版本落后（或超过最长存活时间）才重建；
+ * 读取最新快照无锁，重建串行执行。快照记录的是开始构建时的版本号，
+ * 构建期间发生的变更会让下一次读取再次重建
+ *
+ * @param <T> 快照内容类型，应为不可变或不再修改的对象
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public class VersionedSnapshot<T> {
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Entry<T> current;
+
+    /**
+     * 取快照，版本落后或超过最长存活时间时重建
+     *
+     * @param builder   构建函数
+     * @param maxAgeMs  最长存活时间（毫秒），用于兜底其他节点的变更，小于等于0表示不限
+     * @return 快照内容
+     */
+    public T get(Supplier<T> builder, long maxAgeMs) {
+        Entry<T> entry = current;
+        if (isFresh(entry, maxAgeMs)) {
+            return entry.value;
+        }
+        synchronized (this) {
+            entry = current;
+            if (isFresh(entry, maxAgeMs)) {
+                return entry.value;
+            }
+            long buildVersion = version.get();
+            T value = builder.get();
+            current = new Entry<>(buildVersion, System.currentTimeMillis(), value);
+            return value;
+        }
+    }
+
+    /**
+     * 标记快照过期
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * 当前版本号
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private boolean isFresh(Entry<T> entry, long maxAgeMs) {
+        return entry != null
+            && entry.version == version.get()
+            && (maxAgeMs <= 0 || System.currentTimeMillis() - entry.builtAt < maxAgeMs);
+    }
+
+    private static final class Entry<T> {
+        private final long version;
+        private final long builtAt;
+        private final T value;
+
+        private Entry(long version, long builtAt, T value) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.value = value;
+        }
+    }
+}
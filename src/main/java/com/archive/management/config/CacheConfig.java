@@ -1,30 +1,33 @@
 package com.archive.management.config;
 
-import org.springframework.cache.CacheManager;
+import com.archive.management.cache.CacheInvalidationMessage;
+import com.archive.management.cache.TwoLevelCacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
-import org.springframework.cache.support.CompositeCacheManager;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 多级缓存配置类
- * 实现本地缓存 + Redis分布式缓存的多级缓存架构
+ * 实现本地缓存 + Redis分布式缓存的二级缓存架构，L1 失效通过 Redis 发布订阅广播到所有节点
  * 
  * @author Archive Management System
  * @version 1.0
@@ -53,84 +56,58 @@ public class CacheConfig {
     }
 
     /**
-     * 本地缓存管理器 (Caffeine)
+     * Redis缓存管理器（二级缓存的 L2）
+     * 各缓存的 TTL 取自 archive.cache.caches，未配置的使用 archive.cache.default-config；
+     * 键值序列化与 RedisTemplate 一致，缓存的 DTO 无需实现 Serializable
      */
     @Bean
-    public CaffeineCacheManager localCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(Duration.ofMinutes(5))
-                .expireAfterAccess(Duration.ofMinutes(2))
-                .recordStats());
-        return cacheManager;
-    }
-
-    /**
-     * Redis缓存管理器
-     */
-    @Bean
-    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheManager.Builder builder = RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                        .entryTtl(Duration.ofMinutes(30))
-                        .disableCachingNullValues());
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               CacheProperties cacheProperties) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(cacheProperties.getDefaultConfig().getTtl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericJackson2JsonRedisSerializer()))
+                .disableCachingNullValues();
         
         // 配置不同缓存的TTL
-        Map<String, org.springframework.data.redis.cache.RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        cacheProperties.getCaches().forEach((cacheName, config) ->
+                cacheConfigurations.put(cacheName, defaults.entryTtl(config.getTtl())));
         
-        // 用户缓存 - 30分钟
-        cacheConfigurations.put("users", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)));
-        
-        // 权限缓存 - 1小时
-        cacheConfigurations.put("permissions", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)));
-        
-        // 角色缓存 - 1小时
-        cacheConfigurations.put("roles", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)));
-        
-        // 部门缓存 - 2小时
-        cacheConfigurations.put("departments", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(2)));
-        
-        // 档案缓存 - 15分钟
-        cacheConfigurations.put("archives", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(15)));
-        
-        // 配置缓存 - 2小时
-        cacheConfigurations.put("config", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(2)));
-        
-        // 统计缓存 - 5分钟
-        cacheConfigurations.put("statistics", org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(5)));
-        
-        builder.withInitialCacheConfigurations(cacheConfigurations);
-        
-        return builder.build();
+        return RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(cacheConfigurations)
+                .build();
     }
 
     /**
-     * 复合缓存管理器 - 多级缓存
+     * 二级缓存管理器 - L1 Caffeine + L2 Redis
+     * 事务感知：事务内的写入和失效在提交后执行
      */
     @Bean
     @Primary
-    public CacheManager cacheManager(CaffeineCacheManager localCacheManager, 
-                                   RedisCacheManager redisCacheManager) {
-        CompositeCacheManager compositeCacheManager = new CompositeCacheManager();
-        compositeCacheManager.setCacheManagers(Arrays.asList(localCacheManager, redisCacheManager));
-        compositeCacheManager.setFallbackToNoOpCache(true);
-        return compositeCacheManager;
+    public TwoLevelCacheManager cacheManager(CacheProperties cacheProperties,
+                                             RedisCacheManager redisCacheManager,
+                                             StringRedisTemplate stringRedisTemplate) {
+        TwoLevelCacheManager cacheManager =
+                new TwoLevelCacheManager(cacheProperties, redisCacheManager, stringRedisTemplate);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
     }
 
     /**
-     * 缓存配置属性
+     * 订阅二级缓存失效广播，收到其它节点的消息后失效本节点 L1
      */
     @Bean
-    public CacheProperties cacheProperties() {
-        return new CacheProperties();
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            CacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> cacheManager.onInvalidation(
+                        CacheInvalidationMessage.decode(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(cacheProperties.getInvalidationTopic()));
+        return container;
     }
 
     /**
@@ -33,6 +33,16 @@ public class CacheProperties {
      */
     private Statistics statistics = new Statistics();
 
+    /**
+     * 二级缓存失效广播的 Redis 频道
+     */
+    private String invalidationTopic = "archive:cache:invalidation";
+
+    /**
+     * 缓存标签索引的 Redis 键前缀
+     */
+    private String tagKeyPrefix = "archive:cache:tag:";
+
     public CacheConfig getDefaultConfig() {
         return defaultConfig;
     }
@@ -57,6 +67,22 @@ public class CacheProperties {
         this.statistics = statistics;
     }
 
+    public String getInvalidationTopic() {
+        return invalidationTopic;
+    }
+
+    public void setInvalidationTopic(String invalidationTopic) {
+        this.invalidationTopic = invalidationTopic;
+    }
+
+    public String getTagKeyPrefix() {
+        return tagKeyPrefix;
+    }
+
+    public void setTagKeyPrefix(String tagKeyPrefix) {
+        this.tagKeyPrefix = tagKeyPrefix;
+    }
+
     /**
      * 缓存配置
      */
@@ -4,7 +4,6 @@ import com.archive.management.config.properties.PerformanceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -131,6 +130,46 @@ public class PerformanceConfig implements WebMvcConfigurer {
         return executor;
     }
 
+    /**
+     * 流式导出取数执行器
+     * 不设等待队列且不在调用线程执行：取数任务会阻塞在批次队列上，
+     * 若由写出线程自己执行会造成死锁，线程耗尽时由导出服务回退为顺序导出
+     */
+    @Bean("exportExecutor")
+    public Executor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(performanceProperties.getExport().getCorePoolSize());
+        executor.setMaxPoolSize(performanceProperties.getExport().getMaxPoolSize());
+        executor.setQueueCapacity(0);
+        executor.setKeepAliveSeconds(performanceProperties.getExport().getKeepAliveSeconds());
+        executor.setThreadNamePrefix("export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 文件备份压缩执行器
+     * 线程数默认与CPU核数相同，队列满时由备份线程自行压缩，形成自然背压
+     */
+    @Bean("backupExecutor")
+    public Executor backupExecutor() {
+        int poolSize = performanceProperties.getBackup().resolvePoolSize();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(performanceProperties.getBackup().getQueueCapacity());
+        executor.setKeepAliveSeconds(performanceProperties.getBackup().getKeepAliveSeconds());
+        executor.setThreadNamePrefix("backup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 配置异步支持
      */
@@ -209,224 +248,4 @@ public class PerformanceConfig implements WebMvcConfigurer {
             }
         }
     }
-
-    /**
-     * 性能配置属性
-     */
-    @ConfigurationProperties(prefix = "archive.performance")
-    public static class PerformanceProperties {
-        private Async async = new Async();
-        private Scheduled scheduled = new Scheduled();
-        private FileUpload fileUpload = new FileUpload();
-        private Search search = new Search();
-        private BatchOperation batchOperation = new BatchOperation();
-
-        public Async getAsync() {
-            return async;
-        }
-
-        public void setAsync(Async async) {
-            this.async = async;
-        }
-
-        public Scheduled getScheduled() {
-            return scheduled;
-        }
-
-        public void setScheduled(Scheduled scheduled) {
-            this.scheduled = scheduled;
-        }
-
-        public FileUpload getFileUpload() {
-            return fileUpload;
-        }
-
-        public void setFileUpload(FileUpload fileUpload) {
-            this.fileUpload = fileUpload;
-        }
-
-        public Search getSearch() {
-            return search;
-        }
-
-        public void setSearch(Search search) {
-            this.search = search;
-        }
-
-        public BatchOperation getBatchOperation() {
-            return batchOperation;
-        }
-
-        public void setBatchOperation(BatchOperation batchOperation) {
-            this.batchOperation = batchOperation;
-        }
-
-        public static class Async {
-            private int corePoolSize = 5;
-            private int maxPoolSize = 20;
-            private int queueCapacity = 100;
-            private int keepAliveSeconds = 60;
-
-            public int getCorePoolSize() {
-                return corePoolSize;
-            }
-
-            public void setCorePoolSize(int corePoolSize) {
-                this.corePoolSize = corePoolSize;
-            }
-
-            public int getMaxPoolSize() {
-                return maxPoolSize;
-            }
-
-            public void setMaxPoolSize(int maxPoolSize) {
-                this.maxPoolSize = maxPoolSize;
-            }
-
-            public int getQueueCapacity() {
-                return queueCapacity;
-            }
-
-            public void setQueueCapacity(int queueCapacity) {
-                this.queueCapacity = queueCapacity;
-            }
-
-            public int getKeepAliveSeconds() {
-                return keepAliveSeconds;
-            }
-
-            public void setKeepAliveSeconds(int keepAliveSeconds) {
-                this.keepAliveSeconds = keepAliveSeconds;
-            }
-        }
-
-        public static class Scheduled {
-            private int poolSize = 5;
-
-            public int getPoolSize() {
-                return poolSize;
-            }
-
-            public void setPoolSize(int poolSize) {
-                this.poolSize = poolSize;
-            }
-        }
-
-        public static class FileUpload {
-            private int corePoolSize = 3;
-            private int maxPoolSize = 10;
-            private int queueCapacity = 50;
-            private int keepAliveSeconds = 60;
-
-            public int getCorePoolSize() {
-                return corePoolSize;
-            }
-
-            public void setCorePoolSize(int corePoolSize) {
-                this.corePoolSize = corePoolSize;
-            }
-
-            public int getMaxPoolSize() {
-                return maxPoolSize;
-            }
-
-            public void setMaxPoolSize(int maxPoolSize) {
-                this.maxPoolSize = maxPoolSize;
-            }
-
-            public int getQueueCapacity() {
-                return queueCapacity;
-            }
-
-            public void setQueueCapacity(int queueCapacity) {
-                this.queueCapacity = queueCapacity;
-            }
-
-            public int getKeepAliveSeconds() {
-                return keepAliveSeconds;
-            }
-
-            public void setKeepAliveSeconds(int keepAliveSeconds) {
-                this.keepAliveSeconds = keepAliveSeconds;
-            }
-        }
-
-        public static class Search {
-            private int corePoolSize = 5;
-            private int maxPoolSize = 15;
-            private int queueCapacity = 100;
-            private int keepAliveSeconds = 60;
-
-            public int getCorePoolSize() {
-                return corePoolSize;
-            }
-
-            public void setCorePoolSize(int corePoolSize) {
-                this.corePoolSize = corePoolSize;
-            }
-
-            public int getMaxPoolSize() {
-                return maxPoolSize;
-            }
-
-            public void setMaxPoolSize(int maxPoolSize) {
-                this.maxPoolSize = maxPoolSize;
-            }
-
-            public int getQueueCapacity() {
-                return queueCapacity;
-            }
-
-            public void setQueueCapacity(int queueCapacity) {
-                this.queueCapacity = queueCapacity;
-            }
-
-            public int getKeepAliveSeconds() {
-                return keepAliveSeconds;
-            }
-
-            public void setKeepAliveSeconds(int keepAliveSeconds) {
-                this.keepAliveSeconds = keepAliveSeconds;
-            }
-        }
-
-        public static class BatchOperation {
-            private int corePoolSize = 3;
-            private int maxPoolSize = 8;
-            private int queueCapacity = 50;
-            private int keepAliveSeconds = 60;
-
-            public int getCorePoolSize() {
-                return corePoolSize;
-            }
-
-            public void setCorePoolSize(int corePoolSize) {
-                this.corePoolSize = corePoolSize;
-            }
-
-            public int getMaxPoolSize() {
-                return maxPoolSize;
-            }
-
-            public void setMaxPoolSize(int maxPoolSize) {
-                this.maxPoolSize = maxPoolSize;
-            }
-
-            public int getQueueCapacity() {
-                return queueCapacity;
-            }
-
-            public void setQueueCapacity(int queueCapacity) {
-                this.queueCapacity = queueCapacity;
-            }
-
-            public int getKeepAliveSeconds() {
-                return keepAliveSeconds;
-            }
-
-            public void setKeepAliveSeconds(int keepAliveSeconds) {
-                this.keepAliveSeconds = keepAliveSeconds;
-            }
-        }
-    }
 }
@@ -37,6 +37,61 @@ public class PerformanceProperties {
      */
     private BatchOperation batchOperation = new BatchOperation();
 
+    /**
+     * 流式导出配置
+     */
+    private Export export = new Export();
+
+    /**
+     * 文件备份配置
+     */
+    private Backup backup = new Backup();
+
+    /**
+     * 访问计数写回配置
+     */
+    private Counter counter = new Counter();
+
+    /**
+     * 批量通知投递配置
+     */
+    private Notification notification = new Notification();
+
+    /**
+     * 统计汇总配置
+     */
+    private Statistics statistics = new Statistics();
+
+    /**
+     * 分块批处理任务配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 审计日志异步写入配置
+     */
+    private Audit audit = new Audit();
+
+    /**
+     * 接口限流配置
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * 系统配置快照配置
+     */
+    private ConfigSnapshot configSnapshot = new ConfigSnapshot();
+
+    /**
+     * 接口延迟直方图配置
+     */
+    private Latency latency = new Latency();
+
+    /**
+     * 方法耗时采集配置
+     */
+    private Profiling profiling = new Profiling();
+
     /**
      * 异步配置
      */
@@ -98,6 +153,12 @@ public class PerformanceProperties {
         
         /** 保持活跃时间(秒) */
         private Integer keepAliveSeconds = 60;
+
+        /** 是否启用内存倒排索引 */
+        private Boolean indexEnabled = true;
+
+        /** 索引构建时每批读取的档案数 */
+        private Integer indexBuildBatchSize = 2000;
     }
 
     /**
@@ -116,6 +177,282 @@ public class PerformanceProperties {
         
         /** 保持活跃时间(秒) */
         private Integer keepAliveSeconds = 60;
+
+        /** 分块大小：每个分块一条多行语句、一个事务 */
+        private Integer chunkSize = 500;
+
+        /** 已结束任务的进度保留时间(分钟) */
+        private Integer progressRetentionMinutes = 30;
     }
-}
 
+    /**
+     * 流式导出配置
+     */
+    @Data
+    public static class Export {
+        /** 是否启用取数与写出并行的流水线模式 */
+        private Boolean pipelineEnabled = true;
+
+        /** 取数阶段与写出阶段之间最多缓冲的批次数 */
+        private Integer pipelineQueueCapacity = 4;
+
+        /** 核心线程池大小 */
+        private Integer corePoolSize = 2;
+
+        /** 最大线程池大小（线程耗尽时回退为顺序导出） */
+        private Integer maxPoolSize = 8;
+
+        /** 保持活跃时间(秒) */
+        private Integer keepAliveSeconds = 60;
+    }
+
+    /**
+     * 文件备份配置
+     */
+    @Data
+    public static class Backup {
+        /** 压缩线程数，0 表示与CPU核数相同 */
+        private Integer poolSize = 0;
+
+        /** 线程池队列容量（队列满时由备份线程自行压缩） */
+        private Integer queueCapacity = 32;
+
+        /** 数据块大小(KB) */
+        private Integer chunkSizeKb = 4096;
+
+        /** 同时在途的数据块数上限，0 表示线程数的2倍 */
+        private Integer maxInFlightChunks = 0;
+
+        /** 压缩级别(0-9) */
+        private Integer compressionLevel = 6;
+
+        /** 保持活跃时间(秒) */
+        private Integer keepAliveSeconds = 60;
+
+        /**
+         * 实际使用的压缩线程数
+         */
+        public int resolvePoolSize() {
+            return poolSize == null || poolSize <= 0 ? Runtime.getRuntime().availableProcessors() : poolSize;
+        }
+    }
+
+    /**
+     * 访问计数写回配置
+     */
+    @Data
+    public static class Counter {
+        /** 是否启用写回缓冲，关闭后每次访问直接更新数据库 */
+        private Boolean enabled = true;
+
+        /** 写回间隔(毫秒) */
+        private Long flushIntervalMs = 5000L;
+
+        /** 每条批量 UPDATE 包含的ID数 */
+        private Integer flushBatchSize = 500;
+
+        /** 是否把未写回的增量记录到 Redis 日志，用于异常退出后补写 */
+        private Boolean journalEnabled = true;
+
+        /** 实例标识，用于区分各实例的日志；为空时使用 主机名:端口，多实例部署应配置固定值 */
+        private String instanceId = "";
+    }
+
+    /**
+     * 批量通知投递配置
+     */
+    @Data
+    public static class Notification {
+        /** 每条多行 INSERT 包含的通知数 */
+        private Integer chunkSize = 500;
+
+        /** 是否启用未读数计数器，关闭后每次按库 COUNT */
+        private Boolean unreadCounterEnabled = true;
+
+        /** 本地未读数的最长复用时间(毫秒)，超过后回 Redis 读取 */
+        private Long unreadLocalTtlMs = 2000L;
+
+        /** Redis 未读数键的过期时间(秒)，每次调整时续期 */
+        private Long unreadRedisTtlSeconds = 86400L;
+
+        /** 按库校准未读数的间隔(毫秒) */
+        private Long unreadReconcileIntervalMs = 300000L;
+
+        /** 本地未读数闲置多久(毫秒)后移除，在线用户不移除 */
+        private Long unreadIdleEvictMs = 600000L;
+    }
+
+    /**
+     * 统计汇总配置
+     */
+    @Data
+    public static class Statistics {
+        /** 是否启用汇总，关闭后不写入增量也不补算 */
+        private Boolean rollupEnabled = true;
+
+        /** 增量写入汇总表的间隔(毫秒) */
+        private Long flushIntervalMs = 5000L;
+
+        /** 按原始表补算的间隔(毫秒) */
+        private Long catchUpIntervalMs = 300000L;
+
+        /** 每次补算向前重算的小时数，覆盖迟到的数据和状态变化 */
+        private Integer lookbackHours = 3;
+
+        /** 单次重算窗口的最大小时数，首次补算历史数据时分多个窗口完成 */
+        private Integer maxCatchUpHours = 744;
+    }
+
+    /**
+     * 分块批处理任务配置
+     */
+    @Data
+    public static class Batch {
+        /** 每块读取和提交的记录数 */
+        private Integer chunkSize = 200;
+
+        /** 集群租约过期时间(秒)，每提交一块续期一次，应大于单块的最长处理时间 */
+        private Long leaseTtlSeconds = 600L;
+
+        /** 相邻两块之间的停顿(毫秒)，避免长时间占满数据库 */
+        private Long chunkPauseMs = 50L;
+    }
+
+    /**
+     * 审计日志异步写入配置
+     */
+    @Data
+    public static class Audit {
+        /** 是否异步批量写入，关闭时在调用线程同步写入 */
+        private Boolean asyncEnabled = true;
+
+        /** 环形缓冲容量，按2的幂向上取整 */
+        private Integer bufferCapacity = 8192;
+
+        /** 每条多行 INSERT 的最大条数，缓冲达到该数量时立即写入 */
+        private Integer batchSize = 200;
+
+        /** 最长写入间隔(毫秒) */
+        private Long flushIntervalMs = 200L;
+
+        /** 缓冲已满时的策略：BLOCK-等待写入线程腾出空间，超时后落盘；SPILL-直接落盘 */
+        private String overflowPolicy = "BLOCK";
+
+        /** BLOCK 策略的最长等待时间(毫秒) */
+        private Long blockTimeoutMs = 50L;
+
+        /** 落盘目录，为空时使用系统临时目录下的 archive-audit-spill */
+        private String spillDir = "";
+
+        /** 落盘文件的补写间隔(毫秒) */
+        private Long spillReplayIntervalMs = 30000L;
+
+        /** 落盘文件因数据库不可用以外的原因补写失败的次数上限，达到后改名为 .failed 隔离 */
+        private Integer spillMaxReplayAttempts = 5;
+
+        /** 单批写入失败后的重试次数，仍失败则落盘 */
+        private Integer maxRetries = 3;
+
+        /** 停机时等待缓冲写完的最长时间(毫秒) */
+        private Long shutdownTimeoutMs = 10000L;
+    }
+
+    /**
+     * 接口限流配置
+     */
+    @Data
+    public static class RateLimit {
+        /** 是否启用限流 */
+        private Boolean enabled = true;
+
+        /** 是否通过 Redis 汇总集群配额，关闭时只按本节点令牌桶限流 */
+        private Boolean clusterEnabled = true;
+
+        /** 每次向 Redis 领取的配额为限额的几分之一 */
+        private Integer leaseDivisor = 10;
+
+        /** 每次向 Redis 领取配额的上限 */
+        private Integer maxLeaseSize = 20;
+
+        /** 预领配额的有效期(毫秒)，过期未用的份数作废 */
+        private Long leaseTtlMs = 5000L;
+
+        /** 本地最多跟踪的客户端与路径组合数 */
+        private Long maxTrackedKeys = 100000L;
+    }
+
+    /**
+     * 系统配置快照配置
+     */
+    @Data
+    public static class ConfigSnapshot {
+        /** 是否从内存快照读取系统配置，关闭时每次读取查询数据库 */
+        private Boolean enabled = true;
+    }
+
+    /**
+     * 接口延迟直方图配置
+     */
+    @Data
+    public static class Latency {
+        /** 是否记录接口延迟 */
+        private Boolean enabled = true;
+
+        /** 统计窗口(毫秒) */
+        private Long windowMs = 60000L;
+
+        /** 窗口划分的时间片数，窗口按时间片滚动 */
+        private Integer slices = 6;
+
+        /** 最多单独统计的接口数，超出的接口合并统计 */
+        private Integer maxEndpoints = 500;
+
+        /** 是否向 Redis 发布本节点快照，用于汇总集群延迟 */
+        private Boolean clusterEnabled = true;
+
+        /** 发布本节点快照的间隔(毫秒) */
+        private Long publishIntervalMs = 10000L;
+
+        /** 慢请求阈值(毫秒)，超过的请求另外记录明细 */
+        private Long slowThresholdMs = 5000L;
+
+        /** 实例标识，为空时使用 主机名:端口 */
+        private String instanceId = "";
+    }
+
+    /**
+     * 方法耗时采集配置
+     */
+    @Data
+    public static class Profiling {
+        /** 是否采集服务、数据访问和控制器方法的耗时 */
+        private Boolean enabled = true;
+
+        /** 写入 Timer 的调用比例(0~1)，调用次数、异常和慢调用始终全量记录 */
+        private Double sampleRate = 1.0;
+
+        /** 服务方法慢调用阈值(毫秒) */
+        private Long slowServiceMs = 1000L;
+
+        /** 数据访问方法慢调用阈值(毫秒) */
+        private Long slowRepositoryMs = 500L;
+
+        /** 控制器方法慢调用阈值(毫秒) */
+        private Long slowControllerMs = 2000L;
+
+        /** 保留的最近慢调用条数 */
+        private Integer slowCallCapacity = 256;
+
+        /** 慢调用是否记录参数，参数名含 password、secret、token 的始终脱敏 */
+        private Boolean captureArguments = true;
+
+        /** 是否记录参数值（toString），关闭时只记录类型和长度；开启时 toString 中的敏感字段同样脱敏 */
+        private Boolean argumentValues = false;
+
+        /** 单个参数记录的最大长度 */
+        private Integer maxArgumentLength = 200;
+
+        /** 慢调用记录的调用栈最大深度 */
+        private Integer maxStackDepth = 20;
+    }
+}
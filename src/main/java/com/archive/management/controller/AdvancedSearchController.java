@@ -95,6 +95,27 @@ public class AdvancedSearchController {
         }
     }
 
+    /**
+     * 全文搜索档案（分页，按相关度排序）
+     */
+    @GetMapping("/archives/fulltext/page")
+    @Operation(summary = "分页全文搜索档案", description = "根据关键词全文搜索档案，按相关度排序分页返回")
+    @PreAuthorize("hasAuthority('archive:read')")
+    public ResponseEntity<ApiResponse<IPage<Archive>>> fullTextSearchArchivesPage(
+            @Parameter(description = "搜索关键词") @RequestParam String keyword,
+            @Parameter(description = "删除标记过滤，不传则不过滤") @RequestParam(required = false) Boolean deleted,
+            @Parameter(description = "页码") @RequestParam(defaultValue = "1") int current,
+            @Parameter(description = "页大小") @RequestParam(defaultValue = "10") int size) {
+        try {
+            Page<Archive> page = new Page<>(current, size);
+            IPage<Archive> results = advancedSearchService.fullTextSearchArchives(keyword, deleted, page);
+            return ResponseEntity.ok(ApiResponse.success(results, "搜索成功"));
+        } catch (Exception e) {
+            log.error("分页全文搜索档案失败", e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("搜索失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 全文搜索用户
      */
@@ -1,5 +1,6 @@
 package com.archive.management.controller;
 
+import com.archive.management.counter.AccessCounterBuffer;
 import com.archive.management.entity.Archive;
 import com.archive.management.service.ArchiveService;
 import com.baomidou.mybatisplus.core.metadata.IPage;
@@ -43,6 +44,7 @@ import java.util.Map;
 public class ArchiveController {
 
     private final ArchiveService archiveService;
+    private final AccessCounterBuffer accessCounterBuffer;
 
     /**
      * 创建档案
@@ -76,7 +78,7 @@ public class ArchiveController {
     public ResponseEntity<Map<String, Object>> getArchiveById(
             @Parameter(description = "档案ID") @PathVariable @NotNull @Positive Long id) {
         try {
-            Archive archive = archiveService.getArchiveById(id);
+            Archive archive = accessCounterBuffer.withPending(archiveService.getArchiveById(id));
             if (archive != null) {
                 return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -104,7 +106,7 @@ public class ArchiveController {
     public ResponseEntity<Map<String, Object>> getArchiveByNumber(
             @Parameter(description = "档案编号") @PathVariable @NotBlank String archiveNumber) {
         try {
-            Archive archive = archiveService.getArchiveByNumber(archiveNumber);
+            Archive archive = accessCounterBuffer.withPending(archiveService.getArchiveByNumber(archiveNumber));
             if (archive != null) {
                 return ResponseEntity.ok(Map.of(
                     "success", true,
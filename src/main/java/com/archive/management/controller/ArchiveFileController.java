@@ -1,6 +1,10 @@
 package com.archive.management.controller;
 
+import com.archive.management.counter.AccessCounterBuffer;
+import com.archive.management.download.DownloadResource;
+import com.archive.management.download.RangedDownloadEngine;
 import com.archive.management.entity.ArchiveFile;
+import com.archive.management.exception.ResourceNotFoundException;
 import com.archive.management.service.ArchiveFileService;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -16,13 +20,21 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +55,8 @@ import java.util.Map;
 public class ArchiveFileController {
 
     private final ArchiveFileService archiveFileService;
+    private final AccessCounterBuffer accessCounterBuffer;
+    private final RangedDownloadEngine rangedDownloadEngine;
 
     /**
      * 创建档案文件记录
@@ -76,7 +90,7 @@ public class ArchiveFileController {
     public ResponseEntity<Map<String, Object>> getArchiveFileById(
             @Parameter(description = "档案文件ID") @PathVariable @NotNull @Positive Long id) {
         try {
-            ArchiveFile archiveFile = archiveFileService.getArchiveFileById(id);
+            ArchiveFile archiveFile = accessCounterBuffer.withPending(archiveFileService.getArchiveFileById(id));
             if (archiveFile != null) {
                 return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -268,13 +282,57 @@ public class ArchiveFileController {
     public void downloadFile(
             @Parameter(description = "档案文件ID") @PathVariable @NotNull @Positive Long id,
             @Parameter(description = "下载人ID") @RequestParam @NotNull @Positive Long downloadedBy,
+            HttpServletRequest request,
             HttpServletResponse response) {
         try {
-            archiveFileService.downloadFile(id, downloadedBy, response);
+            ArchiveFile archiveFile = archiveFileService.getArchiveFileById(id);
+            if (archiveFile == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "文件不存在");
+                return;
+            }
+            int status = rangedDownloadEngine.download(request, response, toDownloadResource(archiveFile));
+            // 只有完整下载计入下载次数，续传分片和 304 不重复计数
+            if (status == HttpServletResponse.SC_OK) {
+                archiveFileService.incrementDownloadCount(id, downloadedBy);
+            }
+        } catch (ResourceNotFoundException e) {
+            log.warn("下载的文件不存在: id={}, error={}", id, e.getMessage());
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
         } catch (Exception e) {
             log.error("文件下载失败", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    /**
+     * 本地文件的长度和修改时间取自磁盘，数据库中的 fileSize 可能为空或已过期，
+     * 按其声明长度会导致空响应、截断或在响应头提交后读到文件末尾
+     */
+    private DownloadResource toDownloadResource(ArchiveFile archiveFile) throws IOException {
+        String fileName = archiveFile.getOriginalName() != null
+            ? archiveFile.getOriginalName() : archiveFile.getFileName();
+        if (archiveFile.getStorageType() == null || archiveFile.isLocalStorage()) {
+            Path file = Paths.get(archiveFileService.getFileDownloadPath(archiveFile));
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                throw ResourceNotFoundException.fileNotFound(archiveFile.getId());
+            }
+            return DownloadResource.ofFile(file, fileName, archiveFile.getMimeType(),
+                attributes.size(), attributes.lastModifiedTime().toMillis(), archiveFile.getFileMd5());
         }
+        LocalDateTime modified = archiveFile.getUpdateTime() != null
+            ? archiveFile.getUpdateTime() : archiveFile.getUploadTime();
+        long lastModified = modified != null
+            ? modified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        long length = archiveFile.getFileSize() != null ? archiveFile.getFileSize() : 0;
+        return DownloadResource.ofObject(archiveFile.getStoragePath() + "/" + archiveFile.getFileName(), fileName,
+            archiveFile.getMimeType(), length, lastModified, archiveFile.getFileMd5());
     }
 
     /**
@@ -12,6 +12,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -46,7 +48,8 @@ public class BatchOperationController {
             List<Long> archiveIds = (List<Long>) request.get("archiveIds");
             Integer newStatus = (Integer) request.get("status");
             
-            Map<String, Object> result = batchOperationService.batchUpdateArchiveStatus(archiveIds, newStatus);
+            String taskId = (String) request.get("taskId");
+            Map<String, Object> result = batchOperationService.batchUpdateArchiveStatus(taskId, archiveIds, newStatus);
             return ResponseEntity.ok(ApiResponse.success(result, "批量更新成功"));
         } catch (Exception e) {
             log.error("批量更新档案状态失败", e);
@@ -67,7 +70,8 @@ public class BatchOperationController {
             List<Long> archiveIds = (List<Long>) request.get("archiveIds");
             Long deletedBy = Long.valueOf(request.get("deletedBy").toString());
             
-            Map<String, Object> result = batchOperationService.batchDeleteArchives(archiveIds, deletedBy);
+            String taskId = (String) request.get("taskId");
+            Map<String, Object> result = batchOperationService.batchDeleteArchives(taskId, archiveIds, deletedBy);
             return ResponseEntity.ok(ApiResponse.success(result, "批量删除成功"));
         } catch (Exception e) {
             log.error("批量删除档案失败", e);
@@ -87,7 +91,8 @@ public class BatchOperationController {
             List<Long> userIds = (List<Long>) request.get("userIds");
             Integer newStatus = (Integer) request.get("status");
             
-            Map<String, Object> result = batchOperationService.batchUpdateUserStatus(userIds, newStatus);
+            String taskId = (String) request.get("taskId");
+            Map<String, Object> result = batchOperationService.batchUpdateUserStatus(taskId, userIds, newStatus);
             return ResponseEntity.ok(ApiResponse.success(result, "批量更新成功"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("批量更新失败: " + e.getMessage()));
@@ -183,7 +188,8 @@ public class BatchOperationController {
             @SuppressWarnings("unchecked")
             List<Long> roleIds = (List<Long>) request.get("roleIds");
             
-            Map<String, Object> result = batchOperationService.batchAssignRoles(userIds, roleIds);
+            String taskId = (String) request.get("taskId");
+            Map<String, Object> result = batchOperationService.batchAssignRoles(taskId, userIds, roleIds);
             return ResponseEntity.ok(ApiResponse.success(result, "批量分配角色成功"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("批量分配角色失败: " + e.getMessage()));
@@ -289,13 +295,23 @@ public class BatchOperationController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getBatchOperationProgress(
             @Parameter(description = "任务ID") @PathVariable String taskId) {
         try {
-            // 这里可以从Redis或数据库中获取任务进度
+            BatchOperationService.BatchProgress batchProgress = batchOperationService.getBatchProgress(taskId);
+            if (batchProgress == null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("任务不存在或已过期: " + taskId));
+            }
+
             Map<String, Object> progress = new HashMap<>();
             progress.put("taskId", taskId);
-            progress.put("status", "completed");
-            progress.put("progress", 100);
-            progress.put("message", "批量操作已完成");
-            
+            progress.put("status", batchProgress.getProcessedCount() >= batchProgress.getTotalCount() ? "completed" : "running");
+            progress.put("progress", batchProgress.getPercentage());
+            progress.put("total", batchProgress.getTotalCount());
+            progress.put("processed", batchProgress.getProcessedCount());
+            progress.put("successCount", batchProgress.getSuccessCount());
+            progress.put("failedCount", batchProgress.getFailureCount());
+            progress.put("currentBatch", batchProgress.getCurrentBatch());
+            progress.put("elapsedTime", batchProgress.getElapsedTime());
+            progress.put("estimatedTime", batchProgress.getEstimatedTime());
+
             return ResponseEntity.ok(ApiResponse.success(progress, "获取进度成功"));
         } catch (Exception e) {
             log.error("获取批量操作进度失败", e);
@@ -312,7 +328,9 @@ public class BatchOperationController {
     public ResponseEntity<ApiResponse<String>> cancelBatchOperation(
             @Parameter(description = "任务ID") @PathVariable String taskId) {
         try {
-            // 这里可以实现取消批量操作的逻辑
+            if (!batchOperationService.cancelBatchOperation(taskId)) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("任务不存在或已结束: " + taskId));
+            }
             return ResponseEntity.ok(ApiResponse.success("操作已取消", "批量操作已取消"));
         } catch (Exception e) {
             log.error("取消批量操作失败", e);
@@ -1,5 +1,7 @@
 package com.archive.management.controller;
 
+import com.archive.management.download.DownloadResource;
+import com.archive.management.download.RangedDownloadEngine;
 import com.archive.management.entity.ExportTask;
 import com.archive.management.service.ExportTaskService;
 import com.archive.management.service.MultiFormatExportService;
@@ -7,6 +9,7 @@ import com.archive.management.service.StreamExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +19,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URLEncoder;
@@ -40,6 +44,7 @@ public class ExportController {
     private final StreamExportService streamExportService;
     private final MultiFormatExportService multiFormatExportService;
     private final ObjectMapper objectMapper;
+    private final RangedDownloadEngine rangedDownloadEngine;
     
     /**
      * 创建导出任务
@@ -215,7 +220,8 @@ public class ExportController {
      */
     @GetMapping("/tasks/{taskId}/download")
     @Operation(summary = "下载导出文件", description = "下载已完成的导出文件")
-    public void downloadExportFile(@PathVariable String taskId, HttpServletResponse response) {
+    public void downloadExportFile(@PathVariable String taskId, HttpServletRequest request,
+                                   HttpServletResponse response) {
         try {
             ExportTask task = exportTaskService.getTaskById(taskId);
             
@@ -238,36 +244,18 @@ public class ExportController {
                 return;
             }
             
-            // 设置响应头
-            String fileName = URLEncoder.encode(task.getFileName(), StandardCharsets.UTF_8);
-            response.setContentType(getContentType(task.getFormat()));
-            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, 
-                "attachment; filename*=UTF-8''" + fileName);
-            response.setContentLength((int) file.length());
-            
-            // 读取文件并写入响应
-            try (FileInputStream fis = new FileInputStream(file);
-                 OutputStream os = response.getOutputStream()) {
-                
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-                os.flush();
-                
-                log.info("文件下载成功: taskId={}, fileName={}", taskId, task.getFileName());
-            }
+            // 支持断点续传和条件请求，文件内容由 transferTo 或容器 sendfile 输出
+            DownloadResource resource = DownloadResource.ofFile(file.toPath(), task.getFileName(),
+                getContentType(task.getFormat()), file.length(), file.lastModified(), null);
+            int status = rangedDownloadEngine.download(request, response, resource);
             
-            // 示例：返回文件内容
-            // try (OutputStream out = response.getOutputStream()) {
-            //     Files.copy(Paths.get(task.getFilePath()), out);
-            // }
-            
-            log.info("导出文件下载: taskId={}, fileName={}", taskId, task.getFileName());
+            log.info("导出文件下载: taskId={}, fileName={}, status={}", taskId, task.getFileName(), status);
             
         } catch (Exception e) {
             log.error("下载导出文件失败: taskId={}", taskId, e);
+            if (response.isCommitted()) {
+                return;
+            }
             try {
                 response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, 
                     "下载失败: " + e.getMessage());
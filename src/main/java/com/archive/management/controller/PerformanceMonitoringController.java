@@ -1,7 +1,11 @@
 package com.archive.management.controller;
 
+import com.archive.management.audit.AuditLogSink;
 import com.archive.management.common.ApiResponse;
 import com.archive.management.common.ResponseResult;
+import com.archive.management.monitor.MethodProfiler;
+import com.archive.management.ratelimit.HybridRateLimiter;
+import com.archive.management.scheduler.batch.ChunkedJobRunner;
 import com.archive.management.service.PerformanceMonitoringService;
 import com.archive.management.service.QueryOptimizationService;
 import com.archive.management.service.SmartCacheService;
@@ -15,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -36,6 +41,10 @@ public class PerformanceMonitoringController {
     private final QueryOptimizationService queryOptimizationService;
     private final SmartCacheService smartCacheService;
     private final PerformanceAnalysisService performanceAnalysisService;
+    private final ChunkedJobRunner chunkedJobRunner;
+    private final AuditLogSink auditLogSink;
+    private final HybridRateLimiter hybridRateLimiter;
+    private final MethodProfiler methodProfiler;
 
     @Operation(summary = "获取慢查询统计", description = "获取数据库慢查询统计信息")
     @GetMapping("/slow-queries")
@@ -197,4 +206,49 @@ public class PerformanceMonitoringController {
             return ResponseEntity.badRequest().body(ApiResponse.error("获取性能指标失败: " + e.getMessage()));
         }
     }
+
+    @Operation(summary = "获取批处理任务统计", description = "获取各分块批处理任务最近一次执行的进度与分块耗时")
+    @GetMapping("/batch-jobs")
+    @PreAuthorize("hasAuthority('performance:monitor')")
+    public ResponseResult<Map<String, Object>> getBatchJobStatistics() {
+        Map<String, Object> stats = chunkedJobRunner.getStatistics();
+        return ResponseResult.success("批处理任务统计获取成功", stats);
+    }
+
+    @Operation(summary = "获取审计日志写入统计", description = "获取审计日志异步写入的缓冲占用、写入、落盘与补写情况")
+    @GetMapping("/audit-sink")
+    @PreAuthorize("hasAuthority('performance:monitor')")
+    public ResponseResult<Map<String, Object>> getAuditSinkStatistics() {
+        Map<String, Object> stats = auditLogSink.getStatistics();
+        return ResponseResult.success("审计日志写入统计获取成功", stats);
+    }
+
+    @Operation(summary = "获取接口限流统计", description = "获取本地令牌桶与集群配额的放行、拒绝次数以及Redis调用次数")
+    @GetMapping("/rate-limit")
+    @PreAuthorize("hasAuthority('performance:monitor')")
+    public ResponseResult<Map<String, Object>> getRateLimitStatistics() {
+        Map<String, Object> stats = hybridRateLimiter.getStatistics();
+        return ResponseResult.success("接口限流统计获取成功", stats);
+    }
+
+    @Operation(summary = "获取接口延迟统计", description = "获取统计窗口内各接口的响应时间百分位、最大值与吞吐量")
+    @GetMapping("/latency")
+    @PreAuthorize("hasAuthority('performance:monitor')")
+    public ResponseResult<Map<String, Object>> getLatencyStatistics(
+            @Parameter(description = "是否汇总集群各节点")
+            @RequestParam(defaultValue = "false") boolean cluster) {
+        Map<String, Object> stats = performanceMonitoringService.getLatencyStatistics(cluster);
+        return ResponseResult.success("接口延迟统计获取成功", stats);
+    }
+
+    @Operation(summary = "获取最近慢调用", description = "获取服务、数据访问和控制器方法最近的慢调用及其参数与调用栈")
+    @GetMapping("/slow-calls")
+    @PreAuthorize("hasAuthority('performance:monitor')")
+    public ResponseResult<Map<String, Object>> getSlowCalls(
+            @Parameter(description = "返回条数")
+            @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> result = new LinkedHashMap<>(methodProfiler.getStatistics());
+        result.put("calls", methodProfiler.getSlowCalls(Math.max(1, limit)));
+        return ResponseResult.success("慢调用记录获取成功", result);
+    }
 }
@@ -0,0 +1,418 @@
+package com.archive.management.counter;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.Archive;
+import com.archive.management.entity.ArchiveFile;
+import com.archive.management.entity.Archive;
+import com.archive.management.mapper.ArchiveFileMapper;
+import com.archive.management.mapper.ArchiveMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 档案与文件访问计数写回缓冲
+ * 查看、下载次数先累加到按ID分散的 LongAdder，定时按ID升序合并成批量 UPDATE 写回数据库，
+ * 避免热门档案每次访问都争用同一行锁。每次累加前先 HINCRBY 到本实例的 Redis 日志哈希，
+ * 写回成功后再扣减，实例异常退出后由下次启动按日志补写；读取时合并尚未写回的增量
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class AccessCounterBuffer {
+
+    private static final String JOURNAL_KEY_PREFIX = "archive:counter:journal:";
+
+    /** 按 field/增量 成对扣减日志，扣减到0的字段删除 */
+    private static final DefaultRedisScript<Long> JOURNAL_SETTLE_SCRIPT = new DefaultRedisScript<>(
+        "for i = 1, #ARGV, 2 do " +
+        "  if redis.call('HINCRBY', KEYS[1], ARGV[i], -tonumber(ARGV[i + 1])) <= 0 then " +
+        "    redis.call('HDEL', KEYS[1], ARGV[i]) " +
+        "  end " +
+        "end " +
+        "return 1", Long.class);
+
+    /**
+     * 计数类型，决定写回语句和需要失效的缓存
+     */
+    public enum CounterType {
+        ARCHIVE_VIEW("archives", id -> id, true),
+        ARCHIVE_DOWNLOAD("archives", id -> id, true),
+        FILE_DOWNLOAD("archive_files", id -> "detail:" + id, false);
+
+        private final String cacheName;
+        private final Function<Long, Object> cacheKey;
+        /** 是否另有按档案编号缓存的条目（'number:' + 档案编号） */
+        private final boolean numberKeyed;
+
+        CounterType(String cacheName, Function<Long, Object> cacheKey, boolean numberKeyed) {
+            this.cacheName = cacheName;
+            this.cacheKey = cacheKey;
+            this.numberKeyed = numberKeyed;
+        }
+    }
+
+    private final ArchiveMapper archiveMapper;
+    private final ArchiveFileMapper archiveFileMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheManager cacheManager;
+    private final PerformanceProperties.Counter config;
+    private final String journalKey;
+
+    /** 未写回的增量 */
+    private final Map<CounterType, ConcurrentHashMap<Long, LongAdder>> buffers = new EnumMap<>(CounterType.class);
+
+    /** 已从缓冲取出、正在写回的增量，读取时同样计入 */
+    private final Map<CounterType, ConcurrentHashMap<Long, Long>> inFlight = new EnumMap<>(CounterType.class);
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public AccessCounterBuffer(ArchiveMapper archiveMapper,
+                               ArchiveFileMapper archiveFileMapper,
+                               StringRedisTemplate stringRedisTemplate,
+                               CacheManager cacheManager,
+                               PerformanceProperties performanceProperties,
+                               @Value("${server.port:8080}") int serverPort) {
+        this.archiveMapper = archiveMapper;
+        this.archiveFileMapper = archiveFileMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheManager = cacheManager;
+        this.config = performanceProperties.getCounter();
+        this.journalKey = JOURNAL_KEY_PREFIX + resolveInstanceId(config.getInstanceId(), serverPort);
+        for (CounterType type : CounterType.values()) {
+            buffers.put(type, new ConcurrentHashMap<>());
+            inFlight.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 累加一次访问
+     */
+    public void increment(CounterType type, Long id) {
+        if (id == null) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            writeThrough(type, Collections.singletonMap(id, 1L));
+            return;
+        }
+
+        // 先记日志再累加：写回只扣减已累加的增量，日志中的值始终不小于未写回的增量，
+        // 否则写回可能在 HINCRBY 之前扣减并删除字段，残留的 +1 会在下次启动时被重复补写
+        appendJournal(type, id);
+        ConcurrentHashMap<Long, LongAdder> buffer = buffers.get(type);
+        LongAdder adder = buffer.computeIfAbsent(id, key -> new LongAdder());
+        adder.increment();
+        if (buffer.get(id) != adder) {
+            // 写回线程恰好移除了这个空闲计数器，把增量转回当前计数器
+            drainDetached(buffer, id, adder);
+        }
+    }
+
+    /**
+     * 尚未写回数据库的增量
+     */
+    public long pending(CounterType type, Long id) {
+        if (id == null) {
+            return 0;
+        }
+        LongAdder adder = buffers.get(type).get(id);
+        Long writing = inFlight.get(type).get(id);
+        return (adder == null ? 0 : adder.sum()) + (writing == null ? 0 : writing);
+    }
+
+    /**
+     * 合并未写回的查看、下载次数；有增量时返回副本，不修改缓存中的对象
+     */
+    public Archive withPending(Archive archive) {
+        if (archive == null || archive.getId() == null) {
+            return archive;
+        }
+        long views = pending(CounterType.ARCHIVE_VIEW, archive.getId());
+        long downloads = pending(CounterType.ARCHIVE_DOWNLOAD, archive.getId());
+        if (views == 0 && downloads == 0) {
+            return archive;
+        }
+        Archive copy = new Archive();
+        BeanUtils.copyProperties(archive, copy);
+        copy.setViewCount(nullToZero(archive.getViewCount()) + views);
+        copy.setDownloadCount(nullToZero(archive.getDownloadCount()) + downloads);
+        return copy;
+    }
+
+    /**
+     * 合并未写回的文件下载次数；有增量时返回副本，不修改缓存中的对象
+     */
+    public ArchiveFile withPending(ArchiveFile archiveFile) {
+        if (archiveFile == null || archiveFile.getId() == null) {
+            return archiveFile;
+        }
+        long downloads = pending(CounterType.FILE_DOWNLOAD, archiveFile.getId());
+        if (downloads == 0) {
+            return archiveFile;
+        }
+        ArchiveFile copy = new ArchiveFile();
+        BeanUtils.copyProperties(archiveFile, copy);
+        copy.setDownloadCount(nullToZero(archiveFile.getDownloadCount()) + downloads);
+        return copy;
+    }
+
+    /**
+     * 定时写回缓冲的增量
+     */
+    @Scheduled(fixedDelayString = "${archive.performance.counter.flush-interval-ms:5000}",
+               initialDelayString = "${archive.performance.counter.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            for (CounterType type : CounterType.values()) {
+                flush(type);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭前写回全部增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushLock.lock();
+        try {
+            for (CounterType type : CounterType.values()) {
+                flush(type);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 启动时（开始接收访问之前）补写上次异常退出时残留在日志中的增量
+     */
+    @PostConstruct
+    public void recoverJournal() {
+        if (!Boolean.TRUE.equals(config.getJournalEnabled())) {
+            return;
+        }
+        Map<Object, Object> entries;
+        try {
+            entries = stringRedisTemplate.opsForHash().entries(journalKey);
+        } catch (Exception e) {
+            log.warn("读取访问计数日志失败，跳过补写: key={}, error={}", journalKey, e.getMessage());
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<CounterType, Map<Long, Long>> recovered = new EnumMap<>(CounterType.class);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = entry.getKey().toString();
+            int separator = field.indexOf(':');
+            try {
+                CounterType type = CounterType.valueOf(field.substring(0, separator));
+                long delta = Long.parseLong(entry.getValue().toString());
+                if (delta > 0) {
+                    recovered.computeIfAbsent(type, key -> new TreeMap<>())
+                        .put(Long.valueOf(field.substring(separator + 1)), delta);
+                }
+            } catch (RuntimeException e) {
+                log.warn("忽略无法识别的访问计数日志: field={}", field);
+            }
+        }
+
+        flushLock.lock();
+        try {
+            recovered.forEach((type, deltas) -> {
+                log.info("补写访问计数日志: type={}, ids={}", type, deltas.size());
+                writeBatches(type, deltas, false);
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // ========== 私有辅助方法 ==========
+
+    private void flush(CounterType type) {
+        ConcurrentHashMap<Long, LongAdder> buffer = buffers.get(type);
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : buffer.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.put(entry.getKey(), delta);
+                inFlight.get(type).merge(entry.getKey(), delta, Long::sum);
+            } else if (buffer.remove(entry.getKey(), entry.getValue())) {
+                // 一个周期内没有访问的计数器移除，移除瞬间落在上面的增量转回
+                drainDetached(buffer, entry.getKey(), entry.getValue());
+            }
+        }
+        if (!deltas.isEmpty()) {
+            writeBatches(type, deltas, true);
+        }
+    }
+
+    /**
+     * 按配置的批大小分批写回；成功后扣减日志并失效缓存，失败的批次放回缓冲等待下次写回
+     */
+    private void writeBatches(CounterType type, Map<Long, Long> deltas, boolean fromBuffer) {
+        int batchSize = Math.max(1, config.getFlushBatchSize());
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            Map<Long, Long> batch = new TreeMap<>();
+            for (Long id : ids.subList(from, Math.min(from + batchSize, ids.size()))) {
+                batch.put(id, deltas.get(id));
+            }
+
+            boolean written = false;
+            try {
+                writeThrough(type, batch);
+                written = true;
+                settleJournal(type, batch);
+            } catch (Exception e) {
+                log.warn("访问计数写回失败，{}: type={}, ids={}, error={}",
+                    fromBuffer ? "增量放回缓冲" : "保留日志待下次启动", type, batch.size(), e.getMessage());
+            } finally {
+                if (fromBuffer) {
+                    releaseInFlight(type, batch, written);
+                }
+            }
+            if (written) {
+                evictCache(type, batch.keySet());
+            }
+        }
+    }
+
+    private void writeThrough(CounterType type, Map<Long, Long> deltas) {
+        switch (type) {
+            case ARCHIVE_VIEW:
+                archiveMapper.batchAddViewCount(deltas);
+                break;
+            case ARCHIVE_DOWNLOAD:
+                archiveMapper.batchAddDownloadCount(deltas);
+                break;
+            case FILE_DOWNLOAD:
+                archiveFileMapper.batchAddDownloadCount(deltas);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的计数类型: " + type);
+        }
+    }
+
+    private void releaseInFlight(CounterType type, Map<Long, Long> batch, boolean written) {
+        ConcurrentHashMap<Long, Long> writing = inFlight.get(type);
+        ConcurrentHashMap<Long, LongAdder> buffer = buffers.get(type);
+        batch.forEach((id, delta) -> {
+            if (!written) {
+                buffer.computeIfAbsent(id, key -> new LongAdder()).add(delta);
+            }
+            writing.computeIfPresent(id, (key, value) -> value - delta == 0 ? null : value - delta);
+        });
+    }
+
+    private void drainDetached(ConcurrentHashMap<Long, LongAdder> buffer, Long id, LongAdder detached) {
+        long leftover = detached.sumThenReset();
+        if (leftover != 0) {
+            buffer.computeIfAbsent(id, key -> new LongAdder()).add(leftover);
+        }
+    }
+
+    private void appendJournal(CounterType type, Long id) {
+        if (!Boolean.TRUE.equals(config.getJournalEnabled())) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForHash().increment(journalKey, type.name() + ":" + id, 1);
+        } catch (Exception e) {
+            // 日志不可用时只保留内存增量，不影响访问本身
+            log.debug("访问计数日志写入失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+    }
+
+    private void settleJournal(CounterType type, Map<Long, Long> batch) {
+        if (!Boolean.TRUE.equals(config.getJournalEnabled())) {
+            return;
+        }
+        List<String> args = new ArrayList<>(batch.size() * 2);
+        batch.forEach((id, delta) -> {
+            args.add(type.name() + ":" + id);
+            args.add(String.valueOf(delta));
+        });
+        try {
+            stringRedisTemplate.execute(JOURNAL_SETTLE_SCRIPT, Collections.singletonList(journalKey), args.toArray());
+        } catch (Exception e) {
+            // 已写入数据库，日志扣减失败只会在异常重启时重复补写
+            log.warn("访问计数日志扣减失败: type={}, ids={}, error={}", type, batch.size(), e.getMessage());
+        }
+    }
+
+    private void evictCache(CounterType type, Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(type.cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (Long id : ids) {
+            cache.evict(type.cacheKey.apply(id));
+        }
+        if (!type.numberKeyed) {
+            return;
+        }
+        // 按编号查询的条目同样带着旧计数，只留ID键会让不同查询路径读到的次数不一致
+        try {
+            for (Archive archive : archiveMapper.selectBatchIds(ids)) {
+                if (archive.getArchiveNo() != null) {
+                    cache.evict("number:" + archive.getArchiveNo());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("失效按编号缓存的档案失败，等待缓存过期: type={}, ids={}, error={}", type, ids.size(), e.getMessage());
+        }
+    }
+
+    private static String resolveInstanceId(String configured, int serverPort) {
+        if (configured != null && !configured.trim().isEmpty()) {
+            return configured.trim();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName() + ":" + serverPort;
+        } catch (Exception e) {
+            return "localhost:" + serverPort;
+        }
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,383 @@
+package com.archive.management.counter;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.constant.BusinessConstants;
+import com.archive.management.entity.Notification;
+import com.archive.management.mapper.NotificationMapper;
+import com.archive.management.websocket.NotificationWebSocketHandler;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户未读通知计数器
+ * 每个用户本人的未读通知数（不含广播）保存在 Redis，发送、已读、删除时按增量调整，
+ * 本节点读取过的用户在本地再缓存一小段时间，连接风暴、反复刷新时不必每次访问 Redis。
+ * Redis 中没有的用户在首次读取时按库 COUNT 加载；在线用户和本地缓存的用户定时按库校准，
+ * 抵消加载与调整交错造成的偏差，校准只在键值自查库前未变时覆盖，不会吞掉期间落下的调整。
+ * 数值变化时才向在线用户推送未读数
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class UnreadNotificationCounter {
+
+    private static final String KEY_PREFIX = "archive:notification:unread:";
+
+    /** 键存在时按增量调整（不低于0）并续期，返回新值；键不存在返回 -1，留待读取时从库加载 */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> ADJUST_SCRIPT = new DefaultRedisScript<>(
+        "local result = {} " +
+        "for i, key in ipairs(KEYS) do " +
+        "  if redis.call('EXISTS', key) == 1 then " +
+        "    local value = redis.call('INCRBY', key, ARGV[1]) " +
+        "    if value < 0 then " +
+        "      redis.call('SET', key, 0) " +
+        "      value = 0 " +
+        "    end " +
+        "    redis.call('EXPIRE', key, ARGV[2]) " +
+        "    result[i] = value " +
+        "  else " +
+        "    result[i] = -1 " +
+        "  end " +
+        "end " +
+        "return result", List.class);
+
+    /**
+     * 按校准结果覆盖，ARGV[1] 为过期秒数，其后每个键依次为查库前读到的值（空串表示键不存在）和库中的值；
+     * 键的当前值与查库前读到的不同说明期间有调整落在库查询之后，跳过该键留待下次校准，
+     * 返回被跳过的键的下标
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+        "local skipped = {} " +
+        "for i, key in ipairs(KEYS) do " +
+        "  local current = redis.call('GET', key) or '' " +
+        "  if current == ARGV[2 * i] then " +
+        "    redis.call('SET', key, ARGV[2 * i + 1], 'EX', ARGV[1]) " +
+        "  else " +
+        "    table.insert(skipped, i - 1) " +
+        "  end " +
+        "end " +
+        "return skipped", List.class);
+
+    private final NotificationMapper notificationMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final PerformanceProperties.Notification config;
+
+    /** 本节点读取过的用户的未读数 */
+    private final Map<Long, Local> locals = new ConcurrentHashMap<>();
+
+    /** 最近一次推送给用户的未读数 */
+    private final Map<Long, Long> lastPushed = new ConcurrentHashMap<>();
+
+    public UnreadNotificationCounter(NotificationMapper notificationMapper,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     NotificationWebSocketHandler webSocketHandler,
+                                     PerformanceProperties performanceProperties) {
+        this.notificationMapper = notificationMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.webSocketHandler = webSocketHandler;
+        this.config = performanceProperties.getNotification();
+    }
+
+    /**
+     * 用户的未读通知数
+     */
+    public long get(Long userId) {
+        if (!enabled()) {
+            return countFromDatabase(userId);
+        }
+        long now = System.currentTimeMillis();
+        Local local = locals.get(userId);
+        if (local != null && now - local.loadedAt < config.getUnreadLocalTtlMs()) {
+            return local.value;
+        }
+
+        long value;
+        try {
+            value = loadFromRedis(userId);
+        } catch (Exception e) {
+            log.warn("读取未读数失败，改为按库统计: userId={}", userId, e);
+            value = countFromDatabase(userId);
+        }
+        locals.put(userId, new Local(value, now));
+        return value;
+    }
+
+    /**
+     * 用户收到一条未读通知
+     */
+    public void increment(Long userId) {
+        if (userId != null) {
+            adjust(Collections.singletonList(userId), 1);
+        }
+    }
+
+    /**
+     * 一批用户各收到一条未读通知
+     */
+    public void incrementAll(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        ids.remove(null);
+        int chunkSize = Math.max(1, config.getChunkSize());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            adjust(ids.subList(from, Math.min(from + chunkSize, ids.size())), 1);
+        }
+    }
+
+    /**
+     * 用户的未读通知减少（已读或删除）
+     */
+    public void decrement(Long userId, long count) {
+        if (userId != null && count > 0) {
+            adjust(Collections.singletonList(userId), -count);
+        }
+    }
+
+    /**
+     * 用户的通知已全部读完
+     */
+    public void reset(Long userId) {
+        if (userId == null || !enabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(key(userId), "0", Duration.ofSeconds(config.getUnreadRedisTtlSeconds()));
+            locals.put(userId, new Local(0L, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("重置未读数失败，等待校准: userId={}", userId, e);
+            locals.remove(userId);
+        }
+        publish(userId, 0L);
+    }
+
+    /**
+     * 定时按库校准在线用户和本地缓存用户的未读数，移除闲置的本地缓存
+     */
+    @Scheduled(fixedDelayString = "${archive.performance.notification.unread-reconcile-interval-ms:300000}",
+               initialDelayString = "${archive.performance.notification.unread-reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<Long> online = new LinkedHashSet<>();
+        for (String userId : webSocketHandler.getOnlineUserIds()) {
+            try {
+                online.add(Long.valueOf(userId));
+            } catch (NumberFormatException e) {
+                // 非数字ID的会话不参与计数
+            }
+        }
+        locals.entrySet().removeIf(entry -> !online.contains(entry.getKey())
+            && now - entry.getValue().touchedAt > config.getUnreadIdleEvictMs());
+        lastPushed.keySet().removeIf(userId -> !online.contains(userId) && !locals.containsKey(userId));
+
+        Set<Long> targets = new LinkedHashSet<>(online);
+        targets.addAll(locals.keySet());
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(targets);
+        int chunkSize = Math.max(1, config.getChunkSize());
+        int corrected = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            corrected += reconcile(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        log.debug("未读数校准完成: 用户{}, 修正{}, 耗时{}ms", ids.size(), corrected, System.currentTimeMillis() - now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int reconcile(List<Long> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(key(userId));
+        }
+        // 先读 Redis 再查库：查库之后落下的调整会改变键值，覆盖时据此识别并跳过
+        List<String> before;
+        try {
+            before = stringRedisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            log.warn("读取待校准的未读数失败: 用户{}", userIds.size(), e);
+            before = null;
+        }
+
+        Map<Long, Long> counts = new HashMap<>(userIds.size() * 2);
+        for (Map<String, Object> row : notificationMapper.countUnreadGroupByUser(userIds)) {
+            counts.put(((Number) row.get("userId")).longValue(), ((Number) row.get("unreadCount")).longValue());
+        }
+
+        Set<Long> skipped = new HashSet<>();
+        if (before != null) {
+            List<Object> args = new ArrayList<>(userIds.size() * 2 + 1);
+            args.add(String.valueOf(config.getUnreadRedisTtlSeconds()));
+            for (int i = 0; i < userIds.size(); i++) {
+                String previous = i < before.size() ? before.get(i) : null;
+                args.add(previous == null ? "" : previous);
+                args.add(String.valueOf(counts.getOrDefault(userIds.get(i), 0L)));
+            }
+            try {
+                List<Object> conflicts = stringRedisTemplate.execute(COMPARE_AND_SET_SCRIPT, keys, args.toArray());
+                if (conflicts != null) {
+                    for (Object index : conflicts) {
+                        skipped.add(userIds.get(((Number) index).intValue()));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("写入校准后的未读数失败: 用户{}", userIds.size(), e);
+            }
+        }
+
+        int corrected = 0;
+        long now = System.currentTimeMillis();
+        for (Long userId : userIds) {
+            if (skipped.contains(userId)) {
+                // 校准期间有新的调整，库中的值可能已过时，本地缓存交由下次读取或校准刷新
+                locals.computeIfPresent(userId, (id, local) -> new Local(local.value, 0L, local.touchedAt));
+                continue;
+            }
+            long value = counts.getOrDefault(userId, 0L);
+            Local previous = locals.get(userId);
+            if (previous != null) {
+                if (previous.value != value) {
+                    corrected++;
+                }
+                locals.put(userId, new Local(value, now, previous.touchedAt));
+            }
+            publish(userId, value);
+        }
+        return corrected;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void adjust(List<Long> userIds, long delta) {
+        if (!enabled()) {
+            for (Long userId : userIds) {
+                if (isOnline(userId)) {
+                    publish(userId, countFromDatabase(userId));
+                }
+            }
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(key(userId));
+        }
+        List<Object> values;
+        try {
+            values = stringRedisTemplate.execute(ADJUST_SCRIPT, keys,
+                String.valueOf(delta), String.valueOf(config.getUnreadRedisTtlSeconds()));
+        } catch (Exception e) {
+            log.warn("调整未读数失败，等待校准: 用户{}, 增量{}", userIds.size(), delta, e);
+            values = null;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            Object value = values != null && i < values.size() ? values.get(i) : null;
+            long count = value instanceof Number ? ((Number) value).longValue() : -1L;
+            if (count >= 0) {
+                locals.computeIfPresent(userId, (id, local) -> new Local(count, now, local.touchedAt));
+                publish(userId, count);
+            } else {
+                // Redis 中没有该用户：在线用户重新加载后推送，其余等首次读取
+                locals.remove(userId);
+                if (isOnline(userId)) {
+                    publish(userId, get(userId));
+                }
+            }
+        }
+    }
+
+    private long loadFromRedis(Long userId) {
+        String key = key(userId);
+        String cached = stringRedisTemplate.opsForValue().get(key);
+        if (cached != null) {
+            return Long.parseLong(cached);
+        }
+        long value = countFromDatabase(userId);
+        Boolean stored = stringRedisTemplate.opsForValue()
+            .setIfAbsent(key, String.valueOf(value), Duration.ofSeconds(config.getUnreadRedisTtlSeconds()));
+        if (Boolean.FALSE.equals(stored)) {
+            // 其它线程或节点已先加载
+            cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Long.parseLong(cached);
+            }
+        }
+        return value;
+    }
+
+    private long countFromDatabase(Long userId) {
+        QueryWrapper<Notification> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", userId)
+                   .eq("status", BusinessConstants.NotificationStatus.UNREAD)
+                   .eq("deleted", 0);
+        Long count = notificationMapper.selectCount(queryWrapper);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 在线且数值与上次推送不同时推送
+     */
+    private void publish(Long userId, long value) {
+        if (!isOnline(userId)) {
+            return;
+        }
+        if (!Objects.equals(lastPushed.put(userId, value), value)) {
+            webSocketHandler.sendUnreadCountUpdate(String.valueOf(userId), value);
+        }
+    }
+
+    private boolean isOnline(Long userId) {
+        return webSocketHandler.isUserOnline(String.valueOf(userId));
+    }
+
+    private boolean enabled() {
+        return Boolean.TRUE.equals(config.getUnreadCounterEnabled());
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static final class Local {
+        private final long value;
+        private final long loadedAt;
+        private final long touchedAt;
+
+        private Local(long value, long loadedAt) {
+            this(value, loadedAt, loadedAt);
+        }
+
+        private Local(long value, long loadedAt, long touchedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.touchedAt = touchedAt;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.archive.management.download;
+
+import java.nio.file.Path;
+
+/**
+ * 待下载的内容
+ * 本地磁盘文件或对象存储中的对象，附带响应头所需的文件名、类型、长度、修改时间和 ETag
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class DownloadResource {
+
+    private final Path file;
+    private final String objectName;
+    private final String fileName;
+    private final String contentType;
+    private final long length;
+    private final long lastModified;
+    private final String etag;
+
+    private DownloadResource(Path file, String objectName, String fileName, String contentType,
+                             long length, long lastModified, String etag) {
+        this.file = file;
+        this.objectName = objectName;
+        this.fileName = fileName;
+        this.contentType = contentType != null ? contentType : "application/octet-stream";
+        this.length = length;
+        this.lastModified = lastModified;
+        this.etag = etag != null ? etag : weakEtag(length, lastModified);
+    }
+
+    /**
+     * 本地磁盘文件
+     *
+     * @param file         文件路径
+     * @param fileName     下载时的文件名
+     * @param contentType  内容类型，为空时按二进制流
+     * @param length       文件长度
+     * @param lastModified 修改时间(毫秒)
+     * @param md5          文件MD5，作为强 ETag；为空时按长度和修改时间生成弱 ETag
+     */
+    public static DownloadResource ofFile(Path file, String fileName, String contentType,
+                                          long length, long lastModified, String md5) {
+        return new DownloadResource(file, null, fileName, contentType, length, lastModified, strongEtag(md5));
+    }
+
+    /**
+     * 对象存储中的对象，参数含义同 {@link #ofFile}
+     */
+    public static DownloadResource ofObject(String objectName, String fileName, String contentType,
+                                            long length, long lastModified, String md5) {
+        return new DownloadResource(null, objectName, fileName, contentType, length, lastModified, strongEtag(md5));
+    }
+
+    private static String strongEtag(String md5) {
+        return md5 == null || md5.trim().isEmpty() ? null : "\"" + md5.trim() + "\"";
+    }
+
+    private static String weakEtag(long length, long lastModified) {
+        return "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    public boolean isLocal() {
+        return file != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 带引号的 ETag，弱 ETag 带 W/ 前缀
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public boolean isStrongEtag() {
+        return !etag.startsWith("W/");
+    }
+}
@@ -0,0 +1,232 @@
+package com.archive.management.download;
+
+import com.archive.management.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 支持断点续传和条件请求的文件下载
+ * 处理 Range（含多区间）、If-Range、If-None-Match 与 If-Modified-Since；
+ * 本地文件用 FileChannel.transferTo 输出，容器支持 sendfile（Tomcat NIO）时交给容器零拷贝发送，
+ * 对象存储只按区间读取所需字节。长度一律按 long 处理，不受 2GB 限制
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Component
+public class RangedDownloadEngine {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CRLF = "\r\n";
+
+    private final FileStorageService fileStorageService;
+
+    public RangedDownloadEngine(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * 输出下载内容
+     *
+     * @return 响应状态码：200 完整内容，206 部分内容，304 未修改，416 区间不可满足
+     * @throws IOException 读取内容或写出响应失败，包括客户端中断
+     */
+    public int download(HttpServletRequest request, HttpServletResponse response,
+                        DownloadResource resource) throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, resource.getEtag());
+        if (resource.getLastModified() > 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, resource.getLastModified());
+        }
+
+        if (isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH),
+                dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE), resource)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return HttpServletResponse.SC_NOT_MODIFIED;
+        }
+
+        List<ByteRange> ranges = null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRangeMatches(ifRange, dateHeader(request, HttpHeaders.IF_RANGE), resource)) {
+            ranges = ByteRange.parse(request.getHeader(HttpHeaders.RANGE), resource.getLength());
+        }
+        if (ranges != null && ranges.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + resource.getLength());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''"
+            + URLEncoder.encode(resource.getFileName(), StandardCharsets.UTF_8).replace("+", "%20"));
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(resource.getContentType());
+            response.setContentLengthLong(resource.getLength());
+            writeSingle(request, response, resource, 0, resource.getLength());
+            return HttpServletResponse.SC_OK;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setContentType(resource.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.toContentRange(resource.getLength()));
+            response.setContentLengthLong(range.getLength());
+            writeSingle(request, response, resource, range.getStart(), range.getLength());
+        } else {
+            writeMultipart(response, resource, ranges);
+        }
+        return HttpServletResponse.SC_PARTIAL_CONTENT;
+    }
+
+    /**
+     * 条件请求判断：有 If-None-Match 时只按 ETag 弱比较，否则按 If-Modified-Since 比较到秒
+     */
+    static boolean isNotModified(String ifNoneMatch, long ifModifiedSince, DownloadResource resource) {
+        if (ifNoneMatch != null) {
+            String current = opaqueTag(resource.getEtag());
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag) || opaqueTag(tag).equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return ifModifiedSince >= 0 && resource.getLastModified() > 0
+            && resource.getLastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range 判断：ETag 须为强 ETag 且完全一致，日期须与修改时间一致到秒；不满足时忽略 Range 返回完整内容
+     */
+    static boolean ifRangeMatches(String ifRange, long ifRangeDate, DownloadResource resource) {
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return resource.isStrongEtag() && value.equals(resource.getEtag());
+        }
+        return ifRangeDate >= 0 && resource.getLastModified() > 0
+            && resource.getLastModified() / 1000 == ifRangeDate / 1000;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private void writeSingle(HttpServletRequest request, HttpServletResponse response, DownloadResource resource,
+                             long start, long length) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        if (resource.isLocal()) {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // 由容器在响应提交后用 sendfile 发送，不经过应用缓冲
+                request.setAttribute(SENDFILE_FILENAME, resource.getFile().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, start + length);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(resource.getFile(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                transfer(channel, start, length, out);
+            }
+        } else {
+            copyObjectRange(resource, start, length, response.getOutputStream());
+        }
+        response.flushBuffer();
+    }
+
+    private void writeMultipart(HttpServletResponse response, DownloadResource resource,
+                                List<ByteRange> ranges) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] header = (CRLF + "--" + boundary + CRLF
+                + HttpHeaders.CONTENT_TYPE + ": " + resource.getContentType() + CRLF
+                + HttpHeaders.CONTENT_RANGE + ": " + range.toContentRange(resource.getLength()) + CRLF
+                + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.getLength();
+        }
+        byte[] closing = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        OutputStream out = response.getOutputStream();
+        if (resource.isLocal()) {
+            try (FileChannel channel = FileChannel.open(resource.getFile(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    transfer(channel, ranges.get(i).getStart(), ranges.get(i).getLength(), target);
+                }
+            }
+        } else {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                copyObjectRange(resource, ranges.get(i).getStart(), ranges.get(i).getLength(), out);
+            }
+        }
+        out.write(closing);
+        response.flushBuffer();
+    }
+
+    private static void transfer(FileChannel channel, long start, long length,
+                                 WritableByteChannel target) throws IOException {
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new EOFException("文件长度小于请求区间: " + start + "-" + (start + length - 1));
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private void copyObjectRange(DownloadResource resource, long start, long length,
+                                 OutputStream out) throws IOException {
+        try (InputStream in = fileStorageService.downloadFile(resource.getObjectName(), start, length)) {
+            long copied = in.transferTo(out);
+            if (copied != length) {
+                throw new EOFException("对象长度小于请求区间: " + resource.getObjectName());
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("读取对象失败: " + resource.getObjectName(), e);
+        }
+    }
+}
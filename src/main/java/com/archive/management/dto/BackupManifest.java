@@ -0,0 +1,80 @@
+package com.archive.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 备份清单
+ * 随完整备份和增量备份一起写入备份包（manifest.json），
+ * 记录备份链关系、时间窗口、包内的数据库变更文件以及档案文件快照索引的位置
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Data
+@NoArgsConstructor
+public class BackupManifest {
+
+    /** 清单格式版本 */
+    private int formatVersion = 1;
+
+    /** 备份ID */
+    private Long backupId;
+
+    /** 备份类型：full / incremental */
+    private String backupType;
+
+    /** 上一级备份ID（增量备份的基础备份） */
+    private Long parentBackupId;
+
+    /** 备份链根节点ID（完整备份或数据库备份） */
+    private Long rootBackupId;
+
+    /** 变更窗口起点（含），即上一级备份的开始时间 */
+    private LocalDateTime since;
+
+    /** 变更窗口终点，即本次备份的开始时间 */
+    private LocalDateTime until;
+
+    /** 数据库名 */
+    private String databaseName;
+
+    /** 完整备份中的数据库子备份ID */
+    private Long databaseBackupId;
+
+    /** 完整备份中的系统文件子备份ID */
+    private Long systemFileBackupId;
+
+    /** 数据库变更文件，按回放顺序排列 */
+    private List<TableDump> tableDumps = new ArrayList<>();
+
+    /** 档案文件库快照索引（相对备份目录的路径），每个快照都包含完整的文件列表 */
+    private String fileIndex;
+
+    /** 快照中的文件数 */
+    private int fileCount;
+
+    /**
+     * 一次 mysqldump 导出的表集合
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TableDump {
+
+        /** 包内SQL文件路径 */
+        private String entry;
+
+        /** 变更判定列，为空表示整表导出 */
+        private String changeColumn;
+
+        /** 包含的表 */
+        private List<String> tables;
+    }
+}
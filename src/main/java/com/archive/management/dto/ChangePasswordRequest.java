@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import jakarta.validation.constraints.*;
 
@@ -29,6 +30,7 @@ public class ChangePasswordRequest {
     @Schema(description = "旧密码", example = "oldPassword123", required = true)
     @NotBlank(message = "旧密码不能为空")
     @Size(min = 6, max = 100, message = "旧密码长度必须在6-100个字符之间")
+    @ToString.Exclude
     private String oldPassword;
 
     @Schema(description = "新密码", example = "newPassword123", required = true)
@@ -36,10 +38,12 @@ public class ChangePasswordRequest {
     @Size(min = 6, max = 100, message = "新密码长度必须在6-100个字符之间")
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)[a-zA-Z\\d@$!%*?&]{6,}$", 
              message = "新密码必须包含至少一个大写字母、一个小写字母和一个数字")
+    @ToString.Exclude
     private String newPassword;
 
     @Schema(description = "确认新密码", example = "newPassword123", required = true)
     @NotBlank(message = "确认新密码不能为空")
+    @ToString.Exclude
     private String confirmNewPassword;
 
     /**
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
@@ -36,10 +37,12 @@ public class CreateUserRequest {
     @Size(min = 6, max = 100, message = "密码长度必须在6-100个字符之间")
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)[a-zA-Z\\d@$!%*?&]{6,}$", 
              message = "密码必须包含至少一个大写字母、一个小写字母和一个数字")
+    @ToString.Exclude
     private String password;
 
     @Schema(description = "确认密码", example = "password123", required = true)
     @NotBlank(message = "确认密码不能为空")
+    @ToString.Exclude
     private String confirmPassword;
 
     @Schema(description = "邮箱", example = "admin@example.com", required = true)
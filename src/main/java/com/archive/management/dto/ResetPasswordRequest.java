@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import jakarta.validation.constraints.*;
 
@@ -33,10 +34,12 @@ public class ResetPasswordRequest {
     @Size(min = 6, max = 100, message = "新密码长度必须在6-100个字符之间")
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)[a-zA-Z\\d@$!%*?&]{6,}$", 
              message = "新密码必须包含至少一个大写字母、一个小写字母和一个数字")
+    @ToString.Exclude
     private String newPassword;
 
     @Schema(description = "确认新密码", example = "newPassword123", required = true)
     @NotBlank(message = "确认新密码不能为空")
+    @ToString.Exclude
     private String confirmNewPassword;
 
     @Schema(description = "是否强制用户下次登录时修改密码", example = "true")
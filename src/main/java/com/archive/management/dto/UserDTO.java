@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
@@ -175,14 +176,17 @@ public class UserDTO {
     @Schema(description = "密码", example = "password123", accessMode = Schema.AccessMode.WRITE_ONLY)
     @JsonIgnore
     @Size(min = 6, max = 100, message = "密码长度必须在6-100个字符之间")
+    @ToString.Exclude
     private String password;
 
     @Schema(description = "确认密码", example = "password123", accessMode = Schema.AccessMode.WRITE_ONLY)
     @JsonIgnore
+    @ToString.Exclude
     private String confirmPassword;
 
     @Schema(description = "旧密码", example = "oldpassword", accessMode = Schema.AccessMode.WRITE_ONLY)
     @JsonIgnore
+    @ToString.Exclude
     private String oldPassword;
 
     /**
@@ -1,6 +1,7 @@
 package com.archive.management.dto;
 
 import lombok.Data;
+import lombok.ToString;
 import jakarta.validation.constraints.NotBlank;
 
 /**
@@ -27,6 +28,7 @@ public class WeChatBindRequest {
     /**
      * 系统密码（绑定现有账号时需要验证）
      */
+    @ToString.Exclude
     private String password;
     
     /**
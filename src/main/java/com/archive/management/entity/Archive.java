@@ -105,6 +105,18 @@ public class Archive extends BaseEntity implements Serializable {
     @TableField("total_size")
     private Long totalSize;
 
+    /**
+     * 查看次数
+     */
+    @TableField("view_count")
+    private Long viewCount;
+
+    /**
+     * 下载次数
+     */
+    @TableField("download_count")
+    private Long downloadCount;
+
     /**
      * 保存期限
      */
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
 import jakarta.validation.constraints.*;
@@ -44,6 +45,7 @@ public class PasswordResetToken extends BaseEntity {
     @NotBlank(message = "重置令牌不能为空")
     @Size(max = 255, message = "重置令牌长度不能超过255个字符")
     @TableField("token")
+    @ToString.Exclude
     private String token;
 
     /**
@@ -52,6 +54,7 @@ public class PasswordResetToken extends BaseEntity {
     @NotBlank(message = "令牌哈希值不能为空")
     @Size(max = 64, message = "令牌哈希值长度不能超过64个字符")
     @TableField("token_hash")
+    @ToString.Exclude
     private String tokenHash;
 
     /**
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
 import jakarta.validation.constraints.*;
@@ -54,6 +55,7 @@ public class User extends BaseEntity {
     @Size(min = 6, max = 100, message = "密码长度必须在6-100个字符之间")
     @JsonIgnore
     @TableField("password")
+    @ToString.Exclude
     private String password;
 
     /**
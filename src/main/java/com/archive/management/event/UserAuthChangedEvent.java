@@ -0,0 +1,38 @@
+package com.archive.management.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户认证信息变更事件
+ * 用户启用/禁用、锁定/解锁、删除或密码变更时触发，用于失效已缓存的认证主体
+ * 
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Getter
+public class UserAuthChangedEvent extends ApplicationEvent {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 用户名
+     */
+    private final String username;
+
+    /**
+     * 变更类型：ENABLE, DISABLE, LOCK, UNLOCK, DELETE, PASSWORD
+     */
+    private final String action;
+
+    public UserAuthChangedEvent(Object source, Long userId, String username, String action) {
+        super(source);
+        this.userId = userId;
+        this.username = username;
+        this.action = action;
+    }
+}
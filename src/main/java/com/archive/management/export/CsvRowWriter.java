@@ -0,0 +1,300 @@
+package com.archive.management.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * CSV 行编码器
+ * 单元格值直接编码进可复用的字符缓冲区，缓冲区满时整块写出；
+ * 整数、布尔、日期时间走免分配的快速路径，字符串仅在需要时加引号转义。
+ * 列访问器在构造时按字段名一次性解析，写行时不再拼接或查找字段元数据。
+ * 非线程安全，每次导出使用一个实例
+ *
+ * @param <T> 行类型
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class CsvRowWriter<T> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+    private static final char[] MIN_LONG = String.valueOf(Long.MIN_VALUE).toCharArray();
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer out;
+    private final List<Function<T, Object>> accessors;
+    private final char[] buffer;
+    private int position;
+
+    private CsvRowWriter(Writer out, List<Function<T, Object>> accessors, int bufferSize) {
+        this.out = out;
+        this.accessors = accessors;
+        // 至少容纳一个完整的日期时间或整数，快速路径无需检查边界外的情况
+        this.buffer = new char[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * 为 Map 行创建编码器
+     *
+     * @param out        输出
+     * @param fieldNames 按列顺序的字段名
+     * @return 编码器
+     */
+    public static CsvRowWriter<Map<String, Object>> forMaps(Writer out, List<String> fieldNames) {
+        List<Function<Map<String, Object>, Object>> accessors = fieldNames.stream()
+            .<Function<Map<String, Object>, Object>>map(fieldName -> row -> row.get(fieldName))
+            .toList();
+        return new CsvRowWriter<>(out, accessors, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 为实体行创建编码器，按字段名解析 getter（getXxx / isXxx）
+     *
+     * @param out        输出
+     * @param type       实体类型
+     * @param fieldNames 按列顺序的字段名
+     * @return 编码器
+     */
+    public static <T> CsvRowWriter<T> forBeans(Writer out, Class<T> type, List<String> fieldNames) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        List<Function<T, Object>> accessors = fieldNames.stream()
+            .<Function<T, Object>>map(fieldName -> {
+                MethodHandle getter = findGetter(lookup, type, fieldName)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+                return row -> {
+                    try {
+                        return getter.invokeExact((Object) row);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException("读取字段失败: " + fieldName, e);
+                    }
+                };
+            })
+            .toList();
+        return new CsvRowWriter<>(out, accessors, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 写表头行
+     */
+    public void writeHeader(List<String> headers) throws IOException {
+        for (int i = 0; i < headers.size(); i++) {
+            if (i > 0) {
+                put(',');
+            }
+            writeText(headers.get(i));
+        }
+        newLine();
+    }
+
+    /**
+     * 写一行数据
+     */
+    public void writeRow(T row) throws IOException {
+        for (int i = 0; i < accessors.size(); i++) {
+            if (i > 0) {
+                put(',');
+            }
+            writeValue(accessors.get(i).apply(row));
+        }
+        newLine();
+    }
+
+    /**
+     * 写出缓冲区内容并刷新底层输出
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof CharSequence text) {
+            writeText(text);
+        } else if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof LocalDateTime dateTime) {
+            if (isFourDigitYear(dateTime.getYear())) {
+                writeDateTime(dateTime);
+            } else {
+                writeText(dateTime.format(DATE_TIME_FORMATTER));
+            }
+        } else if (value instanceof LocalDate date) {
+            if (isFourDigitYear(date.getYear())) {
+                ensure(10);
+                writeDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            } else {
+                writeText(date.toString());
+            }
+        } else if (value instanceof Boolean bool) {
+            writeText(bool ? "true" : "false");
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    /**
+     * 写文本，含逗号、引号或换行时整体加引号并将引号转义为两个引号
+     */
+    private void writeText(CharSequence text) throws IOException {
+        int length = text.length();
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            if (text instanceof String string) {
+                putString(string);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    put(text.charAt(i));
+                }
+            }
+            return;
+        }
+        put('"');
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            ensure(MIN_LONG.length);
+            System.arraycopy(MIN_LONG, 0, buffer, position, MIN_LONG.length);
+            position += MIN_LONG.length;
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = digitCount(value);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * 按 yyyy-MM-dd HH:mm:ss 写日期时间
+     */
+    private void writeDateTime(LocalDateTime dateTime) throws IOException {
+        ensure(19);
+        writeDate(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth());
+        buffer[position++] = ' ';
+        writeTwoDigits(dateTime.getHour());
+        buffer[position++] = ':';
+        writeTwoDigits(dateTime.getMinute());
+        buffer[position++] = ':';
+        writeTwoDigits(dateTime.getSecond());
+    }
+
+    /**
+     * 写 yyyy-MM-dd，调用方需预留空间并保证年份为四位
+     */
+    private void writeDate(int year, int month, int day) {
+        writeTwoDigits(year / 100);
+        writeTwoDigits(year % 100);
+        buffer[position++] = '-';
+        writeTwoDigits(month);
+        buffer[position++] = '-';
+        writeTwoDigits(day);
+    }
+
+    private static boolean isFourDigitYear(int year) {
+        return year >= 1000 && year <= 9999;
+    }
+
+    private void writeTwoDigits(int value) {
+        buffer[position++] = (char) ('0' + value / 10);
+        buffer[position++] = (char) ('0' + value % 10);
+    }
+
+    private void newLine() throws IOException {
+        for (char c : LINE_SEPARATOR) {
+            put(c);
+        }
+    }
+
+    private void putString(String value) throws IOException {
+        int offset = 0;
+        int remaining = value.length();
+        while (remaining > 0) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(remaining, buffer.length - position);
+            value.getChars(offset, offset + chunk, buffer, position);
+            position += chunk;
+            offset += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    private void ensure(int size) throws IOException {
+        if (buffer.length - position < size) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static MethodHandle findGetter(MethodHandles.Lookup lookup, Class<?> type, String fieldName) {
+        String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                return lookup.unreflect(type.getMethod(prefix + suffix));
+            } catch (NoSuchMethodException | IllegalAccessException ignored) {
+                // 尝试下一种命名
+            }
+        }
+        throw new IllegalArgumentException("字段不存在或不可访问: " + type.getSimpleName() + "." + fieldName);
+    }
+}
@@ -1,9 +1,11 @@
 package com.archive.management.interceptor;
 
+import com.archive.management.service.PerformanceMonitoringService;
 import com.archive.management.util.LogUtil;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +14,7 @@ import java.util.UUID;
 
 /**
  * 日志拦截器
- * 记录请求日志，设置请求ID和用户信息到MDC
+ * 记录请求日志，设置请求ID和用户信息到MDC，并按路由模板记录接口耗时
  * 
  * @author Archive Management System
  * @version 1.0
@@ -26,6 +28,13 @@ public class LoggingInterceptor implements HandlerInterceptor {
     private static final String IP_ADDRESS_KEY = "ipAddress";
     private static final String USER_AGENT_KEY = "userAgent";
     private static final String START_TIME_KEY = "startTime";
+    private static final String START_NANOS_ATTRIBUTE = LoggingInterceptor.class.getName() + ".startNanos";
+
+    private final PerformanceMonitoringService performanceMonitoringService;
+
+    public LoggingInterceptor(PerformanceMonitoringService performanceMonitoringService) {
+        this.performanceMonitoringService = performanceMonitoringService;
+    }
 
     /**
      * 请求处理前
@@ -54,6 +63,7 @@ public class LoggingInterceptor implements HandlerInterceptor {
         MDC.put(IP_ADDRESS_KEY, ipAddress);
         MDC.put(USER_AGENT_KEY, userAgent);
         MDC.put(START_TIME_KEY, String.valueOf(System.currentTimeMillis()));
+        request.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
         
         if (userId != null) {
             MDC.put(USER_ID_KEY, userId);
@@ -123,12 +133,31 @@ public class LoggingInterceptor implements HandlerInterceptor {
             // 记录访问日志
             recordAccessLog(request, response, duration, ex);
             
+            // 记录接口耗时；属性取出后移除，拦截器重复注册时只记录一次
+            Object startNanos = request.getAttribute(START_NANOS_ATTRIBUTE);
+            if (startNanos instanceof Long) {
+                request.removeAttribute(START_NANOS_ATTRIBUTE);
+                performanceMonitoringService.recordRequestPerformance(
+                        resolveEndpoint(request), System.nanoTime() - (Long) startNanos);
+            }
+            
         } finally {
             // 清理MDC
             MDC.clear();
         }
     }
 
+    /**
+     * 接口标识：请求方法加路由模板，未匹配到处理器的请求归为一类
+     * 
+     * @param request HTTP请求
+     * @return 接口标识
+     */
+    private String resolveEndpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+    }
+
     /**
      * 获取客户端IP地址
      * 
@@ -1,9 +1,10 @@
 package com.archive.management.interceptor;
 
+import com.archive.management.ratelimit.HybridRateLimiter;
+import com.archive.management.ratelimit.PathPrefixTrie;
 import com.archive.management.util.LogUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -12,11 +13,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 请求限制拦截器
- * 基于Redis实现的分布式限流
+ * 基于本地令牌桶和Redis滑动窗口的分布式限流，路由规则按最长前缀匹配
  * 
  * @author Archive Management System
  * @version 1.0
@@ -26,7 +26,7 @@ import java.util.concurrent.TimeUnit;
 public class RateLimitInterceptor implements HandlerInterceptor {
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private HybridRateLimiter rateLimiter;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -58,6 +58,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         RATE_LIMIT_CONFIGS.put("/api/", new RateLimitConfig(50, 60));
     }
 
+    // 按最长前缀匹配路由规则
+    private static final PathPrefixTrie<RateLimitConfig> RATE_LIMIT_TRIE = new PathPrefixTrie<>(RATE_LIMIT_CONFIGS);
+
+    private static final RateLimitConfig DEFAULT_CONFIG = new RateLimitConfig(DEFAULT_LIMIT, DEFAULT_WINDOW);
+
     /**
      * 请求处理前进行限流检查
      * 
@@ -165,21 +170,9 @@ public class RateLimitInterceptor implements HandlerInterceptor {
      * @return 限流配置
      */
     private RateLimitConfig getRateLimitConfig(String requestPath) {
-        // 精确匹配
-        RateLimitConfig config = RATE_LIMIT_CONFIGS.get(requestPath);
-        if (config != null) {
-            return config;
-        }
-        
-        // 前缀匹配
-        for (Map.Entry<String, RateLimitConfig> entry : RATE_LIMIT_CONFIGS.entrySet()) {
-            if (requestPath.startsWith(entry.getKey())) {
-                return entry.getValue();
-            }
-        }
-        
-        // 返回默认配置
-        return new RateLimitConfig(DEFAULT_LIMIT, DEFAULT_WINDOW);
+        // 精确匹配即最长前缀匹配，都不匹配时返回默认配置
+        RateLimitConfig config = RATE_LIMIT_TRIE.longestPrefixMatch(requestPath);
+        return config != null ? config : DEFAULT_CONFIG;
     }
 
     /**
@@ -192,29 +185,14 @@ public class RateLimitInterceptor implements HandlerInterceptor {
      */
     private boolean checkRateLimit(String clientId, String requestPath, RateLimitConfig config) {
         try {
-            // 构建Redis键
-            String key = buildRedisKey(clientId, requestPath, config.getWindowSeconds());
-            
-            // 获取当前计数
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            int currentCount = countStr != null ? Integer.parseInt(countStr) : 0;
-            
-            if (currentCount >= config.getLimit()) {
-                // 记录限流日志
-                LogUtil.warn("限流触发 - 客户端: {} - 路径: {} - 当前计数: {} - 限制: {}/{}", 
-                        clientId, requestPath, currentCount, config.getLimit(), config.getWindowSeconds());
-                return false;
+            if (rateLimiter.tryAcquire(buildLimitKey(clientId, requestPath), config.getLimit(), config.getWindowSeconds())) {
+                return true;
             }
             
-            // 增加计数
-            redisTemplate.opsForValue().increment(key);
-            
-            // 设置过期时间（如果是新键）
-            if (currentCount == 0) {
-                redisTemplate.expire(key, config.getWindowSeconds(), TimeUnit.SECONDS);
-            }
-            
-            return true;
+            // 记录限流日志
+            LogUtil.warn("限流触发 - 客户端: {} - 路径: {} - 限制: {}/{}", 
+                    clientId, requestPath, config.getLimit(), config.getWindowSeconds());
+            return false;
             
         } catch (Exception e) {
             LogUtil.error("限流检查异常: {}", e.getMessage(), e);
@@ -224,16 +202,14 @@ public class RateLimitInterceptor implements HandlerInterceptor {
     }
 
     /**
-     * 构建Redis键
+     * 构建限流标识
      * 
      * @param clientId 客户端标识
      * @param requestPath 请求路径
-     * @param windowSeconds 时间窗口
-     * @return Redis键
+     * @return 限流标识
      */
-    private String buildRedisKey(String clientId, String requestPath, int windowSeconds) {
-        long currentWindow = System.currentTimeMillis() / (windowSeconds * 1000L);
-        return String.format("rate_limit:%s:%s:%d", clientId, requestPath.replaceAll("/", "_"), currentWindow);
+    private String buildLimitKey(String clientId, String requestPath) {
+        return clientId + ":" + requestPath.replace('/', '_');
     }
 
     /**
@@ -283,10 +259,8 @@ public class RateLimitInterceptor implements HandlerInterceptor {
      */
     public int getRemainingRequests(String clientId, String requestPath, RateLimitConfig config) {
         try {
-            String key = buildRedisKey(clientId, requestPath, config.getWindowSeconds());
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            int currentCount = countStr != null ? Integer.parseInt(countStr) : 0;
-            return Math.max(0, config.getLimit() - currentCount);
+            return rateLimiter.getRemaining(buildLimitKey(clientId, requestPath),
+                    config.getLimit(), config.getWindowSeconds());
         } catch (Exception e) {
             LogUtil.error("获取剩余请求次数异常: {}", e.getMessage(), e);
             return config.getLimit();
@@ -301,9 +275,8 @@ public class RateLimitInterceptor implements HandlerInterceptor {
      */
     public void clearRateLimit(String clientId, String requestPath) {
         try {
-            // 清除所有时间窗口的记录
-            String pattern = String.format("rate_limit:%s:%s:*", clientId, requestPath.replaceAll("/", "_"));
-            redisTemplate.delete(redisTemplate.keys(pattern));
+            // 清除本地令牌桶和集群窗口计数
+            rateLimiter.reset(buildLimitKey(clientId, requestPath));
             
             LogUtil.info("清除限流记录 - 客户端: {} - 路径: {}", clientId, requestPath);
         } catch (Exception e) {
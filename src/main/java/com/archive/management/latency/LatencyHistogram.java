@@ -0,0 +1,248 @@
+package com.archive.management.latency;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 定长对数-线性分桶的延迟直方图（HDR 分桶方式）
+ * 值以微秒记录，0~63 每个值一个桶，之后每个2的幂区间再分32个桶，相对误差约3%，
+ * 上限约71分钟，超出按上限计。桶数固定为 {@link #BUCKET_COUNT}，内存占用与请求量无关；
+ * 记录只做原子自增，不加锁
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 31;
+
+    /** 可记录的最大值(微秒) */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /** 桶数 */
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     *
+     * @param micros 耗时(微秒)，负数按0计
+     */
+    public void record(long micros) {
+        long value = Math.max(0L, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 清零；与并发记录同时发生时个别值可能计入清零前或清零后
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        sum.reset();
+        max.set(0L);
+    }
+
+    /**
+     * 累加到快照构建器
+     */
+    void addTo(Snapshot.Builder builder) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                builder.counts[i] += count;
+            }
+        }
+        builder.sum += sum.sum();
+        builder.max = Math.max(builder.max, max.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < (SUB_BUCKET_COUNT << 1)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * 桶内最大值，与 HDR 一样以此作为百分位的结果
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < (SUB_BUCKET_COUNT << 1)) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图的不可变快照，可合并、可编码为紧凑字符串在节点间传递
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Builder().build();
+
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return totalCount > 0 ? (double) sum / totalCount : 0.0;
+        }
+
+        /**
+         * 百分位值(微秒)
+         *
+         * @param percentile 0~100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0L;
+            }
+            double bounded = Math.max(0.0, Math.min(percentile, 100.0));
+            long target = Math.max(1L, (long) Math.ceil(bounded / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 合并另一个快照
+         */
+        public Snapshot merge(Snapshot other) {
+            return new Builder().add(this).add(other).build();
+        }
+
+        /**
+         * 编码为 Base64 字符串：总和、最大值，之后是非零桶的(序号间隔, 计数)，均为变长整数
+         */
+        public String encode() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            writeVarLong(out, sum);
+            writeVarLong(out, max);
+            int previous = -1;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    writeVarLong(out, i - previous);
+                    writeVarLong(out, counts[i]);
+                    previous = i;
+                }
+            }
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        }
+
+        /**
+         * 从 {@link #encode()} 的结果还原
+         *
+         * @throws IllegalArgumentException 编码无效
+         */
+        public static Snapshot decode(String encoded) {
+            ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+            Builder builder = new Builder();
+            builder.sum = readVarLong(in);
+            builder.max = readVarLong(in);
+            int index = -1;
+            while (in.hasRemaining()) {
+                index += (int) readVarLong(in);
+                if (index < 0 || index >= BUCKET_COUNT) {
+                    throw new IllegalArgumentException("直方图桶序号越界: " + index);
+                }
+                builder.counts[index] += readVarLong(in);
+            }
+            return builder.build();
+        }
+
+        private static void writeVarLong(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private static long readVarLong(ByteBuffer in) {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (!in.hasRemaining()) {
+                    throw new IllegalArgumentException("直方图编码不完整");
+                }
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("直方图编码无效");
+        }
+
+        /**
+         * 快照构建器，非线程安全
+         */
+        static final class Builder {
+            private final long[] counts = new long[BUCKET_COUNT];
+            private long sum;
+            private long max;
+
+            Builder add(Snapshot snapshot) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts[i] += snapshot.counts[i];
+                }
+                sum += snapshot.sum;
+                max = Math.max(max, snapshot.max);
+                return this;
+            }
+
+            Snapshot build() {
+                return new Snapshot(Arrays.copyOf(counts, BUCKET_COUNT), sum, max);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.archive.management.latency;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 按接口划分的延迟记录器注册表
+ * 每个接口一个 {@link WindowedLatencyRecorder}，另有一个汇总全部请求的记录器；
+ * 百分位与吞吐量通过 Micrometer 暴露，并定期把本节点各接口的紧凑快照写入 Redis，
+ * 查询集群延迟时合并各节点最近发布的快照
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class LatencyRecorderRegistry {
+
+    /** 全部请求的汇总 */
+    public static final String ALL_ENDPOINTS = "ALL";
+
+    /** 超出单独统计上限的接口 */
+    public static final String OTHER_ENDPOINTS = "OTHER";
+
+    private static final String NODE_KEY_PREFIX = "performance:latency:node:";
+    private static final String NODES_KEY = "performance:latency:nodes";
+    private static final long SNAPSHOT_CACHE_MILLIS = 1000L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final PerformanceProperties.Latency config;
+    private final String instanceId;
+    private final ConcurrentHashMap<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+    private final EndpointLatency all;
+
+    public LatencyRecorderRegistry(StringRedisTemplate stringRedisTemplate,
+                                   MeterRegistry meterRegistry,
+                                   PerformanceProperties performanceProperties,
+                                   @Value("${server.port:8080}") int serverPort) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.config = performanceProperties.getLatency();
+        this.instanceId = resolveInstanceId(config.getInstanceId(), serverPort);
+        this.all = register(ALL_ENDPOINTS);
+    }
+
+    /**
+     * 记录一次请求耗时
+     *
+     * @param endpoint 接口标识，应为路由模板而非实际路径，避免标识数量无限增长
+     * @param nanos    耗时(纳秒)
+     */
+    public void record(String endpoint, long nanos) {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        long now = System.currentTimeMillis();
+        all.recorder.record(micros, now);
+        if (endpoint != null) {
+            endpoint(endpoint).recorder.record(micros, now);
+        }
+    }
+
+    /**
+     * 本节点全部请求在窗口内的延迟分布
+     */
+    public LatencyHistogram.Snapshot overall() {
+        return all.snapshot(System.currentTimeMillis());
+    }
+
+    /**
+     * 本节点全部请求在窗口内的吞吐量(次/秒)
+     */
+    public double overallThroughput() {
+        long now = System.currentTimeMillis();
+        return throughput(all.snapshot(now).getTotalCount(), all.recorder.coveredMillis(now));
+    }
+
+    /**
+     * 本节点各接口的延迟统计，按接口名排序
+     */
+    public Map<String, Object> getLocalStatistics() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> perEndpoint = new TreeMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            LatencyHistogram.Snapshot snapshot = endpoint.snapshot(now);
+            if (endpoint != all && snapshot.getTotalCount() > 0) {
+                perEndpoint.put(name, summarize(snapshot, endpoint.recorder.coveredMillis(now)));
+            }
+        });
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("instanceId", instanceId);
+        statistics.put("windowMs", all.recorder.getWindowMillis());
+        statistics.put("overall", summarize(all.snapshot(now), all.recorder.coveredMillis(now)));
+        statistics.put("endpoints", perEndpoint);
+        return statistics;
+    }
+
+    /**
+     * 合并各节点最近发布的快照得到的集群延迟统计
+     */
+    public Map<String, Object> getClusterStatistics() {
+        Map<String, LatencyHistogram.Snapshot> merged = new TreeMap<>();
+        Set<String> nodes = stringRedisTemplate.opsForZSet()
+            .rangeByScore(NODES_KEY, System.currentTimeMillis() - nodeTtlMillis(), Double.MAX_VALUE);
+        int nodeCount = 0;
+        if (nodes != null) {
+            for (String node : nodes) {
+                Map<Object, Object> published = stringRedisTemplate.opsForHash().entries(NODE_KEY_PREFIX + node);
+                if (published.isEmpty()) {
+                    continue;
+                }
+                nodeCount++;
+                published.forEach((name, encoded) -> {
+                    try {
+                        merged.merge(name.toString(), LatencyHistogram.Snapshot.decode(encoded.toString()),
+                            LatencyHistogram.Snapshot::merge);
+                    } catch (IllegalArgumentException e) {
+                        log.warn("忽略无效的延迟快照: node={}, endpoint={}", node, name);
+                    }
+                });
+            }
+        }
+
+        long window = all.recorder.getWindowMillis();
+        Map<String, Object> perEndpoint = new TreeMap<>();
+        merged.forEach((name, snapshot) -> {
+            if (!ALL_ENDPOINTS.equals(name)) {
+                perEndpoint.put(name, summarize(snapshot, window));
+            }
+        });
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("nodes", nodeCount);
+        statistics.put("windowMs", window);
+        statistics.put("overall", summarize(merged.getOrDefault(ALL_ENDPOINTS, LatencyHistogram.Snapshot.EMPTY), window));
+        statistics.put("endpoints", perEndpoint);
+        return statistics;
+    }
+
+    /**
+     * 发布本节点各接口的窗口快照
+     */
+    @Scheduled(fixedDelayString = "${archive.performance.latency.publish-interval-ms:10000}",
+               initialDelayString = "${archive.performance.latency.publish-interval-ms:10000}")
+    public void publish() {
+        if (!Boolean.TRUE.equals(config.getEnabled()) || !Boolean.TRUE.equals(config.getClusterEnabled())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, String> encoded = new HashMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            LatencyHistogram.Snapshot snapshot = endpoint.snapshot(now);
+            if (snapshot.getTotalCount() > 0) {
+                encoded.put(name, snapshot.encode());
+            }
+        });
+        if (encoded.isEmpty()) {
+            return;
+        }
+        try {
+            String key = NODE_KEY_PREFIX + instanceId;
+            stringRedisTemplate.delete(key);
+            stringRedisTemplate.opsForHash().putAll(key, encoded);
+            stringRedisTemplate.expire(key, nodeTtlMillis(), TimeUnit.MILLISECONDS);
+            stringRedisTemplate.opsForZSet().add(NODES_KEY, instanceId, now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - nodeTtlMillis());
+        } catch (Exception e) {
+            log.warn("发布延迟快照失败: {}", e.getMessage());
+        }
+    }
+
+    private EndpointLatency endpoint(String name) {
+        EndpointLatency endpoint = endpoints.get(name);
+        if (endpoint != null) {
+            return endpoint;
+        }
+        if (endpoints.size() >= config.getMaxEndpoints()) {
+            return endpoints.computeIfAbsent(OTHER_ENDPOINTS, this::newEndpoint);
+        }
+        return endpoints.computeIfAbsent(name, this::newEndpoint);
+    }
+
+    private EndpointLatency register(String name) {
+        return endpoints.computeIfAbsent(name, this::newEndpoint);
+    }
+
+    private EndpointLatency newEndpoint(String name) {
+        EndpointLatency endpoint = new EndpointLatency(
+            new WindowedLatencyRecorder(config.getWindowMs(), config.getSlices()));
+        gauge("archive.request.latency", name, "0.5", endpoint, s -> s.getValueAtPercentile(50));
+        gauge("archive.request.latency", name, "0.95", endpoint, s -> s.getValueAtPercentile(95));
+        gauge("archive.request.latency", name, "0.99", endpoint, s -> s.getValueAtPercentile(99));
+        gauge("archive.request.latency", name, "max", endpoint, LatencyHistogram.Snapshot::getMax);
+        Gauge.builder("archive.request.throughput", endpoint, e -> {
+                long now = System.currentTimeMillis();
+                return throughput(e.snapshot(now).getTotalCount(), e.recorder.coveredMillis(now));
+            })
+            .description("窗口内的请求吞吐量")
+            .tag("endpoint", name)
+            .baseUnit("requests/s")
+            .register(meterRegistry);
+        return endpoint;
+    }
+
+    private void gauge(String meter, String endpointName, String quantile, EndpointLatency endpoint,
+                       ToDoubleFunction<LatencyHistogram.Snapshot> micros) {
+        Gauge.builder(meter, endpoint,
+                e -> micros.applyAsDouble(e.snapshot(System.currentTimeMillis())) / 1000.0)
+            .description("窗口内的请求耗时")
+            .tag("endpoint", endpointName)
+            .tag("quantile", quantile)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    private long nodeTtlMillis() {
+        return Math.max(config.getPublishIntervalMs() * 3, config.getWindowMs());
+    }
+
+    static Map<String, Object> summarize(LatencyHistogram.Snapshot snapshot, long coveredMillis) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.getTotalCount());
+        summary.put("throughput", throughput(snapshot.getTotalCount(), coveredMillis));
+        summary.put("meanMs", snapshot.getMean() / 1000.0);
+        summary.put("p50Ms", snapshot.getValueAtPercentile(50) / 1000.0);
+        summary.put("p95Ms", snapshot.getValueAtPercentile(95) / 1000.0);
+        summary.put("p99Ms", snapshot.getValueAtPercentile(99) / 1000.0);
+        summary.put("maxMs", snapshot.getMax() / 1000.0);
+        return summary;
+    }
+
+    private static double throughput(long count, long coveredMillis) {
+        return coveredMillis > 0 ? count * 1000.0 / coveredMillis : 0.0;
+    }
+
+    private static String resolveInstanceId(String configured, int serverPort) {
+        if (configured != null && !configured.trim().isEmpty()) {
+            return configured.trim();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName() + ":" + serverPort;
+        } catch (Exception e) {
+            return "localhost:" + serverPort;
+        }
+    }
+
+    /**
+     * 单个接口的记录器；快照缓存一秒，同一次指标采集的多个 Gauge 共用
+     */
+    private static final class EndpointLatency {
+        private final WindowedLatencyRecorder recorder;
+        private volatile long cachedAt;
+        private volatile LatencyHistogram.Snapshot cached;
+
+        private EndpointLatency(WindowedLatencyRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        private LatencyHistogram.Snapshot snapshot(long now) {
+            LatencyHistogram.Snapshot snapshot = cached;
+            if (snapshot == null || now - cachedAt >= SNAPSHOT_CACHE_MILLIS) {
+                snapshot = recorder.snapshot(now);
+                cached = snapshot;
+                cachedAt = now;
+            }
+            return snapshot;
+        }
+    }
+}
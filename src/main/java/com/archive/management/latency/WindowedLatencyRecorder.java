@@ -0,0 +1,83 @@
+package com.archive.management.latency;
+
+/**
+ * 滑动时间窗口的延迟记录器
+ * 窗口分为若干时间片，每片一个 {@link LatencyHistogram}，按时间片序号循环复用；
+ * 写入时发现所在槽位还属于旧时间片才加锁清零一次，其余情况只有原子自增。
+ * 快照合并窗口内的时间片，占用内存为 时间片数 × 桶数，与请求量无关
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class WindowedLatencyRecorder {
+
+    private final long sliceMillis;
+    private final Slice[] slices;
+
+    /**
+     * @param windowMillis 窗口长度(毫秒)
+     * @param sliceCount   时间片数
+     */
+    public WindowedLatencyRecorder(long windowMillis, int sliceCount) {
+        int count = Math.max(1, sliceCount);
+        this.sliceMillis = Math.max(1L, windowMillis / count);
+        this.slices = new Slice[count];
+        for (int i = 0; i < count; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param micros    耗时(微秒)
+     * @param nowMillis 当前时间(毫秒)
+     */
+    public void record(long micros, long nowMillis) {
+        long epoch = nowMillis / sliceMillis;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        if (slice.epoch != epoch) {
+            slice.rotate(epoch);
+        }
+        slice.histogram.record(micros);
+    }
+
+    /**
+     * 窗口内的延迟分布
+     */
+    public LatencyHistogram.Snapshot snapshot(long nowMillis) {
+        long epoch = nowMillis / sliceMillis;
+        LatencyHistogram.Snapshot.Builder builder = new LatencyHistogram.Snapshot.Builder();
+        for (Slice slice : slices) {
+            long sliceEpoch = slice.epoch;
+            if (sliceEpoch <= epoch && sliceEpoch > epoch - slices.length) {
+                slice.histogram.addTo(builder);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 快照实际覆盖的时长(毫秒)：之前的完整时间片加当前时间片已过去的部分
+     */
+    public long coveredMillis(long nowMillis) {
+        return (slices.length - 1) * sliceMillis + nowMillis % sliceMillis + 1;
+    }
+
+    public long getWindowMillis() {
+        return sliceMillis * slices.length;
+    }
+
+    private static final class Slice {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile long epoch = Long.MIN_VALUE;
+
+        private synchronized void rotate(long newEpoch) {
+            if (epoch < newEpoch) {
+                histogram.reset();
+                epoch = newEpoch;
+            }
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.archive.management.listener;
 
-import com.archive.management.constant.SecurityConstants;
+import com.archive.management.cache.CacheTagInvalidator;
+import com.archive.management.cache.CacheTags;
 import com.archive.management.event.PermissionChangedEvent;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.permission.PermissionForestHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
-import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,55 +30,52 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class PermissionChangedListener {
 
-    private final CacheManager cacheManager;
+    private final CacheTagInvalidator cacheTagInvalidator;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PermissionDecisionEngine permissionDecisionEngine;
+    private final PermissionForestHolder permissionForestHolder;
 
     /**
-     * 处理权限变更事件
+     * 处理权限变更事件（事务提交后执行，保证读取到已提交的权限数据）
      */
     @Async
-    @EventListener
+    @TransactionalEventListener(fallbackExecution = true)
     public void onPermissionChanged(PermissionChangedEvent event) {
         log.info("权限变更事件触发：permissionId={}, action={}, operator={}", 
                  event.getPermissionId(), event.getAction(), event.getOperatorId());
         
-        // 1. 刷新缓存
+        // 1. 重建权限森林（先于清缓存，避免清除后又从旧森林生成树缓存）
+        try {
+            permissionForestHolder.onPermissionChanged();
+        } catch (Exception e) {
+            log.error("重建权限森林失败", e);
+        }
+        
+        // 2. 刷新缓存
         refreshPermissionCache(event);
         
-        // 2. 推送WebSocket通知
+        // 3. 增量更新权限决策快照
+        permissionDecisionEngine.onPermissionChanged(event);
+        
+        // 4. 推送WebSocket通知
         pushPermissionChangeNotification(event);
         
-        // 3. 记录审计日志（可选，如果有审计服务）
+        // 5. 记录审计日志（可选，如果有审计服务）
         // auditService.log(event);
     }
 
     /**
      * 刷新权限缓存
+     * 按标签失效依赖全部权限的列表和树，以及变更权限自身的条目；其余权限和角色缓存保留
      */
     private void refreshPermissionCache(PermissionChangedEvent event) {
-        try {
-            // 清除权限相关的所有缓存
-            if (cacheManager.getCache(SecurityConstants.Cache.PERMISSION_PREFIX) != null) {
-                cacheManager.getCache(SecurityConstants.Cache.PERMISSION_PREFIX).clear();
-                log.info("权限缓存已清除");
-            }
-            
-            if (cacheManager.getCache(SecurityConstants.Cache.PERMISSION_TREE) != null) {
-                cacheManager.getCache(SecurityConstants.Cache.PERMISSION_TREE).clear();
-                log.info("权限树缓存已清除");
-            }
-            
-            // 如果是特定权限的变更，可以只清除该权限的缓存
-            if (event.getPermissionId() != null && "UPDATE".equals(event.getAction())) {
-                // 精准清除
-                if (cacheManager.getCache(SecurityConstants.Cache.PERMISSION_PREFIX) != null) {
-                    cacheManager.getCache(SecurityConstants.Cache.PERMISSION_PREFIX)
-                        .evict(event.getPermissionId());
-                }
-            }
-        } catch (Exception e) {
-            log.error("刷新权限缓存失败", e);
+        List<String> tags = new ArrayList<>();
+        tags.add(CacheTags.PERMISSION_ALL);
+        if (event.getPermissionId() != null) {
+            tags.add(CacheTags.PERMISSION + event.getPermissionId());
         }
+        cacheTagInvalidator.evict(tags);
+        log.info("权限缓存已按标签失效：{}", tags);
     }
 
     /**
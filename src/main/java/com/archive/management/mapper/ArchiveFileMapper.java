@@ -388,6 +388,23 @@ public interface ArchiveFileMapper extends BaseMapper<ArchiveFile> {
             "last_download_time = NOW(), update_time = NOW() WHERE id = #{fileId}")
     int incrementDownloadCount(@Param("fileId") Long fileId);
 
+    /**
+     * 批量累加文件下载次数（写回计数缓冲的增量）
+     * 
+     * @param deltas 文件ID -> 增量，按ID升序传入以保持加锁顺序一致
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE archive_file SET download_count = download_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END, last_download_time = NOW() " +
+            "WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int batchAddDownloadCount(@Param("deltas") Map<Long, Long> deltas);
+
     /**
      * 更新文件访问时间
      * 
@@ -641,4 +658,86 @@ public interface ArchiveFileMapper extends BaseMapper<ArchiveFile> {
             "GROUP BY file_md5 HAVING COUNT(*) > 1 " +
             "ORDER BY duplicateCount DESC, wastedSize DESC")
     List<Map<String, Object>> getDuplicateFileStatistics();
-}
\ No newline at end of file
+
+    /**
+     * 按主键分页查找过期的临时文件
+     *
+     * @param afterId 游标，为空表示从头开始
+     * @param cutoff 过期时间早于此时间的文件
+     * @param limit 批大小
+     * @return 按ID升序的文件（仅含清理所需字段）
+     */
+    @Select("<script>" +
+            "SELECT id, file_name, storage_path, file_size FROM archive_file " +
+            "WHERE deleted = 0 AND expire_time &lt; #{cutoff}" +
+            "<if test='afterId != null'> AND id &gt; #{afterId}</if>" +
+            " ORDER BY id ASC LIMIT #{limit}" +
+            "</script>")
+    List<ArchiveFile> findExpiredTempFilesAfterId(@Param("afterId") Long afterId,
+                                                  @Param("cutoff") LocalDateTime cutoff,
+                                                  @Param("limit") int limit);
+
+    /**
+     * 按主键分页查找软删除超过保留期的文件
+     *
+     * @param afterId 游标，为空表示从头开始
+     * @param cutoff 删除时间早于此时间的文件
+     * @param limit 批大小
+     * @return 按ID升序的文件（仅含清理所需字段）
+     */
+    @Select("<script>" +
+            "SELECT id, file_name, storage_path, file_size FROM archive_file " +
+            "WHERE deleted = 1 AND delete_time &lt; #{cutoff}" +
+            "<if test='afterId != null'> AND id &gt; #{afterId}</if>" +
+            " ORDER BY id ASC LIMIT #{limit}" +
+            "</script>")
+    List<ArchiveFile> findExpiredDeletedFilesAfterId(@Param("afterId") Long afterId,
+                                                     @Param("cutoff") LocalDateTime cutoff,
+                                                     @Param("limit") int limit);
+
+    /**
+     * 锁定仍为过期临时文件的记录
+     *
+     * @param fileIds 文件ID列表
+     * @param cutoff 过期时间早于此时间的文件
+     * @return 仍满足条件的文件ID
+     */
+    @Select("<script>" +
+            "SELECT id FROM archive_file WHERE deleted = 0 AND expire_time &lt; #{cutoff} AND id IN " +
+            "<foreach collection='fileIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockExpiredTempFiles(@Param("fileIds") List<Long> fileIds, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 锁定仍为软删除超期的记录
+     *
+     * @param fileIds 文件ID列表
+     * @param cutoff 删除时间早于此时间的文件
+     * @return 仍满足条件的文件ID
+     */
+    @Select("<script>" +
+            "SELECT id FROM archive_file WHERE deleted = 1 AND delete_time &lt; #{cutoff} AND id IN " +
+            "<foreach collection='fileIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockExpiredDeletedFiles(@Param("fileIds") List<Long> fileIds, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 物理删除文件记录
+     *
+     * @param fileIds 文件ID列表
+     * @return 删除数量
+     */
+    @Delete("<script>" +
+            "DELETE FROM archive_file WHERE id IN " +
+            "<foreach collection='fileIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int purgeFiles(@Param("fileIds") List<Long> fileIds);
+}
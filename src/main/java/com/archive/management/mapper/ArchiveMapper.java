@@ -415,8 +415,8 @@ public interface ArchiveMapper extends BaseMapper<Archive> {
      * @return 归档数量
      */
     @Update("<script>" +
-            "UPDATE archive SET status = 2, archive_time = NOW(), archived_by = #{archivedBy}, update_time = NOW() " +
-            "WHERE id IN " +
+            "UPDATE arc_archive SET status = 2, archive_time = NOW(), archive_user_id = #{archivedBy}, update_time = NOW() " +
+            "WHERE archive_id IN " +
             "<foreach collection='archiveIds' item='id' open='(' separator=',' close=')'>" +
             "#{id}" +
             "</foreach>" +
@@ -441,6 +441,40 @@ public interface ArchiveMapper extends BaseMapper<Archive> {
     @Update("UPDATE archive SET download_count = download_count + 1, last_download_time = NOW() WHERE id = #{archiveId}")
     int incrementDownloadCount(@Param("archiveId") Long archiveId);
 
+    /**
+     * 批量累加查看次数（写回计数缓冲的增量）
+     * 
+     * @param deltas 档案ID -> 增量，按ID升序传入以保持加锁顺序一致
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE archive SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END, last_view_time = NOW() " +
+            "WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int batchAddViewCount(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 批量累加下载次数（写回计数缓冲的增量）
+     * 
+     * @param deltas 档案ID -> 增量，按ID升序传入以保持加锁顺序一致
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE archive SET download_count = download_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END, last_download_time = NOW() " +
+            "WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int batchAddDownloadCount(@Param("deltas") Map<Long, Long> deltas);
+
     /**
      * 更新档案大小
      * 
@@ -660,4 +694,61 @@ public interface ArchiveMapper extends BaseMapper<Archive> {
      */
     @Select("SELECT COUNT(*) FROM archive WHERE deleted = 0")
     Long countTotal();
-}
\ No newline at end of file
+
+    /**
+     * 按主键游标分批读取档案（含已删除），用于构建全文索引
+     *
+     * @param lastId 上一批最后一条档案ID
+     * @param limit 批大小
+     * @return 档案列表
+     */
+    @Select("SELECT * FROM arc_archive WHERE archive_id > #{lastId} ORDER BY archive_id ASC LIMIT #{limit}")
+    List<Archive> findIndexBatchAfterId(@Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 根据ID列表查找档案（含已删除），用于回填全文检索结果
+     *
+     * @param ids 档案ID列表
+     * @return 档案列表
+     */
+    @Select("<script>" +
+            "SELECT * FROM arc_archive WHERE archive_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Archive> findByIdsIncludingDeleted(@Param("ids") List<Long> ids);
+
+    /**
+     * 按主键分页查找待自动归档的档案ID（待审核且超过期限未变动）
+     *
+     * @param afterId 游标，为空表示从头开始
+     * @param cutoff 最后变动时间早于此时间的档案
+     * @param limit 批大小
+     * @return 按ID升序的档案ID
+     */
+    @Select("<script>" +
+            "SELECT archive_id FROM arc_archive WHERE status = 1 AND update_time &lt; #{cutoff}" +
+            "<if test='afterId != null'> AND archive_id &gt; #{afterId}</if>" +
+            " ORDER BY archive_id ASC LIMIT #{limit}" +
+            "</script>")
+    List<Long> findAutoArchiveCandidateIds(@Param("afterId") Long afterId, @Param("cutoff") LocalDateTime cutoff,
+                                           @Param("limit") int limit);
+
+    /**
+     * 锁定仍满足自动归档条件的档案
+     *
+     * @param archiveIds 档案ID列表
+     * @param cutoff 最后变动时间早于此时间的档案
+     * @return 仍满足条件的档案ID
+     */
+    @Select("<script>" +
+            "SELECT archive_id FROM arc_archive WHERE status = 1 AND update_time &lt; #{cutoff} AND archive_id IN " +
+            "<foreach collection='archiveIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockAutoArchiveCandidates(@Param("archiveIds") List<Long> archiveIds,
+                                         @Param("cutoff") LocalDateTime cutoff);
+}
@@ -314,4 +314,64 @@ public interface AuditLogMapper extends BaseMapper<AuditLog> {
             "</foreach>" +
             "</script>")
     int batchInsert(@Param("auditLogs") List<AuditLog> auditLogs);
-}
\ No newline at end of file
+
+    /**
+     * 按预分配的ID批量插入审计日志，已存在的ID跳过
+     * 用于异步写入的重试和落盘补写，同一批重复提交不会产生重复记录。
+     * 列与 {@link AuditLog} 的 @TableField 一一对应，新增实体字段时需同步修改
+     * @param auditLogs 已分配ID的审计日志列表
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO audit_log (id, user_id, username, operation_type, module, `function`, description, " +
+            "request_method, request_url, request_params, request_body, response_status, response_result, " +
+            "operation_result, error_message, execution_time, client_ip, client_address, user_agent, " +
+            "browser_type, operating_system, device_type, session_id, business_id, business_type, business_name, " +
+            "old_data, new_data, risk_level, is_sensitive, need_approval, approval_status, approver_id, " +
+            "approver_name, approval_time, approval_comment, tags, extra_info, remark, create_time) VALUES " +
+            "<foreach collection='auditLogs' item='log' separator=','>" +
+            "(#{log.id}, #{log.userId}, #{log.username}, #{log.operationType}, #{log.module}, #{log.function}, " +
+            "#{log.description}, #{log.requestMethod}, #{log.requestUrl}, #{log.requestParams}, #{log.requestBody}, " +
+            "#{log.responseStatus}, #{log.responseResult}, #{log.operationResult}, #{log.errorMessage}, " +
+            "#{log.executionTime}, #{log.clientIp}, #{log.clientAddress}, #{log.userAgent}, #{log.browserType}, " +
+            "#{log.operatingSystem}, #{log.deviceType}, #{log.sessionId}, #{log.businessId}, #{log.businessType}, " +
+            "#{log.businessName}, #{log.oldData}, #{log.newData}, #{log.riskLevel}, #{log.isSensitive}, " +
+            "#{log.needApproval}, #{log.approvalStatus}, #{log.approverId}, #{log.approverName}, " +
+            "#{log.approvalTime}, #{log.approvalComment}, #{log.tags}, #{log.extraInfo}, #{log.remark}, " +
+            "#{log.createTime})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE id = id" +
+            "</script>")
+    int batchInsertIfAbsent(@Param("auditLogs") List<AuditLog> auditLogs);
+
+    /**
+     * 按主键分页查找过期审计日志ID
+     *
+     * @param afterId 游标，为空表示从头开始
+     * @param cutoff 创建时间早于此时间的日志
+     * @param limit 批大小
+     * @return 按ID升序的日志ID
+     */
+    @Select("<script>" +
+            "SELECT id FROM audit_log WHERE create_time &lt; #{cutoff}" +
+            "<if test='afterId != null'> AND id &gt; #{afterId}</if>" +
+            " ORDER BY id ASC LIMIT #{limit}" +
+            "</script>")
+    List<Long> findExpiredIdsAfterId(@Param("afterId") Long afterId, @Param("cutoff") LocalDateTime cutoff,
+                                     @Param("limit") int limit);
+
+    /**
+     * 删除过期审计日志
+     *
+     * @param ids 日志ID列表
+     * @param cutoff 创建时间早于此时间的日志
+     * @return 删除数量
+     */
+    @Delete("<script>" +
+            "DELETE FROM audit_log WHERE create_time &lt; #{cutoff} AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int deleteExpiredByIds(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+}
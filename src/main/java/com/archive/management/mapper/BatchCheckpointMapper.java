@@ -0,0 +1,69 @@
+package com.archive.management.mapper;
+
+import com.archive.management.scheduler.batch.BatchCheckpoint;
+import org.apache.ibatis.annotations.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 分块批处理检查点Mapper接口
+ * advance 应与分块写入在同一事务内调用，分块提交与游标推进同时生效
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Mapper
+@Repository
+public interface BatchCheckpointMapper {
+
+    /**
+     * 读取任务检查点
+     *
+     * @param jobName 任务名
+     * @return 检查点，从未执行过时为空
+     */
+    @Select("SELECT job_name AS jobName, run_id AS runId, cursor_key AS cursorKey, status, chunks, " +
+            "processed, failed, started_at AS startedAt, updated_at AS updatedAt " +
+            "FROM sys_batch_job_checkpoint WHERE job_name = #{jobName}")
+    BatchCheckpoint selectByJobName(@Param("jobName") String jobName);
+
+    /**
+     * 开始新的一轮，游标和计数清零
+     *
+     * @param jobName 任务名
+     * @param runId 本轮执行标识
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO sys_batch_job_checkpoint (job_name, run_id, cursor_key, status, chunks, processed, failed, started_at) " +
+            "VALUES (#{jobName}, #{runId}, NULL, 'RUNNING', 0, 0, 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE run_id = VALUES(run_id), cursor_key = NULL, status = 'RUNNING', " +
+            "chunks = 0, processed = 0, failed = 0, started_at = NOW()")
+    int startRun(@Param("jobName") String jobName, @Param("runId") String runId);
+
+    /**
+     * 推进游标并累加计数，只更新本轮的检查点
+     *
+     * @param jobName 任务名
+     * @param runId 本轮执行标识
+     * @param cursorKey 新游标
+     * @param processed 本块成功条数
+     * @param failed 本块失败条数
+     * @return 影响行数，为0表示本轮已被其它节点接管
+     */
+    @Update("UPDATE sys_batch_job_checkpoint SET cursor_key = #{cursorKey}, status = 'RUNNING', chunks = chunks + 1, " +
+            "processed = processed + #{processed}, failed = failed + #{failed} " +
+            "WHERE job_name = #{jobName} AND run_id = #{runId}")
+    int advance(@Param("jobName") String jobName, @Param("runId") String runId, @Param("cursorKey") Long cursorKey,
+                @Param("processed") long processed, @Param("failed") long failed);
+
+    /**
+     * 结束本轮
+     *
+     * @param jobName 任务名
+     * @param runId 本轮执行标识
+     * @param status COMPLETED 或 FAILED
+     * @return 影响行数
+     */
+    @Update("UPDATE sys_batch_job_checkpoint SET status = #{status} WHERE job_name = #{jobName} AND run_id = #{runId}")
+    int finishRun(@Param("jobName") String jobName, @Param("runId") String runId, @Param("status") String status);
+}
@@ -4,7 +4,9 @@ import com.archive.management.entity.Notification;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
@@ -76,6 +78,23 @@ public interface NotificationMapper extends BaseMapper<Notification> {
             "AND (expire_time IS NULL OR expire_time > NOW())")
     Long countUnreadNotifications(@Param("userId") Long userId);
 
+    /**
+     * 按用户统计本人的未读通知数（不含广播），没有未读通知的用户不返回
+     * 
+     * @param userIds 用户ID列表
+     * @return userId、unreadCount
+     */
+    @Select("<script>" +
+            "SELECT user_id AS userId, COUNT(*) AS unreadCount FROM arc_notification " +
+            "WHERE deleted = 0 AND status = 0 " +
+            "AND user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach> " +
+            "GROUP BY user_id" +
+            "</script>")
+    List<java.util.Map<String, Object>> countUnreadGroupByUser(@Param("userIds") java.util.Collection<Long> userIds);
+
     /**
      * 批量标记通知为已读
      * 
@@ -103,7 +122,8 @@ public interface NotificationMapper extends BaseMapper<Notification> {
     );
 
     /**
-     * 标记用户所有通知为已读
+     * 标记用户本人的所有通知为已读
+     * 广播通知（user_id 为空）由所有用户共享一行，不在此更新，否则一个用户会替所有人标记已读
      * 
      * @param userId 用户ID
      * @param readTime 阅读时间
@@ -114,7 +134,7 @@ public interface NotificationMapper extends BaseMapper<Notification> {
             "read_time = #{readTime}, " +
             "update_time = NOW() " +
             "WHERE deleted = 0 " +
-            "AND (user_id = #{userId} OR user_id IS NULL) " +
+            "AND user_id = #{userId} " +
             "AND status = 0")
     int markAllAsRead(@Param("userId") Long userId, @Param("readTime") LocalDateTime readTime);
 
@@ -257,4 +277,23 @@ public interface NotificationMapper extends BaseMapper<Notification> {
             "AND read_time IS NOT NULL " +
             "AND read_time <= DATE_SUB(NOW(), INTERVAL #{days} DAY)")
     int cleanupReadNotifications(@Param("days") Integer days);
-}
\ No newline at end of file
+
+    /**
+     * 多行插入通知，回填自增ID
+     * 
+     * @param notifications 通知列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO arc_notification (user_id, notification_type, title, content, status, " +
+            "email_notify, sms_notify, websocket_notify, business_id, business_type, priority, " +
+            "expire_time, extra_data, create_time, update_time, deleted, version) VALUES " +
+            "<foreach collection='notifications' item='n' separator=','>" +
+            "(#{n.userId}, #{n.notificationType}, #{n.title}, #{n.content}, #{n.status}, " +
+            "#{n.emailNotify}, #{n.smsNotify}, #{n.websocketNotify}, #{n.businessId}, #{n.businessType}, " +
+            "#{n.priority}, #{n.expireTime}, #{n.extraData}, #{n.createTime}, #{n.createTime}, 0, 1)" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notifications.notificationId", keyColumn = "notification_id")
+    int batchInsert(@Param("notifications") List<Notification> notifications);
+}
@@ -0,0 +1,45 @@
+package com.archive.management.mapper;
+
+import org.apache.ibatis.annotations.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 编号序列Mapper接口
+ * 号段租用需在同一事务内依次调用 initSequence、selectForUpdate、advance
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Mapper
+@Repository
+public interface NumberSequenceMapper {
+
+    /**
+     * 序列不存在时创建
+     *
+     * @param seqKey 序列键
+     * @return 插入数量，已存在时为0
+     */
+    @Insert("INSERT IGNORE INTO sys_number_sequences (seq_key, next_value) VALUES (#{seqKey}, 1)")
+    int initSequence(@Param("seqKey") String seqKey);
+
+    /**
+     * 锁定并读取下一个未租出的序列值
+     *
+     * @param seqKey 序列键
+     * @return 下一个未租出的序列值
+     */
+    @Select("SELECT next_value FROM sys_number_sequences WHERE seq_key = #{seqKey} FOR UPDATE")
+    Long selectForUpdate(@Param("seqKey") String seqKey);
+
+    /**
+     * 推进序列
+     *
+     * @param seqKey 序列键
+     * @param nextValue 新的下一个未租出的序列值
+     * @return 更新数量
+     */
+    @Update("UPDATE sys_number_sequences SET next_value = #{nextValue} WHERE seq_key = #{seqKey}")
+    int advance(@Param("seqKey") String seqKey, @Param("nextValue") long nextValue);
+}
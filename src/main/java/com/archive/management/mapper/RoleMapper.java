@@ -640,6 +640,37 @@ public interface RoleMapper extends BaseMapper<Role> {
             "</script>")
     boolean deleteUserRolesByIds(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
 
+    /**
+     * 删除多个用户的指定角色关联
+     */
+    @Delete("<script>" +
+            "DELETE FROM sys_user_role WHERE user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>" +
+            "#{userId}" +
+            "</foreach>" +
+            " AND role_id IN " +
+            "<foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>" +
+            "#{roleId}" +
+            "</foreach>" +
+            "</script>")
+    int deleteUserRolesForUsers(@Param("userIds") List<Long> userIds, @Param("roleIds") List<Long> roleIds);
+
+    /**
+     * 批量插入多个用户的角色关联（用户 × 角色）
+     */
+    @Insert("<script>" +
+            "INSERT INTO sys_user_role (user_id, role_id, create_by, create_time) VALUES " +
+            "<foreach collection='userIds' item='userId' separator=','>" +
+            "<foreach collection='roleIds' item='roleId' separator=','>" +
+            "(#{userId}, #{roleId}, #{createdBy}, #{createTime})" +
+            "</foreach>" +
+            "</foreach>" +
+            "</script>")
+    int batchInsertUsersRoles(@Param("userIds") List<Long> userIds,
+                              @Param("roleIds") List<Long> roleIds,
+                              @Param("createdBy") Long createdBy,
+                              @Param("createTime") LocalDateTime createTime);
+
     // ==================== 角色层级相关方法 ====================
 
     /**
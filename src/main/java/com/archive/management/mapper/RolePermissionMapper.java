@@ -4,6 +4,7 @@ import com.archive.management.entity.RolePermission;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 
@@ -48,16 +49,37 @@ public interface RolePermissionMapper extends BaseMapper<RolePermission> {
      * @param roleId 角色ID
      * @return 权限ID列表
      */
+    @Select("SELECT permission_id FROM sys_role_permission WHERE role_id = #{roleId}")
     List<Long> selectPermissionIdsByRoleId(@Param("roleId") Long roleId);
 
+    /**
+     * 根据用户ID查询其角色拥有的权限ID列表
+     * 
+     * @param userId 用户ID
+     * @return 权限ID列表
+     */
+    @Select("SELECT DISTINCT rp.permission_id FROM sys_role_permission rp " +
+            "INNER JOIN sys_user_role ur ON rp.role_id = ur.role_id " +
+            "WHERE ur.user_id = #{userId}")
+    List<Long> selectPermissionIdsByUserId(@Param("userId") Long userId);
+
     /**
      * 根据权限ID查询角色ID列表
      * 
      * @param permissionId 权限ID
      * @return 角色ID列表
      */
+    @Select("SELECT role_id FROM sys_role_permission WHERE permission_id = #{permissionId}")
     List<Long> selectRoleIdsByPermissionId(@Param("permissionId") Long permissionId);
 
+    /**
+     * 查询全部角色权限关联（仅角色ID与权限ID，用于构建权限决策快照）
+     * 
+     * @return 角色权限关联列表
+     */
+    @Select("SELECT role_id, permission_id FROM sys_role_permission")
+    List<RolePermission> selectAllRolePermissionPairs();
+
     /**
      * 统计角色拥有的权限数量
      * 
@@ -0,0 +1,251 @@
+package com.archive.management.mapper;
+
+import com.archive.management.statistics.RollupBucket;
+import org.apache.ibatis.annotations.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计汇总Mapper接口
+ * 原始表计数方法中的表名、时间列和附加条件来自 {@link com.archive.management.statistics.RollupMetric} 常量，
+ * 不接受外部输入
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Mapper
+@Repository
+public interface StatisticsRollupMapper {
+
+    /**
+     * 小时桶累加增量
+     *
+     * @param buckets 增量
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO stat_rollup_hourly (metric, bucket_start, value) VALUES " +
+            "<foreach collection='buckets' item='b' separator=','>" +
+            "(#{b.metric}, #{b.bucketStart}, #{b.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE value = value + VALUES(value)" +
+            "</script>")
+    int addHourly(@Param("buckets") List<RollupBucket> buckets);
+
+    /**
+     * 天桶累加增量
+     *
+     * @param buckets 增量
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO stat_rollup_daily (metric, bucket_start, value) VALUES " +
+            "<foreach collection='buckets' item='b' separator=','>" +
+            "(#{b.metric}, #{b.bucketStart}, #{b.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE value = value + VALUES(value)" +
+            "</script>")
+    int addDaily(@Param("buckets") List<RollupBucket> buckets);
+
+    /**
+     * 按重算结果覆盖小时桶
+     *
+     * @param buckets 重算结果
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO stat_rollup_hourly (metric, bucket_start, value) VALUES " +
+            "<foreach collection='buckets' item='b' separator=','>" +
+            "(#{b.metric}, #{b.bucketStart}, #{b.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE value = VALUES(value)" +
+            "</script>")
+    int overwriteHourly(@Param("buckets") List<RollupBucket> buckets);
+
+    /**
+     * 按重算结果覆盖天桶
+     *
+     * @param buckets 重算结果
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO stat_rollup_daily (metric, bucket_start, value) VALUES " +
+            "<foreach collection='buckets' item='b' separator=','>" +
+            "(#{b.metric}, #{b.bucketStart}, #{b.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE value = VALUES(value)" +
+            "</script>")
+    int overwriteDaily(@Param("buckets") List<RollupBucket> buckets);
+
+    /**
+     * 由小时桶汇总出天桶并覆盖
+     *
+     * @param metric 指标
+     * @param from 起始零点（含）
+     * @param to 结束零点（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO stat_rollup_daily (metric, bucket_start, value) " +
+            "SELECT metric, TIMESTAMP(DATE(bucket_start)), SUM(value) FROM stat_rollup_hourly " +
+            "WHERE metric = #{metric} AND bucket_start >= #{from} AND bucket_start < #{to} " +
+            "GROUP BY metric, DATE(bucket_start) " +
+            "ON DUPLICATE KEY UPDATE value = VALUES(value)")
+    int rollupDaily(@Param("metric") String metric, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 读取小时桶
+     *
+     * @param metrics 指标
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @return 小时桶
+     */
+    @Select("<script>" +
+            "SELECT metric, bucket_start AS bucketStart, value FROM stat_rollup_hourly " +
+            "WHERE metric IN " +
+            "<foreach collection='metrics' item='m' open='(' separator=',' close=')'>#{m}</foreach> " +
+            "AND bucket_start >= #{from} AND bucket_start &lt; #{to}" +
+            "</script>")
+    List<RollupBucket> selectHourly(@Param("metrics") Collection<String> metrics,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
+
+    /**
+     * 读取天桶
+     *
+     * @param metrics 指标
+     * @param from 起始零点（含）
+     * @param to 结束零点（不含）
+     * @return 天桶
+     */
+    @Select("<script>" +
+            "SELECT metric, bucket_start AS bucketStart, value FROM stat_rollup_daily " +
+            "WHERE metric IN " +
+            "<foreach collection='metrics' item='m' open='(' separator=',' close=')'>#{m}</foreach> " +
+            "AND bucket_start >= #{from} AND bucket_start &lt; #{to}" +
+            "</script>")
+    List<RollupBucket> selectDaily(@Param("metrics") Collection<String> metrics,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    /**
+     * 按小时统计原始表
+     *
+     * @return 有记录的小时桶（metric 为空）
+     */
+    @Select("SELECT DATE_ADD(DATE(${timeColumn}), INTERVAL HOUR(${timeColumn}) HOUR) AS bucketStart, COUNT(*) AS value " +
+            "FROM ${table} WHERE ${timeColumn} >= #{from} AND ${timeColumn} < #{to} ${condition} " +
+            "GROUP BY bucketStart")
+    List<RollupBucket> countRawHourly(@Param("table") String table,
+                                      @Param("timeColumn") String timeColumn,
+                                      @Param("condition") String condition,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+
+    /**
+     * 按天去重统计原始表
+     *
+     * @return 有记录的天桶（metric 为空）
+     */
+    @Select("SELECT TIMESTAMP(DATE(${timeColumn})) AS bucketStart, COUNT(DISTINCT ${distinctColumn}) AS value " +
+            "FROM ${table} WHERE ${timeColumn} >= #{from} AND ${timeColumn} < #{to} ${condition} " +
+            "GROUP BY bucketStart")
+    List<RollupBucket> countRawDailyDistinct(@Param("table") String table,
+                                             @Param("timeColumn") String timeColumn,
+                                             @Param("distinctColumn") String distinctColumn,
+                                             @Param("condition") String condition,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+
+    /**
+     * 原始表最早记录时间，用于首次补算
+     */
+    @Select("SELECT MIN(${timeColumn}) FROM ${table} WHERE ${timeColumn} IS NOT NULL ${condition}")
+    LocalDateTime selectRawMinTime(@Param("table") String table,
+                                   @Param("timeColumn") String timeColumn,
+                                   @Param("condition") String condition);
+
+    /**
+     * 读取补算进度
+     */
+    @Select("SELECT watermark FROM stat_rollup_watermark WHERE metric = #{metric}")
+    LocalDateTime selectWatermark(@Param("metric") String metric);
+
+    /**
+     * 锁定并读取补算进度
+     * 增量写入与补算都先锁定该行，同一指标的两者互斥
+     */
+    @Select("SELECT watermark FROM stat_rollup_watermark WHERE metric = #{metric} FOR UPDATE")
+    LocalDateTime selectWatermarkForUpdate(@Param("metric") String metric);
+
+    /**
+     * 首次补算前建立进度行，已存在时不变
+     */
+    @Insert("INSERT IGNORE INTO stat_rollup_watermark (metric, watermark) VALUES (#{metric}, #{watermark})")
+    int initWatermark(@Param("metric") String metric, @Param("watermark") LocalDateTime watermark);
+
+    /**
+     * 推进补算进度，只前进不后退
+     */
+    @Insert("INSERT INTO stat_rollup_watermark (metric, watermark) VALUES (#{metric}, #{watermark}) " +
+            "ON DUPLICATE KEY UPDATE watermark = GREATEST(watermark, VALUES(watermark))")
+    int advanceWatermark(@Param("metric") String metric, @Param("watermark") LocalDateTime watermark);
+
+    /**
+     * 读取分布快照
+     *
+     * @param dimension 维度
+     * @return dimKey、value
+     */
+    @Select("SELECT dim_key AS dimKey, value FROM stat_snapshot WHERE dimension = #{dimension}")
+    List<Map<String, Object>> selectSnapshot(@Param("dimension") String dimension);
+
+    /**
+     * 清除维度快照
+     */
+    @Delete("DELETE FROM stat_snapshot WHERE dimension = #{dimension}")
+    int deleteSnapshot(@Param("dimension") String dimension);
+
+    /**
+     * 写入维度快照
+     *
+     * @param dimension 维度
+     * @param rows dimKey、value
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO stat_snapshot (dimension, dim_key, value) VALUES " +
+            "<foreach collection='rows' item='row' separator=','>" +
+            "(#{dimension}, #{row.dimKey}, #{row.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE value = value + VALUES(value)" +
+            "</script>")
+    int insertSnapshot(@Param("dimension") String dimension, @Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 当前各分类的档案数
+     */
+    @Select("SELECT COALESCE(c.category_name, '未分类') AS dimKey, COUNT(*) AS value FROM arc_archive a " +
+            "LEFT JOIN arc_category c ON a.category_id = c.category_id " +
+            "WHERE a.deleted = 0 GROUP BY a.category_id, c.category_name")
+    List<Map<String, Object>> countArchivesByCategory();
+
+    /**
+     * 当前各密级的档案数
+     */
+    @Select("SELECT CAST(security_level AS CHAR) AS dimKey, COUNT(*) AS value FROM arc_archive " +
+            "WHERE deleted = 0 GROUP BY security_level")
+    List<Map<String, Object>> countArchivesBySecurityLevel();
+
+    /**
+     * 当前各状态的借阅数
+     */
+    @Select("SELECT CAST(status AS CHAR) AS dimKey, COUNT(*) AS value FROM arc_borrow " +
+            "WHERE deleted = 0 GROUP BY status")
+    List<Map<String, Object>> countBorrowsByStatus();
+}
@@ -510,4 +510,19 @@ public interface SystemConfigMapper extends BaseMapper<SystemConfig> {
             "(config_value IS NULL OR config_value = '') AND deleted = 0 " +
             "ORDER BY config_group, sort_order, config_key")
     List<SystemConfig> findInvalidConfigs();
-}
\ No newline at end of file
+
+    /**
+     * 查询构建配置快照所需的全部配置值
+     * @return configKey、configValue、sensitive
+     */
+    @Select("SELECT config_key AS configKey, config_value AS configValue, sensitive FROM system_configs WHERE deleted = 0")
+    List<Map<String, Object>> selectSnapshotRows();
+
+    /**
+     * 配置表指纹：行数、已删除行数与最近更新时间，任一变化说明配置有变更
+     * @return total、deletedCount、lastUpdated
+     */
+    @Select("SELECT COUNT(*) AS total, COALESCE(SUM(deleted), 0) AS deletedCount, MAX(updated_at) AS lastUpdated " +
+            "FROM system_configs")
+    Map<String, Object> selectSnapshotFingerprint();
+}
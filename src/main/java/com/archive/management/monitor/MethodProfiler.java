@@ -0,0 +1,319 @@
+package com.archive.management.monitor;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 方法耗时采集器
+ * 每个被监控的方法首次调用时注册一次 Timer 和计数器并按 {@link Method} 缓存，
+ * 之后每次调用只有两次 nanoTime、一次缓存查找和计数器自增；Timer 按采样比例写入，
+ * 慢调用连同参数和调用栈写入 {@link SlowCallLog}。被监控方法抛出的异常原样抛出。
+ * 参数默认只记录类型和长度（数值、布尔、枚举记录原值），DTO 的 toString 可能带密码，
+ * 开启记录参数值时按参数名和 toString 中的字段名脱敏
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class MethodProfiler {
+
+    private static final String MASKED = "******";
+    private static final String[] SENSITIVE_NAMES = {"password", "secret", "token", "credential"};
+    private static final Pattern SENSITIVE_FIELD = Pattern.compile(
+        "(\\w*(?:password|secret|token|credential)\\w*)=[^,)}\\]]*", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 被监控的层次及对应的指标名
+     */
+    public enum Layer {
+        SERVICE("service.calls.total", "service.execution.time", "service.errors.total", "service.slow.methods"),
+        REPOSITORY("database.calls.total", "database.operation.time", "database.errors.total", "database.slow.queries"),
+        CONTROLLER("api.calls.total", "api.response.time", "api.errors.total", "api.slow.responses");
+
+        private final String callsMeter;
+        private final String timerMeter;
+        private final String errorsMeter;
+        private final String slowMeter;
+
+        Layer(String callsMeter, String timerMeter, String errorsMeter, String slowMeter) {
+            this.callsMeter = callsMeter;
+            this.timerMeter = timerMeter;
+            this.errorsMeter = errorsMeter;
+            this.slowMeter = slowMeter;
+        }
+    }
+
+    /**
+     * 被监控的一次调用
+     */
+    public interface Invocation {
+        /**
+         * 执行被监控的方法
+         */
+        Object proceed() throws Throwable;
+
+        /**
+         * 调用参数，只在记录慢调用时读取
+         */
+        Object[] arguments();
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final PerformanceProperties.Profiling config;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long[] slowThresholdNanos = new long[Layer.values().length];
+    private final ConcurrentHashMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+    private final SlowCallLog slowCalls;
+
+    public MethodProfiler(MeterRegistry meterRegistry, PerformanceProperties performanceProperties) {
+        this.meterRegistry = meterRegistry;
+        this.config = performanceProperties.getProfiling();
+        this.enabled = Boolean.TRUE.equals(config.getEnabled());
+        this.sampleRate = Math.max(0.0, Math.min(1.0, config.getSampleRate()));
+        this.slowThresholdNanos[Layer.SERVICE.ordinal()] = TimeUnit.MILLISECONDS.toNanos(config.getSlowServiceMs());
+        this.slowThresholdNanos[Layer.REPOSITORY.ordinal()] = TimeUnit.MILLISECONDS.toNanos(config.getSlowRepositoryMs());
+        this.slowThresholdNanos[Layer.CONTROLLER.ordinal()] = TimeUnit.MILLISECONDS.toNanos(config.getSlowControllerMs());
+        this.slowCalls = new SlowCallLog(config.getSlowCallCapacity());
+    }
+
+    /**
+     * 执行并记录一次调用
+     *
+     * @param layer       所属层次
+     * @param method      被调用的方法，作为指标缓存的键
+     * @param targetClass 目标类，只在首次注册指标时用作标签
+     * @param invocation  被监控的调用
+     * @return 方法返回值
+     * @throws Throwable 方法抛出的原始异常
+     */
+    public Object profile(Layer layer, Method method, Class<?> targetClass, Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(method, key -> new MethodMeters(layer, key, targetClass));
+        }
+
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable throwable) {
+            failure = throwable;
+            throw throwable;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            methodMeters.calls.increment();
+            if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                methodMeters.timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            if (failure != null) {
+                methodMeters.error(failure).increment();
+            }
+            if (elapsed >= slowThresholdNanos[layer.ordinal()]) {
+                recordSlowCall(methodMeters, elapsed, invocation, failure);
+            }
+        }
+    }
+
+    /**
+     * 最近的慢调用，最新的在前
+     */
+    public List<SlowCallLog.SlowCall> getSlowCalls(int limit) {
+        return slowCalls.recent(limit);
+    }
+
+    /**
+     * 采集配置与规模
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("sampleRate", sampleRate);
+        statistics.put("trackedMethods", meters.size());
+        statistics.put("slowCallsTotal", slowCalls.total());
+        statistics.put("slowCallCapacity", slowCalls.capacity());
+        return statistics;
+    }
+
+    private void recordSlowCall(MethodMeters methodMeters, long elapsed, Invocation invocation, Throwable failure) {
+        try {
+            methodMeters.slowTimer().record(elapsed, TimeUnit.NANOSECONDS);
+            double durationMs = elapsed / 1_000_000.0;
+            log.warn("慢调用检测: {}.{} 耗时: {}ms", methodMeters.className, methodMeters.methodName,
+                String.format("%.1f", durationMs));
+            slowCalls.add(new SlowCallLog.SlowCall(
+                System.currentTimeMillis(),
+                methodMeters.layer.name(),
+                methodMeters.className,
+                methodMeters.methodName,
+                durationMs,
+                describeArguments(methodMeters, invocation),
+                failure != null ? failure.getClass().getName() + ": " + failure.getMessage() : null,
+                stackTrace(failure)));
+        } catch (Exception e) {
+            log.debug("记录慢调用失败: {}.{}", methodMeters.className, methodMeters.methodName, e);
+        }
+    }
+
+    private List<String> describeArguments(MethodMeters methodMeters, Invocation invocation) {
+        if (!Boolean.TRUE.equals(config.getCaptureArguments())) {
+            return Collections.emptyList();
+        }
+        Object[] args = invocation.arguments();
+        if (args == null || args.length == 0) {
+            return Collections.emptyList();
+        }
+        boolean values = Boolean.TRUE.equals(config.getArgumentValues());
+        int maxLength = config.getMaxArgumentLength();
+        List<String> described = new ArrayList<>(args.length);
+        for (int i = 0; i < args.length; i++) {
+            if (i < methodMeters.sensitive.length && methodMeters.sensitive[i]) {
+                described.add(MASKED);
+                continue;
+            }
+            String value = values ? maskSensitiveFields(String.valueOf(args[i])) : describeShape(args[i]);
+            described.add(value.length() > maxLength ? value.substring(0, maxLength) + "..." : value);
+        }
+        return described;
+    }
+
+    /**
+     * 只描述参数的类型和大小，数值、布尔和枚举不可能携带凭据，记录原值便于定位
+     */
+    static String describeShape(Object arg) {
+        if (arg == null || arg instanceof Number || arg instanceof Boolean || arg instanceof Enum) {
+            return String.valueOf(arg);
+        }
+        if (arg instanceof CharSequence) {
+            return "String[length=" + ((CharSequence) arg).length() + "]";
+        }
+        if (arg instanceof Collection) {
+            return arg.getClass().getSimpleName() + "[size=" + ((Collection<?>) arg).size() + "]";
+        }
+        if (arg instanceof Map) {
+            return arg.getClass().getSimpleName() + "[size=" + ((Map<?, ?>) arg).size() + "]";
+        }
+        if (arg.getClass().isArray()) {
+            return arg.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(arg) + "]";
+        }
+        return arg.getClass().getSimpleName();
+    }
+
+    /**
+     * 把 toString 结果中 password=xxx 形式的敏感字段值替换为掩码
+     */
+    static String maskSensitiveFields(String value) {
+        return SENSITIVE_FIELD.matcher(value).replaceAll("$1=" + MASKED);
+    }
+
+    /**
+     * 失败时取异常的调用栈，否则取方法返回时的调用栈，省略本类与切面自身的帧
+     */
+    private List<String> stackTrace(Throwable failure) {
+        StackTraceElement[] frames = (failure != null ? failure : new Throwable()).getStackTrace();
+        List<String> trace = new ArrayList<>();
+        for (StackTraceElement frame : frames) {
+            if (trace.size() >= config.getMaxStackDepth()) {
+                break;
+            }
+            String className = frame.getClassName();
+            if (failure == null && (className.equals(MethodProfiler.class.getName())
+                    || className.equals(PerformanceMonitorAspect.class.getName()))) {
+                continue;
+            }
+            trace.add(frame.toString());
+        }
+        return trace;
+    }
+
+    private static boolean isSensitive(Parameter parameter) {
+        String name = parameter.getName().toLowerCase(Locale.ROOT);
+        for (String sensitive : SENSITIVE_NAMES) {
+            if (name.contains(sensitive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单个方法的指标，首次调用时注册
+     */
+    private final class MethodMeters {
+        private final Layer layer;
+        private final String className;
+        private final String methodName;
+        private final boolean[] sensitive;
+        private final Counter calls;
+        private final Timer timer;
+        private final ConcurrentHashMap<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+        private volatile Timer slowTimer;
+
+        private MethodMeters(Layer layer, Method method, Class<?> targetClass) {
+            this.layer = layer;
+            this.className = (targetClass != null ? targetClass : method.getDeclaringClass()).getSimpleName();
+            this.methodName = method.getName();
+            Parameter[] parameters = method.getParameters();
+            this.sensitive = new boolean[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                sensitive[i] = isSensitive(parameters[i]);
+            }
+            this.calls = Counter.builder(layer.callsMeter)
+                .description("方法调用次数")
+                .tag("class", className)
+                .tag("method", methodName)
+                .register(meterRegistry);
+            this.timer = Timer.builder(layer.timerMeter)
+                .description("方法执行耗时")
+                .tag("class", className)
+                .tag("method", methodName)
+                .register(meterRegistry);
+        }
+
+        private Counter error(Throwable failure) {
+            return errors.computeIfAbsent(failure.getClass(), type -> Counter.builder(layer.errorsMeter)
+                .description("方法异常次数")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("exception", type.getSimpleName())
+                .register(meterRegistry));
+        }
+
+        private Timer slowTimer() {
+            Timer slow = slowTimer;
+            if (slow == null) {
+                slow = Timer.builder(layer.slowMeter)
+                    .description("慢调用耗时")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .register(meterRegistry);
+                slowTimer = slow;
+            }
+            return slow;
+        }
+    }
+}
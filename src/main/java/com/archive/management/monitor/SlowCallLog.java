@@ -0,0 +1,98 @@
+package com.archive.management.monitor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 最近慢调用的环形缓冲
+ * 容量取不小于配置值的2的幂，写入只做一次序号自增和一次数组写，满后覆盖最旧的记录；
+ * 读取时按序号核对，跳过读取期间被覆盖的槽位
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public class SlowCallLog {
+
+    private final AtomicReferenceArray<SlowCall> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowCallLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 追加一条慢调用
+     */
+    public void add(SlowCall call) {
+        long seq = sequence.getAndIncrement();
+        call.sequence = seq;
+        slots.set((int) (seq & mask), call);
+    }
+
+    /**
+     * 最近的慢调用，最新的在前
+     *
+     * @param limit 最多返回条数
+     */
+    public List<SlowCall> recent(int limit) {
+        long end = sequence.get();
+        long start = Math.max(0L, end - Math.min(limit, slots.length()));
+        List<SlowCall> calls = new ArrayList<>((int) (end - start));
+        for (long seq = end - 1; seq >= start; seq--) {
+            SlowCall call = slots.get((int) (seq & mask));
+            if (call != null && call.sequence == seq) {
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * 累计记录的慢调用数
+     */
+    public long total() {
+        return sequence.get();
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * 单条慢调用记录
+     */
+    @Getter
+    public static class SlowCall {
+        private final long timestamp;
+        private final String layer;
+        private final String className;
+        private final String methodName;
+        private final double durationMs;
+        private final List<String> arguments;
+        private final String exception;
+        private final List<String> stackTrace;
+        @Getter(AccessLevel.NONE)
+        private volatile long sequence = -1;
+
+        public SlowCall(long timestamp, String layer, String className, String methodName, double durationMs,
+                        List<String> arguments, String exception, List<String> stackTrace) {
+            this.timestamp = timestamp;
+            this.layer = layer;
+            this.className = className;
+            this.methodName = methodName;
+            this.durationMs = durationMs;
+            this.arguments = arguments;
+            this.exception = exception;
+            this.stackTrace = stackTrace;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.archive.management.dto.ArchiveDTO;
 import com.archive.management.service.ArchiveService;
 import com.archive.management.service.AuditLogService;
 import com.archive.management.service.NotificationService;
+import com.archive.management.statistics.RollupMetric;
+import com.archive.management.statistics.StatisticsRollupService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +36,7 @@ public class ArchiveMessageListener {
     private final AuditLogService auditLogService;
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final StatisticsRollupService statisticsRollupService;
 
     /**
      * 监听档案创建消息
@@ -53,6 +56,7 @@ public class ArchiveMessageListener {
             
             // 处理档案创建后的业务逻辑
             processArchiveCreated(archiveId, creatorId);
+            statisticsRollupService.record(RollupMetric.ARCHIVE_CREATED, LocalDateTime.now());
             
             // 记录审计日志
             auditLogService.recordArchiveOperation(archiveId, "ARCHIVE_CREATED", creatorId, 
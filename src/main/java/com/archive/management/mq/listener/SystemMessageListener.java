@@ -5,6 +5,7 @@ import com.archive.management.service.AuditLogService;
 import com.archive.management.service.NotificationService;
 import com.archive.management.service.CacheService;
 import com.archive.management.service.BackupService;
+import com.archive.management.sysconfig.SystemConfigSnapshotHolder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,7 @@ public class SystemMessageListener {
     private final NotificationService notificationService;
     private final CacheService cacheService;
     private final BackupService backupService;
+    private final SystemConfigSnapshotHolder systemConfigSnapshotHolder;
     private final ObjectMapper objectMapper;
 
     /**
@@ -307,6 +309,8 @@ public class SystemMessageListener {
         try {
             // 1. 清理相关缓存
             cacheService.clearSystemConfigCache(configKey);
+            // 其他节点的变更已提交，直接重建本节点的配置快照
+            systemConfigSnapshotHolder.rebuild();
             
             // 2. 通知相关服务配置变更
             systemConfigService.notifyConfigChange(configKey, oldValue, newValue);
@@ -5,6 +5,8 @@ import com.archive.management.service.UserService;
 import com.archive.management.service.AuditLogService;
 import com.archive.management.service.NotificationService;
 import com.archive.management.service.CacheService;
+import com.archive.management.statistics.RollupMetric;
+import com.archive.management.statistics.StatisticsRollupService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +38,7 @@ public class UserMessageListener {
     private final NotificationService notificationService;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
+    private final StatisticsRollupService statisticsRollupService;
 
     /**
      * 监听用户注册消息
@@ -55,6 +58,7 @@ public class UserMessageListener {
             
             // 处理用户注册后的业务逻辑
             processUserRegistered(userId, registrationSource);
+            statisticsRollupService.record(RollupMetric.USER_REGISTERED, LocalDateTime.now());
             
             // 记录审计日志
             auditLogService.recordUserOperation(userId, "USER_REGISTERED", userId, 
@@ -88,6 +92,7 @@ public class UserMessageListener {
             
             // 处理用户登录后的业务逻辑
             processUserLogin(userId, loginIp, userAgent, loginTime);
+            statisticsRollupService.record(RollupMetric.LOGIN, loginTime);
             
             // 记录审计日志
             auditLogService.recordUserOperation(userId, "USER_LOGIN", userId, 
@@ -0,0 +1,297 @@
+package com.archive.management.notification;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.constant.BusinessConstants;
+import com.archive.management.counter.UnreadNotificationCounter;
+import com.archive.management.entity.Notification;
+import com.archive.management.mapper.NotificationMapper;
+import com.archive.management.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 通知批量投递
+ * 接收人去重后在通知线程池上分块执行：每块一条多行 INSERT 写库，再按用户合并推送给在线用户，
+ * 离线用户不推送（上线后从通知列表拉取）。调用方处于事务中时在提交后才开始投递，
+ * 回滚则不投递。写库、推送和吞吐量同时记入 Micrometer 和 {@link #getStatistics()}
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class NotificationFanout {
+
+    private final NotificationMapper notificationMapper;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final UnreadNotificationCounter unreadCounter;
+    private final Executor executor;
+    private final PerformanceProperties.Notification config;
+
+    private final Counter insertedCounter;
+    private final Counter failedCounter;
+    private final Counter pushedCounter;
+    private final Counter offlineCounter;
+    private final Timer fanoutTimer;
+
+    private final LongAdder totalFanouts = new LongAdder();
+    private final LongAdder totalInserted = new LongAdder();
+    private final LongAdder totalFailed = new LongAdder();
+    private final LongAdder totalPushed = new LongAdder();
+    private final LongAdder totalOffline = new LongAdder();
+    private final AtomicReference<FanoutResult> lastResult = new AtomicReference<>();
+
+    public NotificationFanout(NotificationMapper notificationMapper,
+                              NotificationWebSocketHandler webSocketHandler,
+                              UnreadNotificationCounter unreadCounter,
+                              @Qualifier("notificationTaskExecutor") Executor executor,
+                              PerformanceProperties performanceProperties,
+                              MeterRegistry meterRegistry) {
+        this.notificationMapper = notificationMapper;
+        this.webSocketHandler = webSocketHandler;
+        this.unreadCounter = unreadCounter;
+        this.executor = executor;
+        this.config = performanceProperties.getNotification();
+        this.insertedCounter = Counter.builder("notification.fanout.rows")
+            .description("批量通知写库行数")
+            .tag("result", "inserted")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.fanout.rows")
+            .description("批量通知写库行数")
+            .tag("result", "failed")
+            .register(meterRegistry);
+        this.pushedCounter = Counter.builder("notification.fanout.pushes")
+            .description("批量通知WebSocket推送数")
+            .tag("result", "pushed")
+            .register(meterRegistry);
+        this.offlineCounter = Counter.builder("notification.fanout.pushes")
+            .description("批量通知WebSocket推送数")
+            .tag("result", "offline")
+            .register(meterRegistry);
+        this.fanoutTimer = Timer.builder("notification.fanout.time")
+            .description("批量通知投递耗时")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 提交一次批量投递
+     *
+     * @param userIds     接收人，重复和空值被忽略
+     * @param factory     由接收人ID构建通知
+     * @param afterInsert 每条通知写库后的回调（邮件、短信等渠道），可为空
+     * @return 投递结果，投递在通知线程池上完成
+     */
+    public CompletableFuture<FanoutResult> submit(Collection<Long> userIds,
+                                                  Function<Long, Notification> factory,
+                                                  Consumer<Notification> afterInsert) {
+        Set<Long> recipients = new LinkedHashSet<>(userIds);
+        recipients.remove(null);
+        if (recipients.isEmpty()) {
+            return CompletableFuture.completedFuture(new FanoutResult(0, 0, 0, 0, 0, 0L));
+        }
+
+        CompletableFuture<FanoutResult> future = new CompletableFuture<>();
+        Runnable dispatch = () -> executor.execute(() -> {
+            try {
+                future.complete(deliver(new ArrayList<>(recipients), factory, afterInsert));
+            } catch (Throwable e) {
+                log.error("批量通知投递失败: 接收人{}", recipients.size(), e);
+                future.completeExceptionally(e);
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        future.cancel(false);
+                    }
+                }
+            });
+        } else {
+            dispatch.run();
+        }
+        return future;
+    }
+
+    /**
+     * 投递统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalFanouts", totalFanouts.sum());
+        statistics.put("totalInserted", totalInserted.sum());
+        statistics.put("totalFailed", totalFailed.sum());
+        statistics.put("totalPushed", totalPushed.sum());
+        statistics.put("totalOfflineSkipped", totalOffline.sum());
+        FanoutResult last = lastResult.get();
+        if (last != null) {
+            statistics.put("lastRecipients", last.getRecipients());
+            statistics.put("lastDurationMs", last.getDurationMs());
+            statistics.put("lastRowsPerSecond", last.getRowsPerSecond());
+        }
+        return statistics;
+    }
+
+    private FanoutResult deliver(List<Long> recipients, Function<Long, Notification> factory,
+                                 Consumer<Notification> afterInsert) {
+        long start = System.nanoTime();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        int inserted = 0;
+        int failed = 0;
+        int pushed = 0;
+        int offline = 0;
+
+        for (int from = 0; from < recipients.size(); from += chunkSize) {
+            List<Long> chunk = recipients.subList(from, Math.min(from + chunkSize, recipients.size()));
+            List<Notification> rows = new ArrayList<>(chunk.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (Long userId : chunk) {
+                Notification notification = factory.apply(userId);
+                if (notification.getCreateTime() == null) {
+                    notification.setCreateTime(now);
+                }
+                rows.add(notification);
+            }
+
+            try {
+                notificationMapper.batchInsert(rows);
+            } catch (Exception e) {
+                log.error("批量写入通知失败: 第{}块, {}条", from / chunkSize + 1, rows.size(), e);
+                failed += rows.size();
+                continue;
+            }
+            inserted += rows.size();
+
+            int websocketRows = 0;
+            List<Long> unreadUsers = new ArrayList<>(rows.size());
+            for (Notification notification : rows) {
+                if (notification.needWebsocketNotify()) {
+                    websocketRows++;
+                }
+                if (BusinessConstants.NotificationStatus.UNREAD.equals(notification.getStatus())) {
+                    unreadUsers.add(notification.getUserId());
+                }
+            }
+            unreadCounter.incrementAll(unreadUsers);
+            int chunkPushed = webSocketHandler.sendNotificationsToOnlineUsers(rows);
+            pushed += chunkPushed;
+            offline += websocketRows - chunkPushed;
+
+            if (afterInsert != null) {
+                for (Notification notification : rows) {
+                    try {
+                        afterInsert.accept(notification);
+                    } catch (Exception e) {
+                        log.error("通知写库后回调失败: notificationId={}", notification.getNotificationId(), e);
+                    }
+                }
+            }
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        FanoutResult result = new FanoutResult(recipients.size(), inserted, failed, pushed, offline,
+            TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        record(result, durationNanos);
+        log.info("批量通知投递完成: 接收人{}, 写库{}, 失败{}, 推送{}, 离线跳过{}, 耗时{}ms, {}条/秒",
+            result.getRecipients(), inserted, failed, pushed, offline, result.getDurationMs(),
+            result.getRowsPerSecond());
+        return result;
+    }
+
+    private void record(FanoutResult result, long durationNanos) {
+        totalFanouts.increment();
+        totalInserted.add(result.getInserted());
+        totalFailed.add(result.getFailed());
+        totalPushed.add(result.getPushed());
+        totalOffline.add(result.getOfflineSkipped());
+        lastResult.set(result);
+        insertedCounter.increment(result.getInserted());
+        failedCounter.increment(result.getFailed());
+        pushedCounter.increment(result.getPushed());
+        offlineCounter.increment(result.getOfflineSkipped());
+        fanoutTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 一次批量投递的结果
+     */
+    public static final class FanoutResult {
+
+        private final int recipients;
+        private final int inserted;
+        private final int failed;
+        private final int pushed;
+        private final int offlineSkipped;
+        private final long durationMs;
+
+        FanoutResult(int recipients, int inserted, int failed, int pushed, int offlineSkipped, long durationMs) {
+            this.recipients = recipients;
+            this.inserted = inserted;
+            this.failed = failed;
+            this.pushed = pushed;
+            this.offlineSkipped = offlineSkipped;
+            this.durationMs = durationMs;
+        }
+
+        public int getRecipients() {
+            return recipients;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getPushed() {
+            return pushed;
+        }
+
+        public int getOfflineSkipped() {
+            return offlineSkipped;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * 写库吞吐量（条/秒）
+         */
+        public long getRowsPerSecond() {
+            return inserted * 1000L / Math.max(1L, durationMs);
+        }
+    }
+}
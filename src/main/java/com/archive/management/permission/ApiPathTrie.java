@@ -0,0 +1,127 @@
+package com.archive.management.permission;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * API 路径模式前缀树
+ * 按 "/" 分段存储权限的 apiUrl 模式，支持字面量、单段通配（* 或 {var}）和多段通配（**），
+ * ** 可出现在任意位置，匹配零个或多个路径段，其后的模式段仍需逐段匹配，
+ * 例如 /api、**、export 三段组成的模式只匹配 /api 下以 export 结尾的路径。
+ * 每个终止节点按 HTTP 方法记录命中的权限位集合
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class ApiPathTrie {
+
+    /** 不限制 HTTP 方法时使用的键 */
+    static final String ANY_METHOD = "*";
+
+    private final Node root = new Node();
+
+    /**
+     * 登记一个 API 路径模式
+     *
+     * @param pattern    路径模式，如 /api/archives/{id}、/api/system/**
+     * @param httpMethod HTTP 方法，为空或 * / ALL 表示不限
+     * @param bit        权限位
+     */
+    public void add(String pattern, String httpMethod, int bit) {
+        Node node = root;
+        for (String segment : split(pattern)) {
+            if ("**".equals(segment)) {
+                if (node.multiWildcard == null) {
+                    node.multiWildcard = new Node();
+                }
+                node = node.multiWildcard;
+            } else if ("*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.singleWildcard == null) {
+                    node.singleWildcard = new Node();
+                }
+                node = node.singleWildcard;
+            } else {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+        node.terminals.computeIfAbsent(normalizeMethod(httpMethod), k -> new BitSet()).set(bit);
+    }
+
+    /**
+     * 查找与请求匹配的全部权限位
+     *
+     * @param httpMethod 请求方法
+     * @param requestUri 请求路径
+     * @return 命中的权限位集合（可能为空，不会为 null）
+     */
+    public BitSet match(String httpMethod, String requestUri) {
+        BitSet result = new BitSet();
+        String[] segments = split(requestUri);
+        collect(root, segments, 0, normalizeMethod(httpMethod), result);
+        return result;
+    }
+
+    private static void collect(Node node, String[] segments, int index, String method, BitSet result) {
+        if (node.multiWildcard != null) {
+            // ** 依次吞掉 0..n 个路径段，再匹配其后的模式段
+            for (int next = index; next <= segments.length; next++) {
+                collect(node.multiWildcard, segments, next, method, result);
+            }
+        }
+        if (index == segments.length) {
+            addTerminals(node, method, result);
+            return;
+        }
+        Node literal = node.children.get(segments[index]);
+        if (literal != null) {
+            collect(literal, segments, index + 1, method, result);
+        }
+        if (node.singleWildcard != null) {
+            collect(node.singleWildcard, segments, index + 1, method, result);
+        }
+    }
+
+    private static void addTerminals(Node node, String method, BitSet result) {
+        BitSet any = node.terminals.get(ANY_METHOD);
+        if (any != null) {
+            result.or(any);
+        }
+        if (!ANY_METHOD.equals(method)) {
+            BitSet exact = node.terminals.get(method);
+            if (exact != null) {
+                result.or(exact);
+            }
+        }
+    }
+
+    private static String normalizeMethod(String httpMethod) {
+        if (httpMethod == null || httpMethod.isBlank() || "ALL".equalsIgnoreCase(httpMethod)) {
+            return ANY_METHOD;
+        }
+        return httpMethod.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String[] split(String path) {
+        if (path == null) {
+            return new String[0];
+        }
+        int query = path.indexOf('?');
+        String clean = query >= 0 ? path.substring(0, query) : path;
+        return java.util.Arrays.stream(clean.split("/"))
+            .filter(segment -> !segment.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final Map<String, BitSet> terminals = new HashMap<>(2);
+        private Node singleWildcard;
+        private Node multiWildcard;
+    }
+}
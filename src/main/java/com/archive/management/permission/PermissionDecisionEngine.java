@@ -0,0 +1,258 @@
+package com.archive.management.permission;
+
+import com.archive.management.entity.Permission;
+import com.archive.management.entity.RolePermission;
+import com.archive.management.event.PermissionChangedEvent;
+import com.archive.management.event.UserAuthChangedEvent;
+import com.archive.management.mapper.PermissionMapper;
+import com.archive.management.mapper.RoleMapper;
+import com.archive.management.mapper.RolePermissionMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 权限决策引擎
+ * 启动时从 角色 -> 权限 -> 层级路径 数据编译出 {@link PermissionSnapshot}，
+ * 并为每个用户缓存其角色ID与权限位掩码，使 checkUserPermission 等鉴权调用成为纯内存的位运算。
+ * 权限变更事件到达时按单个权限增量更新快照，同步类批量变更时全量重建；
+ * 快照未就绪时 {@link #isReady()} 返回 false，调用方应回退到数据库查询
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class PermissionDecisionEngine {
+
+    private final PermissionMapper permissionMapper;
+    private final RolePermissionMapper rolePermissionMapper;
+    private final RoleMapper roleMapper;
+    private final boolean enabled;
+    private final AtomicReference<PermissionSnapshot> snapshot = new AtomicReference<>(PermissionSnapshot.EMPTY);
+    private final AtomicLong versions = new AtomicLong();
+    private final Cache<Long, UserGrant> userGrants;
+    private final Object updateLock = new Object();
+    private volatile boolean ready;
+
+    public PermissionDecisionEngine(PermissionMapper permissionMapper,
+                                    RolePermissionMapper rolePermissionMapper,
+                                    RoleMapper roleMapper,
+                                    @Value("${permission.engine.enabled:true}") boolean enabled,
+                                    @Value("${permission.engine.user-cache-size:20000}") long userCacheSize,
+                                    @Value("${permission.engine.user-cache-ttl-seconds:600}") long userCacheTtlSeconds) {
+        this.permissionMapper = permissionMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.roleMapper = roleMapper;
+        this.enabled = enabled;
+        this.userGrants = Caffeine.newBuilder()
+            .maximumSize(userCacheSize)
+            .expireAfterWrite(userCacheTtlSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * 应用启动完成后构建快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("权限决策引擎未启用，鉴权将直接查询数据库");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * 定期全量重建，兜底其他节点上发生、本节点未收到事件的变更
+     */
+    @Scheduled(fixedDelayString = "${permission.engine.rebuild-interval-ms:600000}",
+               initialDelayString = "${permission.engine.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (enabled && ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量重建快照
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            synchronized (updateLock) {
+                List<Permission> permissions = permissionMapper.selectAllEnabled();
+                Map<Long, List<Long>> rolePermissions = new HashMap<>();
+                for (RolePermission pair : rolePermissionMapper.selectAllRolePermissionPairs()) {
+                    rolePermissions.computeIfAbsent(pair.getRoleId(), k -> new ArrayList<>()).add(pair.getPermissionId());
+                }
+                snapshot.set(PermissionSnapshot.build(versions.incrementAndGet(), permissions, rolePermissions));
+            }
+            ready = true;
+            log.info("权限决策快照构建完成，权限数: {}, 耗时: {}ms",
+                snapshot.get().size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            ready = false;
+            log.error("权限决策快照构建失败，鉴权将回退到数据库查询", e);
+        }
+    }
+
+    /**
+     * 引擎是否可用
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 用户是否拥有指定编码的权限
+     */
+    public boolean hasPermission(Long userId, String permissionCode) {
+        PermissionSnapshot current = snapshot.get();
+        return current.hasCode(userMask(userId, current), permissionCode);
+    }
+
+    /**
+     * 用户是否拥有指定层级路径上的权限
+     */
+    public boolean hasPathPermission(Long userId, String permissionPath) {
+        PermissionSnapshot current = snapshot.get();
+        return current.hasPath(userMask(userId, current), permissionPath);
+    }
+
+    /**
+     * 用户是否拥有与请求匹配的 API 权限
+     */
+    public boolean hasApiPermission(Long userId, String httpMethod, String requestUri) {
+        PermissionSnapshot current = snapshot.get();
+        return current.hasApi(userMask(userId, current), httpMethod, requestUri);
+    }
+
+    /**
+     * 权限变更后增量更新快照
+     *
+     * @param event 权限变更事件
+     */
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        Long permissionId = event.getPermissionId();
+        if (permissionId == null || "SYNC".equals(event.getAction())) {
+            rebuild();
+            return;
+        }
+        try {
+            synchronized (updateLock) {
+                PermissionSnapshot current = snapshot.get();
+                long version = versions.incrementAndGet();
+                if ("DELETE".equals(event.getAction())) {
+                    snapshot.set(current.withoutPermission(version, permissionId));
+                } else {
+                    Permission permission = permissionMapper.selectById(permissionId);
+                    PermissionSnapshot next = permission == null
+                        ? current.withoutPermission(version, permissionId)
+                        : current.withPermission(version, permission,
+                            rolePermissionMapper.selectRoleIdsByPermissionId(permissionId));
+                    snapshot.set(next);
+                }
+            }
+            log.debug("权限决策快照已增量更新: permissionId={}, action={}", permissionId, event.getAction());
+        } catch (Exception e) {
+            log.error("权限决策快照增量更新失败，执行全量重建: permissionId={}", permissionId, e);
+            rebuild();
+        }
+    }
+
+    /**
+     * 角色权限分配变更后更新该角色的掩码（事务提交后执行）
+     *
+     * @param roleId 角色ID
+     */
+    public void onRolePermissionsChanged(Long roleId) {
+        if (roleId == null || !isReady()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (updateLock) {
+                List<Long> permissionIds = rolePermissionMapper.selectPermissionIdsByRoleId(roleId);
+                snapshot.set(snapshot.get().withRolePermissions(versions.incrementAndGet(), roleId, permissionIds));
+            }
+        });
+    }
+
+    /**
+     * 用户角色变更后失效该用户的缓存（事务提交后执行）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            afterCommit(() -> userGrants.invalidate(userId));
+        }
+    }
+
+    @EventListener
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.getUserId() != null) {
+            userGrants.invalidate(event.getUserId());
+        }
+    }
+
+    /**
+     * 取用户在当前快照下的权限掩码；角色ID按需从库加载，快照版本变化时仅在内存中重新合并
+     */
+    private BitSet userMask(Long userId, PermissionSnapshot current) {
+        UserGrant grant = userGrants.getIfPresent(userId);
+        if (grant == null) {
+            List<Long> roleIds = roleMapper.findRoleIdsByUserId(userId);
+            grant = new UserGrant(roleIds == null ? Collections.emptyList() : roleIds, current);
+            userGrants.put(userId, grant);
+        } else if (grant.version != current.getVersion()) {
+            grant = new UserGrant(grant.roleIds, current);
+            userGrants.put(userId, grant);
+        }
+        return grant.mask;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 用户授权缓存条目
+     */
+    private static final class UserGrant {
+        private final List<Long> roleIds;
+        private final long version;
+        private final BitSet mask;
+
+        private UserGrant(List<Long> roleIds, PermissionSnapshot snapshot) {
+            this.roleIds = roleIds;
+            this.version = snapshot.getVersion();
+            this.mask = snapshot.userMask(roleIds);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.archive.management.permission;
+
+import com.archive.management.constant.SecurityConstants;
+import com.archive.management.entity.Permission;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * 权限森林（不可变）
+ * 一次遍历为每个权限分配位序号并建立 父 -> 子 索引（子节点已按排序号排好），
+ * 角色、用户等视图以位掩码表示，投影时只沿索引走一遍，不复制也不修改权限对象。
+ * parentId 为空或为 {@link SecurityConstants#ROOT_PERMISSION_PARENT_ID} 的权限是根，
+ * 父权限不在森林中的权限不出现在任何树中
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class PermissionForest {
+
+    /** 空森林 */
+    public static final PermissionForest EMPTY = build(0L, Collections.emptyList());
+
+    private static final int[] NO_CHILDREN = new int[0];
+
+    private static final Comparator<Permission> SIBLING_ORDER = Comparator
+        .comparing(Permission::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Permission::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final long version;
+    private final Permission[] permissions;
+    private final Map<Long, Integer> idToBit;
+    private final int[] roots;
+    private final int[][] children;
+
+    private PermissionForest(long version, Permission[] permissions, Map<Long, Integer> idToBit,
+                             int[] roots, int[][] children) {
+        this.version = version;
+        this.permissions = permissions;
+        this.idToBit = idToBit;
+        this.roots = roots;
+        this.children = children;
+    }
+
+    /**
+     * 由权限列表构建森林，重复ID以后出现者为准
+     *
+     * @param version     版本号
+     * @param permissions 权限列表
+     * @return 森林
+     */
+    public static PermissionForest build(long version, List<Permission> permissions) {
+        Map<Long, Integer> idToBit = new HashMap<>(permissions.size() * 2);
+        List<Permission> distinct = new ArrayList<>(permissions.size());
+        for (Permission permission : permissions) {
+            if (permission == null || permission.getId() == null) {
+                continue;
+            }
+            Integer bit = idToBit.get(permission.getId());
+            if (bit == null) {
+                idToBit.put(permission.getId(), distinct.size());
+                distinct.add(permission);
+            } else {
+                distinct.set(bit, permission);
+            }
+        }
+        Permission[] nodes = distinct.toArray(new Permission[0]);
+
+        // 先按排序号排好位序号，挂接子节点时天然有序
+        Integer[] order = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> SIBLING_ORDER.compare(nodes[a], nodes[b]));
+
+        int[] childCount = new int[nodes.length];
+        int rootCount = 0;
+        int[] parents = new int[nodes.length];
+        for (int bit = 0; bit < nodes.length; bit++) {
+            Long parentId = nodes[bit].getParentId();
+            if (parentId == null || SecurityConstants.ROOT_PERMISSION_PARENT_ID.equals(parentId)) {
+                parents[bit] = -1;
+                rootCount++;
+            } else {
+                Integer parent = idToBit.get(parentId);
+                parents[bit] = parent == null || parent == bit ? -2 : parent;
+                if (parents[bit] >= 0) {
+                    childCount[parents[bit]]++;
+                }
+            }
+        }
+
+        int[] roots = new int[rootCount];
+        int[][] children = new int[nodes.length][];
+        int[] filled = new int[nodes.length];
+        int rootFilled = 0;
+        for (int bit = 0; bit < nodes.length; bit++) {
+            children[bit] = childCount[bit] == 0 ? NO_CHILDREN : new int[childCount[bit]];
+        }
+        for (Integer bit : order) {
+            int parent = parents[bit];
+            if (parent == -1) {
+                roots[rootFilled++] = bit;
+            } else if (parent >= 0) {
+                children[parent][filled[parent]++] = bit;
+            }
+        }
+        return new PermissionForest(version, nodes, idToBit, roots, children);
+    }
+
+    /**
+     * 包含全部权限的掩码
+     */
+    public BitSet all() {
+        BitSet mask = new BitSet(permissions.length);
+        mask.set(0, permissions.length);
+        return mask;
+    }
+
+    /**
+     * 满足条件的权限掩码
+     */
+    public BitSet mask(Predicate<Permission> filter) {
+        BitSet mask = new BitSet(permissions.length);
+        for (int bit = 0; bit < permissions.length; bit++) {
+            if (filter.test(permissions[bit])) {
+                mask.set(bit);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 权限ID集合对应的掩码，不在森林中的ID被忽略
+     */
+    public BitSet maskOf(Collection<Long> permissionIds) {
+        BitSet mask = new BitSet(permissions.length);
+        if (permissionIds != null) {
+            for (Long permissionId : permissionIds) {
+                Integer bit = idToBit.get(permissionId);
+                if (bit != null) {
+                    mask.set(bit);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 按掩码投影出树：节点被选中且其祖先都被选中才会出现
+     *
+     * @param mask   选中的权限
+     * @param mapper 由权限和已转换的子节点生成树节点
+     * @param <T>    树节点类型
+     * @return 根节点列表
+     */
+    public <T> List<T> project(BitSet mask, BiFunction<Permission, List<T>, T> mapper) {
+        return project(roots, mask, mapper);
+    }
+
+    private <T> List<T> project(int[] bits, BitSet mask, BiFunction<Permission, List<T>, T> mapper) {
+        List<T> nodes = new ArrayList<>();
+        for (int bit : bits) {
+            if (mask.get(bit)) {
+                nodes.add(mapper.apply(permissions[bit], project(children[bit], mask, mapper)));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 指定权限的全部后代ID（广度优先）
+     *
+     * @param permissionId 权限ID
+     * @return 后代ID，权限不存在时为空
+     */
+    public List<Long> descendantIds(Long permissionId) {
+        Integer start = idToBit.get(permissionId);
+        if (start == null) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>();
+        // 数据中存在环时也能终止
+        BitSet visited = new BitSet(permissions.length);
+        visited.set(start);
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (int child : children[queue.poll()]) {
+                if (!visited.get(child)) {
+                    visited.set(child);
+                    ids.add(permissions[child].getId());
+                    queue.add(child);
+                }
+            }
+        }
+        return ids;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 森林中的权限数
+     */
+    public int size() {
+        return permissions.length;
+    }
+}
@@ -0,0 +1,107 @@
+package com.archive.management.permission;
+
+import com.archive.management.mapper.PermissionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 共享权限森林
+ * 从库加载全部未删除权限构建，权限变更后整体重建并原子替换；读取方拿到的森林不可变，替换期间不受影响。
+ * 变更节点递增 Redis 中的森林版本号，其它节点读取时发现版本号不同即重建，
+ * 避免按标签失效共享缓存后又由旧森林重新生成
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionForestHolder {
+
+    private static final String VERSION_KEY = "archive:permission:forest:version";
+
+    private final PermissionMapper permissionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AtomicReference<Loaded> loaded = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * 当前森林，尚未构建或集群版本号已变化时同步重建
+     */
+    public PermissionForest get() {
+        String clusterVersion = clusterVersion();
+        Loaded current = loaded.get();
+        if (current != null && Objects.equals(current.clusterVersion, clusterVersion)) {
+            return current.forest;
+        }
+        synchronized (this) {
+            // 等锁期间可能已由其它线程按同一版本号重建
+            current = loaded.get();
+            if (current != null && Objects.equals(current.clusterVersion, clusterVersion)) {
+                return current.forest;
+            }
+            return rebuild(clusterVersion);
+        }
+    }
+
+    /**
+     * 本节点提交了权限变更：递增集群版本号并重建
+     *
+     * @return 新森林
+     */
+    public PermissionForest onPermissionChanged() {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("递增权限森林版本号失败，其它节点的森林将在下次变更后更新", e);
+        }
+        return refresh();
+    }
+
+    /**
+     * 重建森林并替换
+     *
+     * @return 新森林
+     */
+    public synchronized PermissionForest refresh() {
+        return rebuild(clusterVersion());
+    }
+
+    /**
+     * 先取版本号再加载，加载期间发生的变更会让下一次读取再次重建
+     */
+    private PermissionForest rebuild(String clusterVersion) {
+        long start = System.currentTimeMillis();
+        PermissionForest next = PermissionForest.build(versions.incrementAndGet(), permissionMapper.getPermissionTree());
+        loaded.set(new Loaded(next, clusterVersion));
+        log.debug("权限森林重建完成，权限数: {}, 耗时: {}ms", next.size(), System.currentTimeMillis() - start);
+        return next;
+    }
+
+    private String clusterVersion() {
+        try {
+            return stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        } catch (Exception e) {
+            // Redis 不可用时沿用本节点森林
+            Loaded current = loaded.get();
+            return current != null ? current.clusterVersion : null;
+        }
+    }
+
+    private static final class Loaded {
+        private final PermissionForest forest;
+        private final String clusterVersion;
+
+        private Loaded(PermissionForest forest, String clusterVersion) {
+            this.forest = forest;
+            this.clusterVersion = clusterVersion;
+        }
+    }
+}
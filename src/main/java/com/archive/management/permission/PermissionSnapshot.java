@@ -0,0 +1,240 @@
+package com.archive.management.permission;
+
+import com.archive.management.entity.Permission;
+
+import java.util.*;
+
+/**
+ * 权限决策快照（不可变）
+ * 为每个启用的权限分配固定的位序号，预先编译：
+ * 权限编码 -> 位集合、权限层级路径 -> 位集合、角色 -> 权限位掩码以及 API 路径前缀树，
+ * 用户的权限掩码由其角色掩码按位或得到，单次鉴权只做位运算。
+ * 权限或角色授权变更时以写时复制方式生成新快照，已分配的位序号保持不变
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class PermissionSnapshot {
+
+    /** 空快照 */
+    public static final PermissionSnapshot EMPTY = new PermissionSnapshot(0L, new Permission[0], Collections.emptyMap());
+
+    private final long version;
+    private final Permission[] permissions;
+    private final Map<Long, BitSet> roleMasks;
+    private final Map<Long, Integer> idToBit;
+    private final Map<String, BitSet> codeIndex;
+    private final Map<String, BitSet> pathIndex;
+    private final ApiPathTrie apiTrie;
+
+    private PermissionSnapshot(long version, Permission[] permissions, Map<Long, BitSet> roleMasks) {
+        this.version = version;
+        this.permissions = permissions;
+        this.roleMasks = roleMasks;
+        this.idToBit = new HashMap<>(permissions.length * 2);
+        this.codeIndex = new HashMap<>(permissions.length * 2);
+        this.pathIndex = new HashMap<>();
+        this.apiTrie = new ApiPathTrie();
+        for (int bit = 0; bit < permissions.length; bit++) {
+            Permission permission = permissions[bit];
+            if (permission == null) {
+                continue;
+            }
+            idToBit.put(permission.getId(), bit);
+            index(codeIndex, permission.getPermissionCode(), bit);
+            index(pathIndex, permission.getPermissionPath(), bit);
+            String apiPattern = apiPattern(permission);
+            if (apiPattern != null) {
+                apiTrie.add(apiPattern, permission.getHttpMethod(), bit);
+            }
+        }
+    }
+
+    /**
+     * 由全部启用权限与角色-权限关联构建快照
+     *
+     * @param version          快照版本
+     * @param enabled          启用且未删除的权限
+     * @param rolePermissions  角色ID -> 权限ID集合
+     * @return 快照
+     */
+    public static PermissionSnapshot build(long version, List<Permission> enabled,
+                                           Map<Long, ? extends Collection<Long>> rolePermissions) {
+        Permission[] permissions = enabled.toArray(new Permission[0]);
+        Map<Long, Integer> bits = new HashMap<>(permissions.length * 2);
+        for (int bit = 0; bit < permissions.length; bit++) {
+            bits.put(permissions[bit].getId(), bit);
+        }
+        Map<Long, BitSet> roleMasks = new HashMap<>(rolePermissions.size() * 2);
+        rolePermissions.forEach((roleId, permissionIds) -> {
+            BitSet mask = new BitSet(permissions.length);
+            for (Long permissionId : permissionIds) {
+                Integer bit = bits.get(permissionId);
+                if (bit != null) {
+                    mask.set(bit);
+                }
+            }
+            roleMasks.put(roleId, mask);
+        });
+        return new PermissionSnapshot(version, permissions, roleMasks);
+    }
+
+    /**
+     * 新增或更新一个权限，返回新快照
+     *
+     * @param version    新版本
+     * @param permission 权限（未启用或已删除时等同于移除）
+     * @param roleIds    拥有该权限的角色ID
+     * @return 新快照
+     */
+    public PermissionSnapshot withPermission(long version, Permission permission, Collection<Long> roleIds) {
+        if (!isEnabled(permission)) {
+            return permission == null ? this : withoutPermission(version, permission.getId());
+        }
+        Integer existing = idToBit.get(permission.getId());
+        int bit = existing != null ? existing : permissions.length;
+        Permission[] next = Arrays.copyOf(permissions, Math.max(permissions.length, bit + 1));
+        next[bit] = permission;
+
+        Map<Long, BitSet> masks = new HashMap<>(roleMasks);
+        Set<Long> granted = new HashSet<>(roleIds);
+        // 先撤销不再拥有该权限的角色，再授予新角色，只复制受影响的掩码
+        roleMasks.forEach((roleId, mask) -> {
+            if (mask.get(bit) && !granted.contains(roleId)) {
+                BitSet copy = (BitSet) mask.clone();
+                copy.clear(bit);
+                masks.put(roleId, copy);
+            }
+        });
+        for (Long roleId : granted) {
+            BitSet mask = masks.get(roleId);
+            if (mask == null || !mask.get(bit)) {
+                BitSet copy = mask == null ? new BitSet(next.length) : (BitSet) mask.clone();
+                copy.set(bit);
+                masks.put(roleId, copy);
+            }
+        }
+        return new PermissionSnapshot(version, next, masks);
+    }
+
+    /**
+     * 移除一个权限，返回新快照（位序号作废，不再复用）
+     *
+     * @param version      新版本
+     * @param permissionId 权限ID
+     * @return 新快照
+     */
+    public PermissionSnapshot withoutPermission(long version, Long permissionId) {
+        Integer bit = idToBit.get(permissionId);
+        if (bit == null) {
+            return this;
+        }
+        Permission[] next = permissions.clone();
+        next[bit] = null;
+        Map<Long, BitSet> masks = new HashMap<>(roleMasks);
+        roleMasks.forEach((roleId, mask) -> {
+            if (mask.get(bit)) {
+                BitSet copy = (BitSet) mask.clone();
+                copy.clear(bit);
+                masks.put(roleId, copy);
+            }
+        });
+        return new PermissionSnapshot(version, next, masks);
+    }
+
+    /**
+     * 替换一个角色的全部权限，返回新快照
+     *
+     * @param version       新版本
+     * @param roleId        角色ID
+     * @param permissionIds 角色当前拥有的权限ID
+     * @return 新快照
+     */
+    public PermissionSnapshot withRolePermissions(long version, Long roleId, Collection<Long> permissionIds) {
+        BitSet mask = new BitSet(permissions.length);
+        for (Long permissionId : permissionIds) {
+            Integer bit = idToBit.get(permissionId);
+            if (bit != null) {
+                mask.set(bit);
+            }
+        }
+        Map<Long, BitSet> masks = new HashMap<>(roleMasks);
+        masks.put(roleId, mask);
+        return new PermissionSnapshot(version, permissions, masks);
+    }
+
+    /**
+     * 按角色计算用户权限掩码
+     *
+     * @param roleIds 用户角色ID
+     * @return 权限掩码
+     */
+    public BitSet userMask(Collection<Long> roleIds) {
+        BitSet mask = new BitSet(permissions.length);
+        for (Long roleId : roleIds) {
+            BitSet roleMask = roleMasks.get(roleId);
+            if (roleMask != null) {
+                mask.or(roleMask);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 掩码是否包含指定编码的权限
+     */
+    public boolean hasCode(BitSet userMask, String permissionCode) {
+        BitSet bits = codeIndex.get(permissionCode);
+        return bits != null && bits.intersects(userMask);
+    }
+
+    /**
+     * 掩码是否包含指定层级路径下的权限
+     */
+    public boolean hasPath(BitSet userMask, String permissionPath) {
+        BitSet bits = pathIndex.get(permissionPath);
+        return bits != null && bits.intersects(userMask);
+    }
+
+    /**
+     * 掩码是否包含与请求匹配的 API 权限
+     */
+    public boolean hasApi(BitSet userMask, String httpMethod, String requestUri) {
+        return apiTrie.match(httpMethod, requestUri).intersects(userMask);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 快照中的有效权限数
+     */
+    public int size() {
+        return idToBit.size();
+    }
+
+    private static boolean isEnabled(Permission permission) {
+        return permission != null
+            && Integer.valueOf(1).equals(permission.getStatus())
+            && (permission.getDeleted() == null || permission.getDeleted() == 0);
+    }
+
+    /**
+     * API 模式优先取 apiUrl，未配置时兼容以 "/" 开头的 permissionPath
+     */
+    private static String apiPattern(Permission permission) {
+        if (permission.getApiUrl() != null && !permission.getApiUrl().isBlank()) {
+            return permission.getApiUrl().trim();
+        }
+        String path = permission.getPermissionPath();
+        return path != null && path.startsWith("/") ? path : null;
+    }
+
+    private static void index(Map<String, BitSet> index, String key, int bit) {
+        if (key != null && !key.isEmpty()) {
+            index.computeIfAbsent(key, k -> new BitSet()).set(bit);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.archive.management.ratelimit;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地令牌桶与 Redis 滑动窗口结合的限流器
+ * 每个客户端与路径组合在本节点有一个令牌桶，超出速率的请求在本地拒绝，不访问 Redis；
+ * 通过令牌桶的请求消耗从 Redis 预领的集群配额，用完时由 Lua 脚本按滑动窗口原子地领取下一批，
+ * 每批为限额的 1/leaseDivisor，Redis 调用次数随之降为每批一次，集群总量仍受同一窗口约束。
+ * 预领未用的份数在有效期后作废，集群计数只会偏多，不会放过超额请求。
+ * Redis 不可用时退化为只按本地令牌桶限流
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class HybridRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    /**
+     * 滑动窗口领取配额：按上一窗口计数的剩余占比加当前窗口计数估算已用量，
+     * 在限额内授予至多 ARGV[3] 份，返回 {授予份数, 授予后的已用量}；ARGV[3] 为0时只查询
+     */
+    private static final RedisScript<List<Long>> LEASE_SCRIPT = RedisScript.of(
+        "redis.replicate_commands() " +
+        "local t = redis.call('TIME') " +
+        "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+        "local window = tonumber(ARGV[1]) " +
+        "local limit = tonumber(ARGV[2]) " +
+        "local requested = tonumber(ARGV[3]) " +
+        "local current = math.floor(now / window) " +
+        "local elapsed = (now - current * window) / window " +
+        "local cur = tonumber(redis.call('HGET', KEYS[1], current) or '0') " +
+        "local prev = tonumber(redis.call('HGET', KEYS[1], current - 1) or '0') " +
+        "local used = math.ceil(prev * (1 - elapsed) + cur) " +
+        "local granted = math.max(0, math.min(requested, limit - used)) " +
+        "if granted > 0 then " +
+        "  redis.call('HINCRBY', KEYS[1], current, granted) " +
+        "  redis.call('HDEL', KEYS[1], current - 2) " +
+        "  redis.call('PEXPIRE', KEYS[1], window * 2) " +
+        "end " +
+        "return {granted, used + granted}", longListType());
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PerformanceProperties.RateLimit config;
+    private final Cache<String, LocalQuota> quotas;
+
+    private final LongAdder localGranted = new LongAdder();
+    private final LongAdder localRejected = new LongAdder();
+    private final LongAdder clusterGranted = new LongAdder();
+    private final LongAdder clusterRejected = new LongAdder();
+    private final LongAdder redisCalls = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    public HybridRateLimiter(StringRedisTemplate stringRedisTemplate, PerformanceProperties performanceProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = performanceProperties.getRateLimit();
+        // 空闲满一个窗口后令牌桶必然已满、预领配额必然过期，此时移除不影响判定
+        this.quotas = Caffeine.newBuilder()
+                .maximumSize(config.getMaxTrackedKeys())
+                .expireAfter(new Expiry<String, LocalQuota>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalQuota value, long currentTime) {
+                        return value.getWindowNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalQuota value, long currentTime,
+                                                  long currentDuration) {
+                        return value.getWindowNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalQuota value, long currentTime,
+                                                long currentDuration) {
+                        return value.getWindowNanos();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 尝试放行一次请求
+     *
+     * @param key           客户端与路径标识
+     * @param limit         窗口内允许的请求数
+     * @param windowSeconds 窗口长度(秒)
+     * @return 是否放行
+     */
+    public boolean tryAcquire(String key, int limit, int windowSeconds) {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return true;
+        }
+        long now = System.nanoTime();
+        LocalQuota quota = quota(key, limit, windowSeconds, now);
+        switch (quota.acquire(now)) {
+            case REJECTED:
+                localRejected.increment();
+                return false;
+            case GRANTED:
+                localGranted.increment();
+                return true;
+            default:
+                break;
+        }
+        if (!Boolean.TRUE.equals(config.getClusterEnabled())) {
+            localGranted.increment();
+            return true;
+        }
+
+        int leaseSize = leaseSize(limit);
+        List<Long> result = lease(key, limit, windowSeconds, leaseSize);
+        if (result == null) {
+            // Redis 不可用，本地令牌桶已放行
+            localGranted.increment();
+            return true;
+        }
+        int granted = result.get(0).intValue();
+        if (granted <= 0) {
+            clusterRejected.increment();
+            return false;
+        }
+        quota.addLease(granted, now + TimeUnit.MILLISECONDS.toNanos(config.getLeaseTtlMs()));
+        clusterGranted.increment();
+        return true;
+    }
+
+    /**
+     * 剩余可用请求数：集群窗口余量与本地令牌数中较小的一个
+     */
+    public int getRemaining(String key, int limit, int windowSeconds) {
+        long now = System.nanoTime();
+        LocalQuota quota = quotas.getIfPresent(key);
+        int local = quota != null ? quota.availableTokens(now) : limit;
+        if (!Boolean.TRUE.equals(config.getClusterEnabled())) {
+            return local;
+        }
+        List<Long> result = lease(key, limit, windowSeconds, 0);
+        int cluster = result != null ? (int) Math.max(0, limit - result.get(1)) : limit;
+        return Math.min(local, cluster);
+    }
+
+    /**
+     * 清除本地状态和集群计数
+     */
+    public void reset(String key) {
+        quotas.invalidate(key);
+        stringRedisTemplate.delete(KEY_PREFIX + key);
+    }
+
+    /**
+     * 放行与拒绝次数以及 Redis 调用次数
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        long granted = localGranted.sum() + clusterGranted.sum();
+        long calls = redisCalls.sum();
+        statistics.put("localGranted", localGranted.sum());
+        statistics.put("clusterGranted", clusterGranted.sum());
+        statistics.put("localRejected", localRejected.sum());
+        statistics.put("clusterRejected", clusterRejected.sum());
+        statistics.put("redisCalls", calls);
+        statistics.put("redisErrors", redisErrors.sum());
+        statistics.put("redisCallsPerGrant", granted > 0 ? (double) calls / granted : 0.0);
+        statistics.put("trackedKeys", quotas.estimatedSize());
+        return statistics;
+    }
+
+    private LocalQuota quota(String key, int limit, int windowSeconds, long now) {
+        LocalQuota quota = quotas.get(key, k -> new LocalQuota(limit, windowSeconds, now));
+        if (quota.getLimit() != limit || quota.getWindowNanos() != windowSeconds * 1_000_000_000L) {
+            // 同一标识的规则变化时重新开始
+            quota = new LocalQuota(limit, windowSeconds, now);
+            quotas.put(key, quota);
+        }
+        return quota;
+    }
+
+    /**
+     * 脚本返回的整数数组由驱动转换为 Long 列表；List.class 不能带类型参数，在此集中转换一次
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<List<Long>> longListType() {
+        return (Class<List<Long>>) (Class<?>) List.class;
+    }
+
+    private int leaseSize(int limit) {
+        int size = limit / Math.max(1, config.getLeaseDivisor());
+        return Math.max(1, Math.min(size, config.getMaxLeaseSize()));
+    }
+
+    private List<Long> lease(String key, int limit, int windowSeconds, int requested) {
+        redisCalls.increment();
+        try {
+            List<Long> result = stringRedisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+                String.valueOf(windowSeconds * 1000L), String.valueOf(limit), String.valueOf(requested));
+            return result != null && result.size() >= 2 ? result : null;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("限流配额同步失败，按本地令牌桶处理: {}", e.getMessage());
+            return null;
+        }
+    }
+}
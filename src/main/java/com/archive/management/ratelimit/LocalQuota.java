@@ -0,0 +1,99 @@
+package com.archive.management.ratelimit;
+
+/**
+ * 单个客户端在本节点上的限流状态
+ * 令牌桶按 limit/window 的速率补充、容量为 limit，在本地拦截超出速率的请求；
+ * 通过令牌桶的请求再消耗从 Redis 预领的集群配额，配额用完或过期时由调用方向 Redis 领取下一批。
+ * 同一客户端的请求很少并发，直接用对象锁
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+final class LocalQuota {
+
+    /**
+     * 本地判定结果
+     */
+    enum Decision {
+        /** 令牌桶已空，直接拒绝 */
+        REJECTED,
+        /** 消耗了一份预领的集群配额，放行 */
+        GRANTED,
+        /** 令牌桶放行，但没有可用的集群配额，需要向 Redis 领取 */
+        LEASE_REQUIRED
+    }
+
+    private final int limit;
+    private final long windowNanos;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    /** 预领的集群配额余量 */
+    private int leased;
+    private long leaseExpiresNanos;
+
+    LocalQuota(int limit, int windowSeconds, long nowNanos) {
+        this.limit = limit;
+        this.windowNanos = windowSeconds * 1_000_000_000L;
+        this.tokensPerNano = (double) limit / windowNanos;
+        this.tokens = limit;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    synchronized Decision acquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return Decision.REJECTED;
+        }
+        tokens -= 1;
+        if (leased > 0 && nowNanos - leaseExpiresNanos < 0) {
+            leased--;
+            return Decision.GRANTED;
+        }
+        leased = 0;
+        return Decision.LEASE_REQUIRED;
+    }
+
+    /**
+     * 记录领到的集群配额，其中一份已被当前请求使用
+     *
+     * @param granted        Redis 授予的份数
+     * @param expiresAtNanos 余量失效时间
+     */
+    synchronized void addLease(int granted, long expiresAtNanos) {
+        if (granted <= 1) {
+            return;
+        }
+        if (leased <= 0 || expiresAtNanos - leaseExpiresNanos > 0) {
+            leaseExpiresNanos = expiresAtNanos;
+        }
+        leased += granted - 1;
+    }
+
+    /**
+     * 令牌桶当前可用的整数令牌数
+     */
+    synchronized int availableTokens(long nowNanos) {
+        refill(nowNanos);
+        return (int) tokens;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    long getWindowNanos() {
+        return windowNanos;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(limit, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.archive.management.ratelimit;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 路径前缀树
+ * 构造时把前缀规则编译为按字符排序的不可变节点，查找时沿请求路径逐字符下行，
+ * 返回最长匹配前缀对应的值，耗时只与路径长度有关，与规则数量无关。
+ * 构造后只读，可被多个线程共享
+ *
+ * @param <V> 值类型
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class PathPrefixTrie<V> {
+
+    private final Node<V> root;
+    private final int size;
+
+    /**
+     * @param prefixes 前缀到值，值不能为空
+     */
+    public PathPrefixTrie(Map<String, V> prefixes) {
+        MutableNode<V> mutableRoot = new MutableNode<>();
+        for (Map.Entry<String, V> entry : prefixes.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("前缀规则的值不能为空: " + entry.getKey());
+            }
+            MutableNode<V> node = mutableRoot;
+            String prefix = entry.getKey();
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new MutableNode<>());
+            }
+            node.value = entry.getValue();
+        }
+        this.root = mutableRoot.compile();
+        this.size = prefixes.size();
+    }
+
+    /**
+     * 查找最长匹配前缀
+     *
+     * @param path 请求路径
+     * @return 最长匹配前缀对应的值，没有匹配时为空
+     */
+    public V longestPrefixMatch(String path) {
+        Node<V> node = root;
+        V match = root.value;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<V> {
+        private final char[] keys;
+        private final Node<V>[] children;
+        private final V value;
+
+        private Node(char[] keys, Node<V>[] children, V value) {
+            this.keys = keys;
+            this.children = children;
+            this.value = value;
+        }
+
+        private Node<V> child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class MutableNode<V> {
+        private final TreeMap<Character, MutableNode<V>> children = new TreeMap<>();
+        private V value;
+
+        @SuppressWarnings("unchecked")
+        private Node<V> compile() {
+            char[] keys = new char[children.size()];
+            Node<V>[] compiled = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode<V>> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                compiled[i] = entry.getValue().compile();
+                i++;
+            }
+            return new Node<>(keys, compiled, value);
+        }
+    }
+}
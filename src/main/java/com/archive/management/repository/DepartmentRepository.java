@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -174,14 +175,10 @@ public interface DepartmentRepository extends JpaRepository<Department, Long>, J
      * @param departmentId 部门ID
      * @return 祖先部门列表
      */
-    @Query(value = "WITH RECURSIVE department_ancestors AS (" +
-           "  SELECT id, parent_id, name, code, level FROM department WHERE id = :departmentId " +
-           "  UNION ALL " +
-           "  SELECT d.id, d.parent_id, d.name, d.code, d.level " +
-           "  FROM department d " +
-           "  INNER JOIN department_ancestors da ON d.id = da.parent_id " +
-           ") " +
-           "SELECT * FROM department_ancestors WHERE id != :departmentId ORDER BY level", 
+    @Query(value = "SELECT d.* FROM department d " +
+           "INNER JOIN department_closure c ON d.id = c.ancestor_id " +
+           "WHERE c.descendant_id = :departmentId AND c.depth > 0 " +
+           "ORDER BY c.depth DESC", 
            nativeQuery = true)
     List<Department> findAncestors(@Param("departmentId") Long departmentId);
 
@@ -190,14 +187,10 @@ public interface DepartmentRepository extends JpaRepository<Department, Long>, J
      * @param departmentId 部门ID
      * @return 后代部门列表
      */
-    @Query(value = "WITH RECURSIVE department_descendants AS (" +
-           "  SELECT id, parent_id, name, code, level FROM department WHERE parent_id = :departmentId " +
-           "  UNION ALL " +
-           "  SELECT d.id, d.parent_id, d.name, d.code, d.level " +
-           "  FROM department d " +
-           "  INNER JOIN department_descendants dd ON d.parent_id = dd.id " +
-           ") " +
-           "SELECT * FROM department_descendants ORDER BY level, sort_order", 
+    @Query(value = "SELECT d.* FROM department d " +
+           "INNER JOIN department_closure c ON d.id = c.descendant_id " +
+           "WHERE c.ancestor_id = :departmentId AND c.depth > 0 " +
+           "ORDER BY d.level, d.sort_order", 
            nativeQuery = true)
     List<Department> findDescendants(@Param("departmentId") Long departmentId);
 
@@ -308,17 +301,120 @@ public interface DepartmentRepository extends JpaRepository<Department, Long>, J
      * @param departmentId 部门ID
      * @return 用户数量
      */
-    @Query(value = "WITH RECURSIVE department_tree AS (" +
-           "  SELECT id FROM department WHERE id = :departmentId " +
-           "  UNION ALL " +
-           "  SELECT d.id FROM department d " +
-           "  INNER JOIN department_tree dt ON d.parent_id = dt.id " +
-           ") " +
-           "SELECT COUNT(u.id) FROM user u " +
-           "WHERE u.department_id IN (SELECT id FROM department_tree)", 
+    @Query(value = "SELECT COUNT(u.id) FROM user u " +
+           "INNER JOIN department_closure c ON u.department_id = c.descendant_id " +
+           "WHERE c.ancestor_id = :departmentId", 
            nativeQuery = true)
     long getTotalUserCount(@Param("departmentId") Long departmentId);
 
+    /**
+     * 按部门统计直属用户数量
+     * @return [部门ID, 用户数量]
+     */
+    @Query("SELECT u.departmentId, COUNT(u) FROM User u WHERE u.departmentId IS NOT NULL GROUP BY u.departmentId")
+    List<Object[]> countUsersGroupByDepartment();
+
+    // ==================== 层级闭包表维护 ====================
+
+    /**
+     * 判断 ancestorId 是否为 descendantId 的祖先（不含自身）
+     * @param ancestorId 祖先部门ID
+     * @param descendantId 后代部门ID
+     * @return 匹配的闭包行数
+     */
+    @Query(value = "SELECT COUNT(*) FROM department_closure " +
+           "WHERE ancestor_id = :ancestorId AND descendant_id = :descendantId AND depth > 0", 
+           nativeQuery = true)
+    long countAncestry(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    /**
+     * 为新部门写入闭包行：父部门的全部祖先路径加一层，再加自身；部门需已保存
+     * @param departmentId 新部门ID
+     * @param parentId 父部门ID，根部门为null
+     * @return 插入行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO department_closure (ancestor_id, descendant_id, depth) " +
+           "SELECT c.ancestor_id, d.id, c.depth + 1 FROM department_closure c " +
+           "INNER JOIN department d ON d.id = :departmentId " +
+           "WHERE c.descendant_id = :parentId " +
+           "UNION ALL SELECT d.id, d.id, 0 FROM department d WHERE d.id = :departmentId", 
+           nativeQuery = true)
+    int insertClosure(@Param("departmentId") Long departmentId, @Param("parentId") Long parentId);
+
+    /**
+     * 断开子树与原祖先的闭包行（子树内部的行保留）
+     * 子查询包一层 DISTINCT 派生表，MySQL 先物化再删除，不受同表子查询的限制
+     * @param departmentId 子树根部门ID
+     * @return 删除行数
+     */
+    @Modifying
+    @Query(value = "DELETE FROM department_closure " +
+           "WHERE descendant_id IN (SELECT descendant_id FROM (SELECT DISTINCT descendant_id " +
+           "    FROM department_closure WHERE ancestor_id = :departmentId) sub) " +
+           "AND ancestor_id IN (SELECT ancestor_id FROM (SELECT DISTINCT ancestor_id " +
+           "    FROM department_closure WHERE descendant_id = :departmentId AND depth > 0) sup)", 
+           nativeQuery = true)
+    int detachSubtree(@Param("departmentId") Long departmentId);
+
+    /**
+     * 把子树挂到新父部门下：新父部门的每个祖先与子树的每个成员各连一行
+     * @param departmentId 子树根部门ID
+     * @param parentId 新父部门ID
+     * @return 插入行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO department_closure (ancestor_id, descendant_id, depth) " +
+           "SELECT sup.ancestor_id, sub.descendant_id, sup.depth + sub.depth + 1 " +
+           "FROM department_closure sup CROSS JOIN department_closure sub " +
+           "WHERE sup.descendant_id = :parentId AND sub.ancestor_id = :departmentId", 
+           nativeQuery = true)
+    int attachSubtree(@Param("departmentId") Long departmentId, @Param("parentId") Long parentId);
+
+    /**
+     * 批量调整子树后代的层级和路径前缀（不含子树根自身）
+     * @param departmentId 子树根部门ID
+     * @param levelDelta 层级变化量
+     * @param oldPathLength 原路径前缀长度
+     * @param newPath 新路径前缀
+     * @return 更新行数
+     */
+    @Modifying
+    @Query(value = "UPDATE department " +
+           "SET level = level + :levelDelta, " +
+           "    path = CONCAT(:newPath, SUBSTRING(path, :oldPathLength + 1)), " +
+           "    update_time = NOW() " +
+           "WHERE id IN (SELECT descendant_id FROM department_closure " +
+           "    WHERE ancestor_id = :departmentId AND depth > 0)", 
+           nativeQuery = true)
+    int rebaseDescendants(@Param("departmentId") Long departmentId, @Param("levelDelta") int levelDelta,
+                          @Param("oldPathLength") int oldPathLength, @Param("newPath") String newPath);
+
+    /**
+     * 把部门子树挂到新父部门下
+     * 闭包表先断开再重连，后代的层级和路径用一条 UPDATE 按偏移量调整；
+     * department 本身只改父部门、层级和路径，由调用方保存
+     * @param department 子树根部门
+     * @param newParent 新父部门，移为根部门时为null
+     */
+    default void relocateSubtree(Department department, Department newParent) {
+        int oldLevel = department.getLevel() == null ? 1 : department.getLevel();
+        String oldPath = department.getPath();
+        
+        department.setParentId(newParent == null ? null : newParent.getId());
+        department.setLevel(newParent == null ? 1 : newParent.getLevel() + 1);
+        department.buildPath(newParent == null ? null : newParent.getPath());
+        
+        detachSubtree(department.getId());
+        if (newParent != null) {
+            attachSubtree(department.getId(), newParent.getId());
+        }
+        if (oldPath != null) {
+            rebaseDescendants(department.getId(), department.getLevel() - oldLevel, oldPath.length(),
+                    department.getPath());
+        }
+    }
+
     /**
      * 根据部门ID列表批量查询部门
      * @param departmentIds 部门ID列表
@@ -88,6 +88,15 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      */
     Page<User> findByDepartmentId(Long departmentId, Pageable pageable);
 
+    /**
+     * 查找部门下未删除用户的ID
+     * @param departmentId 部门ID
+     * @return 用户ID列表
+     */
+    @Query(value = "SELECT user_id FROM sys_user WHERE department_id = :departmentId AND deleted = 0",
+           nativeQuery = true)
+    List<Long> findActiveUserIdsByDepartmentId(@Param("departmentId") Long departmentId);
+
     /**
      * 根据角色ID查找用户列表
      * @param roleId 角色ID
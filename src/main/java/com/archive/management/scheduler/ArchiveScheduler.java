@@ -1,8 +1,14 @@
 package com.archive.management.scheduler;
 
-import com.archive.management.entity.Archive;
-import com.archive.management.entity.ArchiveFile;
-import com.archive.management.entity.AuditLog;
+import com.archive.management.mapper.ArchiveFileMapper;
+import com.archive.management.mapper.ArchiveMapper;
+import com.archive.management.mapper.AuditLogMapper;
+import com.archive.management.scheduler.batch.ArchiveFileCleanupJob;
+import com.archive.management.scheduler.batch.AuditLogCleanupJob;
+import com.archive.management.scheduler.batch.AutoArchiveJob;
+import com.archive.management.scheduler.batch.BatchJobResult;
+import com.archive.management.scheduler.batch.ChunkedJobRunner;
+import com.archive.management.search.ArchiveSearchIndex;
 import com.archive.management.service.ArchiveService;
 import com.archive.management.service.ArchiveFileService;
 import com.archive.management.service.AuditLogService;
@@ -11,14 +17,13 @@ import com.archive.management.mq.producer.ArchiveMessageProducer;
 import com.archive.management.mq.producer.SystemMessageProducer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * 档案定时任务调度器
@@ -35,13 +40,22 @@ public class ArchiveScheduler {
     private final SystemConfigService systemConfigService;
     private final ArchiveMessageProducer archiveMessageProducer;
     private final SystemMessageProducer systemMessageProducer;
+    private final ArchiveMapper archiveMapper;
+    private final ArchiveFileMapper archiveFileMapper;
+    private final AuditLogMapper auditLogMapper;
+    private final ChunkedJobRunner chunkedJobRunner;
+    private final CacheManager cacheManager;
+    private final ArchiveSearchIndex archiveSearchIndex;
+
+    @Value("${file.upload.path:/data/archive/files}")
+    private String uploadPath;
 
     /**
      * 自动归档任务
-     * 每天凌晨2点执行，将符合条件的档案进行自动归档
+     * 每天凌晨2点执行，将符合条件的档案进行自动归档。
+     * 按块提交并记录检查点，集群中只有一个节点执行，中断后下次从检查点继续
      */
     @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
     public void autoArchiveTask() {
         log.info("开始执行自动归档任务");
         
@@ -55,50 +69,28 @@ public class ArchiveScheduler {
                 return;
             }
             
-            // 查找需要归档的档案
             LocalDateTime archiveDate = LocalDateTime.now().minusDays(autoArchiveDays);
-            List<Archive> archivesToProcess = archiveService.findArchivesForAutoArchive(archiveDate);
-            
-            log.info("找到 {} 个档案需要自动归档", archivesToProcess.size());
-            
-            int successCount = 0;
-            int failureCount = 0;
-            
-            for (Archive archive : archivesToProcess) {
-                try {
-                    // 执行归档操作
-                    archiveService.performAutoArchive(archive.getId());
-                    
-                    // 发送归档消息
-                    archiveMessageProducer.sendArchiveMessage(archive.getId(), "AUTO_ARCHIVE", 
-                        Map.of("archiveDate", archiveDate.toString()));
-                    
-                    successCount++;
-                    log.debug("档案 {} 自动归档成功", archive.getId());
-                    
-                } catch (Exception e) {
-                    failureCount++;
-                    log.error("档案 {} 自动归档失败: {}", archive.getId(), e.getMessage(), e);
-                    
-                    // 记录审计日志
-                    auditLogService.recordOperationLog("SYSTEM", "AUTO_ARCHIVE", 
-                        "Archive", archive.getId().toString(), "FAILURE", 
-                        "自动归档失败: " + e.getMessage());
-                }
+            BatchJobResult result = chunkedJobRunner.run(
+                new AutoArchiveJob(archiveMapper, archiveMessageProducer, auditLogService,
+                    cacheManager.getCache("archives"), archiveSearchIndex, archiveDate));
+            if (BatchJobResult.SKIPPED.equals(result.getStatus())) {
+                return;
             }
             
             // 发送任务完成通知
             systemMessageProducer.sendSystemMessage("AUTO_ARCHIVE_COMPLETE", 
-                Map.of("totalCount", archivesToProcess.size(), 
-                       "successCount", successCount, 
-                       "failureCount", failureCount));
+                Map.of("status", result.getStatus(),
+                       "resumed", result.isResumed(),
+                       "successCount", result.getProcessed(), 
+                       "failureCount", result.getFailed()));
             
-            log.info("自动归档任务完成，成功: {}, 失败: {}", successCount, failureCount);
+            log.info("自动归档任务结束，状态: {}, 成功: {}, 失败: {}",
+                result.getStatus(), result.getProcessed(), result.getFailed());
             
         } catch (Exception e) {
             log.error("自动归档任务执行失败", e);
             systemMessageProducer.sendSystemMessage("AUTO_ARCHIVE_ERROR", 
-                Map.of("error", e.getMessage()));
+                Map.of("error", String.valueOf(e.getMessage())));
         }
     }
 
@@ -107,7 +99,6 @@ public class ArchiveScheduler {
      * 每天凌晨3点执行，清理过期的临时文件和垃圾文件
      */
     @Scheduled(cron = "0 0 3 * * ?")
-    @Transactional
     public void cleanupExpiredFilesTask() {
         log.info("开始执行档案文件清理任务");
         
@@ -123,65 +114,36 @@ public class ArchiveScheduler {
             }
             
             // 清理临时文件
-            LocalDateTime tempFileExpireDate = LocalDateTime.now().minusDays(tempFileRetentionDays);
-            List<ArchiveFile> tempFilesToClean = archiveFileService.findExpiredTempFiles(tempFileExpireDate);
+            ArchiveFileCleanupJob tempFileJob = new ArchiveFileCleanupJob(archiveFileMapper,
+                ArchiveFileCleanupJob.Kind.TEMP, LocalDateTime.now().minusDays(tempFileRetentionDays), uploadPath);
+            BatchJobResult tempResult = chunkedJobRunner.run(tempFileJob);
             
             // 清理已删除文件
-            LocalDateTime deletedFileExpireDate = LocalDateTime.now().minusDays(deletedFileRetentionDays);
-            List<ArchiveFile> deletedFilesToClean = archiveFileService.findExpiredDeletedFiles(deletedFileExpireDate);
-            
-            int tempFilesCleanedCount = 0;
-            int deletedFilesCleanedCount = 0;
-            long totalSpaceFreed = 0;
-            
-            // 异步清理临时文件
-            CompletableFuture<Void> tempFileCleanup = CompletableFuture.runAsync(() -> {
-                for (ArchiveFile file : tempFilesToClean) {
-                    try {
-                        long fileSize = file.getFileSize();
-                        archiveFileService.permanentlyDeleteFile(file.getId());
-                        tempFilesCleanedCount++;
-                        totalSpaceFreed += fileSize;
-                        
-                        log.debug("清理临时文件: {}", file.getFileName());
-                    } catch (Exception e) {
-                        log.error("清理临时文件失败: {}", file.getFileName(), e);
-                    }
-                }
-            });
-            
-            // 异步清理已删除文件
-            CompletableFuture<Void> deletedFileCleanup = CompletableFuture.runAsync(() -> {
-                for (ArchiveFile file : deletedFilesToClean) {
-                    try {
-                        long fileSize = file.getFileSize();
-                        archiveFileService.permanentlyDeleteFile(file.getId());
-                        deletedFilesCleanedCount++;
-                        totalSpaceFreed += fileSize;
-                        
-                        log.debug("清理已删除文件: {}", file.getFileName());
-                    } catch (Exception e) {
-                        log.error("清理已删除文件失败: {}", file.getFileName(), e);
-                    }
-                }
-            });
-            
-            // 等待清理任务完成
-            CompletableFuture.allOf(tempFileCleanup, deletedFileCleanup).join();
+            ArchiveFileCleanupJob deletedFileJob = new ArchiveFileCleanupJob(archiveFileMapper,
+                ArchiveFileCleanupJob.Kind.DELETED, LocalDateTime.now().minusDays(deletedFileRetentionDays), uploadPath);
+            BatchJobResult deletedResult = chunkedJobRunner.run(deletedFileJob);
+            
+            if (BatchJobResult.SKIPPED.equals(tempResult.getStatus())
+                    && BatchJobResult.SKIPPED.equals(deletedResult.getStatus())) {
+                return;
+            }
+            
+            long totalSpaceFreed = tempFileJob.getBytesFreed() + deletedFileJob.getBytesFreed();
             
             // 发送清理完成通知
             systemMessageProducer.sendSystemMessage("FILE_CLEANUP_COMPLETE", 
-                Map.of("tempFilesCount", tempFilesCleanedCount,
-                       "deletedFilesCount", deletedFilesCleanedCount,
+                Map.of("tempFilesCount", tempResult.getProcessed(),
+                       "deletedFilesCount", deletedResult.getProcessed(),
+                       "failureCount", tempResult.getFailed() + deletedResult.getFailed(),
                        "totalSpaceFreed", totalSpaceFreed));
             
             log.info("文件清理任务完成，清理临时文件: {}, 清理已删除文件: {}, 释放空间: {} bytes", 
-                tempFilesCleanedCount, deletedFilesCleanedCount, totalSpaceFreed);
+                tempResult.getProcessed(), deletedResult.getProcessed(), totalSpaceFreed);
             
         } catch (Exception e) {
             log.error("文件清理任务执行失败", e);
             systemMessageProducer.sendSystemMessage("FILE_CLEANUP_ERROR", 
-                Map.of("error", e.getMessage()));
+                Map.of("error", String.valueOf(e.getMessage())));
         }
     }
 
@@ -213,7 +175,6 @@ public class ArchiveScheduler {
      * 每周日凌晨4点执行，清理过期的审计日志
      */
     @Scheduled(cron = "0 0 4 * * SUN")
-    @Transactional
     public void cleanupAuditLogsTask() {
         log.info("开始执行审计日志清理任务");
         
@@ -229,42 +190,24 @@ public class ArchiveScheduler {
             
             LocalDateTime expireDate = LocalDateTime.now().minusDays(auditLogRetentionDays);
             
-            // 分批清理审计日志
-            int batchSize = 1000;
-            int totalCleaned = 0;
-            
-            while (true) {
-                List<AuditLog> logsToClean = auditLogService.findExpiredLogs(expireDate, batchSize);
-                
-                if (logsToClean.isEmpty()) {
-                    break;
-                }
-                
-                // 批量删除
-                auditLogService.batchDeleteLogs(logsToClean.stream()
-                    .map(AuditLog::getId)
-                    .toList());
-                
-                totalCleaned += logsToClean.size();
-                
-                log.debug("已清理 {} 条审计日志", logsToClean.size());
-                
-                // 避免长时间占用数据库连接
-                Thread.sleep(100);
+            // 分块清理审计日志，块间停顿避免长时间占用数据库
+            BatchJobResult result = chunkedJobRunner.run(new AuditLogCleanupJob(auditLogMapper, expireDate));
+            if (BatchJobResult.SKIPPED.equals(result.getStatus())) {
+                return;
             }
             
             // 记录清理结果
             auditLogService.recordOperationLog("SYSTEM", "AUDIT_LOG_CLEANUP", 
-                "AuditLog", "BATCH", "SUCCESS", 
-                String.format("清理了 %d 条过期审计日志", totalCleaned));
+                "AuditLog", "BATCH",
+                String.format("清理了 %d 条过期审计日志", result.getProcessed()),
+                BatchJobResult.COMPLETED.equals(result.getStatus()) ? "SUCCESS" : result.getStatus());
             
-            log.info("审计日志清理任务完成，共清理 {} 条记录", totalCleaned);
+            log.info("审计日志清理任务结束，状态: {}, 共清理 {} 条记录", result.getStatus(), result.getProcessed());
             
         } catch (Exception e) {
             log.error("审计日志清理任务执行失败", e);
             auditLogService.recordOperationLog("SYSTEM", "AUDIT_LOG_CLEANUP", 
-                "AuditLog", "BATCH", "FAILURE", 
-                "审计日志清理失败: " + e.getMessage());
+                "AuditLog", "BATCH", "审计日志清理失败: " + e.getMessage(), "FAILURE");
         }
     }
 
@@ -7,6 +7,7 @@ import com.archive.management.service.AuditLogService;
 import com.archive.management.service.ArchiveService;
 import com.archive.management.service.UserService;
 import com.archive.management.mq.producer.SystemMessageProducer;
+import com.archive.management.sysconfig.SystemConfigSnapshotHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,6 +44,9 @@ public class SystemScheduler {
     @Autowired
     private SystemMessageProducer systemMessageProducer;
 
+    @Autowired
+    private SystemConfigSnapshotHolder systemConfigSnapshotHolder;
+
     /**
      * 系统配置同步任务
      * 每5分钟执行一次
@@ -52,6 +56,11 @@ public class SystemScheduler {
         try {
             logger.info("开始执行系统配置同步任务");
             
+            // 配置表有变更（例如直接修改数据库）时重建配置快照
+            if (systemConfigSnapshotHolder.refreshIfChanged()) {
+                logger.info("系统配置快照已重建，版本: {}", systemConfigSnapshotHolder.current().getVersion());
+            }
+            
             // 获取需要同步的配置
             List<SystemConfig> configs = systemConfigService.findPendingSyncConfigs();
             
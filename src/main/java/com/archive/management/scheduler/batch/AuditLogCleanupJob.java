@@ -0,0 +1,47 @@
+package com.archive.management.scheduler.batch;
+
+import com.archive.management.mapper.AuditLogMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 过期审计日志清理任务
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public class AuditLogCleanupJob implements ChunkedJob<Long> {
+
+    public static final String NAME = "audit-log-cleanup";
+
+    private final AuditLogMapper auditLogMapper;
+    private final LocalDateTime cutoff;
+
+    public AuditLogCleanupJob(AuditLogMapper auditLogMapper, LocalDateTime cutoff) {
+        this.auditLogMapper = auditLogMapper;
+        this.cutoff = cutoff;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Long> readChunk(Long afterKey, int limit) {
+        return auditLogMapper.findExpiredIdsAfterId(afterKey, cutoff, limit);
+    }
+
+    @Override
+    public Long keyOf(Long id) {
+        return id;
+    }
+
+    @Override
+    public List<Long> writeChunk(List<Long> ids) {
+        auditLogMapper.deleteExpiredByIds(ids, cutoff);
+        return ids;
+    }
+}
@@ -0,0 +1,54 @@
+package com.archive.management.scheduler.batch;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分块批处理任务检查点
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Data
+public class BatchCheckpoint {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /** 任务名 */
+    private String jobName;
+
+    /** 本轮执行标识 */
+    private String runId;
+
+    /** 已处理到的最大主键，为空表示从头开始 */
+    private Long cursorKey;
+
+    /** 状态 */
+    private String status;
+
+    /** 本轮已提交的分块数 */
+    private Integer chunks;
+
+    /** 本轮处理成功的条数 */
+    private Long processed;
+
+    /** 本轮处理失败并跳过的条数 */
+    private Long failed;
+
+    /** 本轮开始时间 */
+    private LocalDateTime startedAt;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+
+    /**
+     * 是否为未完成的一轮，下次执行应从游标处继续
+     */
+    public boolean isResumable() {
+        return !STATUS_COMPLETED.equals(status);
+    }
+}
@@ -0,0 +1,99 @@
+package com.archive.management.scheduler.batch;
+
+/**
+ * 分块批处理任务一次执行的结果
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class BatchJobResult {
+
+    /** 本轮全部处理完 */
+    public static final String COMPLETED = "COMPLETED";
+
+    /** 读取或写入检查点失败，下次从游标处继续 */
+    public static final String FAILED = "FAILED";
+
+    /** 租约丢失或线程中断，下次从游标处继续 */
+    public static final String STOPPED = "STOPPED";
+
+    /** 其它节点持有租约，本节点未执行 */
+    public static final String SKIPPED = "SKIPPED";
+
+    private final String jobName;
+    private final String runId;
+    private final String status;
+    private final boolean resumed;
+    private final int chunks;
+    private final long processed;
+    private final long failed;
+    private final long durationMs;
+
+    BatchJobResult(String jobName, String runId, String status, boolean resumed,
+                   int chunks, long processed, long failed, long durationMs) {
+        this.jobName = jobName;
+        this.runId = runId;
+        this.status = status;
+        this.resumed = resumed;
+        this.chunks = chunks;
+        this.processed = processed;
+        this.failed = failed;
+        this.durationMs = durationMs;
+    }
+
+    static BatchJobResult skipped(String jobName) {
+        return new BatchJobResult(jobName, null, SKIPPED, false, 0, 0L, 0L, 0L);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 是否从上一次中断的检查点继续
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * 本次执行提交的分块数
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * 本次执行处理成功的条数
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * 本次执行失败并跳过的条数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * 处理吞吐量（条/秒）
+     */
+    public long getItemsPerSecond() {
+        return processed * 1000L / Math.max(1L, durationMs);
+    }
+}
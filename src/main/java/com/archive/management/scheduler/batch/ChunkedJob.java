@@ -0,0 +1,65 @@
+package com.archive.management.scheduler.batch;
+
+import java.util.List;
+
+/**
+ * 分块批处理任务
+ * 候选记录按主键升序分页读取（主键大于游标），每块在独立事务中写入并推进检查点。
+ * 写入应是幂等的条件更新或删除：中断后续跑、或块失败后逐条重试时，同一记录可能再次被写入
+ *
+ * @param <T> 记录类型
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public interface ChunkedJob<T> {
+
+    /**
+     * 任务名，用作检查点和集群租约的键
+     */
+    String getName();
+
+    /**
+     * 读取主键大于游标的下一块候选记录
+     *
+     * @param afterKey 游标，为空表示从头开始
+     * @param limit 块大小
+     * @return 按主键升序的记录，为空表示本轮结束
+     */
+    List<T> readChunk(Long afterKey, int limit);
+
+    /**
+     * 记录的主键
+     */
+    Long keyOf(T item);
+
+    /**
+     * 在块事务中写入
+     *
+     * @param items 本块记录
+     * @return 实际写入的记录（加锁复核后条件已不满足而跳过的不含在内）
+     */
+    List<T> writeChunk(List<T> items);
+
+    /**
+     * 块事务提交后的处理，如发送消息、删除物理文件，失败不影响已提交的数据
+     *
+     * @param items 本块写入成功的记录
+     */
+    default void afterChunkCommitted(List<T> items) {
+    }
+
+    /**
+     * 单条记录重试后仍失败
+     */
+    default void onItemFailed(T item, Exception e) {
+    }
+
+    /**
+     * 本轮结束（完成、失败或中止）后的处理
+     *
+     * @param result 本轮结果
+     */
+    default void onRunFinished(BatchJobResult result) {
+    }
+}
@@ -0,0 +1,387 @@
+package com.archive.management.scheduler.batch;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.mapper.BatchCheckpointMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块批处理任务执行器
+ * 执行前在 Redis 中获取任务租约，集群中同一任务同时只有一个节点执行，每提交一块续期一次。
+ * 每块的写入与检查点推进在同一个独立事务中提交；块写入失败时逐条重试，仍失败的记录跳过并计数。
+ * 节点崩溃或租约丢失时检查点保持未完成，下一次执行（任一节点）从游标处继续。
+ * 每块的耗时和条数记入 Micrometer（batch.job.*，按任务名打标签）和 {@link #getStatistics()}
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class ChunkedJobRunner {
+
+    private static final String LEASE_KEY_PREFIX = "archive:batch:lease:";
+
+    /** 仍由本节点持有时续期 */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+        "  return redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+        "end " +
+        "return 0", Long.class);
+
+    /** 仍由本节点持有时释放 */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+        "  return redis.call('DEL', KEYS[1]) " +
+        "end " +
+        "return 0", Long.class);
+
+    private final BatchCheckpointMapper checkpointMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final PerformanceProperties.Batch config;
+    private final MeterRegistry meterRegistry;
+
+    /** 各任务最近一次执行的进度 */
+    private final Map<String, JobProgress> progress = new ConcurrentHashMap<>();
+
+    public ChunkedJobRunner(BatchCheckpointMapper checkpointMapper,
+                            StringRedisTemplate stringRedisTemplate,
+                            PlatformTransactionManager transactionManager,
+                            PerformanceProperties performanceProperties,
+                            MeterRegistry meterRegistry) {
+        this.checkpointMapper = checkpointMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        // 每块独立提交，不并入调用方的事务
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.config = performanceProperties.getBatch();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 执行任务
+     * 其它节点正持有租约时直接返回 {@link BatchJobResult#SKIPPED}
+     *
+     * @param job 任务
+     * @return 本次执行结果
+     */
+    public <T> BatchJobResult run(ChunkedJob<T> job) {
+        String name = job.getName();
+        String token = UUID.randomUUID().toString();
+        if (!acquireLease(name, token)) {
+            log.info("批处理任务 {} 正由其它节点执行，本节点跳过", name);
+            return BatchJobResult.skipped(name);
+        }
+        try {
+            BatchJobResult result = execute(job, token);
+            try {
+                job.onRunFinished(result);
+            } catch (Exception e) {
+                log.error("批处理任务 {} 结束回调失败", name, e);
+            }
+            return result;
+        } finally {
+            releaseLease(name, token);
+        }
+    }
+
+    /**
+     * 各任务最近一次执行的进度与分块指标
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        progress.forEach((name, jobProgress) -> statistics.put(name, jobProgress.toMap()));
+        return statistics;
+    }
+
+    private <T> BatchJobResult execute(ChunkedJob<T> job, String token) {
+        String name = job.getName();
+        long start = System.nanoTime();
+
+        BatchCheckpoint checkpoint = checkpointMapper.selectByJobName(name);
+        boolean resumed = checkpoint != null && checkpoint.isResumable();
+        String runId;
+        Long cursor;
+        if (resumed) {
+            runId = checkpoint.getRunId();
+            cursor = checkpoint.getCursorKey();
+            log.info("批处理任务 {} 从检查点继续: runId={}, cursor={}, 已处理{}", name, runId, cursor,
+                checkpoint.getProcessed());
+        } else {
+            runId = UUID.randomUUID().toString().replace("-", "");
+            cursor = null;
+            checkpointMapper.startRun(name, runId);
+            log.info("批处理任务 {} 开始: runId={}", name, runId);
+        }
+
+        JobProgress jobProgress = new JobProgress(runId, resumed);
+        progress.put(name, jobProgress);
+        Timer chunkTimer = Timer.builder("batch.job.chunk.time")
+            .description("批处理任务单块耗时")
+            .tag("job", name)
+            .register(meterRegistry);
+        Counter processedCounter = Counter.builder("batch.job.items")
+            .description("批处理任务处理条数")
+            .tag("job", name)
+            .tag("result", "processed")
+            .register(meterRegistry);
+        Counter failedCounter = Counter.builder("batch.job.items")
+            .description("批处理任务处理条数")
+            .tag("job", name)
+            .tag("result", "failed")
+            .register(meterRegistry);
+
+        int chunkSize = Math.max(1, config.getChunkSize());
+        String status;
+        try {
+            while (true) {
+                if (Thread.currentThread().isInterrupted() || !renewLease(name, token)) {
+                    log.warn("批处理任务 {} 租约丢失或线程中断，停止于 cursor={}", name, cursor);
+                    status = BatchJobResult.STOPPED;
+                    break;
+                }
+
+                List<T> items = job.readChunk(cursor, chunkSize);
+                if (items.isEmpty()) {
+                    status = BatchJobResult.COMPLETED;
+                    break;
+                }
+
+                long chunkStart = System.nanoTime();
+                ChunkOutcome<T> outcome = processChunk(job, runId, items);
+                long chunkNanos = System.nanoTime() - chunkStart;
+                cursor = outcome.cursor;
+
+                chunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+                processedCounter.increment(outcome.written.size());
+                failedCounter.increment(outcome.failed);
+                jobProgress.chunkCommitted(items.size(), outcome.written.size(), outcome.failed,
+                    TimeUnit.NANOSECONDS.toMillis(chunkNanos), cursor);
+                log.debug("批处理任务 {} 第{}块提交: 读取{}, 成功{}, 失败{}, 耗时{}ms", name, jobProgress.chunks,
+                    items.size(), outcome.written.size(), outcome.failed, TimeUnit.NANOSECONDS.toMillis(chunkNanos));
+
+                if (!outcome.written.isEmpty()) {
+                    try {
+                        job.afterChunkCommitted(outcome.written);
+                    } catch (Exception e) {
+                        log.error("批处理任务 {} 块提交后处理失败: cursor={}", name, cursor, e);
+                    }
+                }
+
+                if (items.size() < chunkSize) {
+                    status = BatchJobResult.COMPLETED;
+                    break;
+                }
+                if (config.getChunkPauseMs() > 0) {
+                    Thread.sleep(config.getChunkPauseMs());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("批处理任务 {} 被中断，停止于 cursor={}", name, cursor);
+            status = BatchJobResult.STOPPED;
+        } catch (CheckpointLostException e) {
+            log.warn("批处理任务 {} 的本轮已被其它节点接管: runId={}", name, runId);
+            status = BatchJobResult.STOPPED;
+        } catch (Exception e) {
+            log.error("批处理任务 {} 执行失败，下次从 cursor={} 继续", name, cursor, e);
+            status = BatchJobResult.FAILED;
+        }
+
+        if (!BatchJobResult.STOPPED.equals(status)) {
+            try {
+                checkpointMapper.finishRun(name, runId, status);
+            } catch (Exception e) {
+                log.error("批处理任务 {} 写入结束状态失败: {}", name, status, e);
+            }
+        }
+
+        BatchJobResult result = new BatchJobResult(name, runId, status, resumed, jobProgress.chunks,
+            jobProgress.processed, jobProgress.failed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        jobProgress.finish(result);
+        log.info("批处理任务 {} 结束: 状态{}, 分块{}, 成功{}, 失败{}, 耗时{}ms, {}条/秒", name, status,
+            result.getChunks(), result.getProcessed(), result.getFailed(), result.getDurationMs(),
+            result.getItemsPerSecond());
+        return result;
+    }
+
+    /**
+     * 在独立事务中写入一块并推进检查点；整块失败时逐条重试
+     */
+    private <T> ChunkOutcome<T> processChunk(ChunkedJob<T> job, String runId, List<T> items) {
+        String name = job.getName();
+        Long lastKey = job.keyOf(items.get(items.size() - 1));
+        try {
+            List<T> written = chunkTransaction.execute(status -> {
+                List<T> chunkWritten = job.writeChunk(items);
+                advance(name, runId, lastKey, chunkWritten.size(), 0);
+                return chunkWritten;
+            });
+            return new ChunkOutcome<>(written != null ? written : Collections.emptyList(), 0, lastKey);
+        } catch (CheckpointLostException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("批处理任务 {} 整块写入失败，逐条重试: {}条, cursor={}", name, items.size(), lastKey, e);
+        }
+
+        List<T> written = new ArrayList<>(items.size());
+        int failed = 0;
+        for (T item : items) {
+            try {
+                List<T> itemWritten = chunkTransaction.execute(status -> job.writeChunk(Collections.singletonList(item)));
+                if (itemWritten != null) {
+                    written.addAll(itemWritten);
+                }
+            } catch (Exception e) {
+                failed++;
+                log.error("批处理任务 {} 记录处理失败，跳过: key={}", name, job.keyOf(item), e);
+                try {
+                    job.onItemFailed(item, e);
+                } catch (Exception callbackError) {
+                    log.error("批处理任务 {} 失败回调异常: key={}", name, job.keyOf(item), callbackError);
+                }
+            }
+        }
+        int writtenCount = written.size();
+        int failedCount = failed;
+        chunkTransaction.executeWithoutResult(status -> advance(name, runId, lastKey, writtenCount, failedCount));
+        return new ChunkOutcome<>(written, failed, lastKey);
+    }
+
+    private void advance(String name, String runId, Long cursor, long processed, long failed) {
+        if (checkpointMapper.advance(name, runId, cursor, processed, failed) == 0) {
+            throw new CheckpointLostException();
+        }
+    }
+
+    private boolean acquireLease(String name, String token) {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY_PREFIX + name, token, Duration.ofSeconds(config.getLeaseTtlSeconds()));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            log.warn("获取批处理任务租约失败，本节点跳过: {}", name, e);
+            return false;
+        }
+    }
+
+    private boolean renewLease(String name, String token) {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                Collections.singletonList(LEASE_KEY_PREFIX + name), token, String.valueOf(config.getLeaseTtlSeconds()));
+            return renewed != null && renewed > 0;
+        } catch (Exception e) {
+            log.warn("续期批处理任务租约失败: {}", name, e);
+            return false;
+        }
+    }
+
+    private void releaseLease(String name, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(LEASE_KEY_PREFIX + name), token);
+        } catch (Exception e) {
+            log.warn("释放批处理任务租约失败，等待过期: {}", name, e);
+        }
+    }
+
+    /**
+     * 本轮检查点已被其它节点重新开始
+     */
+    private static final class CheckpointLostException extends IllegalStateException {
+        private CheckpointLostException() {
+            super("批处理检查点已被接管");
+        }
+    }
+
+    private static final class ChunkOutcome<T> {
+        private final List<T> written;
+        private final int failed;
+        private final Long cursor;
+
+        private ChunkOutcome(List<T> written, int failed, Long cursor) {
+            this.written = written;
+            this.failed = failed;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * 一次执行的进度，执行线程写入，统计接口读取
+     */
+    private static final class JobProgress {
+        private final String runId;
+        private final boolean resumed;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile int chunks;
+        private volatile long processed;
+        private volatile long failed;
+        private volatile Long cursor;
+        private volatile int lastChunkSize;
+        private volatile long lastChunkMs;
+        private volatile long maxChunkMs;
+        private volatile long totalChunkMs;
+        private volatile BatchJobResult result;
+
+        private JobProgress(String runId, boolean resumed) {
+            this.runId = runId;
+            this.resumed = resumed;
+        }
+
+        private void chunkCommitted(int size, int written, int chunkFailed, long chunkMs, Long chunkCursor) {
+            chunks++;
+            processed += written;
+            failed += chunkFailed;
+            cursor = chunkCursor;
+            lastChunkSize = size;
+            lastChunkMs = chunkMs;
+            maxChunkMs = Math.max(maxChunkMs, chunkMs);
+            totalChunkMs += chunkMs;
+        }
+
+        private void finish(BatchJobResult jobResult) {
+            result = jobResult;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            BatchJobResult finished = result;
+            map.put("runId", runId);
+            map.put("status", finished != null ? finished.getStatus() : "RUNNING");
+            map.put("resumed", resumed);
+            map.put("startedAt", startedAt.toString());
+            map.put("chunks", chunks);
+            map.put("processed", processed);
+            map.put("failed", failed);
+            map.put("cursor", cursor);
+            map.put("lastChunkSize", lastChunkSize);
+            map.put("lastChunkMs", lastChunkMs);
+            map.put("maxChunkMs", maxChunkMs);
+            map.put("avgChunkMs", chunks > 0 ? totalChunkMs / chunks : 0L);
+            if (finished != null) {
+                map.put("durationMs", finished.getDurationMs());
+                map.put("itemsPerSecond", finished.getItemsPerSecond());
+            }
+            return map;
+        }
+    }
+}
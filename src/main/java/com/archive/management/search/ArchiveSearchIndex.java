@@ -0,0 +1,304 @@
+package com.archive.management.search;
+
+import com.archive.management.cache.TwoLevelCacheManager;
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.Archive;
+import com.archive.management.mapper.ArchiveMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 档案全文索引
+ * 启动后按主键游标从 ArchiveMapper 分批构建内存倒排索引，
+ * 档案新增、修改、删除时在事务提交后增量更新，并通过缓存失效频道通知其它节点按库刷新该档案；
+ * 重建时在新索引上构建，期间的增量更新在新索引上重放后再整体替换，检索使用 BM25 排序
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class ArchiveSearchIndex {
+
+    /** 字段权重：标题与编号命中比摘要更有区分度 */
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float NUMBER_BOOST = 2.0f;
+    private static final float KEYWORDS_BOOST = 2.0f;
+    private static final float ABSTRACT_BOOST = 1.0f;
+
+    /** 失效广播使用的缓存名称 */
+    public static final String CACHE_NAME = "archiveSearchIndex";
+
+    private final ArchiveMapper archiveMapper;
+    private final PerformanceProperties performanceProperties;
+    private final Executor searchExecutor;
+    private final TwoLevelCacheManager cacheManager;
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+
+    /** 增量更新与重建结束时的替换互斥 */
+    private final Object updateLock = new Object();
+
+    /** 重建期间的增量更新，重建结束时在新索引上重放；不在重建时为 null */
+    private List<Consumer<InvertedIndex>> pendingUpdates;
+
+    /**
+     * @param cacheManager 失效广播通道，为 null 时只更新本节点
+     */
+    public ArchiveSearchIndex(ArchiveMapper archiveMapper,
+                              PerformanceProperties performanceProperties,
+                              @Qualifier("searchExecutor") Executor searchExecutor,
+                              TwoLevelCacheManager cacheManager) {
+        this.archiveMapper = archiveMapper;
+        this.performanceProperties = performanceProperties;
+        this.searchExecutor = searchExecutor;
+        this.cacheManager = cacheManager;
+        if (cacheManager != null) {
+            cacheManager.registerLocalCache(CACHE_NAME, this::onRemoteInvalidation);
+        }
+    }
+
+    /**
+     * 应用启动完成后异步构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!Boolean.TRUE.equals(performanceProperties.getSearch().getIndexEnabled())) {
+            log.info("档案全文索引未启用，全文搜索将使用数据库模糊查询");
+            return;
+        }
+        searchExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 全量重建索引
+     */
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            log.warn("档案全文索引正在构建中，忽略重复请求");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (updateLock) {
+            pendingUpdates = new ArrayList<>();
+        }
+        try {
+            // 在新索引上构建，旧索引在此期间继续提供检索
+            InvertedIndex fresh = new InvertedIndex();
+            int batchSize = performanceProperties.getSearch().getIndexBuildBatchSize();
+            long lastId = 0L;
+            int total = 0;
+            while (true) {
+                List<Archive> batch = archiveMapper.findIndexBatchAfterId(lastId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Archive archive : batch) {
+                    upsert(fresh, archive);
+                }
+                total += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            int replayed;
+            synchronized (updateLock) {
+                // 游标扫过之后才提交的修改不在扫描结果中，重放到新索引后再替换
+                replayed = pendingUpdates.size();
+                pendingUpdates.forEach(update -> update.accept(fresh));
+                index = fresh;
+                ready = true;
+            }
+            log.info("档案全文索引构建完成，文档数: {}, 重放更新: {}, 耗时: {}ms",
+                total, replayed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("档案全文索引构建失败，{}", ready ? "继续使用旧索引" : "全文搜索将回退到数据库模糊查询", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingUpdates = null;
+            }
+            building.set(false);
+        }
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 档案新增或修改后更新索引（事务提交后执行）
+     *
+     * @param archive 档案
+     */
+    public void onArchiveSaved(Archive archive) {
+        if (archive == null || archive.getId() == null) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(target -> upsert(target, archive));
+            broadcast(archive.getId());
+        });
+    }
+
+    /**
+     * 档案删除后更新索引的删除标记（事务提交后执行）
+     *
+     * @param archiveId 档案ID
+     */
+    public void onArchiveDeleted(Long archiveId) {
+        if (archiveId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(target -> target.markDeleted(archiveId, true));
+            broadcast(archiveId);
+        });
+    }
+
+    /**
+     * 处理其它节点的失效广播：按库重新加载该档案，不存在时移出索引
+     *
+     * @param key 档案ID，为 null 时全量重建
+     */
+    void onRemoteInvalidation(String key) {
+        if (!ready && !building.get()) {
+            return;
+        }
+        if (key == null) {
+            searchExecutor.execute(this::rebuild);
+            return;
+        }
+        Long archiveId;
+        try {
+            archiveId = Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            log.warn("忽略无法识别的档案索引失效消息: key={}", key);
+            return;
+        }
+        searchExecutor.execute(() -> refresh(archiveId));
+    }
+
+    private void refresh(Long archiveId) {
+        try {
+            List<Archive> archives = archiveMapper.findByIdsIncludingDeleted(Collections.singletonList(archiveId));
+            if (archives.isEmpty()) {
+                apply(target -> target.remove(archiveId));
+            } else {
+                Archive archive = archives.get(0);
+                apply(target -> upsert(target, archive));
+            }
+        } catch (Exception e) {
+            log.warn("按其它节点的通知刷新档案索引失败: archiveId={}", archiveId, e);
+        }
+    }
+
+    /**
+     * 全文检索档案
+     *
+     * @param keyword 关键词
+     * @param deleted 删除标记过滤：null-不过滤，false-仅未删除，true-仅已删除
+     * @param page    分页参数
+     * @return 按相关度排序的分页结果
+     */
+    public IPage<Archive> search(String keyword, Boolean deleted, Page<Archive> page) {
+        int pageSize = (int) page.getSize();
+        int offset = (int) ((Math.max(page.getCurrent(), 1) - 1) * pageSize);
+        InvertedIndex.SearchResult result = index.search(keyword, deleted, offset, pageSize);
+
+        page.setTotal(result.getTotal());
+        if (result.getHits().isEmpty()) {
+            page.setRecords(Collections.emptyList());
+            return page;
+        }
+
+        List<Long> ids = result.getHits().stream()
+            .map(InvertedIndex.Hit::getDocId)
+            .collect(Collectors.toList());
+        Map<Long, Archive> archives = archiveMapper.findByIdsIncludingDeleted(ids).stream()
+            .collect(Collectors.toMap(Archive::getId, Function.identity(), (a, b) -> a));
+
+        List<Archive> records = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Archive archive = archives.get(id);
+            if (archive != null) {
+                records.add(archive);
+            }
+        }
+        page.setRecords(records);
+        return page;
+    }
+
+    /**
+     * 当前索引文档数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 更新当前索引；重建进行中时同时登记，重建结束后在新索引上重放
+     */
+    private void apply(Consumer<InvertedIndex> update) {
+        synchronized (updateLock) {
+            update.accept(index);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        }
+    }
+
+    private void broadcast(Long archiveId) {
+        if (cacheManager != null) {
+            cacheManager.broadcastInvalidation(CACHE_NAME, archiveId);
+        }
+    }
+
+    private static void upsert(InvertedIndex target, Archive archive) {
+        Map<String, Float> fields = new LinkedHashMap<>();
+        putField(fields, archive.getTitle(), TITLE_BOOST);
+        putField(fields, archive.getArchiveNo(), NUMBER_BOOST);
+        putField(fields, archive.getKeywords(), KEYWORDS_BOOST);
+        putField(fields, archive.getAbstractContent(), ABSTRACT_BOOST);
+        boolean deleted = archive.getDeleted() != null && archive.getDeleted() != 0;
+        target.upsert(archive.getId(), fields, deleted);
+    }
+
+    private static void putField(Map<String, Float> fields, String text, float boost) {
+        if (text != null && !text.isEmpty()) {
+            fields.merge(text, boost, Float::sum);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.archive.management.search;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存倒排索引
+ * 以文档ID为主键维护 词元 -> (文档ID -> 加权词频) 的倒排表，
+ * 查询时对所有查询词取交集并按 BM25 打分排序，支持分页和删除标记过滤
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public class InvertedIndex {
+
+    /** BM25 词频饱和参数 */
+    private static final double K1 = 1.2;
+
+    /** BM25 文档长度归一化参数 */
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, DocInfo> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private double totalLength;
+
+    /**
+     * 写入或覆盖一个文档
+     *
+     * @param docId   文档ID
+     * @param fields  字段文本与权重（字段文本 -> 权重）
+     * @param deleted 是否已删除
+     */
+    public void upsert(Long docId, Map<String, Float> fields, boolean deleted) {
+        Map<String, Float> termFreqs = new HashMap<>();
+        float length = 0f;
+        for (Map.Entry<String, Float> field : fields.entrySet()) {
+            float boost = field.getValue() == null ? 1f : field.getValue();
+            for (String token : TextAnalyzer.tokenize(field.getKey())) {
+                termFreqs.merge(token, boost, Float::sum);
+                length += boost;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            for (Map.Entry<String, Float> entry : termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(docId, entry.getValue());
+            }
+            documents.put(docId, new DocInfo(length, deleted, termFreqs.keySet().toArray(new String[0])));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 更新文档的删除标记，不改动倒排表
+     *
+     * @param docId   文档ID
+     * @param deleted 是否已删除
+     * @return 文档是否存在
+     */
+    public boolean markDeleted(Long docId, boolean deleted) {
+        lock.writeLock().lock();
+        try {
+            DocInfo doc = documents.get(docId);
+            if (doc == null) {
+                return false;
+            }
+            doc.deleted = deleted;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中彻底移除文档
+     *
+     * @param docId 文档ID
+     */
+    public void remove(Long docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 文档总数（含已删除）
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索
+     *
+     * @param query   查询文本
+     * @param deleted 删除标记过滤：null-不过滤，false-仅未删除，true-仅已删除
+     * @param offset  起始偏移
+     * @param limit   返回条数
+     * @return 检索结果
+     */
+    public SearchResult search(String query, Boolean deleted, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Float>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting == null) {
+                    return SearchResult.EMPTY;
+                }
+                termPostings.add(posting);
+            }
+            // 从最短的倒排表开始求交集
+            termPostings.sort(Comparator.comparingInt(Map::size));
+
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 1d : Math.max(totalLength / docCount, 1d);
+            double[] idf = new double[termPostings.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = termPostings.get(i).size();
+                idf[i] = Math.log(1d + (docCount - df + 0.5d) / (df + 0.5d));
+            }
+
+            int window = offset + limit;
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(window, 1024), Hit.ORDER.reversed());
+            long total = 0;
+
+            candidates:
+            for (Map.Entry<Long, Float> candidate : termPostings.get(0).entrySet()) {
+                Long docId = candidate.getKey();
+                DocInfo doc = documents.get(docId);
+                if (doc == null || (deleted != null && doc.deleted != deleted)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * doc.length / avgLength);
+                double score = 0d;
+                for (int i = 0; i < termPostings.size(); i++) {
+                    Float tf = i == 0 ? candidate.getValue() : termPostings.get(i).get(docId);
+                    if (tf == null) {
+                        continue candidates;
+                    }
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                total++;
+                top.offer(new Hit(docId, score));
+                if (top.size() > window) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Hit.ORDER);
+            List<Hit> page = offset >= ranked.size()
+                ? Collections.emptyList()
+                : ranked.subList(offset, ranked.size());
+            return new SearchResult(total, new ArrayList<>(page));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long docId) {
+        DocInfo previous = documents.remove(docId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(docId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    /**
+     * 文档元信息
+     */
+    private static final class DocInfo {
+        private final float length;
+        private final String[] terms;
+        private boolean deleted;
+
+        private DocInfo(float length, boolean deleted, String[] terms) {
+            this.length = length;
+            this.deleted = deleted;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * 命中文档
+     */
+    @Getter
+    public static final class Hit {
+
+        /** 得分降序，得分相同时ID降序（新档案优先） */
+        static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::getScore).reversed()
+            .thenComparing(Hit::getDocId, Comparator.reverseOrder());
+
+        private final Long docId;
+        private final double score;
+
+        public Hit(Long docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 检索结果
+     */
+    @Getter
+    public static final class SearchResult {
+
+        public static final SearchResult EMPTY = new SearchResult(0, Collections.emptyList());
+
+        /** 命中总数 */
+        private final long total;
+
+        /** 当前页命中文档 */
+        private final List<Hit> hits;
+
+        public SearchResult(long total, List<Hit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+    }
+}
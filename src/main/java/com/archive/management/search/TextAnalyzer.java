@@ -0,0 +1,80 @@
+package com.archive.management.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 全文检索分词器
+ * 拉丁字母/数字按连续片段切分并转小写，中日韩文字按二元组（bigram）切分，
+ * 单个孤立汉字保留为一元词，索引与查询使用同一套规则
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class TextAnalyzer {
+
+    private TextAnalyzer() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 对文本进行分词
+     *
+     * @param text 原始文本
+     * @return 词元列表（保留重复，用于计算词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                emitCjkRun(text, start, i, tokens);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 中文连续片段切分为二元组，长度为1时保留一元词
+     */
+    private static void emitCjkRun(String text, int start, int end, List<String> tokens) {
+        if (end - start == 1) {
+            tokens.add(String.valueOf(text.charAt(start)));
+            return;
+        }
+        for (int j = start; j < end - 1; j++) {
+            tokens.add(text.substring(j, j + 2));
+        }
+    }
+
+    /**
+     * 判断字符是否属于中日韩表意文字或假名、谚文
+     */
+    static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+}
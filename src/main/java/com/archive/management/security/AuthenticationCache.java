@@ -0,0 +1,192 @@
+package com.archive.management.security;
+
+import com.archive.management.cache.TwoLevelCacheManager;
+import com.archive.management.event.PermissionChangedEvent;
+import com.archive.management.event.UserAuthChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证主体缓存
+ * 缓存按用户名加载的用户详情，避免每个请求都查库并重建权限；
+ * 每个条目的存活时间取令牌剩余有效期与配置上限中的较小值，
+ * 权限变更时全部失效，用户启用/禁用等变更时按用户名失效；
+ * 失效在事务提交后执行，避免提交前被并发请求按未提交的旧数据重新缓存，
+ * 并通过缓存失效频道广播到其它节点，避免其它节点继续放行已禁用或锁定的用户
+ * 
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationCache.class);
+
+    /**
+     * 失效广播使用的缓存名称
+     */
+    public static final String CACHE_NAME = "authPrincipals";
+
+    private final Cache<String, CachedPrincipal> cache;
+
+    /**
+     * 失效广播通道，为 null 时只失效本节点
+     */
+    private final TwoLevelCacheManager cacheManager;
+
+    /**
+     * 单个条目最长存活时间（秒）
+     */
+    private final long maxTtlSeconds;
+
+    public AuthenticationCache(@Value("${jwt.principal-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${jwt.principal-cache.max-ttl-seconds:300}") long maxTtlSeconds,
+                               TwoLevelCacheManager cacheManager) {
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.cacheManager = cacheManager;
+        if (cacheManager != null) {
+            cacheManager.registerLocalCache(CACHE_NAME, this::invalidateLocal);
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime,
+                                                  long currentDuration) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPrincipal value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取缓存的用户详情
+     * @param username 用户名
+     * @return 用户详情，未命中时返回null
+     */
+    public UserDetails get(String username) {
+        CachedPrincipal cached = cache.getIfPresent(username);
+        return cached == null ? null : cached.userDetails;
+    }
+
+    /**
+     * 缓存用户详情
+     * @param username 用户名
+     * @param userDetails 用户详情
+     * @param tokenExpiration 当前令牌过期时间
+     */
+    public void put(String username, UserDetails userDetails, Date tokenExpiration) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+        if (tokenExpiration != null) {
+            ttlMillis = Math.min(ttlMillis, tokenExpiration.getTime() - System.currentTimeMillis());
+        }
+        if (ttlMillis <= 0) {
+            return;
+        }
+        cache.put(username, new CachedPrincipal(userDetails, TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+    }
+
+    /**
+     * 失效指定用户，并通知其它节点
+     * @param username 用户名
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+            broadcast(username);
+        }
+    }
+
+    /**
+     * 失效全部用户，并通知其它节点
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        broadcast(null);
+    }
+
+    /**
+     * 只失效本节点（处理其它节点的失效广播）
+     * @param username 用户名，为 null 时全部失效
+     */
+    void invalidateLocal(String username) {
+        if (username == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(username);
+        }
+    }
+
+    private void broadcast(String username) {
+        if (cacheManager != null) {
+            cacheManager.broadcastInvalidation(CACHE_NAME, username);
+        }
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 权限变更会影响任意用户的权限集合，全部失效
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        invalidateAll();
+        logger.info("权限变更，已清空认证主体缓存: action={}", event.getAction());
+    }
+
+    /**
+     * 用户状态变更只失效该用户
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.getUsername() != null) {
+            invalidate(event.getUsername());
+        } else {
+            invalidateAll();
+        }
+        logger.info("用户认证信息变更，已失效认证主体缓存: userId={}, action={}",
+                event.getUserId(), event.getAction());
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class CachedPrincipal {
+        private final UserDetails userDetails;
+        private final long ttlNanos;
+
+        private CachedPrincipal(UserDetails userDetails, long ttlNanos) {
+            this.userDetails = userDetails;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.archive.management.security;
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +20,7 @@ import java.io.IOException;
 
 /**
  * JWT认证过滤器
- * 用于处理JWT令牌的验证和用户认证
+ * 用于处理JWT令牌的验证和用户认证，令牌每个请求只解析一次，用户详情通过AuthenticationCache复用
  * 
  * @author Archive Management System
  * @version 1.0
@@ -36,6 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     /**
      * 执行过滤逻辑
      */
@@ -48,48 +52,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             
             if (StringUtils.hasText(jwt)) {
-                // 验证令牌格式和有效性
-                if (jwtTokenUtil.validateToken(jwt)) {
-                    // 检查令牌类型，只处理访问令牌
-                    if (jwtTokenUtil.isAccessToken(jwt)) {
-                        // 从令牌中获取用户名
-                        String username = jwtTokenUtil.getUsernameFromToken(jwt);
+                // 解析一次令牌，同时完成签名和有效期校验
+                Claims claims = jwtTokenUtil.parseToken(jwt);
+                if (claims == null) {
+                    logger.warn("JWT令牌无效或已过期");
+                } else if (!jwtTokenUtil.isAccessToken(claims)) {
+                    // 只处理访问令牌
+                    logger.warn("收到非访问令牌，令牌类型: {}", claims.get("type", String.class));
+                } else {
+                    String username = claims.getSubject();
+                    
+                    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                        // 优先使用缓存的用户详情，未命中时再查库
+                        UserDetails userDetails = authenticationCache.get(username);
+                        if (userDetails == null) {
+                            userDetails = userDetailsService.loadUserByUsername(username);
+                            authenticationCache.put(username, userDetails, claims.getExpiration());
+                        }
                         
-                        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                            // 加载用户详情
-                            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                        if (userDetails.isEnabled() && username.equals(userDetails.getUsername())) {
+                            // 创建认证对象
+                            UsernamePasswordAuthenticationToken authentication = 
+                                new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities());
                             
-                            // 验证令牌与用户详情的匹配性
-                            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                                // 创建认证对象
-                                UsernamePasswordAuthenticationToken authentication = 
-                                    new UsernamePasswordAuthenticationToken(
-                                        userDetails, null, userDetails.getAuthorities());
-                                
-                                // 设置认证详情
-                                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                                
-                                // 将认证对象设置到安全上下文中
-                                SecurityContextHolder.getContext().setAuthentication(authentication);
-                                
-                                logger.debug("用户 {} 认证成功", username);
-                                
-                                // 检查令牌是否即将过期，如果是则在响应头中添加提示
-                                if (jwtTokenUtil.isTokenExpiringSoon(jwt)) {
-                                    response.setHeader("X-Token-Expiring", "true");
-                                    response.setHeader("X-Token-Remaining", 
-                                        String.valueOf(jwtTokenUtil.getTokenRemainingTime(jwt)));
-                                    logger.debug("令牌即将过期，用户: {}", username);
-                                }
-                            } else {
-                                logger.warn("JWT令牌验证失败，用户: {}", username);
+                            // 设置认证详情
+                            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                            
+                            // 将认证对象设置到安全上下文中
+                            SecurityContextHolder.getContext().setAuthentication(authentication);
+                            
+                            logger.debug("用户 {} 认证成功", username);
+                            
+                            // 检查令牌是否即将过期，如果是则在响应头中添加提示
+                            if (jwtTokenUtil.isTokenExpiringSoon(claims)) {
+                                response.setHeader("X-Token-Expiring", "true");
+                                response.setHeader("X-Token-Remaining", 
+                                    String.valueOf(jwtTokenUtil.getTokenRemainingTime(claims)));
+                                logger.debug("令牌即将过期，用户: {}", username);
                             }
+                        } else {
+                            logger.warn("JWT令牌验证失败，用户: {}", username);
                         }
-                    } else {
-                        logger.warn("收到非访问令牌，令牌类型: {}", jwtTokenUtil.getTokenType(jwt));
                     }
-                } else {
-                    logger.warn("JWT令牌无效或已过期");
                 }
             }
         } catch (Exception e) {
@@ -163,6 +163,63 @@ public class JwtTokenUtil {
         }
     }
 
+    /**
+     * 解析并校验令牌，返回可复用的声明对象
+     * 同一请求内应只解析一次，后续判断均基于返回的声明进行
+     * @param token JWT令牌
+     * @return 声明；令牌无效或已过期时返回null
+     */
+    public Claims parseToken(String token) {
+        try {
+            Claims claims = getAllClaimsFromToken(token);
+            return isExpired(claims) ? null : claims;
+        } catch (Exception e) {
+            logger.debug("令牌解析失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 检查声明是否已过期
+     * @param claims 令牌声明
+     * @return 是否过期
+     */
+    public boolean isExpired(Claims claims) {
+        Date expirationDate = claims.getExpiration();
+        return expirationDate != null && expirationDate.before(new Date());
+    }
+
+    /**
+     * 检查声明是否属于访问令牌
+     * @param claims 令牌声明
+     * @return 是否为访问令牌
+     */
+    public boolean isAccessToken(Claims claims) {
+        return "access".equals(claims.get("type", String.class));
+    }
+
+    /**
+     * 获取令牌剩余有效时间（秒）
+     * @param claims 令牌声明
+     * @return 剩余有效时间
+     */
+    public long getTokenRemainingTime(Claims claims) {
+        Date expirationDate = claims.getExpiration();
+        if (expirationDate == null) {
+            return 0L;
+        }
+        return Math.max(0, (expirationDate.getTime() - System.currentTimeMillis()) / 1000);
+    }
+
+    /**
+     * 检查令牌是否即将过期（30分钟内）
+     * @param claims 令牌声明
+     * @return 是否即将过期
+     */
+    public boolean isTokenExpiringSoon(Claims claims) {
+        return getTokenRemainingTime(claims) <= 1800; // 30分钟
+    }
+
     /**
      * 检查令牌是否过期
      * @param token JWT令牌
@@ -0,0 +1,61 @@
+package com.archive.management.sequence;
+
+import com.archive.management.mapper.NumberSequenceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 数据库号段序列
+ * 号段在独立的短事务中从 sys_number_sequences 租用（行锁只在租用时持有），
+ * 节点内由 SegmentedSequence 无锁分配；节点重启或业务回滚留下的空洞不回收
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class NumberSequenceService {
+
+    private final NumberSequenceMapper numberSequenceMapper;
+    private final TransactionTemplate leaseTransaction;
+    private final SegmentedSequence sequence;
+
+    public NumberSequenceService(NumberSequenceMapper numberSequenceMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${archive.number.segment-size:200}") int segmentSize) {
+        this.numberSequenceMapper = numberSequenceMapper;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        // 与调用方事务隔离：调用方回滚不归还号段，也不延长序列行锁
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sequence = new SegmentedSequence(this::lease, segmentSize);
+    }
+
+    /**
+     * 取序列的下一个值
+     *
+     * @param key 序列键
+     * @return 序列值，从1开始，节点间递增但不保证连续
+     */
+    public long next(String key) {
+        return sequence.next(key);
+    }
+
+    private long lease(String key, int size) {
+        Long start = leaseTransaction.execute(status -> {
+            numberSequenceMapper.initSequence(key);
+            Long nextValue = numberSequenceMapper.selectForUpdate(key);
+            if (nextValue == null) {
+                throw new IllegalStateException("序列不存在: " + key);
+            }
+            numberSequenceMapper.advance(key, nextValue + size);
+            return nextValue;
+        });
+        log.debug("租用编号号段: key={}, start={}, size={}", key, start, size);
+        return start;
+    }
+}
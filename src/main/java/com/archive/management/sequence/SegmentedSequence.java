@@ -0,0 +1,86 @@
+package com.archive.management.sequence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段序列
+ * 每个序列键持有一个已租用的号段 [start, end)，取值只对号段游标做 getAndIncrement；
+ * 号段用尽时仅由一个线程向租用方申请新号段，其他线程等待后继续从新号段取值
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public class SegmentedSequence {
+
+    /**
+     * 号段租用方，返回号段起始值，号段长度由调用方指定
+     */
+    @FunctionalInterface
+    public interface SegmentLeaser {
+        long lease(String key, int size);
+    }
+
+    private final SegmentLeaser leaser;
+    private final int segmentSize;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+    private final Map<String, Object> leaseLocks = new ConcurrentHashMap<>();
+
+    public SegmentedSequence(SegmentLeaser leaser, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("号段长度必须大于0");
+        }
+        this.leaser = leaser;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * 取下一个序列值
+     */
+    public long next(String key) {
+        Segment segment = segments.get(key);
+        if (segment != null) {
+            long value = segment.cursor.getAndIncrement();
+            if (value < segment.end) {
+                return value;
+            }
+        }
+        return nextFromNewSegment(key);
+    }
+
+    /**
+     * 放弃本地未用完的号段（下次取值重新租用）
+     */
+    public void reset(String key) {
+        segments.remove(key);
+    }
+
+    private long nextFromNewSegment(String key) {
+        synchronized (leaseLocks.computeIfAbsent(key, k -> new Object())) {
+            while (true) {
+                // 等锁期间可能已有其他线程换上了新号段
+                Segment current = segments.get(key);
+                if (current != null) {
+                    long value = current.cursor.getAndIncrement();
+                    if (value < current.end) {
+                        return value;
+                    }
+                }
+                long start = leaser.lease(key, segmentSize);
+                segments.put(key, new Segment(start, start + segmentSize));
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final AtomicLong cursor;
+        private final long end;
+
+        private Segment(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.archive.management.entity.Archive;
 import com.archive.management.entity.User;
 import com.archive.management.mapper.ArchiveMapper;
 import com.archive.management.mapper.UserMapper;
+import com.archive.management.search.ArchiveSearchIndex;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -34,6 +35,7 @@ public class AdvancedSearchService {
     private final UserMapper userMapper;
     private final RedisTemplate<String, Object> redisTemplate;
     private final MonitoringService monitoringService;
+    private final ArchiveSearchIndex archiveSearchIndex;
 
     /**
      * 高级搜索档案
@@ -83,6 +85,11 @@ public class AdvancedSearchService {
             // 记录搜索操作
             monitoringService.recordDocumentSearched();
             
+            // 优先使用内存倒排索引
+            if (archiveSearchIndex.isReady()) {
+                return archiveSearchIndex.search(keyword, false, new Page<>(1, limit)).getRecords();
+            }
+            
             // 构建全文搜索条件
             QueryWrapper<Archive> queryWrapper = new QueryWrapper<>();
             queryWrapper.and(wrapper -> wrapper
@@ -104,6 +111,43 @@ public class AdvancedSearchService {
         }
     }
 
+    /**
+     * 全文搜索档案（分页，按相关度排序）
+     * 
+     * @param keyword 关键词
+     * @param deleted 删除标记过滤：null-不过滤，false-仅未删除，true-仅已删除
+     * @param page 分页参数
+     * @return 分页结果
+     */
+    public IPage<Archive> fullTextSearchArchives(String keyword, Boolean deleted, Page<Archive> page) {
+        try {
+            // 记录搜索操作
+            monitoringService.recordDocumentSearched();
+            
+            if (archiveSearchIndex.isReady()) {
+                return archiveSearchIndex.search(keyword, deleted, page);
+            }
+            
+            // 索引未就绪时回退到数据库模糊查询
+            QueryWrapper<Archive> queryWrapper = new QueryWrapper<>();
+            queryWrapper.and(wrapper -> wrapper
+                .like("title", keyword)
+                .or()
+                .like("description", keyword)
+                .or()
+                .like("archive_number", keyword)
+            );
+            if (deleted != null) {
+                queryWrapper.eq("deleted", deleted ? 1 : 0);
+            }
+            return archiveMapper.selectPage(page, queryWrapper);
+        } catch (Exception e) {
+            log.error("全文搜索档案失败", e);
+            monitoringService.recordError("fulltext_search", e.getMessage());
+            throw new RuntimeException("全文搜索失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 全文搜索用户
      */
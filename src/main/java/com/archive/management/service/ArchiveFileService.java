@@ -305,6 +305,20 @@ public interface ArchiveFileService {
      */
     Map<String, Object> downloadFile(Long id, Long userId);
 
+    /**
+     * 获取本地存储文件的下载路径
+     * @param id 文件ID
+     * @return 文件路径
+     */
+    String getFileDownloadPath(Long id);
+
+    /**
+     * 获取已加载文件记录的本地下载路径，不重新查询文件记录
+     * @param archiveFile 文件信息
+     * @return 文件路径，磁盘上不存在时抛出 ResourceNotFoundException
+     */
+    String getFileDownloadPath(ArchiveFile archiveFile);
+
     /**
      * 预览文件
      * @param id 文件ID
@@ -45,6 +45,128 @@ public interface BatchOperationService {
         Consumer<BatchProgress> progressCallback
     );
     
+    /**
+     * 分块并行执行批量操作
+     * 项目按 chunkSize 切分，每个分块在独立事务中执行一次多行语句，分块在有界线程池中并行执行；
+     * 分块抛出异常时该分块回滚，分块内全部项目记为失败，不影响其他分块
+     * 
+     * @param taskId 任务ID（为空时自动生成），用于查询进度和取消
+     * @param items 要操作的项目列表
+     * @param chunkSize 分块大小（小于等于0时使用默认配置）
+     * @param chunkOperation 分块操作函数（接收一个分块，返回分块结果）
+     * @param progressCallback 进度回调，可为空
+     * @param <T> 项目类型
+     * @return 批量操作结果（含按原因聚合的失败报告）
+     */
+    <T> BatchOperationResult executeChunkedOperation(
+        String taskId,
+        List<T> items,
+        int chunkSize,
+        Function<List<T>, ChunkResult> chunkOperation,
+        Consumer<BatchProgress> progressCallback
+    );
+    
+    /**
+     * 批量更新档案状态
+     * 
+     * @param taskId 任务ID（为空时自动生成）
+     * @param archiveIds 档案ID列表
+     * @param status 新状态
+     * @return 批量操作结果
+     */
+    Map<String, Object> batchUpdateArchiveStatus(String taskId, List<Long> archiveIds, Integer status);
+    
+    default Map<String, Object> batchUpdateArchiveStatus(List<Long> archiveIds, Integer status) {
+        return batchUpdateArchiveStatus(null, archiveIds, status);
+    }
+    
+    /**
+     * 批量删除档案（软删除）
+     * 
+     * @param taskId 任务ID（为空时自动生成）
+     * @param archiveIds 档案ID列表
+     * @param deletedBy 删除人ID
+     * @return 批量操作结果
+     */
+    Map<String, Object> batchDeleteArchives(String taskId, List<Long> archiveIds, Long deletedBy);
+    
+    default Map<String, Object> batchDeleteArchives(List<Long> archiveIds, Long deletedBy) {
+        return batchDeleteArchives(null, archiveIds, deletedBy);
+    }
+    
+    /**
+     * 批量更新用户状态
+     * 
+     * @param taskId 任务ID（为空时自动生成）
+     * @param userIds 用户ID列表
+     * @param status 新状态
+     * @return 批量操作结果
+     */
+    Map<String, Object> batchUpdateUserStatus(String taskId, List<Long> userIds, Integer status);
+    
+    default Map<String, Object> batchUpdateUserStatus(List<Long> userIds, Integer status) {
+        return batchUpdateUserStatus(null, userIds, status);
+    }
+    
+    /**
+     * 批量为用户分配角色（追加，已有的关联保持不变）
+     * 
+     * @param taskId 任务ID（为空时自动生成）
+     * @param userIds 用户ID列表
+     * @param roleIds 角色ID列表
+     * @return 批量操作结果
+     */
+    Map<String, Object> batchAssignRoles(String taskId, List<Long> userIds, List<Long> roleIds);
+    
+    default Map<String, Object> batchAssignRoles(List<Long> userIds, List<Long> roleIds) {
+        return batchAssignRoles(null, userIds, roleIds);
+    }
+    
+    /**
+     * 获取批量操作进度
+     * 
+     * @param taskId 任务ID
+     * @return 进度，任务不存在或不是当前用户发起时返回null
+     */
+    BatchProgress getBatchProgress(String taskId);
+    
+    /**
+     * 取消批量操作
+     * 尚未开始的分块将被跳过，正在执行的分块会执行完毕
+     * 
+     * @param taskId 任务ID
+     * @return 是否成功发出取消请求，任务不存在、已结束或不是当前用户发起时返回false
+     */
+    boolean cancelBatchOperation(String taskId);
+    
+    /**
+     * 分块执行结果
+     */
+    class ChunkResult {
+        private int successCount;
+        private final List<FailureDetail> failures = new java.util.ArrayList<>();
+        
+        public static ChunkResult success(int successCount) {
+            ChunkResult result = new ChunkResult();
+            result.successCount = successCount;
+            return result;
+        }
+        
+        public ChunkResult addFailure(Object id, String message, String errorCode) {
+            FailureDetail detail = new FailureDetail();
+            detail.setId(id);
+            detail.setMessage(message);
+            detail.setErrorCode(errorCode);
+            failures.add(detail);
+            return this;
+        }
+        
+        public int getSuccessCount() { return successCount; }
+        public void setSuccessCount(int successCount) { this.successCount = successCount; }
+        
+        public List<FailureDetail> getFailures() { return failures; }
+    }
+    
     /**
      * 单个操作结果
      */
@@ -108,17 +230,27 @@ public interface BatchOperationService {
      * 批量操作结果
      */
     class BatchOperationResult {
+        /** 失败明细最多保留的条数，超出部分只计入汇总 */
+        public static final int MAX_FAILURE_DETAILS = 1000;
+        
+        private String taskId;
         private int totalCount;
         private int successCount;
         private int failureCount;
         private List<FailureDetail> failures;
+        private Map<String, Integer> failureSummary;
         private long elapsedTime;
         private boolean completed;
+        private boolean cancelled;
         
         public BatchOperationResult() {
             this.failures = new java.util.ArrayList<>();
+            this.failureSummary = new java.util.LinkedHashMap<>();
         }
         
+        public String getTaskId() { return taskId; }
+        public void setTaskId(String taskId) { this.taskId = taskId; }
+        
         // Getters and Setters
         public int getTotalCount() { return totalCount; }
         public void setTotalCount(int totalCount) { this.totalCount = totalCount; }
@@ -138,12 +270,22 @@ public interface BatchOperationService {
         public boolean isCompleted() { return completed; }
         public void setCompleted(boolean completed) { this.completed = completed; }
         
+        public boolean isCancelled() { return cancelled; }
+        public void setCancelled(boolean cancelled) { this.cancelled = cancelled; }
+        
+        /** 按错误码和原因聚合的失败数 */
+        public Map<String, Integer> getFailureSummary() { return failureSummary; }
+        public void setFailureSummary(Map<String, Integer> failureSummary) { this.failureSummary = failureSummary; }
+        
         public void addFailure(Object id, String message, String errorCode) {
-            FailureDetail detail = new FailureDetail();
-            detail.setId(id);
-            detail.setMessage(message);
-            detail.setErrorCode(errorCode);
-            failures.add(detail);
+            if (failures.size() < MAX_FAILURE_DETAILS) {
+                FailureDetail detail = new FailureDetail();
+                detail.setId(id);
+                detail.setMessage(message);
+                detail.setErrorCode(errorCode);
+                failures.add(detail);
+            }
+            failureSummary.merge(errorCode == null ? message : errorCode + ": " + message, 1, Integer::sum);
             failureCount++;
         }
     }
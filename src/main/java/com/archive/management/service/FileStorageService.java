@@ -45,6 +45,17 @@ public interface FileStorageService {
      */
     InputStream downloadFile(String objectName) throws Exception;
 
+    /**
+     * 下载文件的指定字节区间
+     * 
+     * @param objectName 对象名称
+     * @param offset 起始偏移
+     * @param length 字节数
+     * @return 区间内容的输入流
+     * @throws Exception 下载失败时抛出异常
+     */
+    InputStream downloadFile(String objectName, long offset, long length) throws Exception;
+
     /**
      * 删除文件
      * 
@@ -27,12 +27,14 @@ public interface NotificationService {
 
     /**
      * 批量发送通知
+     * 通知在后台分块写库并推送给在线用户，方法提交后即返回
      * 
      * @param userIds 用户ID列表
      * @param title 通知标题
      * @param content 通知内容
      * @param type 通知类型
-     * @return 发送成功的数量
+     * @return 已受理的接收人数（去重后）
+     * @throws com.archive.management.exception.BusinessException 通知类型不是数字时
      */
     int sendBatchNotification(List<Long> userIds, String title, String content, String type);
 
@@ -75,6 +77,14 @@ public interface NotificationService {
      */
     int markBatchAsRead(List<Long> notificationIds, Long userId);
 
+    /**
+     * 标记用户全部通知为已读
+     * 
+     * @param userId 用户ID
+     * @return 标记数量
+     */
+    int markAllAsRead(Long userId);
+
     /**
      * 删除通知
      * 
@@ -1,8 +1,11 @@
 package com.archive.management.service;
 
+import com.archive.management.config.properties.PerformanceProperties;
 import com.archive.management.entity.Archive;
 import com.archive.management.entity.User;
 import com.archive.management.mapper.ArchiveMapper;
+import com.archive.management.latency.LatencyHistogram;
+import com.archive.management.latency.LatencyRecorderRegistry;
 import com.archive.management.mapper.UserMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +38,8 @@ public class PerformanceMonitoringService {
     private final UserMapper userMapper;
     private final RedisTemplate<String, Object> redisTemplate;
     private final MonitoringService monitoringService;
+    private final LatencyRecorderRegistry latencyRecorderRegistry;
+    private final PerformanceProperties performanceProperties;
 
     /**
      * 获取系统概览信息
@@ -299,33 +304,48 @@ public class PerformanceMonitoringService {
 
     /**
      * 记录请求性能
+     * 
+     * @param responseTime 响应时间(毫秒)
      */
     public void recordRequestPerformance(long responseTime) {
-        try {
-            String cacheKey = "performance:requests:" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH"));
-            
-            // 记录响应时间
-            redisTemplate.opsForList().leftPush(cacheKey + ":response_times", responseTime);
-            redisTemplate.expire(cacheKey + ":response_times", 24, TimeUnit.HOURS);
-            
-            // 记录请求计数
-            redisTemplate.opsForValue().increment(cacheKey + ":count");
-            redisTemplate.expire(cacheKey + ":count", 24, TimeUnit.HOURS);
-            
-            // 记录慢请求
-            if (responseTime > 5000) { // 超过5秒的请求
+        recordRequestPerformance(null, TimeUnit.MILLISECONDS.toNanos(responseTime));
+    }
+
+    /**
+     * 记录接口请求性能
+     * 耗时计入进程内的延迟直方图，只有慢请求写入 Redis
+     * 
+     * @param endpoint 接口标识(请求方法加路由模板)，为空时只计入汇总
+     * @param nanos 响应时间(纳秒)
+     */
+    public void recordRequestPerformance(String endpoint, long nanos) {
+        latencyRecorderRegistry.record(endpoint, nanos);
+        
+        long responseTime = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (responseTime > performanceProperties.getLatency().getSlowThresholdMs()) {
+            try {
                 Map<String, Object> slowRequest = new HashMap<>();
                 slowRequest.put("timestamp", System.currentTimeMillis());
+                slowRequest.put("endpoint", endpoint);
                 slowRequest.put("responseTime", responseTime);
                 redisTemplate.opsForList().leftPush("performance:slow_requests", slowRequest);
+                redisTemplate.opsForList().trim("performance:slow_requests", 0, 999);
                 redisTemplate.expire("performance:slow_requests", 7, TimeUnit.DAYS);
+            } catch (Exception e) {
+                log.error("记录慢请求失败", e);
             }
-            
-        } catch (Exception e) {
-            log.error("记录请求性能失败", e);
         }
     }
 
+    /**
+     * 获取接口延迟统计
+     * 
+     * @param cluster 是否合并各节点发布的快照
+     */
+    public Map<String, Object> getLatencyStatistics(boolean cluster) {
+        return cluster ? latencyRecorderRegistry.getClusterStatistics() : latencyRecorderRegistry.getLocalStatistics();
+    }
+
     /**
      * 获取最近活动
      */
@@ -354,40 +374,17 @@ public class PerformanceMonitoringService {
     }
 
     /**
-     * 计算平均响应时间
+     * 计算平均响应时间(毫秒)，取本节点统计窗口内的请求
      */
     private double calculateAverageResponseTime() {
-        try {
-            String cacheKey = "performance:requests:" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH"));
-            List<Object> responseTimes = redisTemplate.opsForList().range(cacheKey + ":response_times", 0, -1);
-            
-            if (responseTimes != null && !responseTimes.isEmpty()) {
-                double sum = responseTimes.stream().mapToDouble(time -> Double.parseDouble(time.toString())).sum();
-                return sum / responseTimes.size();
-            }
-        } catch (Exception e) {
-            log.error("计算平均响应时间失败", e);
-        }
-        
-        return 0.0;
+        return latencyRecorderRegistry.overall().getMean() / 1000.0;
     }
 
     /**
-     * 计算吞吐量
+     * 计算吞吐量(次/秒)，取本节点统计窗口内的请求
      */
     private double calculateThroughput() {
-        try {
-            String cacheKey = "performance:requests:" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH"));
-            Object count = redisTemplate.opsForValue().get(cacheKey + ":count");
-            
-            if (count != null) {
-                return Double.parseDouble(count.toString()) / 3600; // 每小时请求数
-            }
-        } catch (Exception e) {
-            log.error("计算吞吐量失败", e);
-        }
-        
-        return 0.0;
+        return latencyRecorderRegistry.overallThroughput();
     }
 
     /**
@@ -531,6 +528,13 @@ public class PerformanceMonitoringService {
             data.put("diskUsage", getDiskUsage());
             data.put("networkUsage", getNetworkUsage());
             
+            LatencyHistogram.Snapshot latency = latencyRecorderRegistry.overall();
+            data.put("responseTimeP50", latency.getValueAtPercentile(50) / 1000.0);
+            data.put("responseTimeP95", latency.getValueAtPercentile(95) / 1000.0);
+            data.put("responseTimeP99", latency.getValueAtPercentile(99) / 1000.0);
+            data.put("responseTimeMax", latency.getMax() / 1000.0);
+            data.put("throughput", latencyRecorderRegistry.overallThroughput());
+            
         } catch (Exception e) {
             log.error("获取实时性能数据失败", e);
         }
@@ -57,6 +57,97 @@ public interface StreamExportService {
         long totalCount
     ) throws Exception;
     
+    /**
+     * 流式导出到Excel（主键游标分页）
+     * 每批按 keyField 的上一批最大值向后定位，各批查询代价相同，适合百万级数据导出
+     * 
+     * @param outputStream 输出流
+     * @param dataProvider 游标数据提供者
+     * @param keyField 游标字段名（需唯一且与查询排序一致，通常为主键）
+     * @param headers 表头
+     * @param fieldNames 字段名列表
+     * @param sheetName 工作表名称
+     * @param progressCallback 进度回调（可选）
+     * @param totalCount 总记录数（用于计算进度）
+     * @throws Exception 导出异常
+     */
+    void exportToExcelStream(
+        OutputStream outputStream,
+        KeysetDataProvider dataProvider,
+        String keyField,
+        List<String> headers,
+        List<String> fieldNames,
+        String sheetName,
+        Consumer<ExportProgress> progressCallback,
+        long totalCount
+    ) throws Exception;
+    
+    /**
+     * 流式导出到CSV（主键游标分页）
+     * 
+     * @param outputStream 输出流
+     * @param dataProvider 游标数据提供者
+     * @param keyField 游标字段名（需唯一且与查询排序一致，通常为主键）
+     * @param headers 表头
+     * @param fieldNames 字段名列表
+     * @param progressCallback 进度回调
+     * @param totalCount 总记录数
+     * @throws Exception 导出异常
+     */
+    void exportToCsvStream(
+        OutputStream outputStream,
+        KeysetDataProvider dataProvider,
+        String keyField,
+        List<String> headers,
+        List<String> fieldNames,
+        Consumer<ExportProgress> progressCallback,
+        long totalCount
+    ) throws Exception;
+    
+    /**
+     * 流式导出到Excel（逐行迭代）
+     * 可直接传入 MyBatis 的 {@code Cursor<Map<String, Object>>}，
+     * 配合 {@code @Options(fetchSize = ...)} 由数据库服务端分批推送，调用方负责在事务内打开并关闭游标
+     * 
+     * @param outputStream 输出流
+     * @param rows 数据行
+     * @param headers 表头
+     * @param fieldNames 字段名列表
+     * @param sheetName 工作表名称
+     * @param progressCallback 进度回调（可选）
+     * @param totalCount 总记录数（用于计算进度）
+     * @throws Exception 导出异常
+     */
+    void exportToExcelStream(
+        OutputStream outputStream,
+        Iterable<Map<String, Object>> rows,
+        List<String> headers,
+        List<String> fieldNames,
+        String sheetName,
+        Consumer<ExportProgress> progressCallback,
+        long totalCount
+    ) throws Exception;
+    
+    /**
+     * 流式导出到CSV（逐行迭代）
+     * 
+     * @param outputStream 输出流
+     * @param rows 数据行（可为 MyBatis Cursor）
+     * @param headers 表头
+     * @param fieldNames 字段名列表
+     * @param progressCallback 进度回调
+     * @param totalCount 总记录数
+     * @throws Exception 导出异常
+     */
+    void exportToCsvStream(
+        OutputStream outputStream,
+        Iterable<Map<String, Object>> rows,
+        List<String> headers,
+        List<String> fieldNames,
+        Consumer<ExportProgress> progressCallback,
+        long totalCount
+    ) throws Exception;
+    
     /**
      * 数据提供者接口
      * 用于分批查询数据
@@ -73,6 +164,23 @@ public interface StreamExportService {
         List<Map<String, Object>> getData(int pageNum, int pageSize);
     }
     
+    /**
+     * 游标数据提供者接口
+     * 按游标字段升序返回大于 lastKey 的下一批数据，
+     * 对应 SQL 形如 {@code WHERE id > #{lastKey} ORDER BY id LIMIT #{batchSize}}
+     */
+    @FunctionalInterface
+    interface KeysetDataProvider {
+        /**
+         * 获取游标之后的一批数据
+         * 
+         * @param lastKey 上一批最后一行的游标值，首批为null
+         * @param batchSize 每批大小
+         * @return 数据列表
+         */
+        List<Map<String, Object>> getDataAfter(Object lastKey, int batchSize);
+    }
+    
     /**
      * 导出进度信息
      */
@@ -84,6 +192,7 @@ public interface StreamExportService {
         private long startTime;        // 开始时间
         private long elapsedTime;      // 已用时间（毫秒）
         private long estimatedTime;    // 预计剩余时间（毫秒）
+        private volatile boolean cancelRequested; // 是否请求取消
         
         public ExportProgress(long totalCount, long processedCount) {
             this.totalCount = totalCount;
@@ -149,6 +258,17 @@ public interface StreamExportService {
             this.estimatedTime = estimatedTime;
         }
         
+        /**
+         * 请求取消导出，在进度回调中调用后导出会在当前批次写完后中止
+         */
+        public void cancel() {
+            this.cancelRequested = true;
+        }
+        
+        public boolean isCancelRequested() {
+            return cancelRequested;
+        }
+        
         @Override
         public String toString() {
             return String.format("导出进度: %d/%d (%d%%) - %s", 
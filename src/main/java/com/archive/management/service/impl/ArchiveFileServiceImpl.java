@@ -1,6 +1,8 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.counter.AccessCounterBuffer;
 import com.archive.management.entity.ArchiveFile;
+import com.archive.management.exception.ResourceNotFoundException;
 import com.archive.management.mapper.ArchiveFileMapper;
 import com.archive.management.service.ArchiveFileService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -39,6 +41,7 @@ import java.util.*;
 public class ArchiveFileServiceImpl extends ServiceImpl<ArchiveFileMapper, ArchiveFile> implements ArchiveFileService {
 
     private final ArchiveFileMapper archiveFileMapper;
+    private final AccessCounterBuffer accessCounterBuffer;
     
     @Override
     public ArchiveFileMapper getBaseMapper() {
@@ -222,11 +225,16 @@ public class ArchiveFileServiceImpl extends ServiceImpl<ArchiveFileMapper, Archi
     public String getFileDownloadPath(Long id) {
         log.debug("获取文件下载路径，ID: {}", id);
         
-        ArchiveFile archiveFile = getFileById(id);
+        return getFileDownloadPath(getFileById(id));
+    }
+
+    @Override
+    public String getFileDownloadPath(ArchiveFile archiveFile) {
         Path filePath = Paths.get(uploadPath, archiveFile.getStoragePath(), archiveFile.getFileName());
         
         if (!Files.exists(filePath)) {
-            throw new RuntimeException("文件不存在: " + filePath);
+            log.warn("文件记录存在但磁盘文件缺失，ID: {}, 路径: {}", archiveFile.getId(), filePath);
+            throw ResourceNotFoundException.fileNotFound(archiveFile.getId());
         }
         
         return filePath.toString();
@@ -320,6 +328,22 @@ public class ArchiveFileServiceImpl extends ServiceImpl<ArchiveFileMapper, Archi
         }
     }
 
+    /**
+     * 增加文件下载次数
+     * 计入写回缓冲，由 AccessCounterBuffer 定时批量写回数据库
+     * @param id 文件ID
+     * @param userId 用户ID（可选）
+     * @return 是否增加成功
+     */
+    @Override
+    public boolean incrementDownloadCount(Long id, Long userId) {
+        if (id == null) {
+            return false;
+        }
+        accessCounterBuffer.increment(AccessCounterBuffer.CounterType.FILE_DOWNLOAD, id);
+        return true;
+    }
+
     /**
      * 验证上传文件
      * @param file 上传的文件
@@ -1,11 +1,14 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.counter.AccessCounterBuffer;
 import com.archive.management.entity.Archive;
 import com.archive.management.entity.ArchiveFile;
 import com.archive.management.mapper.ArchiveMapper;
 import com.archive.management.mapper.ArchiveFileMapper;
 import com.archive.management.mapper.CategoryMapper;
 import com.archive.management.mapper.UserMapper;
+import com.archive.management.search.ArchiveSearchIndex;
+import com.archive.management.sequence.NumberSequenceService;
 import com.archive.management.service.ArchiveService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
@@ -49,6 +52,9 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
     private final CategoryMapper categoryMapper;
     private final UserMapper userMapper;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ArchiveSearchIndex archiveSearchIndex;
+    private final AccessCounterBuffer accessCounterBuffer;
+    private final NumberSequenceService numberSequenceService;
 
     // 缓存键前缀
     private static final String CACHE_PREFIX = "archive:";
@@ -88,13 +94,10 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
             archive.setCreateTime(LocalDateTime.now());
             archive.setUpdateTime(LocalDateTime.now());
             
-            // 生成档案编号（如果未提供）
+            // 生成档案编号（如果未提供）；序列生成的编号不会重复，只检查人工填写的编号
             if (archive.getArchiveNumber() == null || archive.getArchiveNumber().trim().isEmpty()) {
                 archive.setArchiveNumber(generateArchiveNumber(archive.getCategoryId()));
-            }
-            
-            // 检查档案编号是否重复
-            if (existsByArchiveNumber(archive.getArchiveNumber())) {
+            } else if (existsByArchiveNumber(archive.getArchiveNumber())) {
                 throw new RuntimeException("档案编号已存在: " + archive.getArchiveNumber());
             }
             
@@ -104,6 +107,9 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
                 throw new RuntimeException("档案保存失败");
             }
             
+            // 事务提交后更新全文索引
+            archiveSearchIndex.onArchiveSaved(archive);
+            
             log.info("档案创建成功，ID: {}, 编号: {}", archive.getId(), archive.getArchiveNumber());
             return archive;
             
@@ -191,6 +197,9 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
                 throw new RuntimeException("档案更新失败");
             }
             
+            // 事务提交后更新全文索引
+            archiveSearchIndex.onArchiveSaved(archive);
+            
             log.info("档案更新成功，ID: {}", archive.getId());
             return archive;
             
@@ -226,6 +235,7 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
             
             boolean deleted = update(updateWrapper);
             if (deleted) {
+                archiveSearchIndex.onArchiveDeleted(id);
                 log.info("档案删除成功，ID: {}", id);
             } else {
                 log.warn("档案删除失败，ID: {}", id);
@@ -256,36 +266,57 @@ public class ArchiveServiceImpl extends ServiceImpl<ArchiveMapper, Archive> impl
 
     /**
      * 生成档案编号
+     * 格式为 前缀-年份-序号，序号按 前缀:年份 取自号段序列，节点间不重复但允许空洞
      * @param categoryId 分类ID
      * @return 档案编号
      */
     @Override
     public String generateArchiveNumber(Long categoryId) {
-        try {
-            String prefix = "ARC";
-            
-            // 如果有分类，使用分类编码作为前缀
-            if (categoryId != null) {
-                var category = categoryMapper.selectById(categoryId);
-                if (category != null && category.getCategoryCode() != null) {
-                    prefix = category.getCategoryCode();
-                }
+        String prefix = "ARC";
+        
+        // 如果有分类，使用分类编码作为前缀
+        if (categoryId != null) {
+            var category = categoryMapper.selectById(categoryId);
+            if (category != null && category.getCategoryCode() != null) {
+                prefix = category.getCategoryCode();
             }
-            
-            // 生成时间戳部分
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            String datePart = timestamp.substring(timestamp.length() - 8);
-            
-            // 生成随机数部分
-            Random random = new Random();
-            String randomPart = String.format("%03d", random.nextInt(1000));
-            
-            return prefix + "-" + datePart + "-" + randomPart;
-            
-        } catch (Exception e) {
-            log.error("生成档案编号失败", e);
-            return "ARC-" + System.currentTimeMillis() + "-" + new Random().nextInt(1000);
         }
+        
+        int year = LocalDateTime.now().getYear();
+        long sequence = numberSequenceService.next("archive:" + prefix + ":" + year);
+        return String.format("%s-%d-%06d", prefix, year, sequence);
+    }
+
+    /**
+     * 增加档案查看次数
+     * 计入写回缓冲，由 AccessCounterBuffer 定时批量写回数据库
+     * @param id 档案ID
+     * @param userId 用户ID（可选）
+     * @return 是否增加成功
+     */
+    @Override
+    public boolean incrementViewCount(Long id, Long userId) {
+        if (id == null) {
+            return false;
+        }
+        accessCounterBuffer.increment(AccessCounterBuffer.CounterType.ARCHIVE_VIEW, id);
+        return true;
+    }
+
+    /**
+     * 增加档案下载次数
+     * 计入写回缓冲，由 AccessCounterBuffer 定时批量写回数据库
+     * @param id 档案ID
+     * @param userId 用户ID（可选）
+     * @return 是否增加成功
+     */
+    @Override
+    public boolean incrementDownloadCount(Long id, Long userId) {
+        if (id == null) {
+            return false;
+        }
+        accessCounterBuffer.increment(AccessCounterBuffer.CounterType.ARCHIVE_DOWNLOAD, id);
+        return true;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.audit.AuditLogSink;
 import com.archive.management.entity.AuditLog;
 import com.archive.management.mapper.AuditLogMapper;
 import com.archive.management.service.AuditLogService;
@@ -36,6 +37,7 @@ import java.util.stream.Collectors;
 public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> implements AuditLogService {
 
     private final AuditLogMapper auditLogMapper;
+    private final AuditLogSink auditLogSink;
     
     @Override
     public AuditLogMapper getBaseMapper() {
@@ -45,8 +47,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     // ==================== 基础日志记录功能 ====================
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog createAuditLog(AuditLog auditLog) {
         try {
             // 验证必填字段
@@ -55,13 +55,10 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
             // 设置默认值
             setDefaultValues(auditLog);
             
-            // 保存审计日志
-            boolean success = save(auditLog);
-            if (!success) {
-                throw new BusinessException("创建审计日志失败");
-            }
+            // 异步写入时只进入缓冲即返回，ID 已预先分配；审计记录不随业务事务回滚
+            auditLogSink.append(auditLog);
             
-            log.info("创建审计日志成功，ID: {}", auditLog.getId());
+            log.debug("提交审计日志，ID: {}", auditLog.getId());
             return auditLog;
         } catch (Exception e) {
             log.error("创建审计日志失败", e);
@@ -95,8 +92,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logUserAction(Long userId, String action, String resourceType, Long resourceId, 
                                  String description, String ipAddress, String userAgent, 
                                  String result, String details) {
@@ -126,8 +121,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logSystemAction(String action, String resourceType, Long resourceId, 
                                    String description, String result, String details) {
         try {
@@ -157,8 +150,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logLogin(Long userId, String username, String ipAddress, String userAgent, 
                             boolean success, String failureReason) {
         try {
@@ -187,8 +178,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logLogout(Long userId, String username, String ipAddress, String userAgent) {
         try {
             AuditLog auditLog = AuditLog.builder()
@@ -215,8 +204,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logArchiveAction(Long userId, String action, Long archiveId, String archiveTitle, 
                                     String ipAddress, String userAgent, String details) {
         try {
@@ -245,8 +232,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logFileAction(Long userId, String action, Long fileId, String fileName, 
                                  String ipAddress, String userAgent, String details) {
         try {
@@ -275,8 +260,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logPermissionAction(Long userId, String action, String resourceType, Long resourceId, 
                                        String permission, String ipAddress, String userAgent, String details) {
         try {
@@ -305,8 +288,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logConfigChange(Long userId, String configKey, String oldValue, String newValue, 
                                    String ipAddress, String userAgent, String reason) {
         try {
@@ -335,8 +316,6 @@ public class AuditLogServiceImpl extends ServiceImpl<AuditLogMapper, AuditLog> i
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "auditLogCache", allEntries = true)
     public AuditLog logSecurityEvent(Long userId, String eventType, String description, String ipAddress, 
                                     String userAgent, Integer riskLevel, String details) {
         try {
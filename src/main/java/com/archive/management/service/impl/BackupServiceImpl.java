@@ -1,10 +1,18 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.backup.BackupPackCollector;
+import com.archive.management.backup.ChunkedBackupReader;
+import com.archive.management.backup.ChunkedBackupWriter;
+import com.archive.management.backup.FileSnapshotIndex;
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.dto.BackupManifest;
 import com.archive.management.entity.Backup;
 import com.archive.management.repository.BackupRepository;
 import com.archive.management.service.BackupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
@@ -12,26 +20,47 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -47,6 +76,12 @@ import java.util.zip.ZipOutputStream;
 @Service
 public class BackupServiceImpl implements BackupService {
 
+    private static final String MANIFEST_ENTRY = "manifest.json";
+    private static final String DB_PREFIX = "db/";
+    private static final String PACK_DIR = "packs";
+    private static final String PACK_PREFIX = "fs_";
+    private static final DateTimeFormatter SQL_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     @Autowired
     private BackupRepository backupRepository;
 
@@ -65,9 +100,40 @@ public class BackupServiceImpl implements BackupService {
     @Value("${archive.backup.retention-days:30}")
     private int retentionDays;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PerformanceProperties performanceProperties;
+
+    @Autowired
+    @Qualifier("backupExecutor")
+    private Executor backupExecutor;
+
+    @Value("${file.upload.path:/data/archive/files}")
+    private String fileStorePath;
+
+    /** 增量备份的变更判定列，按优先级匹配 */
+    @Value("${archive.backup.incremental.change-columns:update_time,updated_at,updated_time}")
+    private List<String> changeColumns;
+
+    /** 增量备份排除的表（备份记录表回放会覆盖备份链本身） */
+    @Value("${archive.backup.incremental.exclude-tables:sys_backups}")
+    private List<String> excludedTables;
+
+    /** 没有变更判定列的表是否整表导出 */
+    @Value("${archive.backup.incremental.include-unversioned-tables:true}")
+    private boolean includeUnversionedTables;
+
     // 备份进度跟踪
     private final Map<Long, Integer> backupProgress = new ConcurrentHashMap<>();
 
+    /** 写入快照时持有读锁，回收数据包时持有写锁，避免回收掉正在写入或刚被新快照引用的数据包 */
+    private final ReentrantReadWriteLock packLock = new ReentrantReadWriteLock();
+
     @Override
     @Async
     @Transactional
@@ -162,32 +228,31 @@ public class BackupServiceImpl implements BackupService {
         try {
             ensureBackupDirectory();
             
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String fileName = String.format("file_backup_%s_%s.zip", backupName.replaceAll("[^a-zA-Z0-9]", "_"), timestamp);
-            String zipPath = Paths.get(backupPath, fileName).toString();
-            
             backupProgress.put(backupId, 10);
             
-            // 创建ZIP压缩文件
-            boolean success = createZipBackup(filePaths, zipPath, backupId);
-            
-            if (success) {
-                File backupFile = new File(zipPath);
-                backup.setFilePath(zipPath);
-                backup.setFileSize(backupFile.length());
-                backup.setMd5(calculateMD5(zipPath));
-                backup.setStatus("completed");
-                backup.setProgress(100);
-                backup.setEndTime(LocalDateTime.now());
-                backup.setDuration(java.time.Duration.between(backup.getStartTime(), backup.getEndTime()).toMillis());
-                
-                log.info("文件备份完成: backupId={}, size={}bytes", backupId, backupFile.length());
-            } else {
-                backup.setStatus("failed");
-                backup.setErrorMessage("文件备份失败");
-                backup.setEndTime(LocalDateTime.now());
+            List<ChunkedBackupWriter.SourceFile> sources = new ArrayList<>();
+            for (String filePath : filePaths) {
+                Path file = Paths.get(filePath);
+                if (Files.isRegularFile(file)) {
+                    sources.add(new ChunkedBackupWriter.SourceFile(file, file.getFileName().toString()));
+                }
             }
             
+            // 分块并行压缩写入数据包，与上次文件备份相同的内容只记录引用
+            FileSnapshotIndex index = writeFileSnapshot(sources, loadLatestFileIndex("file"), backupId, 10);
+            String indexPath = fileIndexPath(backupId).toString();
+            
+            File backupFile = new File(indexPath);
+            backup.setFilePath(indexPath);
+            backup.setFileSize(backupFile.length());
+            backup.setMd5(calculateMD5(indexPath));
+            backup.setStatus("completed");
+            backup.setProgress(100);
+            backup.setEndTime(LocalDateTime.now());
+            backup.setDuration(java.time.Duration.between(backup.getStartTime(), backup.getEndTime()).toMillis());
+            
+            log.info("文件备份完成: backupId={}, fileCount={}, totalBytes={}, storedBytes={}",
+                    backupId, index.getFiles().size(), index.getTotalBytes(), index.getStoredBytes());
         } catch (Exception e) {
             log.error("文件备份异常: backupId={}", backupId, e);
             backup.setStatus("failed");
@@ -206,6 +271,9 @@ public class BackupServiceImpl implements BackupService {
     public Long createFullBackup(String backupName, String description, Long operatorId) {
         log.info("开始创建完整系统备份: backupName={}, operatorId={}", backupName, operatorId);
         
+        // 变更窗口从数据库导出之前开始计算，后续增量备份以此为起点
+        LocalDateTime startTime = LocalDateTime.now();
+        
         // 先创建数据库备份
         Long dbBackupId = createDatabaseBackup(backupName + "_db", "完整备份-数据库部分", operatorId);
         
@@ -217,20 +285,66 @@ public class BackupServiceImpl implements BackupService {
         Backup fullBackup = new Backup();
         fullBackup.setBackupName(backupName);
         fullBackup.setBackupType("full");
-        fullBackup.setStatus("completed");
+        fullBackup.setStatus("running");
         fullBackup.setDescription(description + String.format(" (包含DB备份ID:%d, 文件备份ID:%d)", dbBackupId, fileBackupId));
         fullBackup.setOperatorId(operatorId);
-        fullBackup.setStartTime(LocalDateTime.now());
-        fullBackup.setEndTime(LocalDateTime.now());
-        fullBackup.setProgress(100);
+        fullBackup.setStartTime(startTime);
+        fullBackup.setProgress(0);
         fullBackup.setStorageType("local");
         fullBackup.setRetentionDays(retentionDays);
         fullBackup.setExpiryTime(LocalDateTime.now().plusDays(retentionDays));
         
         fullBackup = backupRepository.save(fullBackup);
+        final Long backupId = fullBackup.getId();
         
-        log.info("完整系统备份完成: fullBackupId={}", fullBackup.getId());
-        return fullBackup.getId();
+        try {
+            Backup dbBackup = backupRepository.findById(dbBackupId)
+                    .orElseThrow(() -> new RuntimeException("数据库备份不存在: " + dbBackupId));
+            if (!"completed".equals(dbBackup.getStatus())) {
+                throw new RuntimeException("数据库备份失败，完整备份中止");
+            }
+            
+            ensureBackupDirectory();
+            
+            // 完整备份包：清单 + 档案文件库快照，数据库部分引用子备份
+            BackupManifest manifest = new BackupManifest();
+            manifest.setBackupId(backupId);
+            manifest.setBackupType("full");
+            manifest.setRootBackupId(backupId);
+            manifest.setUntil(startTime);
+            manifest.setDatabaseName(dbBackup.getDatabaseName());
+            manifest.setDatabaseBackupId(dbBackupId);
+            manifest.setSystemFileBackupId(fileBackupId);
+            
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            String fileName = String.format("full_backup_%s_%s.zip", backupName.replaceAll("[^a-zA-Z0-9]", "_"), timestamp);
+            String zipPath = Paths.get(backupPath, fileName).toString();
+            
+            backupProgress.put(backupId, 10);
+            writeBackupPackage(zipPath, manifest, Collections.emptyMap(), loadLatestFileIndex("full", "incremental"), backupId, 10);
+            
+            File backupFile = new File(zipPath);
+            fullBackup.setFilePath(zipPath);
+            fullBackup.setFileSize(backupFile.length());
+            fullBackup.setMd5(calculateMD5(zipPath));
+            fullBackup.setDatabaseName(dbBackup.getDatabaseName());
+            fullBackup.setStatus("completed");
+            fullBackup.setProgress(100);
+            fullBackup.setEndTime(LocalDateTime.now());
+            fullBackup.setDuration(java.time.Duration.between(fullBackup.getStartTime(), fullBackup.getEndTime()).toMillis());
+            
+            log.info("完整系统备份完成: fullBackupId={}, fileCount={}", backupId, manifest.getFileCount());
+        } catch (Exception e) {
+            log.error("完整系统备份异常: fullBackupId={}", backupId, e);
+            fullBackup.setStatus("failed");
+            fullBackup.setErrorMessage(e.getMessage());
+            fullBackup.setEndTime(LocalDateTime.now());
+        } finally {
+            backupRepository.save(fullBackup);
+            backupProgress.remove(backupId);
+        }
+        
+        return backupId;
     }
 
     @Override
@@ -245,6 +359,9 @@ public class BackupServiceImpl implements BackupService {
             throw new RuntimeException("基础备份状态不正确，无法创建增量备份");
         }
         
+        // 基础备份必须能回溯到完整备份或数据库备份
+        List<Backup> chain = resolveBackupChain(baseBackupId);
+        
         Backup backup = new Backup();
         backup.setBackupName(backupName);
         backup.setBackupType("incremental");
@@ -259,24 +376,70 @@ public class BackupServiceImpl implements BackupService {
         backup.setExpiryTime(LocalDateTime.now().plusDays(retentionDays));
         
         backup = backupRepository.save(backup);
+        final Long backupId = backup.getId();
         
-        // 增量备份逻辑（简化实现，实际应该只备份变更的数据）
+        Path workDir = null;
         try {
-            Long dbBackupId = createDatabaseBackup(backupName, "增量备份", operatorId);
+            ensureBackupDirectory();
+            
+            String databaseName = extractDatabaseName(dbUrl);
+            LocalDateTime since = baseBackup.getStartTime();
+            
+            BackupManifest manifest = new BackupManifest();
+            manifest.setBackupId(backupId);
+            manifest.setBackupType("incremental");
+            manifest.setParentBackupId(baseBackupId);
+            manifest.setRootBackupId(chain.get(0).getId());
+            manifest.setSince(since);
+            manifest.setUntil(backup.getStartTime());
+            manifest.setDatabaseName(databaseName);
+            
+            // 只导出变更窗口内的数据行
+            workDir = Files.createTempDirectory(Paths.get(backupPath), "incr_" + backupId + "_");
+            backupProgress.put(backupId, 10);
+            Map<String, Path> dumpFiles = dumpChangedTables(databaseName, since, workDir, manifest);
+            backupProgress.put(backupId, 50);
+            
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            String fileName = String.format("incr_backup_%s_%s.zip", backupName.replaceAll("[^a-zA-Z0-9]", "_"), timestamp);
+            String zipPath = Paths.get(backupPath, fileName).toString();
+            
+            // 打包变更数据，档案文件快照以基础备份的快照为参照，只写入新内容
+            FileSnapshotIndex previous = loadFileIndex(baseBackup);
+            if (previous == null) {
+                previous = loadLatestFileIndex("full", "incremental");
+            }
+            writeBackupPackage(zipPath, manifest, dumpFiles, previous, backupId, 50);
+            
+            String includedTables = manifest.getTableDumps().stream()
+                    .flatMap(dump -> dump.getTables().stream())
+                    .collect(Collectors.joining(","));
+            
+            File backupFile = new File(zipPath);
+            backup.setFilePath(zipPath);
+            backup.setFileSize(backupFile.length());
+            backup.setMd5(calculateMD5(zipPath));
+            backup.setDatabaseName(databaseName);
+            backup.setIncludedTables(includedTables.length() > 2000 ? includedTables.substring(0, 2000) : includedTables);
             backup.setStatus("completed");
             backup.setProgress(100);
             backup.setEndTime(LocalDateTime.now());
-            backup.setDescription(description + " (数据库备份ID:" + dbBackupId + ")");
+            backup.setDuration(java.time.Duration.between(backup.getStartTime(), backup.getEndTime()).toMillis());
+            
+            log.info("增量备份完成: backupId={}, since={}, size={}bytes, fileCount={}",
+                    backupId, since, backupFile.length(), manifest.getFileCount());
         } catch (Exception e) {
-            log.error("增量备份失败", e);
+            log.error("增量备份失败: backupId={}", backupId, e);
             backup.setStatus("failed");
             backup.setErrorMessage(e.getMessage());
             backup.setEndTime(LocalDateTime.now());
+        } finally {
+            backupRepository.save(backup);
+            backupProgress.remove(backupId);
+            deleteQuietly(workDir);
         }
         
-        backupRepository.save(backup);
-        log.info("增量备份完成: backupId={}", backup.getId());
-        return backup.getId();
+        return backupId;
     }
 
     @Override
@@ -329,7 +492,12 @@ public class BackupServiceImpl implements BackupService {
         }
         
         try {
-            unzipBackup(backup.getFilePath(), targetPath);
+            if (backup.getFilePath().endsWith(ChunkedBackupWriter.INDEX_SUFFIX)) {
+                FileSnapshotIndex index = objectMapper.readValue(new File(backup.getFilePath()), FileSnapshotIndex.class);
+                ChunkedBackupReader.restore(index, packDirectory(), Paths.get(targetPath));
+            } else {
+                unzipBackup(backup.getFilePath(), targetPath);
+            }
             log.info("文件恢复成功: backupId={}", backupId);
             return true;
         } catch (Exception e) {
@@ -343,13 +511,22 @@ public class BackupServiceImpl implements BackupService {
     public boolean restoreFullBackup(Long backupId, Long operatorId) {
         log.info("开始恢复完整备份: backupId={}, operatorId={}", backupId, operatorId);
         
-        Backup backup = backupRepository.findById(backupId)
-                .orElseThrow(() -> new RuntimeException("备份记录不存在: " + backupId));
+        // 从目标备份沿基础备份回溯到根节点，按时间顺序依次回放
+        List<Backup> chain = resolveBackupChain(backupId);
         
-        // 解析完整备份中包含的子备份ID
-        // 简化实现，实际应该从description中解析出子备份ID并依次恢复
-        log.warn("完整备份恢复功能待完善，请分别恢复数据库和文件备份");
-        return true;
+        try {
+            restoreChainRoot(chain.get(0));
+            for (int i = 1; i < chain.size(); i++) {
+                replayIncrementalBackup(chain.get(i));
+            }
+            // 每个快照都包含完整文件列表，只需恢复目标备份的快照
+            restoreFileSnapshot(chain.get(chain.size() - 1));
+            log.info("完整备份恢复成功: backupId={}, chainLength={}", backupId, chain.size());
+            return true;
+        } catch (Exception e) {
+            log.error("完整备份恢复失败: backupId={}", backupId, e);
+            return false;
+        }
     }
 
     @Override
@@ -357,24 +534,8 @@ public class BackupServiceImpl implements BackupService {
     public boolean deleteBackup(Long backupId, Long operatorId) {
         log.info("删除备份: backupId={}, operatorId={}", backupId, operatorId);
         
-        Backup backup = backupRepository.findById(backupId)
-                .orElseThrow(() -> new RuntimeException("备份记录不存在: " + backupId));
-        
-        // 软删除
-        backup.setDeleted(true);
-        backup.setUpdatedAt(LocalDateTime.now());
-        backupRepository.save(backup);
-        
-        // 可选：删除实际文件
-        if (backup.getFilePath() != null) {
-            try {
-                Files.deleteIfExists(Paths.get(backup.getFilePath()));
-                log.info("备份文件已删除: {}", backup.getFilePath());
-            } catch (IOException e) {
-                log.warn("删除备份文件失败: {}", backup.getFilePath(), e);
-            }
-        }
-        
+        removeBackup(backupId);
+        collectUnreferencedPacks();
         return true;
     }
 
@@ -520,12 +681,15 @@ public class BackupServiceImpl implements BackupService {
         
         for (Backup backup : expiredBackups) {
             try {
-                deleteBackup(backup.getId(), 0L); // 系统自动清理
+                removeBackup(backup.getId()); // 系统自动清理
                 count++;
             } catch (Exception e) {
                 log.error("清理过期备份失败: backupId={}", backup.getId(), e);
             }
         }
+        if (count > 0) {
+            collectUnreferencedPacks();
+        }
         
         log.info("过期备份清理完成: 清理数量={}", count);
         return count;
@@ -685,34 +849,6 @@ public class BackupServiceImpl implements BackupService {
         }
     }
 
-    /**
-     * 创建ZIP备份
-     */
-    private boolean createZipBackup(List<String> filePaths, String zipPath, Long backupId) {
-        try (FileOutputStream fos = new FileOutputStream(zipPath);
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
-            
-            int totalFiles = filePaths.size();
-            int processedFiles = 0;
-            
-            for (String filePath : filePaths) {
-                File file = new File(filePath);
-                if (file.exists()) {
-                    addToZip(file, file.getName(), zos);
-                }
-                
-                processedFiles++;
-                int progress = 10 + (int) ((processedFiles / (double) totalFiles) * 80);
-                backupProgress.put(backupId, progress);
-            }
-            
-            return true;
-        } catch (Exception e) {
-            log.error("创建ZIP备份失败", e);
-            return false;
-        }
-    }
-
     /**
      * 添加文件到ZIP
      */
@@ -732,19 +868,24 @@ public class BackupServiceImpl implements BackupService {
     }
 
     /**
-     * 解压ZIP备份
+     * 解压ZIP备份，拒绝越出目标目录的条目
      */
     private void unzipBackup(String zipPath, String targetPath) throws IOException {
         File destDir = new File(targetPath);
         if (!destDir.exists()) {
             destDir.mkdirs();
         }
+        Path root = destDir.toPath().toAbsolutePath().normalize();
         
         try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipPath))) {
             ZipEntry zipEntry = zis.getNextEntry();
             
             while (zipEntry != null) {
-                File newFile = new File(destDir, zipEntry.getName());
+                Path target = root.resolve(zipEntry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new RuntimeException("备份包条目路径非法: " + zipEntry.getName());
+                }
+                File newFile = target.toFile();
                 
                 if (zipEntry.isDirectory()) {
                     newFile.mkdirs();
@@ -763,7 +904,7 @@ public class BackupServiceImpl implements BackupService {
                 zipEntry = zis.getNextEntry();
             }
             
-            zis.closeAllEntries();
+            zis.closeEntry();
         }
     }
 
@@ -803,4 +944,413 @@ public class BackupServiceImpl implements BackupService {
         filePaths.add("./logback-spring.xml");
         return filePaths;
     }
+
+    /**
+     * 回溯备份链：从指定备份沿基础备份ID向上，返回从根节点开始的有序列表
+     */
+    private List<Backup> resolveBackupChain(Long backupId) {
+        LinkedList<Backup> chain = new LinkedList<>();
+        Set<Long> visited = new HashSet<>();
+        Long currentId = backupId;
+        
+        while (currentId != null) {
+            if (!visited.add(currentId)) {
+                throw new RuntimeException("备份链存在循环引用: " + currentId);
+            }
+            final Long id = currentId;
+            Backup backup = backupRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("备份记录不存在: " + id));
+            if (!"completed".equals(backup.getStatus())) {
+                throw new RuntimeException("备份链中的备份状态不正确: " + id);
+            }
+            if (backup.getFilePath() == null || !new File(backup.getFilePath()).exists()) {
+                throw new RuntimeException("备份链中的备份文件不存在: " + id);
+            }
+            chain.addFirst(backup);
+            currentId = "incremental".equals(backup.getBackupType()) ? backup.getBaseBackupId() : null;
+        }
+        
+        String rootType = chain.getFirst().getBackupType();
+        if (!"full".equals(rootType) && !"database".equals(rootType)) {
+            throw new RuntimeException("备份链的根节点必须是完整备份或数据库备份");
+        }
+        return chain;
+    }
+
+    /**
+     * 恢复备份链根节点的数据库：完整备份恢复其数据库子备份，数据库备份直接导入
+     */
+    private void restoreChainRoot(Backup root) throws IOException {
+        if ("database".equals(root.getBackupType())) {
+            if (!executeMysqlRestore(root.getDatabaseName(), root.getFilePath())) {
+                throw new RuntimeException("数据库备份恢复失败: " + root.getId());
+            }
+            return;
+        }
+        
+        try (ZipFile zip = new ZipFile(root.getFilePath())) {
+            BackupManifest manifest = readManifest(zip);
+            Backup dbBackup = backupRepository.findById(manifest.getDatabaseBackupId())
+                    .orElseThrow(() -> new RuntimeException("完整备份的数据库部分不存在: " + manifest.getDatabaseBackupId()));
+            if (dbBackup.getFilePath() == null || !new File(dbBackup.getFilePath()).exists()) {
+                throw new RuntimeException("完整备份的数据库备份文件不存在: " + dbBackup.getId());
+            }
+            if (!executeMysqlRestore(dbBackup.getDatabaseName(), dbBackup.getFilePath())) {
+                throw new RuntimeException("完整备份的数据库部分恢复失败: " + dbBackup.getId());
+            }
+        }
+        log.info("备份链根节点恢复完成: backupId={}", root.getId());
+    }
+
+    /**
+     * 回放增量备份：按清单顺序导入变更数据
+     */
+    private void replayIncrementalBackup(Backup backup) throws IOException {
+        Path workDir = Files.createTempDirectory(Paths.get(backupPath), "restore_" + backup.getId() + "_");
+        try (ZipFile zip = new ZipFile(backup.getFilePath())) {
+            BackupManifest manifest = readManifest(zip);
+            extractEntries(zip, DB_PREFIX, workDir);
+            
+            for (BackupManifest.TableDump dump : manifest.getTableDumps()) {
+                Path sqlFile = workDir.resolve(dump.getEntry().substring(DB_PREFIX.length()));
+                if (!executeMysqlRestore(manifest.getDatabaseName(), sqlFile.toString())) {
+                    throw new RuntimeException("增量备份回放失败: " + backup.getId() + ", " + dump.getEntry());
+                }
+            }
+            log.info("增量备份回放完成: backupId={}, tableDumps={}", backup.getId(), manifest.getTableDumps().size());
+        } finally {
+            deleteQuietly(workDir);
+        }
+    }
+
+    /**
+     * 按变更判定列分组导出变更窗口内的数据行，返回 包内路径 -> 本地SQL文件
+     */
+    private Map<String, Path> dumpChangedTables(String databaseName, LocalDateTime since, Path workDir,
+                                                BackupManifest manifest) {
+        Map<String, Path> dumpFiles = new LinkedHashMap<>();
+        int sequence = 0;
+        
+        for (Map.Entry<String, List<String>> group : discoverTables().entrySet()) {
+            String changeColumn = group.getKey().isEmpty() ? null : group.getKey();
+            String entry = String.format("%s%02d_%s.sql", DB_PREFIX, ++sequence, changeColumn == null ? "full" : changeColumn);
+            Path output = workDir.resolve(entry.substring(DB_PREFIX.length()));
+            
+            List<String> command = new ArrayList<>(Arrays.asList(
+                    "mysqldump", "-u" + dbUsername, "-p" + dbPassword,
+                    "--single-transaction", "--quick", "--lock-tables=false",
+                    "--no-create-info", "--replace", "--complete-insert", "--skip-triggers"));
+            if (changeColumn != null) {
+                command.add(String.format("--where=`%s` >= '%s'", changeColumn, since.format(SQL_DATETIME)));
+            }
+            command.add(databaseName);
+            command.addAll(group.getValue());
+            
+            if (!runProcess(command, output)) {
+                throw new RuntimeException("增量数据导出失败: " + entry);
+            }
+            dumpFiles.put(entry, output);
+            manifest.getTableDumps().add(new BackupManifest.TableDump(entry, changeColumn, group.getValue()));
+        }
+        return dumpFiles;
+    }
+
+    /**
+     * 读取库表结构，按变更判定列分组；没有变更列的表归入空字符串分组（整表导出）
+     */
+    private Map<String, List<String>> discoverTables() {
+        Map<String, Set<String>> tableColumns = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            
+            try (ResultSet rs = metaData.getTables(catalog, null, "%", new String[]{"TABLE"})) {
+                while (rs.next()) {
+                    String table = rs.getString("TABLE_NAME");
+                    if (!excludedTables.contains(table.toLowerCase())) {
+                        tableColumns.put(table, new HashSet<>());
+                    }
+                }
+            }
+            try (ResultSet rs = metaData.getColumns(catalog, null, "%", "%")) {
+                while (rs.next()) {
+                    Set<String> columns = tableColumns.get(rs.getString("TABLE_NAME"));
+                    if (columns != null) {
+                        columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("读取数据库表结构失败: " + e.getMessage(), e);
+        }
+        
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> table : tableColumns.entrySet()) {
+            String changeColumn = changeColumns.stream()
+                    .filter(column -> table.getValue().contains(column.toLowerCase()))
+                    .findFirst()
+                    .orElse("");
+            if (changeColumn.isEmpty() && !includeUnversionedTables) {
+                log.warn("表缺少变更判定列，增量备份跳过: {}", table.getKey());
+                continue;
+            }
+            groups.computeIfAbsent(changeColumn, key -> new ArrayList<>()).add(table.getKey());
+        }
+        return groups;
+    }
+
+    /**
+     * 写入备份包：先写档案文件库快照（数据包 + 索引），再将数据库变更文件和清单打包
+     */
+    private void writeBackupPackage(String zipPath, BackupManifest manifest, Map<String, Path> dumpFiles,
+                                    FileSnapshotIndex previous, Long backupId, int fromProgress) throws IOException {
+        FileSnapshotIndex index = writeFileSnapshot(collectFileStore(), previous, backupId, fromProgress);
+        manifest.setFileIndex(PACK_DIR + "/" + fileIndexPath(backupId).getFileName());
+        manifest.setFileCount(index.getFiles().size());
+        
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipPath)))) {
+            for (Map.Entry<String, Path> dump : dumpFiles.entrySet()) {
+                addToZip(dump.getValue().toFile(), dump.getKey(), zos);
+            }
+            writeManifest(manifest, zos);
+        }
+    }
+    
+    /**
+     * 将清单写入备份包
+     */
+    private void writeManifest(BackupManifest manifest, ZipOutputStream zos) throws IOException {
+        zos.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+        zos.write(objectMapper.writeValueAsBytes(manifest));
+        zos.closeEntry();
+    }
+
+    /**
+     * 写入文件快照并保存索引，进度映射到 fromProgress-90 区间
+     */
+    private FileSnapshotIndex writeFileSnapshot(List<ChunkedBackupWriter.SourceFile> sources, FileSnapshotIndex previous,
+                                                Long backupId, int fromProgress) throws IOException {
+        PerformanceProperties.Backup config = performanceProperties.getBackup();
+        int maxInFlightChunks = config.getMaxInFlightChunks() > 0 ? config.getMaxInFlightChunks() : config.resolvePoolSize() * 2;
+        ChunkedBackupWriter writer = new ChunkedBackupWriter(
+                backupExecutor, config.getChunkSizeKb() * 1024, maxInFlightChunks, config.getCompressionLevel());
+        
+        packLock.readLock().lock();
+        try {
+            FileSnapshotIndex index = writer.write(sources, packDirectory(), PACK_PREFIX + backupId, previous,
+                    percent -> backupProgress.put(backupId, fromProgress + percent * (90 - fromProgress) / 100));
+            index.setBackupId(backupId);
+            objectMapper.writeValue(fileIndexPath(backupId).toFile(), index);
+            return index;
+        } finally {
+            packLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 软删除备份记录，删除备份文件及其文件快照索引；数据包可能仍被其它索引引用，由回收统一处理
+     */
+    private void removeBackup(Long backupId) {
+        Backup backup = backupRepository.findById(backupId)
+                .orElseThrow(() -> new RuntimeException("备份记录不存在: " + backupId));
+        
+        // 软删除
+        backup.setDeleted(true);
+        backup.setUpdatedAt(LocalDateTime.now());
+        backupRepository.save(backup);
+        
+        List<Path> files = new ArrayList<>(2);
+        if (backup.getFilePath() != null) {
+            files.add(Paths.get(backup.getFilePath()));
+        }
+        // 完整、增量备份的文件快照索引不在备份包内
+        files.add(fileIndexPath(backupId));
+        for (Path file : files) {
+            try {
+                if (Files.deleteIfExists(file)) {
+                    log.info("备份文件已删除: {}", file);
+                }
+            } catch (IOException e) {
+                log.warn("删除备份文件失败: {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * 回收不再被任何快照索引引用的数据包；有快照正在写入时跳过，由下次删除或清理时回收
+     */
+    private void collectUnreferencedPacks() {
+        if (!packLock.writeLock().tryLock()) {
+            log.info("有文件快照正在写入，本次跳过数据包回收");
+            return;
+        }
+        try {
+            BackupPackCollector.collect(packDirectory(), objectMapper);
+        } catch (Exception e) {
+            log.warn("备份数据包回收失败，数据包保留到下次回收", e);
+        } finally {
+            packLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 将备份的档案文件快照恢复到档案文件库
+     */
+    private void restoreFileSnapshot(Backup backup) throws IOException {
+        FileSnapshotIndex index = loadFileIndex(backup);
+        if (index == null) {
+            log.warn("备份不包含档案文件快照，跳过文件恢复: backupId={}", backup.getId());
+            return;
+        }
+        int restored = ChunkedBackupReader.restore(index, packDirectory(), Paths.get(fileStorePath));
+        log.info("档案文件快照恢复完成: backupId={}, fileCount={}", backup.getId(), restored);
+    }
+
+    /**
+     * 读取备份对应的文件快照索引，备份不含快照时返回空
+     */
+    private FileSnapshotIndex loadFileIndex(Backup backup) throws IOException {
+        String filePath = backup.getFilePath();
+        if (filePath == null || !new File(filePath).exists()) {
+            return null;
+        }
+        if (filePath.endsWith(ChunkedBackupWriter.INDEX_SUFFIX)) {
+            return objectMapper.readValue(new File(filePath), FileSnapshotIndex.class);
+        }
+        if (!"full".equals(backup.getBackupType()) && !"incremental".equals(backup.getBackupType())) {
+            return null;
+        }
+        try (ZipFile zip = new ZipFile(filePath)) {
+            String fileIndex = readManifest(zip).getFileIndex();
+            Path indexFile = fileIndex == null ? null : Paths.get(backupPath, fileIndex);
+            if (indexFile == null || !Files.exists(indexFile)) {
+                return null;
+            }
+            return objectMapper.readValue(indexFile.toFile(), FileSnapshotIndex.class);
+        }
+    }
+
+    /**
+     * 取指定类型中最近一次成功备份的文件快照索引，作为去重参照；读取失败时不去重
+     */
+    private FileSnapshotIndex loadLatestFileIndex(String... backupTypes) {
+        Backup latest = null;
+        for (String backupType : backupTypes) {
+            List<Backup> backups = backupRepository.findLatestSuccessfulBackups(backupType);
+            if (!backups.isEmpty() && (latest == null
+                    || backups.get(0).getStartTime().isAfter(latest.getStartTime()))) {
+                latest = backups.get(0);
+            }
+        }
+        if (latest == null) {
+            return null;
+        }
+        try {
+            return loadFileIndex(latest);
+        } catch (Exception e) {
+            log.warn("读取上次文件快照索引失败，本次备份不去重: backupId={}", latest.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 收集档案文件库中的全部文件
+     */
+    private List<ChunkedBackupWriter.SourceFile> collectFileStore() throws IOException {
+        Path fileRoot = Paths.get(fileStorePath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(fileRoot)) {
+            return Collections.emptyList();
+        }
+        Path backupRoot = Paths.get(backupPath).toAbsolutePath().normalize();
+        
+        try (Stream<Path> stream = Files.walk(fileRoot)) {
+            return stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.startsWith(backupRoot))
+                    .map(path -> new ChunkedBackupWriter.SourceFile(path,
+                            fileRoot.relativize(path).toString().replace(File.separatorChar, '/')))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path packDirectory() {
+        return Paths.get(backupPath, PACK_DIR);
+    }
+
+    private Path fileIndexPath(Long backupId) {
+        return packDirectory().resolve(PACK_PREFIX + backupId + ChunkedBackupWriter.INDEX_SUFFIX);
+    }
+
+    /**
+     * 读取备份包中的清单
+     */
+    private BackupManifest readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST_ENTRY);
+        if (entry == null) {
+            throw new RuntimeException("备份包缺少清单文件: " + zip.getName());
+        }
+        try (InputStream is = zip.getInputStream(entry)) {
+            return objectMapper.readValue(is, BackupManifest.class);
+        }
+    }
+
+    /**
+     * 将备份包中指定前缀下的条目解压到目标目录，拒绝越出目标目录的条目
+     */
+    private void extractEntries(ZipFile zip, String prefix, Path targetRoot) throws IOException {
+        Path root = targetRoot.toAbsolutePath().normalize();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory() || !entry.getName().startsWith(prefix)) {
+                continue;
+            }
+            Path target = root.resolve(entry.getName().substring(prefix.length())).normalize();
+            if (!target.startsWith(root)) {
+                throw new RuntimeException("备份包条目路径非法: " + entry.getName());
+            }
+            Files.createDirectories(target.getParent());
+            try (InputStream is = zip.getInputStream(entry)) {
+                Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * 执行外部命令并将标准输出写入文件
+     */
+    private boolean runProcess(List<String> command, Path output) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectOutput(output.toFile());
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            
+            int exitCode = pb.start().waitFor();
+            if (exitCode != 0) {
+                log.error("{}执行失败, exitCode={}", command.get(0), exitCode);
+            }
+            return exitCode == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("执行{}失败", command.get(0), e);
+            return false;
+        }
+    }
+
+    /**
+     * 删除临时目录，失败时只记录日志
+     */
+    private void deleteQuietly(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("删除临时目录失败: {}", directory, e);
+        }
+    }
 }
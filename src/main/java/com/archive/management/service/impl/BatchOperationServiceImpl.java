@@ -0,0 +1,461 @@
+package com.archive.management.service.impl;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.Archive;
+import com.archive.management.entity.Role;
+import com.archive.management.entity.User;
+import com.archive.management.event.UserAuthChangedEvent;
+import com.archive.management.mapper.ArchiveMapper;
+import com.archive.management.mapper.RoleMapper;
+import com.archive.management.mapper.UserMapper;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.search.ArchiveSearchIndex;
+import com.archive.management.service.BatchOperationService;
+import com.archive.management.util.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 批量操作服务实现类
+ * ID 列表按配置的分块大小切分，每个分块在独立事务中执行一条多行语句，
+ * 分块提交到 batchOperationExecutor 并行执行；进度和取消状态按任务ID登记，
+ * 只有发起任务的用户可以查询和取消，失败按错误码和原因聚合
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Service
+public class BatchOperationServiceImpl implements BatchOperationService {
+
+    private final ArchiveMapper archiveMapper;
+    private final UserMapper userMapper;
+    private final RoleMapper roleMapper;
+    private final ArchiveSearchIndex archiveSearchIndex;
+    private final PermissionDecisionEngine permissionDecisionEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PerformanceProperties performanceProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor batchOperationExecutor;
+
+    /** 任务ID -> 运行状态 */
+    private final Map<String, BatchTask> tasks = new ConcurrentHashMap<>();
+
+    public BatchOperationServiceImpl(ArchiveMapper archiveMapper,
+                                     UserMapper userMapper,
+                                     RoleMapper roleMapper,
+                                     ArchiveSearchIndex archiveSearchIndex,
+                                     PermissionDecisionEngine permissionDecisionEngine,
+                                     ApplicationEventPublisher eventPublisher,
+                                     PerformanceProperties performanceProperties,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("batchOperationExecutor") Executor batchOperationExecutor) {
+        this.archiveMapper = archiveMapper;
+        this.userMapper = userMapper;
+        this.roleMapper = roleMapper;
+        this.archiveSearchIndex = archiveSearchIndex;
+        this.permissionDecisionEngine = permissionDecisionEngine;
+        this.eventPublisher = eventPublisher;
+        this.performanceProperties = performanceProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchOperationExecutor = batchOperationExecutor;
+    }
+
+    @Override
+    public <T> BatchOperationResult executeBatchOperation(List<T> ids,
+                                                          Function<T, OperationResult> operation,
+                                                          Consumer<BatchProgress> progressCallback) {
+        return executeChunkedOperation(null, ids, 0, chunk -> applyEach(chunk, operation), progressCallback);
+    }
+
+    @Override
+    public <T> BatchOperationResult executeBatchOperationWithContext(List<T> items,
+                                                                     Function<T, OperationResult> operation,
+                                                                     Consumer<BatchProgress> progressCallback) {
+        return executeChunkedOperation(null, items, 0, chunk -> applyEach(chunk, operation), progressCallback);
+    }
+
+    @Override
+    public <T> BatchOperationResult executeChunkedOperation(String taskId,
+                                                            List<T> items,
+                                                            int chunkSize,
+                                                            Function<List<T>, ChunkResult> chunkOperation,
+                                                            Consumer<BatchProgress> progressCallback) {
+        List<T> source = items == null ? new ArrayList<>() : items;
+        int size = chunkSize > 0 ? chunkSize : performanceProperties.getBatchOperation().getChunkSize();
+        List<List<T>> chunks = partition(source, size);
+
+        BatchTask task = registerTask(taskId, source.size(), chunks.size(), progressCallback);
+        log.info("开始分块批量操作: taskId={}, total={}, chunks={}, chunkSize={}",
+            task.taskId, source.size(), chunks.size(), size);
+
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(chunks.size());
+            for (List<T> chunk : chunks) {
+                futures.add(CompletableFuture.runAsync(() -> runChunk(task, chunk, chunkOperation), batchOperationExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            task.finish();
+        }
+
+        BatchOperationResult result = task.toResult();
+        log.info("分块批量操作结束: taskId={}, success={}, failure={}, cancelled={}, elapsed={}ms",
+            task.taskId, result.getSuccessCount(), result.getFailureCount(), result.isCancelled(), result.getElapsedTime());
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> batchUpdateArchiveStatus(String taskId, List<Long> archiveIds, Integer status) {
+        if (status == null) {
+            return errorResponse("档案状态不能为空");
+        }
+        return toResponse(executeChunkedOperation(taskId, distinct(archiveIds), 0, chunk -> {
+            int affected = archiveMapper.batchUpdateStatus(chunk, status);
+            return reportMissing(chunk, affected, this::findExistingArchiveIds, "档案不存在", "ARCHIVE_NOT_FOUND");
+        }, null));
+    }
+
+    @Override
+    public Map<String, Object> batchDeleteArchives(String taskId, List<Long> archiveIds, Long deletedBy) {
+        return toResponse(executeChunkedOperation(taskId, distinct(archiveIds), 0, chunk -> {
+            int affected = archiveMapper.batchDeleteArchives(chunk, deletedBy);
+            ChunkResult result = reportMissing(chunk, affected, this::findExistingArchiveIds, "档案不存在", "ARCHIVE_NOT_FOUND");
+            // 提交后才移出索引，避免并发的搜索在提交前按旧数据重新索引
+            afterCommit(() -> chunk.forEach(archiveSearchIndex::onArchiveDeleted));
+            return result;
+        }, null));
+    }
+
+    @Override
+    public Map<String, Object> batchUpdateUserStatus(String taskId, List<Long> userIds, Integer status) {
+        if (status == null) {
+            return errorResponse("用户状态不能为空");
+        }
+        return toResponse(executeChunkedOperation(taskId, distinct(userIds), 0, chunk -> {
+            int affected = userMapper.batchUpdateStatus(chunk, status);
+            afterCommit(() -> eventPublisher.publishEvent(new UserAuthChangedEvent(this, null, null, "BATCH_STATUS")));
+            return reportMissing(chunk, affected, this::findExistingUserIds, "用户不存在", "USER_NOT_FOUND");
+        }, null));
+    }
+
+    @Override
+    public Map<String, Object> batchAssignRoles(String taskId, List<Long> userIds, List<Long> roleIds) {
+        List<Long> roles = distinct(roleIds);
+        if (roles.isEmpty()) {
+            return errorResponse("角色ID列表不能为空");
+        }
+        List<Role> existingRoles = roleMapper.selectBatchIds(roles);
+        if (existingRoles.size() != roles.size()) {
+            return errorResponse("部分角色不存在");
+        }
+
+        Long operatorId = SecurityUtils.getCurrentUserId();
+        return toResponse(executeChunkedOperation(taskId, distinct(userIds), 0, chunk -> {
+            Set<Long> existing = findExistingUserIds(chunk);
+            List<Long> users = chunk.stream().filter(existing::contains).collect(Collectors.toList());
+            ChunkResult result = ChunkResult.success(users.size());
+            chunk.stream().filter(id -> !existing.contains(id))
+                .forEach(id -> result.addFailure(id, "用户不存在", "USER_NOT_FOUND"));
+            if (users.isEmpty()) {
+                return result;
+            }
+
+            // 先删后插，重复分配保持幂等
+            roleMapper.deleteUserRolesForUsers(users, roles);
+            roleMapper.batchInsertUsersRoles(users, roles, operatorId, LocalDateTime.now());
+            // 提交后才失效，避免并发的权限判定在提交前按旧角色重新缓存
+            afterCommit(() -> {
+                users.forEach(permissionDecisionEngine::invalidateUser);
+                eventPublisher.publishEvent(new UserAuthChangedEvent(this, null, null, "BATCH_ASSIGN_ROLES"));
+            });
+            return result;
+        }, null));
+    }
+
+    @Override
+    public BatchProgress getBatchProgress(String taskId) {
+        BatchTask task = findOwnedTask(taskId);
+        return task == null ? null : task.progress();
+    }
+
+    @Override
+    public boolean cancelBatchOperation(String taskId) {
+        BatchTask task = findOwnedTask(taskId);
+        if (task == null || task.finished) {
+            return false;
+        }
+        task.cancelled = true;
+        log.info("批量操作取消请求已登记: taskId={}", taskId);
+        return true;
+    }
+
+    // ========== 私有辅助方法 ==========
+
+    /**
+     * 在独立事务中执行一个分块；分块抛出异常时整块回滚并记为失败
+     */
+    private <T> void runChunk(BatchTask task, List<T> chunk, Function<List<T>, ChunkResult> chunkOperation) {
+        if (task.cancelled) {
+            ChunkResult skipped = ChunkResult.success(0);
+            chunk.forEach(item -> skipped.addFailure(item, "操作已取消", "CANCELLED"));
+            task.record(skipped, chunk.size());
+            return;
+        }
+
+        ChunkResult result;
+        try {
+            result = transactionTemplate.execute(status -> chunkOperation.apply(chunk));
+            if (result == null) {
+                result = ChunkResult.success(chunk.size());
+            }
+        } catch (Exception e) {
+            log.warn("批量操作分块失败，已回滚: taskId={}, size={}, error={}", task.taskId, chunk.size(), e.getMessage());
+            ChunkResult failed = ChunkResult.success(0);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            chunk.forEach(item -> failed.addFailure(item, message, "CHUNK_FAILED"));
+            result = failed;
+        }
+        task.record(result, chunk.size());
+    }
+
+    /**
+     * 兼容逐项操作：分块内逐项执行，单项失败不影响同一分块的其他项
+     */
+    private static <T> ChunkResult applyEach(List<T> chunk, Function<T, OperationResult> operation) {
+        ChunkResult result = ChunkResult.success(0);
+        int success = 0;
+        for (T item : chunk) {
+            try {
+                OperationResult itemResult = operation.apply(item);
+                if (itemResult != null && itemResult.isSuccess()) {
+                    success++;
+                } else {
+                    result.addFailure(item, itemResult == null ? "操作无返回结果" : itemResult.getMessage(),
+                        itemResult == null ? null : itemResult.getErrorCode());
+                }
+            } catch (Exception e) {
+                result.addFailure(item, e.getMessage(), "OPERATION_FAILED");
+            }
+        }
+        result.setSuccessCount(success);
+        return result;
+    }
+
+    /**
+     * 多行语句影响行数少于分块大小时，查出不存在的ID计入失败
+     */
+    private static ChunkResult reportMissing(List<Long> chunk, int affected, Function<List<Long>, Set<Long>> existingLookup,
+                                             String message, String errorCode) {
+        if (affected >= chunk.size()) {
+            return ChunkResult.success(chunk.size());
+        }
+        Set<Long> existing = existingLookup.apply(chunk);
+        ChunkResult result = ChunkResult.success(0);
+        int success = 0;
+        for (Long id : chunk) {
+            if (existing.contains(id)) {
+                success++;
+            } else {
+                result.addFailure(id, message, errorCode);
+            }
+        }
+        result.setSuccessCount(success);
+        return result;
+    }
+
+    private Set<Long> findExistingArchiveIds(List<Long> ids) {
+        return archiveMapper.selectBatchIds(ids).stream().map(Archive::getId).collect(Collectors.toSet());
+    }
+
+    private Set<Long> findExistingUserIds(List<Long> ids) {
+        return userMapper.selectBatchIds(ids).stream().map(User::getUserId).collect(Collectors.toSet());
+    }
+
+    private BatchTask registerTask(String taskId, int total, int chunkCount, Consumer<BatchProgress> progressCallback) {
+        evictFinishedTasks();
+        String id = taskId == null || taskId.isEmpty() ? UUID.randomUUID().toString() : taskId;
+        BatchTask task = new BatchTask(id, SecurityUtils.getCurrentUserId(), total, chunkCount, progressCallback);
+        BatchTask existing = tasks.putIfAbsent(id, task);
+        if (existing != null && !existing.finished) {
+            throw new IllegalStateException("批量操作任务正在执行: " + id);
+        }
+        tasks.put(id, task);
+        return task;
+    }
+
+    /**
+     * 按任务ID查找当前用户发起的任务；任务ID由客户端传入，不校验发起人时任何人都能查询或取消他人的任务。
+     * 无认证上下文时发起的任务（如定时任务）不限制
+     */
+    private BatchTask findOwnedTask(String taskId) {
+        BatchTask task = taskId == null ? null : tasks.get(taskId);
+        if (task == null || task.ownerId == null) {
+            return task;
+        }
+        return task.ownerId.equals(SecurityUtils.getCurrentUserId()) ? task : null;
+    }
+
+    private void evictFinishedTasks() {
+        long retentionMillis = performanceProperties.getBatchOperation().getProgressRetentionMinutes() * 60_000L;
+        long now = System.currentTimeMillis();
+        tasks.values().removeIf(task -> task.finished && now - task.finishTime > retentionMillis);
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>((items.size() + size - 1) / size);
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(new ArrayList<>(items.subList(from, Math.min(from + size, items.size()))));
+        }
+        return chunks;
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        Set<Long> unique = new LinkedHashSet<>();
+        for (Object id : ids) {
+            // 请求体反序列化后元素可能是 Integer
+            if (id != null) {
+                unique.add(((Number) id).longValue());
+            }
+        }
+        return new ArrayList<>(unique);
+    }
+
+    private static Map<String, Object> toResponse(BatchOperationResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("taskId", result.getTaskId());
+        response.put("success", result.isCompleted());
+        response.put("cancelled", result.isCancelled());
+        response.put("total", result.getTotalCount());
+        response.put("successCount", result.getSuccessCount());
+        response.put("failedCount", result.getFailureCount());
+        response.put("failureSummary", result.getFailureSummary());
+        response.put("failures", result.getFailures());
+        response.put("elapsedTime", result.getElapsedTime());
+        return response;
+    }
+
+    private static Map<String, Object> errorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", message);
+        return response;
+    }
+
+    /**
+     * 提交后执行。放在 afterCompletion 中：此时事务同步已清除，回调里再调用的
+     * 失效方法和事务事件监听器会立即执行，而不是登记到已经触发完毕的同步列表里
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 批量操作任务的运行状态，分块完成时在锁内汇总
+     */
+    private static final class BatchTask {
+        private final String taskId;
+        private final Long ownerId;
+        private final int total;
+        private final int chunkCount;
+        private final Consumer<BatchProgress> progressCallback;
+        private final long startTime = System.currentTimeMillis();
+        private final BatchOperationResult result = new BatchOperationResult();
+        private final Set<Object> failedIds = new HashSet<>();
+        private int processed;
+        private int completedChunks;
+        private volatile boolean cancelled;
+        private volatile boolean finished;
+        private volatile long finishTime;
+
+        private BatchTask(String taskId, Long ownerId, int total, int chunkCount, Consumer<BatchProgress> progressCallback) {
+            this.taskId = taskId;
+            this.ownerId = ownerId;
+            this.total = total;
+            this.chunkCount = chunkCount;
+            this.progressCallback = progressCallback;
+            result.setTaskId(taskId);
+            result.setTotalCount(total);
+        }
+
+        private void record(ChunkResult chunkResult, int chunkSize) {
+            BatchProgress snapshot;
+            synchronized (this) {
+                result.setSuccessCount(result.getSuccessCount() + chunkResult.getSuccessCount());
+                for (FailureDetail failure : chunkResult.getFailures()) {
+                    result.addFailure(failure.getId(), failure.getMessage(), failure.getErrorCode());
+                }
+                processed += chunkSize;
+                completedChunks++;
+                snapshot = progress();
+            }
+            if (progressCallback != null) {
+                try {
+                    progressCallback.accept(snapshot);
+                } catch (Exception e) {
+                    log.warn("批量操作进度回调异常: taskId={}", taskId, e);
+                }
+            }
+        }
+
+        private synchronized BatchProgress progress() {
+            BatchProgress progress = new BatchProgress(total, processed, result.getSuccessCount(), result.getFailureCount());
+            long elapsed = System.currentTimeMillis() - startTime;
+            progress.setElapsedTime(elapsed);
+            progress.setEstimatedTime(processed == 0 ? 0 : elapsed * (total - processed) / processed);
+            progress.setCurrentBatch(completedChunks + "/" + chunkCount);
+            return progress;
+        }
+
+        private synchronized void finish() {
+            finished = true;
+            finishTime = System.currentTimeMillis();
+            result.setElapsedTime(finishTime - startTime);
+            result.setCancelled(cancelled);
+            result.setCompleted(!cancelled && processed == total);
+        }
+
+        private synchronized BatchOperationResult toResult() {
+            return result;
+        }
+    }
+}
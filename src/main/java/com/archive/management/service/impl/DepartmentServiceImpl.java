@@ -1,11 +1,13 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.cache.VersionedSnapshot;
 import com.archive.management.dto.*;
 import com.archive.management.entity.Department;
 import com.archive.management.entity.User;
 import com.archive.management.repository.DepartmentRepository;
 import com.archive.management.repository.UserRepository;
 import com.archive.management.service.DepartmentService;
+import com.archive.management.service.NotificationService;
 import com.archive.management.service.UserService;
 import com.archive.management.common.PageResult;
 import com.archive.management.exception.BusinessException;
@@ -18,11 +20,14 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -49,6 +54,14 @@ public class DepartmentServiceImpl implements DepartmentService {
     private final DepartmentRepository departmentRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final NotificationService notificationService;
+
+    /** 部门树快照，部门或成员变更提交后失效 */
+    private final VersionedSnapshot<DepartmentTreeIndex> treeSnapshot = new VersionedSnapshot<>();
+
+    /** 快照最长存活时间，兜底其他节点上的变更 */
+    @Value("${department.tree.snapshot-max-age-ms:60000}")
+    private long treeSnapshotMaxAgeMs;
 
     // ==================== 部门CRUD操作 ====================
 
@@ -120,6 +133,8 @@ public class DepartmentServiceImpl implements DepartmentService {
             savedDepartment.buildPath(null);
         }
         departmentRepository.save(savedDepartment);
+        departmentRepository.insertClosure(savedDepartment.getId(), savedDepartment.getParentId());
+        invalidateDepartmentTree();
         
         log.info("部门创建成功: ID={}, 名称={}", savedDepartment.getId(), savedDepartment.getName());
         return convertToDepartmentResponse(savedDepartment);
@@ -180,6 +195,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         if (StringUtils.hasText(request.getName())) {
             department.setName(request.getName());
         }
+        String oldPath = department.getPath();
         if (StringUtils.hasText(request.getCode())) {
             department.setCode(request.getCode());
         }
@@ -213,7 +229,14 @@ public class DepartmentServiceImpl implements DepartmentService {
         
         department.setUpdateTime(LocalDateTime.now());
         
+        // 路径由编码组成，编码变化时同步后代路径
+        if (oldPath != null && !Objects.equals(department.getCode(), oldPath.substring(oldPath.lastIndexOf('/') + 1))) {
+            department.buildPath(oldPath.substring(0, oldPath.lastIndexOf('/')));
+            departmentRepository.rebaseDescendants(department.getId(), 0, oldPath.length(), department.getPath());
+        }
+        
         Department updatedDepartment = departmentRepository.save(department);
+        invalidateDepartmentTree();
         log.info("部门更新成功: ID={}", updatedDepartment.getId());
         
         return convertToDepartmentResponse(updatedDepartment);
@@ -239,6 +262,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         // 软删除
         department.softDelete(deletedBy);
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门删除成功: ID={}", id);
         return true;
@@ -258,6 +282,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         
         department.restore();
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门恢复成功: ID={}", id);
         return true;
@@ -328,23 +353,18 @@ public class DepartmentServiceImpl implements DepartmentService {
 
     @Override
     public List<DepartmentTreeResponse> getDepartmentTree() {
-        List<Department> allDepartments = departmentRepository.findByDeletedFalse();
-        return buildDepartmentTree(allDepartments, null);
+        return treeSnapshot.get(this::buildDepartmentTreeIndex, treeSnapshotMaxAgeMs).roots;
     }
 
     @Override
     public List<DepartmentTreeResponse> getDepartmentTree(Long rootId) {
-        List<Department> departments = new ArrayList<>();
-        
-        if (rootId != null) {
-            Department rootDept = getDepartmentById(rootId);
-            departments.add(rootDept);
-            departments.addAll(departmentRepository.findDescendants(rootId));
-        } else {
-            departments = departmentRepository.findByDeletedFalse();
+        if (rootId == null) {
+            return getDepartmentTree();
         }
         
-        return buildDepartmentTree(departments, rootId);
+        getDepartmentById(rootId);
+        DepartmentTreeResponse root = treeSnapshot.get(this::buildDepartmentTreeIndex, treeSnapshotMaxAgeMs).nodes.get(rootId);
+        return root == null ? new ArrayList<>() : root.getChildren();
     }
 
     // ==================== 部门层级关系管理 ====================
@@ -387,27 +407,12 @@ public class DepartmentServiceImpl implements DepartmentService {
             }
         }
         
-        // 更新部门信息
-        department.setParentId(newParentId);
-        
-        // 重新计算层级
-        if (newParentId != null) {
-            Department newParent = getDepartmentById(newParentId);
-            department.setLevel(newParent.getLevel() + 1);
-            // 重新构建路径，传入新父部门的路径
-            department.buildPath(newParent.getPath());
-        } else {
-            department.setLevel(1);
-            // 重新构建路径，根部门传入null
-            department.buildPath(null);
-        }
+        relocateSubtree(department, newParentId);
         department.setUpdateTime(LocalDateTime.now());
         department.setUpdateBy(updatedBy);
         
         departmentRepository.save(department);
-        
-        // 更新所有子部门的层级和路径
-        updateDescendantsHierarchy(departmentId);
+        invalidateDepartmentTree();
         
         log.info("部门移动成功: ID={}", departmentId);
         return true;
@@ -424,6 +429,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdateBy(updatedBy);
         
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门排序调整成功: ID={}", departmentId);
         return true;
@@ -473,6 +479,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdateBy(updatedBy);
         
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门负责人设置成功: 部门ID={}", departmentId);
         return true;
@@ -507,6 +514,7 @@ public class DepartmentServiceImpl implements DepartmentService {
             }
         }
         
+        invalidateDepartmentTree();
         log.info("批量分配用户完成: 成功分配{}个", assignedCount);
         return assignedCount;
     }
@@ -524,6 +532,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdateBy(updatedBy);
         
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门启用成功: ID={}", departmentId);
         return true;
@@ -540,6 +549,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdateBy(updatedBy);
         
         departmentRepository.save(department);
+        invalidateDepartmentTree();
         
         log.info("部门禁用成功: ID={}", departmentId);
         return true;
@@ -551,6 +561,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         log.info("批量更新部门状态: IDs={}, 状态={}, 操作人={}", departmentIds, status, updatedBy);
         
         departmentRepository.batchUpdateStatus(departmentIds, status);
+        invalidateDepartmentTree();
         
         log.info("批量更新部门状态完成: 更新{}个", departmentIds.size());
         return departmentIds.size();
@@ -599,8 +610,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
         
         // 检查是否会形成循环引用
-        List<Department> descendants = departmentRepository.findDescendants(departmentId);
-        return descendants.stream().noneMatch(dept -> dept.getId().equals(parentId));
+        return departmentRepository.countAncestry(departmentId, parentId) == 0;
     }
 
     // ==================== 部门统计操作 ====================
@@ -991,34 +1001,18 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
         
         try {
-            // 1. 获取部门下的所有用户
-            List<User> departmentUsers = userRepository.findByDepartmentIdAndDeletedFalse(departmentId);
+            // 1. 只取部门下用户的ID
+            List<Long> userIds = userRepository.findActiveUserIdsByDepartmentId(departmentId);
             
-            if (departmentUsers.isEmpty()) {
+            if (userIds.isEmpty()) {
                 log.warn("部门 {} 下没有用户，无法发送通知", departmentId);
                 return false;
             }
             
-            // 2. 为每个用户发送通知
-            int successCount = 0;
-            
-            for (User user : departmentUsers) {
-                try {
-                    // 这里应该调用通知服务发送通知
-                    // notificationService.sendNotification(user.getId(), title, content, type);
-                    
-                    // 暂时记录日志，实际项目中需要集成通知服务
-                    log.info("发送通知给用户 {}：{} - {}", user.getId(), title, content);
-                    successCount++;
-                    
-                } catch (Exception e) {
-                    log.error("发送通知给用户 {} 失败", user.getId(), e);
-                }
-            }
-            
-            boolean success = successCount > 0;
-            log.info("部门通知发送完成，成功：{}/{}", successCount, departmentUsers.size());
-            return success;
+            // 2. 交给批量投递：分块写库、只推送在线用户，不阻塞当前请求
+            int accepted = notificationService.sendBatchNotification(userIds, title, content, type);
+            log.info("部门通知已提交，接收人：{}/{}", accepted, userIds.size());
+            return accepted > 0;
             
         } catch (Exception e) {
             log.error("发送部门通知失败", e);
@@ -1199,63 +1193,113 @@ public class DepartmentServiceImpl implements DepartmentService {
     }
 
     /**
-     * 构建部门树形结构
+     * 把部门子树挂到新父部门下，调用方负责保存 department 本身
      */
-    private List<DepartmentTreeResponse> buildDepartmentTree(List<Department> departments, Long parentId) {
-        Map<Long, List<Department>> departmentMap = departments.stream()
-                .collect(Collectors.groupingBy(dept -> dept.getParentId() == null ? 0L : dept.getParentId()));
-        
-        return buildTreeRecursive(departmentMap, parentId == null ? 0L : parentId);
+    private void relocateSubtree(Department department, Long newParentId) {
+        Department newParent = newParentId == null ? null : getDepartmentById(newParentId);
+        departmentRepository.relocateSubtree(department, newParent);
     }
 
     /**
-     * 递归构建树形结构
+     * 部门树变更提交后使快照失效
      */
-    private List<DepartmentTreeResponse> buildTreeRecursive(Map<Long, List<Department>> departmentMap, Long parentId) {
-        List<Department> children = departmentMap.get(parentId);
-        if (children == null || children.isEmpty()) {
-            return new ArrayList<>();
+    private void invalidateDepartmentTree() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    treeSnapshot.invalidate();
+                }
+            });
+        } else {
+            treeSnapshot.invalidate();
         }
-        
-        return children.stream()
-                .map(dept -> {
-                    DepartmentTreeResponse response = convertToDepartmentTreeResponse(dept);
-                    List<DepartmentTreeResponse> childrenTree = buildTreeRecursive(departmentMap, dept.getId());
-                    response.setChildren(childrenTree);
-                    return response;
-                })
-                .sorted(Comparator.comparing(DepartmentTreeResponse::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())))
-                .collect(Collectors.toList());
     }
 
     /**
-     * 更新后代部门的层级和路径
+     * 构建部门树快照
+     * 部门、直属人数和负责人各查询一次，子树人数在内存中自底向上累加
      */
-    private void updateDescendantsHierarchy(Long departmentId) {
-        List<Department> descendants = departmentRepository.findDescendants(departmentId);
+    private DepartmentTreeIndex buildDepartmentTreeIndex() {
+        List<Department> departments = departmentRepository.findByDeletedFalse();
         
-        for (Department descendant : descendants) {
-            // 重新计算层级
-            if (descendant.getParentId() != null) {
-                Department parent = departmentRepository.findById(descendant.getParentId()).orElse(null);
-                if (parent != null) {
-                    descendant.setLevel(parent.getLevel() + 1);
-                    // 重新构建路径，传入父部门的路径
-                    descendant.buildPath(parent.getPath());
-                } else {
-                    // 如果找不到父部门，设为根部门
-                    descendant.setLevel(1);
-                    descendant.buildPath(null);
-                }
-            } else {
-                // 没有父部门，是根部门
-                descendant.setLevel(1);
-                descendant.buildPath(null);
+        Map<Long, Long> userCounts = new HashMap<>();
+        for (Object[] row : departmentRepository.countUsersGroupByDepartment()) {
+            userCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        
+        Map<Long, String> managerNames = new HashMap<>();
+        departments.stream()
+                .map(Department::getManagerId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(managerId -> {
+                    try {
+                        UserResponse manager = userService.getUserResponseById(managerId);
+                        if (manager != null) {
+                            managerNames.put(managerId, manager.getDisplayName());
+                        }
+                    } catch (Exception e) {
+                        log.warn("获取部门负责人信息失败: 负责人ID={}", managerId);
+                    }
+                });
+        
+        Map<Long, DepartmentTreeResponse> nodes = new HashMap<>();
+        for (Department department : departments) {
+            DepartmentTreeResponse node = new DepartmentTreeResponse();
+            BeanUtils.copyProperties(department, node);
+            node.setManagerName(managerNames.get(department.getManagerId()));
+            node.setUserCount(userCounts.getOrDefault(department.getId(), 0L));
+            node.setIsRoot(department.isRoot());
+            node.setIsEnabled(department.isEnabled());
+            node.setDisplayName(department.getDisplayName());
+            node.setChildren(new ArrayList<>());
+            nodes.put(department.getId(), node);
+        }
+        
+        List<DepartmentTreeResponse> roots = new ArrayList<>();
+        for (Department department : departments) {
+            Long parentId = department.getParentId();
+            if (parentId == null || parentId == 0L) {
+                roots.add(nodes.get(department.getId()));
+            } else if (nodes.containsKey(parentId)) {
+                nodes.get(parentId).getChildren().add(nodes.get(department.getId()));
             }
-            descendant.setUpdateTime(LocalDateTime.now());
         }
         
-        departmentRepository.saveAll(descendants);
+        roots.forEach(this::completeTreeNode);
+        roots.sort(TREE_NODE_ORDER);
+        return new DepartmentTreeIndex(roots, nodes);
+    }
+
+    private static final Comparator<DepartmentTreeResponse> TREE_NODE_ORDER =
+            Comparator.comparing(DepartmentTreeResponse::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * 排序子节点并累加子树人数
+     */
+    private long completeTreeNode(DepartmentTreeResponse node) {
+        long total = node.getUserCount();
+        for (DepartmentTreeResponse child : node.getChildren()) {
+            total += completeTreeNode(child);
+        }
+        node.getChildren().sort(TREE_NODE_ORDER);
+        node.setHasChildren(!node.getChildren().isEmpty());
+        node.setTotalUserCount(total);
+        return total;
+    }
+
+    /**
+     * 部门树快照内容：根节点列表与按ID索引的全部节点
+     */
+    private static final class DepartmentTreeIndex {
+        private final List<DepartmentTreeResponse> roots;
+        private final Map<Long, DepartmentTreeResponse> nodes;
+
+        private DepartmentTreeIndex(List<DepartmentTreeResponse> roots, Map<Long, DepartmentTreeResponse> nodes) {
+            this.roots = roots;
+            this.nodes = nodes;
+        }
     }
 
     /**
@@ -1300,42 +1344,6 @@ public class DepartmentServiceImpl implements DepartmentService {
         return response;
     }
 
-    /**
-     * 转换为部门树响应DTO
-     */
-    private DepartmentTreeResponse convertToDepartmentTreeResponse(Department department) {
-        if (department == null) {
-            return null;
-        }
-        
-        DepartmentTreeResponse response = new DepartmentTreeResponse();
-        BeanUtils.copyProperties(department, response);
-        
-        // 设置负责人信息
-        if (department.getManagerId() != null) {
-            try {
-                UserResponse manager = userService.getUserResponseById(department.getManagerId());
-                if (manager != null) {
-                    response.setManagerName(manager.getDisplayName());
-                }
-            } catch (Exception e) {
-                log.warn("获取部门负责人信息失败: 部门ID={}, 负责人ID={}", department.getId(), department.getManagerId());
-            }
-        }
-        
-        // 设置用户数量
-        response.setUserCount(departmentRepository.getUserCount(department.getId()));
-        response.setTotalUserCount(departmentRepository.getTotalUserCount(department.getId()));
-        
-        // 设置状态标识
-        response.setIsRoot(department.isRoot());
-        response.setIsEnabled(department.isEnabled());
-        response.setHasChildren(departmentRepository.hasChildren(department.getId()));
-        response.setDisplayName(department.getDisplayName());
-        
-        return response;
-    }
-
     // ==================== 导出辅助方法 ====================
 
     /**
@@ -1545,7 +1553,12 @@ public class DepartmentServiceImpl implements DepartmentService {
         // 更新字段
         existing.setName(newData.getName());
         existing.setDescription(newData.getDescription());
-        existing.setParentId(newData.getParentId());
+        if (!Objects.equals(existing.getParentId(), newData.getParentId())) {
+            if (!validateDepartmentHierarchy(existing.getId(), newData.getParentId())) {
+                throw new BusinessException(ResponseCode.PARAM_ERROR);
+            }
+            relocateSubtree(existing, newData.getParentId());
+        }
         existing.setManagerId(newData.getManagerId());
         existing.setEnabled(newData.isEnabled());
         existing.setSortOrder(newData.getSortOrder());
@@ -1556,6 +1569,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         
         // 保存
         departmentRepository.save(existing);
+        invalidateDepartmentTree();
     }
 
     /**
@@ -1575,8 +1589,16 @@ public class DepartmentServiceImpl implements DepartmentService {
             department.setSortOrder(0);
         }
         
+        // 层级和路径取自父部门
+        Department parent = department.getParentId() == null ? null
+                : departmentRepository.findById(department.getParentId()).orElse(null);
+        department.setLevel(parent == null ? 1 : parent.getLevel() + 1);
+        department.buildPath(parent == null ? null : parent.getPath());
+        
         // 保存
         departmentRepository.save(department);
+        departmentRepository.insertClosure(department.getId(), parent == null ? null : parent.getId());
+        invalidateDepartmentTree();
     }
 
     // ==================== 权限辅助方法 ====================
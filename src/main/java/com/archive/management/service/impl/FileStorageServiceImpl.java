@@ -131,6 +131,30 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
     }
 
+    @Override
+    public InputStream downloadFile(String objectName, long offset, long length) throws Exception {
+        if (!StringUtils.hasText(objectName)) {
+            throw new IllegalArgumentException("对象名称不能为空");
+        }
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("下载区间不正确: offset=" + offset + ", length=" + length);
+        }
+
+        try {
+            // 只向 MinIO 请求所需区间，不读取整个对象
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+            
+        } catch (Exception e) {
+            log.error("文件区间下载失败: {}, offset={}, length={}, 错误: {}", objectName, offset, length, e.getMessage(), e);
+            throw new Exception("文件下载失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean deleteFile(String objectName) throws Exception {
         if (!StringUtils.hasText(objectName)) {
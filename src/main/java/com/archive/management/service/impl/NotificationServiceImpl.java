@@ -1,7 +1,10 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.counter.UnreadNotificationCounter;
 import com.archive.management.entity.Notification;
+import com.archive.management.exception.BusinessException;
 import com.archive.management.mapper.NotificationMapper;
+import com.archive.management.notification.NotificationFanout;
 import com.archive.management.service.NotificationService;
 import com.archive.management.service.SmsService;
 import com.archive.management.util.EmailUtil;
@@ -19,8 +22,10 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -47,10 +52,16 @@ public class NotificationServiceImpl implements NotificationService {
     @Autowired
     private SmsService smsService;
 
+    @Autowired
+    private NotificationFanout notificationFanout;
+
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+
     @Override
     public boolean sendNotification(Long userId, String title, String content, String type) {
         try {
-            Notification notification = buildNotification(userId, title, content, type);
+            Notification notification = buildNotification(userId, title, content, Integer.valueOf(type));
             return sendNotificationInternal(notification);
         } catch (Exception e) {
             log.error("发送通知失败: userId={}, title={}, type={}", userId, title, type, e);
@@ -64,18 +75,26 @@ public class NotificationServiceImpl implements NotificationService {
             return 0;
         }
 
-        int successCount = 0;
+        // 类型非法时在调用线程上直接失败，不进入异步投递
+        Integer notificationType;
         try {
-            for (Long userId : userIds) {
-                if (sendNotification(userId, title, content, type)) {
-                    successCount++;
-                }
-            }
-            log.info("批量通知发送完成: 成功{}/总共{}", successCount, userIds.size());
+            notificationType = Integer.valueOf(type);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("通知类型无效: " + type);
+        }
+
+        try {
+            Set<Long> recipients = new LinkedHashSet<>(userIds);
+            recipients.remove(null);
+            notificationFanout.submit(recipients,
+                    userId -> buildNotification(userId, title, content, notificationType),
+                    this::sendExternalNotificationsAsync);
+            log.info("批量通知已提交: 接收人{}, title={}", recipients.size(), title);
+            return recipients.size();
         } catch (Exception e) {
             log.error("批量发送通知失败", e);
+            return 0;
         }
-        return successCount;
     }
 
     @Override
@@ -124,35 +143,11 @@ public class NotificationServiceImpl implements NotificationService {
     public boolean markAsRead(Long notificationId, Long userId) {
         try {
             Notification notification = notificationMapper.selectById(notificationId);
-            if (notification == null) {
-                log.warn("通知不存在: notificationId={}", notificationId);
-                return false;
+            int result = markAsReadInternal(notification, notificationId, userId);
+            if (result > 0 && notification.getUserId() != null) {
+                unreadCounter.decrement(notification.getUserId(), 1);
             }
-
-            // 检查权限（只能标记自己的通知或广播通知）
-            if (notification.getUserId() != null && !notification.getUserId().equals(userId)) {
-                log.warn("无权限标记通知为已读: notificationId={}, userId={}", notificationId, userId);
-                return false;
-            }
-
-            // 如果已经是已读状态，直接返回成功
-            if (BusinessConstants.NotificationStatus.READ.equals(notification.getStatus())) {
-                return true;
-            }
-
-            // 标记为已读
-            notification.setStatus(BusinessConstants.NotificationStatus.READ);
-            notification.setReadTime(LocalDateTime.now());
-            notification.setUpdateTime(LocalDateTime.now());
-
-            int result = notificationMapper.updateById(notification);
-            if (result > 0) {
-                // 通过WebSocket更新未读数量
-                updateUnreadCountAsync(userId);
-                log.info("通知标记为已读成功: notificationId={}, userId={}", notificationId, userId);
-                return true;
-            }
-            return false;
+            return result >= 0;
         } catch (Exception e) {
             log.error("标记通知为已读失败: notificationId={}, userId={}", notificationId, userId, e);
             return false;
@@ -166,19 +161,44 @@ public class NotificationServiceImpl implements NotificationService {
         }
 
         int successCount = 0;
+        int readCount = 0;
         try {
             for (Long notificationId : notificationIds) {
-                if (markAsRead(notificationId, userId)) {
-                    successCount++;
+                try {
+                    Notification notification = notificationMapper.selectById(notificationId);
+                    int result = markAsReadInternal(notification, notificationId, userId);
+                    if (result >= 0) {
+                        successCount++;
+                    }
+                    if (result > 0 && notification.getUserId() != null) {
+                        readCount++;
+                    }
+                } catch (Exception e) {
+                    log.error("标记通知为已读失败: notificationId={}, userId={}", notificationId, userId, e);
                 }
             }
             log.info("批量标记通知为已读完成: 成功{}/总共{}", successCount, notificationIds.size());
         } catch (Exception e) {
             log.error("批量标记通知为已读失败: userId={}", userId, e);
         }
+        // 整批只调整一次未读数
+        unreadCounter.decrement(userId, readCount);
         return successCount;
     }
 
+    @Override
+    public int markAllAsRead(Long userId) {
+        try {
+            int count = notificationMapper.markAllAsRead(userId, LocalDateTime.now());
+            unreadCounter.reset(userId);
+            log.info("全部通知标记为已读: userId={}, 数量={}", userId, count);
+            return count;
+        } catch (Exception e) {
+            log.error("标记全部通知为已读失败: userId={}", userId, e);
+            return 0;
+        }
+    }
+
     @Override
     public boolean deleteNotification(Long notificationId, Long userId) {
         try {
@@ -194,14 +214,17 @@ public class NotificationServiceImpl implements NotificationService {
                 return false;
             }
 
+            boolean unread = BusinessConstants.NotificationStatus.UNREAD.equals(notification.getStatus());
+
             // 逻辑删除
             notification.setDeleted(1);
             notification.setUpdateTime(LocalDateTime.now());
 
             int result = notificationMapper.updateById(notification);
             if (result > 0) {
-                // 通过WebSocket更新未读数量
-                updateUnreadCountAsync(userId);
+                if (unread && notification.getUserId() != null) {
+                    unreadCounter.decrement(notification.getUserId(), 1);
+                }
                 log.info("删除通知成功: notificationId={}, userId={}", notificationId, userId);
                 return true;
             }
@@ -215,12 +238,7 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public long getUnreadCount(Long userId) {
         try {
-            QueryWrapper<Notification> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("user_id", userId)
-                       .eq("status", BusinessConstants.NotificationStatus.UNREAD)
-                       .eq("deleted", 0);
-
-            return notificationMapper.selectCount(queryWrapper);
+            return unreadCounter.get(userId);
         } catch (Exception e) {
             log.error("获取未读通知数量失败: userId={}", userId, e);
             return 0L;
@@ -464,15 +482,49 @@ public class NotificationServiceImpl implements NotificationService {
 
     // ==================== 私有辅助方法 ====================
 
+    /**
+     * 标记单条通知为已读
+     * 
+     * @return 1 已标记，0 原本已读，-1 不存在、无权限或更新失败
+     */
+    private int markAsReadInternal(Notification notification, Long notificationId, Long userId) {
+        if (notification == null) {
+            log.warn("通知不存在: notificationId={}", notificationId);
+            return -1;
+        }
+
+        // 检查权限（只能标记自己的通知或广播通知）
+        if (notification.getUserId() != null && !notification.getUserId().equals(userId)) {
+            log.warn("无权限标记通知为已读: notificationId={}, userId={}", notificationId, userId);
+            return -1;
+        }
+
+        // 如果已经是已读状态，直接返回成功
+        if (BusinessConstants.NotificationStatus.READ.equals(notification.getStatus())) {
+            return 0;
+        }
+
+        // 标记为已读
+        notification.setStatus(BusinessConstants.NotificationStatus.READ);
+        notification.setReadTime(LocalDateTime.now());
+        notification.setUpdateTime(LocalDateTime.now());
+
+        if (notificationMapper.updateById(notification) > 0) {
+            log.info("通知标记为已读成功: notificationId={}, userId={}", notificationId, userId);
+            return 1;
+        }
+        return -1;
+    }
+
     /**
      * 构建通知对象
      */
-    private Notification buildNotification(Long userId, String title, String content, String type) {
+    private Notification buildNotification(Long userId, String title, String content, Integer type) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setTitle(title);
         notification.setContent(content);
-        notification.setNotificationType(Integer.valueOf(type));
+        notification.setNotificationType(type);
         notification.setStatus(BusinessConstants.NotificationStatus.UNREAD);
         notification.setPriority(1); // 默认普通优先级
         notification.setCreateTime(LocalDateTime.now());
@@ -515,6 +567,11 @@ public class NotificationServiceImpl implements NotificationService {
                 return false;
             }
 
+            if (notification.getUserId() != null
+                    && BusinessConstants.NotificationStatus.UNREAD.equals(notification.getStatus())) {
+                unreadCounter.increment(notification.getUserId());
+            }
+
             // 异步发送各种通知
             sendAsyncNotifications(notification);
 
@@ -574,21 +631,44 @@ public class NotificationServiceImpl implements NotificationService {
                     }
                 }
 
-                // 邮件通知
-                if (notification.needEmailNotify()) {
-                    sendEmailNotificationInternal(notification);
-                }
+                sendExternalNotifications(notification);
+            } catch (Exception e) {
+                log.error("异步发送通知失败: notificationId={}", notification.getNotificationId(), e);
+            }
+        });
+    }
 
-                // 短信通知
-                if (notification.needSmsNotify()) {
-                    sendSmsNotificationInternal(notification);
-                }
+    /**
+     * 异步发送邮件、短信通知（批量投递写库后调用，WebSocket 已由批量投递推送）
+     */
+    private void sendExternalNotificationsAsync(Notification notification) {
+        if (!notification.needEmailNotify() && !notification.needSmsNotify()) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                sendExternalNotifications(notification);
             } catch (Exception e) {
                 log.error("异步发送通知失败: notificationId={}", notification.getNotificationId(), e);
             }
         });
     }
 
+    /**
+     * 发送邮件、短信通知
+     */
+    private void sendExternalNotifications(Notification notification) {
+        // 邮件通知
+        if (notification.needEmailNotify()) {
+            sendEmailNotificationInternal(notification);
+        }
+
+        // 短信通知
+        if (notification.needSmsNotify()) {
+            sendSmsNotificationInternal(notification);
+        }
+    }
+
     /**
      * 内部邮件通知发送
      */
@@ -621,21 +701,6 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
-    /**
-     * 异步更新未读数量
-     */
-    private void updateUnreadCountAsync(Long userId) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 这里需要实现WebSocketHandler的updateUnreadCount方法
-                // webSocketHandler.updateUnreadCount(userId);
-                log.debug("更新用户未读通知数量: userId={}", userId);
-            } catch (Exception e) {
-                log.error("更新未读通知数量失败: userId={}", userId, e);
-            }
-        });
-    }
-
     /**
      * 构建邮件内容
      */
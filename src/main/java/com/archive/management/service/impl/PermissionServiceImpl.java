@@ -1,11 +1,15 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.annotation.EvictCacheTags;
 import com.archive.management.constant.*;
 import com.archive.management.entity.Permission;
 import com.archive.management.event.PermissionChangedEvent;
 import com.archive.management.mapper.OperationLogMapper;
 import com.archive.management.mapper.PermissionMapper;
 import com.archive.management.mapper.RolePermissionMapper;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.permission.PermissionForest;
+import com.archive.management.permission.PermissionForestHolder;
 import com.archive.management.service.PermissionService;
 import com.archive.management.sync.AnnotationPermissionScanner;
 import com.archive.management.sync.ConfigPermissionReader;
@@ -18,6 +22,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationEventPublisher;
@@ -50,12 +55,14 @@ public class PermissionServiceImpl implements PermissionService {
     private final PermissionDiffCalculator permissionDiffCalculator;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final OperationLogMapper operationLogMapper;
+    private final PermissionDecisionEngine permissionDecisionEngine;
+    private final PermissionForestHolder permissionForestHolder;
 
     // ==================== 权限CRUD操作 ====================
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @EvictCacheTags("'permission:*'")
     public Permission createPermission(Permission permission) {
         log.info("开始创建权限：{}", permission.getPermissionCode());
         
@@ -76,11 +83,12 @@ public class PermissionServiceImpl implements PermissionService {
         }
         
         log.info("权限创建成功：{}, ID：{}", permission.getPermissionCode(), permission.getId());
+        publishPermissionChangedEvent(permission.getId(), "CREATE", permission.getCreateBy(), "创建权限");
         return permission;
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "#id", unless = "#result == null")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key(#id, 'permission:' + #id)", sync = true)
     public Permission getPermissionById(Long id) {
         if (id == null) {
             return null;
@@ -89,7 +97,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'code:' + #permissionCode", unless = "#result == null")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('code:' + #permissionCode, 'permission:*')", unless = "#result == null")
     public Permission getPermissionByCode(String permissionCode) {
         if (!StringUtils.hasText(permissionCode)) {
             return null;
@@ -98,7 +106,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'name:' + #permissionName", unless = "#result == null")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('name:' + #permissionName, 'permission:*')", unless = "#result == null")
     public Permission getPermissionByName(String permissionName) {
         if (!StringUtils.hasText(permissionName)) {
             return null;
@@ -107,7 +115,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'path:' + #permissionPath", unless = "#result == null")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('path:' + #permissionPath, 'permission:*')", unless = "#result == null")
     public Permission getPermissionByPath(String permissionPath) {
         if (!StringUtils.hasText(permissionPath)) {
             return null;
@@ -117,7 +125,8 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @CacheEvict(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "#permission.id")
+    @EvictCacheTags({"'permission:' + #permission.id", "'permission:*'"})
     public Permission updatePermission(Permission permission) {
         log.info("开始更新权限：{}", permission.getId());
         
@@ -148,12 +157,14 @@ public class PermissionServiceImpl implements PermissionService {
         }
         
         log.info("权限更新成功：{}", permission.getId());
+        publishPermissionChangedEvent(permission.getId(), "UPDATE", permission.getUpdateBy(), "更新权限");
         return permission;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @CacheEvict(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "#id")
+    @EvictCacheTags({"'permission:' + #id", "'permission:*'"})
     public boolean deletePermission(Long id, Long deletedBy) {
         log.info("开始删除权限：{}", id);
         
@@ -197,6 +208,7 @@ public class PermissionServiceImpl implements PermissionService {
         }
         
         log.info("权限删除成功：{}", id);
+        publishPermissionChangedEvent(id, "DELETE", deletedBy, "删除权限");
         return true;
     }
 
@@ -396,31 +408,31 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'enabled'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('enabled', 'permission:*')")
     public List<Permission> findEnabledPermissions() {
         return permissionMapper.findEnabledPermissions();
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'root'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('root', 'permission:*')")
     public List<Permission> findRootPermissions() {
         return permissionMapper.findRootPermissions();
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'menu'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('menu', 'permission:*')")
     public List<Permission> findMenuPermissions() {
         return permissionMapper.findByPermissionType(PermissionConstants.Type.MENU);
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'button'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('button', 'permission:*')")
     public List<Permission> findButtonPermissions() {
         return permissionMapper.findByPermissionType(PermissionConstants.Type.BUTTON);
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'api'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('api', 'permission:*')")
     public List<Permission> findApiPermissions() {
         return permissionMapper.findByPermissionType(PermissionConstants.Type.API);
     }
@@ -429,7 +441,7 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @EvictCacheTags({"#ids.!['permission:' + #this]", "'permission:*'"})
     public int batchDeletePermissions(List<Long> ids, Long deletedBy) {
         log.info("开始批量删除权限：{}", ids);
         
@@ -462,26 +474,29 @@ public class PermissionServiceImpl implements PermissionService {
         
         int result = permissionMapper.update(null, updateWrapper);
         log.info("批量删除权限完成，影响行数：{}", result);
+        publishPermissionChangedEvent(null, "SYNC", deletedBy, "批量删除权限");
         return result;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @CacheEvict(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "#id")
+    @EvictCacheTags({"'permission:' + #id", "'permission:*'"})
     public boolean enablePermission(Long id, Long updatedBy) {
         return updatePermissionStatus(id, SystemConstants.ConfigStatus.ENABLED, updatedBy);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @CacheEvict(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "#id")
+    @EvictCacheTags({"'permission:' + #id", "'permission:*'"})
     public boolean disablePermission(Long id, Long updatedBy) {
         return updatePermissionStatus(id, SystemConstants.ConfigStatus.DISABLED, updatedBy);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @EvictCacheTags({"#ids.!['permission:' + #this]", "'permission:*'"})
     public int batchUpdatePermissionStatus(List<Long> ids, Integer status, Long updatedBy) {
         log.info("开始批量更新权限状态：{}, 状态：{}", ids, status);
         
@@ -501,6 +516,7 @@ public class PermissionServiceImpl implements PermissionService {
         
         int result = permissionMapper.update(null, updateWrapper);
         log.info("批量更新权限状态完成，影响行数：{}", result);
+        publishPermissionChangedEvent(null, "SYNC", updatedBy, "批量更新权限状态");
         return result;
     }
 
@@ -572,7 +588,7 @@ public class PermissionServiceImpl implements PermissionService {
 
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "'user:' + #userId")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "T(com.archive.management.cache.CacheTags).key('user:' + #userId, 'permission:*', 'role-permission:*', 'user:' + #userId)", sync = true)
     public List<Map<String, Object>> getUserPermissionTree(Long userId) {
         log.info("构建用户权限树：{}", userId);
         
@@ -580,15 +596,13 @@ public class PermissionServiceImpl implements PermissionService {
             return new ArrayList<>();
         }
         
-        // 获取用户权限
-        List<Permission> userPermissions = permissionMapper.findByUserId(userId);
-        
-        List<Permission> tree = buildTree(userPermissions, SecurityConstants.ROOT_PERMISSION_PARENT_ID);
-        return convertToTreeMap(tree);
+        // 以用户拥有的权限ID为掩码投影共享权限森林
+        PermissionForest forest = permissionForestHolder.get();
+        return forest.project(forest.maskOf(rolePermissionMapper.selectPermissionIdsByUserId(userId)), this::toTreeMap);
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "'role:' + #roleId")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "T(com.archive.management.cache.CacheTags).key('role:' + #roleId, 'permission:*', 'role:' + #roleId)", sync = true)
     public List<Map<String, Object>> getRolePermissionTree(Long roleId) {
         log.info("构建角色权限树：{}", roleId);
         
@@ -596,11 +610,9 @@ public class PermissionServiceImpl implements PermissionService {
             return new ArrayList<>();
         }
         
-        // 获取角色权限
-        List<Permission> rolePermissions = permissionMapper.findByRoleId(roleId);
-        
-        List<Permission> tree = buildTree(rolePermissions, SecurityConstants.ROOT_PERMISSION_PARENT_ID);
-        return convertToTreeMap(tree);
+        // 以角色拥有的权限ID为掩码投影共享权限森林
+        PermissionForest forest = permissionForestHolder.get();
+        return forest.project(forest.maskOf(rolePermissionMapper.selectPermissionIdsByRoleId(roleId)), this::toTreeMap);
     }
 
     // ==================== 权限验证方法 ====================
@@ -641,9 +653,7 @@ public class PermissionServiceImpl implements PermissionService {
             return new ArrayList<>();
         }
         
-        List<Long> childIds = new ArrayList<>();
-        collectChildPermissionIds(parentId, childIds);
-        return childIds;
+        return permissionForestHolder.get().descendantIds(parentId);
     }
 
     @Override
@@ -700,6 +710,9 @@ public class PermissionServiceImpl implements PermissionService {
             return false;
         }
         
+        if (permissionDecisionEngine.isReady()) {
+            return permissionDecisionEngine.hasPermission(userId, permissionCode);
+        }
         return permissionMapper.checkUserPermissionByCode(userId, permissionCode) > 0;
     }
 
@@ -709,6 +722,9 @@ public class PermissionServiceImpl implements PermissionService {
             return false;
         }
         
+        if (permissionDecisionEngine.isReady()) {
+            return permissionDecisionEngine.hasPathPermission(userId, permissionPath);
+        }
         return permissionMapper.checkUserPermissionByPath(userId, permissionPath) > 0;
     }
 
@@ -769,42 +785,10 @@ public class PermissionServiceImpl implements PermissionService {
                    .set(Permission::getUpdateTime, LocalDateTime.now());
         
         int result = permissionMapper.update(null, updateWrapper);
-        return result > 0;
-    }
-
-    /**
-     * 构建权限树
-     */
-    private List<Permission> buildTree(List<Permission> permissions, Long parentId) {
-        if (CollectionUtils.isEmpty(permissions)) {
-            return new ArrayList<>();
-        }
-        
-        List<Permission> tree = new ArrayList<>();
-        
-        for (Permission permission : permissions) {
-            if (Objects.equals(permission.getParentId(), parentId)) {
-                List<Permission> children = buildTree(permissions, permission.getId());
-                permission.setChildren(children);
-                tree.add(permission);
-            }
-        }
-        
-        // 按排序号排序
-        tree.sort(Comparator.comparing(Permission::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())));
-        
-        return tree;
-    }
-
-    /**
-     * 递归收集子权限ID
-     */
-    private void collectChildPermissionIds(Long parentId, List<Long> childIds) {
-        List<Permission> children = findPermissionsByParentId(parentId);
-        for (Permission child : children) {
-            childIds.add(child.getId());
-            collectChildPermissionIds(child.getId(), childIds);
+        if (result > 0) {
+            publishPermissionChangedEvent(id, "UPDATE", updatedBy, "更新权限状态");
         }
+        return result > 0;
     }
 
     @Override
@@ -827,7 +811,7 @@ public class PermissionServiceImpl implements PermissionService {
     // ==================== 统计方法 ====================
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'type_statistics'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('type_statistics', 'permission:*')")
     public List<Map<String, Object>> getPermissionTypeStatistics() {
         log.info("开始获取权限类型统计");
         
@@ -859,7 +843,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'status_statistics'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('status_statistics', 'permission:*')")
     public List<Map<String, Object>> getPermissionStatusStatistics() {
         log.info("开始获取权限状态统计");
         
@@ -881,7 +865,7 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "'total_count'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_PREFIX, key = "T(com.archive.management.cache.CacheTags).key('total_count', 'permission:*')")
     public long countPermissions() {
         log.info("开始统计权限总数");
         
@@ -896,19 +880,18 @@ public class PermissionServiceImpl implements PermissionService {
     // ==================== 权限树方法修正 ====================
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "'all'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "T(com.archive.management.cache.CacheTags).key('all', 'permission:*')", sync = true)
     public List<Permission> buildPermissionTree() {
         log.info("开始构建完整权限树");
         
-        // 获取所有权限
-        List<Permission> allPermissions = permissionMapper.selectList(
-            new LambdaQueryWrapper<Permission>()
-                .eq(Permission::getDeleted, SecurityConstants.DeleteFlag.NOT_DELETED)
-                .orderByAsc(Permission::getSort, Permission::getId)
-        );
-        
-        // 构建树结构
-        List<Permission> tree = buildTree(allPermissions, null);
+        // 从共享权限森林复制出带子节点的权限对象，不修改森林中的实例
+        PermissionForest forest = permissionForestHolder.get();
+        List<Permission> tree = forest.project(forest.all(), (permission, children) -> {
+            Permission node = new Permission();
+            BeanUtils.copyProperties(permission, node);
+            node.setChildren(children);
+            return node;
+        });
         log.info("权限树构建完成，根节点数量：{}", tree.size());
         return tree;
     }
@@ -919,31 +902,26 @@ public class PermissionServiceImpl implements PermissionService {
             return new ArrayList<>();
         }
         
-        return convertToTreeMap(buildTree(permissions, null));
+        PermissionForest forest = PermissionForest.build(0L, permissions);
+        return forest.project(forest.all(), this::toTreeMap);
     }
 
     @Override
     public List<Map<String, Object>> getPermissionTree() {
-        List<Permission> tree = buildPermissionTree();
-        return convertToTreeMap(tree);
+        PermissionForest forest = permissionForestHolder.get();
+        return forest.project(forest.all(), this::toTreeMap);
     }
 
     @Override
-    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "'enabled'")
+    @Cacheable(value = SecurityConstants.Cache.PERMISSION_TREE, key = "T(com.archive.management.cache.CacheTags).key('enabled', 'permission:*')", sync = true)
     public List<Map<String, Object>> getEnabledPermissionTree() {
         log.info("开始构建启用权限树");
         
-        // 获取所有启用的权限
-        List<Permission> enabledPermissions = permissionMapper.selectList(
-            new LambdaQueryWrapper<Permission>()
-                .eq(Permission::getDeleted, SecurityConstants.DeleteFlag.NOT_DELETED)
-                .eq(Permission::getStatus, SystemConstants.ConfigStatus.ENABLED)
-                .orderByAsc(Permission::getSort, Permission::getId)
-        );
-        
-        // 构建树结构并转换为Map格式
-        List<Permission> tree = buildTree(enabledPermissions, null);
-        List<Map<String, Object>> result = convertToTreeMap(tree);
+        // 启用状态作为掩码投影共享权限森林
+        PermissionForest forest = permissionForestHolder.get();
+        List<Map<String, Object>> result = forest.project(
+            forest.mask(permission -> SystemConstants.ConfigStatus.ENABLED.equals(permission.getStatus())),
+            this::toTreeMap);
         
         log.info("启用权限树构建完成，根节点数量：{}", result.size());
         return result;
@@ -996,12 +974,14 @@ public class PermissionServiceImpl implements PermissionService {
         updateChildPermissionPaths(permissionId);
         
         log.info("权限移动成功：{}", permissionId);
+        // 移动会改变整棵子树的层级路径，按全量变更处理
+        publishPermissionChangedEvent(null, "SYNC", updatedBy, "移动权限");
         return true;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @EvictCacheTags("'permission:*'")
     public Permission copyPermission(Long sourcePermissionId, String newPermissionCode, 
                                    String newPermissionName, Long parentId, Long createdBy) {
         log.info("开始复制权限：{} 为新权限：{}", sourcePermissionId, newPermissionCode);
@@ -1061,7 +1041,7 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {SecurityConstants.Cache.PERMISSION_PREFIX, SecurityConstants.Cache.PERMISSION_TREE}, allEntries = true)
+    @EvictCacheTags("'permission:*'")
     public int batchCopyPermissions(List<Long> sourcePermissionIds, Long targetParentId, Long createdBy) {
         log.info("开始批量复制权限：{} 到父权限：{}", sourcePermissionIds, targetParentId);
         
@@ -1161,41 +1141,34 @@ public class PermissionServiceImpl implements PermissionService {
     // ==================== 私有辅助方法 ====================
 
     /**
-     * 将权限树转换为Map格式
+     * 将权限树节点转换为Map格式
      */
-    private List<Map<String, Object>> convertToTreeMap(List<Permission> tree) {
-        if (CollectionUtils.isEmpty(tree)) {
-            return new ArrayList<>();
-        }
-        
-        return tree.stream().map(permission -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", permission.getId());
-            map.put("permissionName", permission.getPermissionName());
-            map.put("permissionCode", permission.getPermissionCode());
-            map.put("permissionType", permission.getPermissionType());
-            map.put("parentId", permission.getParentId());
-            map.put("permissionPath", permission.getPermissionPath());
-            map.put("permissionLevel", permission.getPermissionLevel());
-            map.put("menuUrl", permission.getMenuUrl());
-            map.put("icon", permission.getIcon());
-            map.put("component", permission.getComponent());
-            map.put("apiUrl", permission.getApiUrl());
-            map.put("httpMethod", permission.getHttpMethod());
-            map.put("status", permission.getStatus());
-            map.put("isSystemPermission", permission.getIsSystemPermission());
-            map.put("showInMenu", permission.getShowInMenu());
-            map.put("keepAlive", permission.getKeepAlive());
-            map.put("sort", permission.getSort());
-            map.put("description", permission.getDescription());
-            
-            // 递归处理子权限
-            if (!CollectionUtils.isEmpty(permission.getChildren())) {
-                map.put("children", convertToTreeMap(permission.getChildren()));
-            }
-            
-            return map;
-        }).collect(Collectors.toList());
+    private Map<String, Object> toTreeMap(Permission permission, List<Map<String, Object>> children) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", permission.getId());
+        map.put("permissionName", permission.getPermissionName());
+        map.put("permissionCode", permission.getPermissionCode());
+        map.put("permissionType", permission.getPermissionType());
+        map.put("parentId", permission.getParentId());
+        map.put("permissionPath", permission.getPermissionPath());
+        map.put("permissionLevel", permission.getPermissionLevel());
+        map.put("menuUrl", permission.getMenuUrl());
+        map.put("icon", permission.getIcon());
+        map.put("component", permission.getComponent());
+        map.put("apiUrl", permission.getApiUrl());
+        map.put("httpMethod", permission.getHttpMethod());
+        map.put("status", permission.getStatus());
+        map.put("isSystemPermission", permission.getIsSystemPermission());
+        map.put("showInMenu", permission.getShowInMenu());
+        map.put("keepAlive", permission.getKeepAlive());
+        map.put("sort", permission.getSort());
+        map.put("description", permission.getDescription());
+        
+        if (!children.isEmpty()) {
+            map.put("children", children);
+        }
+        
+        return map;
     }
 
     /**
@@ -1536,6 +1509,10 @@ public class PermissionServiceImpl implements PermissionService {
         }
         
         try {
+            if (permissionDecisionEngine.isReady()) {
+                return permissionDecisionEngine.hasApiPermission(userId, requestMethod, normalizePath(requestPath));
+            }
+            
             // 1. 获取用户的所有权限
             List<Permission> userPermissions = permissionMapper.findByUserId(userId);
             
@@ -1,5 +1,6 @@
 package com.archive.management.service.impl;
 
+import com.archive.management.annotation.EvictCacheTags;
 import com.archive.management.entity.Role;
 import com.archive.management.entity.Permission;
 import com.archive.management.entity.User;
@@ -10,6 +11,9 @@ import com.archive.management.mapper.UserMapper;
 import com.archive.management.mapper.RolePermissionMapper;
 import com.archive.management.mapper.UserRoleMapper;
 import com.archive.management.mapper.RoleHierarchyMapper;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.permission.PermissionForest;
+import com.archive.management.permission.PermissionForestHolder;
 import com.archive.management.service.RoleService;
 import com.archive.management.service.CacheService;
 import com.archive.management.exception.BusinessException;
@@ -68,6 +72,12 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private PermissionDecisionEngine permissionDecisionEngine;
+
+    @Autowired
+    private PermissionForestHolder permissionForestHolder;
+
     @Autowired
     private RolePermissionMapper rolePermissionMapper;
 
@@ -98,7 +108,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 创建角色
      */
     @Override
-    @CacheEvict(value = "roleCache", allEntries = true)
+    @EvictCacheTags("'role:*'")
     public Role createRole(Role role) {
         log.info("创建角色: {}", role.getRoleName());
         
@@ -131,7 +141,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据ID获取角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "#roleId")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key(#roleId, 'role:' + #roleId)", sync = true)
     public Role getRoleById(Long roleId) {
         if (roleId == null) {
             throw new IllegalArgumentException("角色ID不能为空");
@@ -149,10 +159,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 更新角色
      */
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#role.id"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "roleCache", key = "#role.id")
+    @EvictCacheTags({"'role:' + #role.id", "'role:*'"})
     public Role updateRole(Role role) {
         log.info("更新角色: {}", role.getId());
         
@@ -195,10 +203,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 删除角色（软删除）
      */
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#roleId"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "roleCache", key = "#roleId")
+    @EvictCacheTags({"'role:' + #roleId", "'role:*'"})
     public boolean deleteRole(Long roleId, Long deletedBy) {
         log.info("删除角色: {}", roleId);
         
@@ -235,7 +241,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 批量删除角色
      */
     @Override
-    @CacheEvict(value = "roleCache", allEntries = true)
+    @EvictCacheTags({"#roleIds.!['role:' + #this]", "'role:*'"})
     public boolean batchDeleteRoles(List<Long> roleIds, Long deletedBy) {
         log.info("批量删除角色: {}", roleIds);
         
@@ -273,11 +279,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#roleId"),
-        @CacheEvict(value = "rolePermissionCache", key = "#roleId"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "rolePermissionCache", key = "#roleId")
+    @EvictCacheTags({"'role:' + #roleId", "#permissionIds.!['permission:' + #this]", "'role-permission:*'"})
     public boolean assignPermissions(Long roleId, List<Long> permissionIds, Long updatedBy) {
         log.info("为角色分配权限: roleId={}, permissionIds={}", roleId, permissionIds);
         
@@ -304,6 +307,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         roleMapper.batchInsertRolePermissions(roleId, permissionIds);
         
         log.info("角色权限分配成功: roleId={}, 权限数量={}", roleId, permissionIds.size());
+        permissionDecisionEngine.onRolePermissionsChanged(roleId);
         
         return true;
     }
@@ -313,11 +317,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#roleId"),
-        @CacheEvict(value = "rolePermissionCache", key = "#roleId"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "rolePermissionCache", key = "#roleId")
+    @EvictCacheTags({"'role:' + #roleId", "#permissionIds.!['permission:' + #this]", "'role-permission:*'"})
     public boolean removePermissions(Long roleId, List<Long> permissionIds, Long updatedBy) {
         log.info("移除角色权限: roleId={}, permissionIds={}", roleId, permissionIds);
         
@@ -336,6 +337,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         
         if (result) {
             log.info("角色权限移除成功: roleId={}, 权限数量={}", roleId, permissionIds.size());
+            permissionDecisionEngine.onRolePermissionsChanged(roleId);
         } else {
             throw new BusinessException("角色权限移除失败");
         }
@@ -347,7 +349,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取角色权限列表
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "#roleId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key(#roleId, 'role:' + #roleId)")
     public List<String> getRolePermissions(Long roleId) {
         if (roleId == null) {
             throw new IllegalArgumentException("角色ID不能为空");
@@ -366,7 +368,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取角色权限ID列表
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'ids:' + #roleId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('ids:' + #roleId, 'role:' + #roleId)")
     public List<Long> getRolePermissionIds(Long roleId) {
         if (roleId == null) {
             throw new IllegalArgumentException("角色ID不能为空");
@@ -382,7 +384,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取角色权限编码列表
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'codes:' + #roleId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('codes:' + #roleId, 'role:' + #roleId)")
     public List<String> getRolePermissionCodes(Long roleId) {
         if (roleId == null) {
             throw new IllegalArgumentException("角色ID不能为空");
@@ -398,7 +400,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 检查角色是否拥有权限
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'check:' + #roleId + ':' + #permissionId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('check:' + #roleId + ':' + #permissionId, 'role:' + #roleId)")
     public boolean checkRolePermission(Long roleId, Long permissionId) {
         if (roleId == null || permissionId == null) {
             return false;
@@ -411,7 +413,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 检查角色是否拥有权限（通过权限编码）
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'checkCode:' + #roleId + ':' + #permissionCode")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('checkCode:' + #roleId + ':' + #permissionCode, 'role:' + #roleId)")
     public boolean checkRolePermissionByCode(Long roleId, String permissionCode) {
         if (roleId == null || !StringUtils.hasText(permissionCode)) {
             return false;
@@ -424,7 +426,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据权限ID查找拥有该权限的角色
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'rolesByPermission:' + #permissionId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('rolesByPermission:' + #permissionId, 'permission:' + #permissionId, 'role-permission:*', 'role:*')")
     public List<Role> getRolesByPermission(Long permissionId) {
         if (permissionId == null) {
             throw new IllegalArgumentException("权限ID不能为空");
@@ -437,7 +439,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据权限编码查找拥有该权限的角色
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'rolesByPermissionCode:' + #permissionCode")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('rolesByPermissionCode:' + #permissionCode, 'role-permission:*', 'role:*')")
     public List<Role> getRolesByPermissionCode(String permissionCode) {
         if (!StringUtils.hasText(permissionCode)) {
             throw new IllegalArgumentException("权限编码不能为空");
@@ -450,113 +452,40 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取角色权限树
      */
     @Override
-    @Cacheable(value = "rolePermissionCache", key = "'tree:' + #roleId")
+    @Cacheable(value = "rolePermissionCache", key = "T(com.archive.management.cache.CacheTags).key('tree:' + #roleId, 'role:' + #roleId)", sync = true)
     public List<Map<String, Object>> getRolePermissionTree(Long roleId) {
         if (roleId == null) {
             throw new IllegalArgumentException("角色ID不能为空");
         }
         
-        // 获取角色权限列表
-        List<Permission> permissions = permissionMapper.selectPermissionsByRoleId(roleId);
-        
-        if (CollectionUtils.isEmpty(permissions)) {
+        // 以角色权限ID为掩码投影共享权限森林
+        List<Long> permissionIds = rolePermissionMapper.selectPermissionIdsByRoleId(roleId);
+        if (CollectionUtils.isEmpty(permissionIds)) {
             return new ArrayList<>();
         }
         
-        // 构建权限树并转换为Map格式
-        List<Permission> permissionTree = buildPermissionTree(permissions);
-        return convertPermissionsToMapTree(permissionTree);
-    }
-
-    /**
-     * 将权限树转换为Map格式
-     */
-    private List<Map<String, Object>> convertPermissionsToMapTree(List<Permission> permissions) {
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Permission permission : permissions) {
-            Map<String, Object> permissionMap = new HashMap<>();
-            permissionMap.put("id", permission.getId());
-            permissionMap.put("name", permission.getPermissionName());
-            permissionMap.put("code", permission.getPermissionCode());
-            permissionMap.put("type", permission.getPermissionType());
-            permissionMap.put("parentId", permission.getParentId());
-            permissionMap.put("sortOrder", permission.getSortOrder());
-            permissionMap.put("status", permission.getStatus());
-            
-            // 递归处理子权限
-            if (!CollectionUtils.isEmpty(permission.getChildren())) {
-                permissionMap.put("children", convertPermissionsToMapTree(permission.getChildren()));
-            }
-            
-            result.add(permissionMap);
-        }
-        return result;
+        PermissionForest forest = permissionForestHolder.get();
+        return forest.project(forest.maskOf(permissionIds), this::toPermissionMap);
     }
 
     /**
-     * 构建权限树结构
+     * 将权限树节点转换为Map格式
      */
-    private List<Permission> buildPermissionTree(List<Permission> permissions) {
-        if (CollectionUtils.isEmpty(permissions)) {
-            return new ArrayList<>();
-        }
-        
-        // 创建权限映射
-        Map<Long, Permission> permissionMap = permissions.stream()
-                .collect(Collectors.toMap(Permission::getId, permission -> permission));
+    private Map<String, Object> toPermissionMap(Permission permission, List<Map<String, Object>> children) {
+        Map<String, Object> permissionMap = new HashMap<>();
+        permissionMap.put("id", permission.getId());
+        permissionMap.put("name", permission.getPermissionName());
+        permissionMap.put("code", permission.getPermissionCode());
+        permissionMap.put("type", permission.getPermissionType());
+        permissionMap.put("parentId", permission.getParentId());
+        permissionMap.put("sortOrder", permission.getSortOrder());
+        permissionMap.put("status", permission.getStatus());
         
-        // 构建树结构
-        List<Permission> rootPermissions = new ArrayList<>();
-        
-        for (Permission permission : permissions) {
-            if (permission.getParentId() == null || permission.getParentId() == 0) {
-                // 根节点
-                rootPermissions.add(permission);
-            } else {
-                // 子节点
-                Permission parent = permissionMap.get(permission.getParentId());
-                if (parent != null) {
-                    if (parent.getChildren() == null) {
-                        parent.setChildren(new ArrayList<>());
-                    }
-                    parent.getChildren().add(permission);
-                }
-            }
+        if (!children.isEmpty()) {
+            permissionMap.put("children", children);
         }
         
-        // 排序
-        sortPermissionTree(rootPermissions);
-        
-        return rootPermissions;
-    }
-
-    /**
-     * 权限树排序
-     */
-    private void sortPermissionTree(List<Permission> permissions) {
-        if (CollectionUtils.isEmpty(permissions)) {
-            return;
-        }
-        
-        // 按排序号和ID排序（避免使用可能不存在的createTime）
-        permissions.sort((p1, p2) -> {
-            int sortCompare = Integer.compare(
-                    p1.getSortOrder() != null ? p1.getSortOrder() : 0,
-                    p2.getSortOrder() != null ? p2.getSortOrder() : 0
-            );
-            if (sortCompare != 0) {
-                return sortCompare;
-            }
-            // 使用ID排序代替createTime
-            return p1.getId().compareTo(p2.getId());
-        });
-        
-        // 递归排序子节点
-        for (Permission permission : permissions) {
-            if (!CollectionUtils.isEmpty(permission.getChildren())) {
-                sortPermissionTree(permission.getChildren());
-            }
-        }
+        return permissionMap;
     }
 
     // ==================== 角色用户管理方法 ====================
@@ -658,7 +587,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 检查用户是否拥有指定角色
      */
     @Override
-    @Cacheable(value = "userHasRoleCache", key = "#userId + ':' + #roleId")
+    @Cacheable(value = "userHasRoleCache", key = "T(com.archive.management.cache.CacheTags).key(#userId + ':' + #roleId, 'user:' + #userId)")
     public boolean checkUserHasRole(Long userId, Long roleId) {
         log.info("检查用户是否拥有角色: userId={}, roleId={}", userId, roleId);
         
@@ -673,7 +602,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 检查用户是否拥有指定角色编码
      */
     @Override
-    @Cacheable(value = "userHasRoleCodeCache", key = "#userId + ':' + #roleCode")
+    @Cacheable(value = "userHasRoleCodeCache", key = "T(com.archive.management.cache.CacheTags).key(#userId + ':' + #roleCode, 'user:' + #userId)")
     public boolean checkUserHasRoleByCode(Long userId, String roleCode) {
         log.info("检查用户是否拥有角色编码: userId={}, roleCode={}", userId, roleCode);
         
@@ -694,10 +623,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         @CacheEvict(value = "userRoleIdsCache", key = "#userId"),
         @CacheEvict(value = "userRoleCodesCache", key = "#userId"),
         @CacheEvict(value = "roleUserCache", allEntries = true),
-        @CacheEvict(value = "roleUserCountCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCodeCache", allEntries = true)
+        @CacheEvict(value = "roleUserCountCache", allEntries = true)
     })
+    @EvictCacheTags("'user:' + #userId")
     public boolean assignUserRoles(Long userId, List<Long> roleIds) {
         log.info("为用户分配角色: userId={}, roleIds={}", userId, roleIds);
         
@@ -729,6 +657,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         
         if (result) {
             log.info("用户角色分配成功: userId={}, 角色数量={}", userId, roleIds.size());
+            permissionDecisionEngine.invalidateUser(userId);
         } else {
             throw new BusinessException("用户角色分配失败");
         }
@@ -746,10 +675,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         @CacheEvict(value = "userRoleIdsCache", key = "#userId"),
         @CacheEvict(value = "userRoleCodesCache", key = "#userId"),
         @CacheEvict(value = "roleUserCache", allEntries = true),
-        @CacheEvict(value = "roleUserCountCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCodeCache", allEntries = true)
+        @CacheEvict(value = "roleUserCountCache", allEntries = true)
     })
+    @EvictCacheTags("'user:' + #userId")
     public boolean removeUserRoles(Long userId, List<Long> roleIds) {
         log.info("移除用户角色: userId={}, roleIds={}", userId, roleIds);
         
@@ -764,6 +692,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         
         if (result) {
             log.info("用户角色移除成功: userId={}, 角色数量={}", userId, roleIds.size());
+            permissionDecisionEngine.invalidateUser(userId);
         } else {
             throw new BusinessException("用户角色移除失败");
         }
@@ -781,10 +710,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         @CacheEvict(value = "userRoleIdsCache", key = "#userId"),
         @CacheEvict(value = "userRoleCodesCache", key = "#userId"),
         @CacheEvict(value = "roleUserCache", allEntries = true),
-        @CacheEvict(value = "roleUserCountCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCache", allEntries = true),
-        @CacheEvict(value = "userHasRoleCodeCache", allEntries = true)
+        @CacheEvict(value = "roleUserCountCache", allEntries = true)
     })
+    @EvictCacheTags("'user:' + #userId")
     public boolean clearUserRoles(Long userId) {
         log.info("清空用户所有角色: userId={}", userId);
         
@@ -796,6 +724,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         
         if (result) {
             log.info("用户角色清空成功: userId={}", userId);
+            permissionDecisionEngine.invalidateUser(userId);
         } else {
             throw new BusinessException("用户角色清空失败");
         }
@@ -1346,7 +1275,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      */
     @Override
     @Transactional
-    @CacheEvict(value = {"roleCache", "roleListCache", "roleCountCache"}, allEntries = true)
+    @CacheEvict(value = {"roleListCache", "roleCountCache"}, allEntries = true)
+    @EvictCacheTags("'role:*'")
     public Role copyRole(Long sourceRoleId, String newRoleCode, String newRoleName) {
         log.info("复制角色: sourceRoleId={}, newRoleCode={}, newRoleName={}", 
                 sourceRoleId, newRoleCode, newRoleName);
@@ -1402,7 +1332,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      */
     @Override
     @Transactional
-    @CacheEvict(value = {"roleCache", "roleListCache", "roleCountCache"}, allEntries = true)
+    @CacheEvict(value = {"roleListCache", "roleCountCache"}, allEntries = true)
+    @EvictCacheTags("'role:*'")
     public List<Role> importRoles(List<Role> roles, Long userId) {
         log.info("导入角色: count={}", roles.size());
         
@@ -1500,7 +1431,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      */
     @Override
     @Transactional
-    @CacheEvict(value = {"rolePermissionCache", "userRoleCache"}, allEntries = true)
+    @CacheEvict(value = "userRoleCache", allEntries = true)
+    @EvictCacheTags({"'role:' + #roleId", "'role-permission:*'"})
     public void syncPermissions(Long roleId, List<Long> permissionIds) {
         log.info("同步角色权限: roleId={}, permissionIds={}", roleId, permissionIds);
         
@@ -1649,7 +1581,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据角色编码获取角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'code:' + #roleCode")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('code:' + #roleCode, 'role:*')")
     public Role getRoleByCode(String roleCode) {
         if (!StringUtils.hasText(roleCode)) {
             throw new IllegalArgumentException("角色编码不能为空");
@@ -1662,7 +1594,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据角色名称获取角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'name:' + #roleName")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('name:' + #roleName, 'role:*')")
     public Role getRoleByName(String roleName) {
         if (!StringUtils.hasText(roleName)) {
             throw new IllegalArgumentException("角色名称不能为空");
@@ -1675,7 +1607,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取所有角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'all'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('all', 'role:*')")
     public List<Role> getAllRoles() {
         return list(new LambdaQueryWrapper<Role>()
                 .orderByAsc(Role::getSortOrder)
@@ -1686,7 +1618,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取启用的角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'enabled'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('enabled', 'role:*')")
     public List<Role> getEnabledRoles() {
         return roleMapper.findByStatus(1);
     }
@@ -1758,7 +1690,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取禁用的角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'disabled'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('disabled', 'role:*')")
     public List<Role> getDisabledRoles() {
         return roleMapper.findByStatus(0);
     }
@@ -1767,7 +1699,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取系统角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'system'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('system', 'role:*')")
     public List<Role> getSystemRoles() {
         return roleMapper.findSystemRoles();
     }
@@ -1784,7 +1716,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取业务角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'business'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('business', 'role:*')")
     public List<Role> getBusinessRoles() {
         return roleMapper.findBusinessRoles();
     }
@@ -1793,7 +1725,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 获取自定义角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'custom'")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('custom', 'role:*')")
     public List<Role> getCustomRoles() {
         return roleMapper.findCustomRoles();
     }
@@ -1810,7 +1742,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据角色类型获取角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'type:' + #roleType")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('type:' + #roleType, 'role:*')")
     public List<Role> getRolesByType(Integer roleType) {
         if (roleType == null) {
             throw new IllegalArgumentException("角色类型不能为空");
@@ -1841,7 +1773,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 根据角色级别获取角色
      */
     @Override
-    @Cacheable(value = "roleCache", key = "'level:' + #roleLevel")
+    @Cacheable(value = "roleCache", key = "T(com.archive.management.cache.CacheTags).key('level:' + #roleLevel, 'role:*')")
     public List<Role> getRolesByLevel(Integer roleLevel) {
         if (roleLevel == null) {
             throw new IllegalArgumentException("角色级别不能为空");
@@ -1956,10 +1888,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 启用角色
      */
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#roleId"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "roleCache", key = "#roleId")
+    @EvictCacheTags({"'role:' + #roleId", "'role:*'"})
     public boolean enableRole(Long roleId, Long updatedBy) {
         log.info("启用角色: {}", roleId);
         
@@ -1997,10 +1927,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 禁用角色
      */
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "roleCache", key = "#roleId"),
-        @CacheEvict(value = "roleCache", allEntries = true)
-    })
+    @CacheEvict(value = "roleCache", key = "#roleId")
+    @EvictCacheTags({"'role:' + #roleId", "'role:*'"})
     public boolean disableRole(Long roleId, Long updatedBy) {
         log.info("禁用角色: {}", roleId);
         
@@ -2043,7 +1971,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
      * 批量更新角色状态
      */
     @Override
-    @CacheEvict(value = "roleCache", allEntries = true)
+    @EvictCacheTags({"#roleIds.!['role:' + #this]", "'role:*'"})
     public boolean batchUpdateStatus(List<Long> roleIds, Integer status) {
         if (CollectionUtils.isEmpty(roleIds)) {
             log.warn("批量更新角色状态失败：角色ID列表为空");
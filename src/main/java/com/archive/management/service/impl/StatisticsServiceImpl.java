@@ -12,6 +12,8 @@ import com.archive.management.repository.BorrowRecordRepository;
 import com.archive.management.repository.CategoryRepository;
 import com.archive.management.repository.UserRepository;
 import com.archive.management.service.StatisticsService;
+import com.archive.management.statistics.RollupMetric;
+import com.archive.management.statistics.StatisticsRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -38,6 +40,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final BorrowRecordRepository borrowRecordRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final StatisticsRollupService rollupService;
 
     @Override
     public ArchiveStatisticsDTO getArchiveStatistics(LocalDate startDate, LocalDate endDate, String groupBy) {
@@ -113,19 +116,26 @@ public class StatisticsServiceImpl implements StatisticsService {
         List<BorrowTrendDTO> trendData = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-        // 根据粒度生成日期序列
+        // 根据粒度生成日期序列，每个区间的数据由天桶累加
         List<LocalDate> dateList = generateDateList(startDate, endDate, granularity);
+        Map<RollupMetric, NavigableMap<LocalDate, Long>> series = rollupService.dailySeries(
+                EnumSet.of(RollupMetric.BORROW_APPLIED, RollupMetric.BORROW_APPROVED, RollupMetric.BORROW_REJECTED,
+                        RollupMetric.BORROW_STARTED, RollupMetric.BORROW_RETURNED, RollupMetric.BORROW_OVERDUE),
+                startDate, endDate);
+        LocalDate rangeEnd = endDate.plusDays(1);
 
         for (LocalDate date : dateList) {
             LocalDate nextDate = getNextDate(date, granularity);
-            
-            // 模拟数据生成（实际应从数据库查询）
-            long applications = (long) (Math.random() * 50 + 10);
-            long approvals = (long) (applications * (0.7 + Math.random() * 0.2));
-            long rejections = applications - approvals;
-            long actualBorrows = (long) (approvals * (0.8 + Math.random() * 0.15));
-            long returns = (long) (actualBorrows * (0.9 + Math.random() * 0.1));
-            long overdue = actualBorrows - returns;
+            if (nextDate.isAfter(rangeEnd)) {
+                nextDate = rangeEnd;
+            }
+
+            long applications = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_APPLIED), date, nextDate);
+            long approvals = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_APPROVED), date, nextDate);
+            long rejections = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_REJECTED), date, nextDate);
+            long actualBorrows = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_STARTED), date, nextDate);
+            long returns = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_RETURNED), date, nextDate);
+            long overdue = StatisticsRollupService.sum(series.get(RollupMetric.BORROW_OVERDUE), date, nextDate);
 
             double approvalRate = applications > 0 ? (double) approvals / applications * 100 : 0;
             double returnRate = actualBorrows > 0 ? (double) returns / actualBorrows * 100 : 0;
@@ -168,16 +178,20 @@ public class StatisticsServiceImpl implements StatisticsService {
 
         // 生成日期序列
         List<LocalDate> dateList = generateDateList(startDate, endDate, "day");
+        Map<RollupMetric, NavigableMap<LocalDate, Long>> series = rollupService.dailySeries(
+                EnumSet.of(RollupMetric.LOGIN_USERS, RollupMetric.USER_REGISTERED, RollupMetric.LOGIN,
+                        RollupMetric.OPERATION, RollupMetric.ARCHIVE_ACCESS, RollupMetric.FILE_DOWNLOAD),
+                startDate, endDate);
 
         for (LocalDate date : dateList) {
-            // 模拟数据生成（实际应从数据库查询）
-            long activeUsers = (long) (Math.random() * 100 + 20);
-            long newUsers = (long) (Math.random() * 10 + 1);
-            long loginCount = (long) (activeUsers * (1.2 + Math.random() * 0.8));
-            long operationCount = (long) (activeUsers * (5 + Math.random() * 10));
-            long archiveAccessCount = (long) (operationCount * (0.3 + Math.random() * 0.4));
-            long fileDownloadCount = (long) (archiveAccessCount * (0.2 + Math.random() * 0.3));
-            double avgOnlineMinutes = 30 + Math.random() * 120;
+            long activeUsers = series.get(RollupMetric.LOGIN_USERS).getOrDefault(date, 0L);
+            long newUsers = series.get(RollupMetric.USER_REGISTERED).getOrDefault(date, 0L);
+            long loginCount = series.get(RollupMetric.LOGIN).getOrDefault(date, 0L);
+            long operationCount = series.get(RollupMetric.OPERATION).getOrDefault(date, 0L);
+            long archiveAccessCount = series.get(RollupMetric.ARCHIVE_ACCESS).getOrDefault(date, 0L);
+            long fileDownloadCount = series.get(RollupMetric.FILE_DOWNLOAD).getOrDefault(date, 0L);
+            // 没有记录会话时长的数据源
+            double avgOnlineMinutes = 0.0;
             double activityScore = (operationCount * 0.1 + loginCount * 0.5 + avgOnlineMinutes * 0.01);
 
             UserActivityDTO activity = UserActivityDTO.builder()
@@ -189,7 +203,7 @@ public class StatisticsServiceImpl implements StatisticsService {
                     .operationCount(operationCount)
                     .archiveAccessCount(archiveAccessCount)
                     .fileDownloadCount(fileDownloadCount)
-                    .avgOnlineMinutes(Math.round(avgOnlineMinutes * 100.0) / 100.0)
+                    .avgOnlineMinutes(avgOnlineMinutes)
                     .activityScore(Math.round(activityScore * 100.0) / 100.0)
                     .build();
 
@@ -209,14 +223,18 @@ public class StatisticsServiceImpl implements StatisticsService {
         overview.put("totalArchives", archiveRepository.count());
         overview.put("totalUsers", userRepository.count());
         overview.put("totalCategories", categoryRepository.count());
-        overview.put("activeBorrows", borrowRecordRepository.countByStatus("BORROWED"));
+        overview.put("activeBorrows", getBorrowStatusStatistics().getOrDefault("BORROWED", 0L));
         
         // 今日统计
         LocalDate today = LocalDate.now();
-        overview.put("todayNewArchives", (long) (Math.random() * 10 + 1));
-        overview.put("todayNewUsers", (long) (Math.random() * 5 + 1));
-        overview.put("todayBorrows", (long) (Math.random() * 20 + 5));
-        overview.put("todayReturns", (long) (Math.random() * 15 + 3));
+        Map<RollupMetric, NavigableMap<LocalDate, Long>> todaySeries = rollupService.dailySeries(
+                EnumSet.of(RollupMetric.ARCHIVE_CREATED, RollupMetric.USER_REGISTERED,
+                        RollupMetric.BORROW_STARTED, RollupMetric.BORROW_RETURNED),
+                today, today);
+        overview.put("todayNewArchives", todaySeries.get(RollupMetric.ARCHIVE_CREATED).getOrDefault(today, 0L));
+        overview.put("todayNewUsers", todaySeries.get(RollupMetric.USER_REGISTERED).getOrDefault(today, 0L));
+        overview.put("todayBorrows", todaySeries.get(RollupMetric.BORROW_STARTED).getOrDefault(today, 0L));
+        overview.put("todayReturns", todaySeries.get(RollupMetric.BORROW_RETURNED).getOrDefault(today, 0L));
         
         // 系统健康状态
         overview.put("systemHealth", "HEALTHY");
@@ -237,12 +255,18 @@ public class StatisticsServiceImpl implements StatisticsService {
         log.info("获取借阅状态统计");
 
         Map<String, Long> statusStats = new HashMap<>();
-        statusStats.put("PENDING", (long) (Math.random() * 20 + 5));
-        statusStats.put("APPROVED", (long) (Math.random() * 50 + 20));
-        statusStats.put("REJECTED", (long) (Math.random() * 10 + 2));
-        statusStats.put("BORROWED", (long) (Math.random() * 30 + 10));
-        statusStats.put("RETURNED", (long) (Math.random() * 100 + 50));
-        statusStats.put("OVERDUE", (long) (Math.random() * 5 + 1));
+        String[] statusNames = {"PENDING", "APPROVED", "REJECTED", "BORROWED", "RETURNED", "OVERDUE"};
+        for (String statusName : statusNames) {
+            statusStats.put(statusName, 0L);
+        }
+        Map<String, Long> snapshot = readSnapshot(StatisticsRollupService.DIMENSION_BORROW_STATUS);
+        if (!snapshot.isEmpty()) {
+            statusStats.putAll(snapshot);
+        } else {
+            for (int i = 0; i < statusNames.length; i++) {
+                statusStats.put(statusNames[i], borrowRecordRepository.countByStatus(i + 1));
+            }
+        }
 
         return statusStats;
     }
@@ -256,7 +280,9 @@ public class StatisticsServiceImpl implements StatisticsService {
         long totalUsers = userRepository.count();
         userStats.put("totalUsers", totalUsers);
         userStats.put("activeUsers", (long) (totalUsers * (0.7 + Math.random() * 0.2)));
-        userStats.put("newUsersThisMonth", (long) (Math.random() * 20 + 5));
+        LocalDate today = LocalDate.now();
+        userStats.put("newUsersThisMonth", rollupService.total(RollupMetric.USER_REGISTERED,
+                today.withDayOfMonth(1), today));
         userStats.put("onlineUsers", (long) (Math.random() * 50 + 10));
         
         // 用户角色分布
@@ -298,6 +324,10 @@ public class StatisticsServiceImpl implements StatisticsService {
      * 从数据库获取分类统计数据
      */
     private Map<String, Long> getCategoryStatisticsFromDB() {
+        Map<String, Long> snapshot = readSnapshot(StatisticsRollupService.DIMENSION_ARCHIVE_CATEGORY);
+        if (!snapshot.isEmpty()) {
+            return snapshot;
+        }
         Map<String, Long> categoryStats = new HashMap<>();
         try {
             List<Object[]> results = archiveRepository.countArchivesByCategory();
@@ -323,6 +353,10 @@ public class StatisticsServiceImpl implements StatisticsService {
      * 从数据库获取密级统计数据
      */
     private Map<String, Long> getSecurityLevelStatisticsFromDB() {
+        Map<String, Long> snapshot = readSnapshot(StatisticsRollupService.DIMENSION_SECURITY_LEVEL);
+        if (!snapshot.isEmpty()) {
+            return snapshot;
+        }
         Map<String, Long> securityStats = new HashMap<>();
         try {
             List<Object[]> results = archiveRepository.countArchivesBySecurityLevel();
@@ -343,6 +377,18 @@ public class StatisticsServiceImpl implements StatisticsService {
         return securityStats;
     }
 
+    /**
+     * 读取补算任务生成的分布快照，尚未生成或读取失败时为空，由调用方按库统计
+     */
+    private Map<String, Long> readSnapshot(String dimension) {
+        try {
+            return rollupService.snapshot(dimension);
+        } catch (Exception e) {
+            log.warn("读取统计快照失败，改为按库统计: {}", dimension, e);
+            return Collections.emptyMap();
+        }
+    }
+
     /**
      * 根据密级代码获取密级名称
      */
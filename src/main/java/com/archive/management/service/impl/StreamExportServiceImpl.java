@@ -4,24 +4,36 @@ import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.ExcelWriter;
 import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.excel.write.style.column.LongestMatchColumnWidthStyleStrategy;
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.export.CsvRowWriter;
 import com.archive.management.service.StreamExportService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedWriter;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * 流式导出服务实现
- * 使用EasyExcel实现大数据量导出，内存占用低
+ * 使用EasyExcel实现大数据量导出，内存占用低；
+ * 分页/游标数据源默认以流水线方式运行：取数线程预取后续批次放入有界队列，
+ * 写出线程同时转换并编码当前批次，队列满时取数线程阻塞等待
  * 
  * @author Archive Management System
  * @version 1.0
@@ -34,6 +46,15 @@ public class StreamExportServiceImpl implements StreamExportService {
     private static final int DEFAULT_BATCH_SIZE = 1000; // 默认每批处理1000条
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    private final PerformanceProperties performanceProperties;
+    private final Executor exportExecutor;
+    
+    public StreamExportServiceImpl(PerformanceProperties performanceProperties,
+                                   @Qualifier("exportExecutor") Executor exportExecutor) {
+        this.performanceProperties = performanceProperties;
+        this.exportExecutor = exportExecutor;
+    }
+    
     @Override
     public void exportToExcelStream(
             OutputStream outputStream,
@@ -43,11 +64,85 @@ public class StreamExportServiceImpl implements StreamExportService {
             String sheetName,
             Consumer<ExportProgress> progressCallback,
             long totalCount) throws Exception {
+        writeExcel(outputStream, pipelined(offsetSource(dataProvider)), headers, fieldNames, sheetName,
+                progressCallback, totalCount);
+    }
+    
+    @Override
+    public void exportToExcelStream(
+            OutputStream outputStream,
+            KeysetDataProvider dataProvider,
+            String keyField,
+            List<String> headers,
+            List<String> fieldNames,
+            String sheetName,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) throws Exception {
+        writeExcel(outputStream, pipelined(keysetSource(dataProvider, keyField)), headers, fieldNames, sheetName,
+                progressCallback, totalCount);
+    }
+    
+    @Override
+    public void exportToExcelStream(
+            OutputStream outputStream,
+            Iterable<Map<String, Object>> rows,
+            List<String> headers,
+            List<String> fieldNames,
+            String sheetName,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) throws Exception {
+        writeExcel(outputStream, iteratorSource(rows), headers, fieldNames, sheetName,
+                progressCallback, totalCount);
+    }
+    
+    @Override
+    public void exportToCsvStream(
+            OutputStream outputStream,
+            DataProvider dataProvider,
+            List<String> headers,
+            List<String> fieldNames,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) throws Exception {
+        writeCsv(outputStream, pipelined(offsetSource(dataProvider)), headers, fieldNames, progressCallback, totalCount);
+    }
+    
+    @Override
+    public void exportToCsvStream(
+            OutputStream outputStream,
+            KeysetDataProvider dataProvider,
+            String keyField,
+            List<String> headers,
+            List<String> fieldNames,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) throws Exception {
+        writeCsv(outputStream, pipelined(keysetSource(dataProvider, keyField)), headers, fieldNames,
+                progressCallback, totalCount);
+    }
+    
+    @Override
+    public void exportToCsvStream(
+            OutputStream outputStream,
+            Iterable<Map<String, Object>> rows,
+            List<String> headers,
+            List<String> fieldNames,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) throws Exception {
+        writeCsv(outputStream, iteratorSource(rows), headers, fieldNames, progressCallback, totalCount);
+    }
+    
+    private void writeExcel(
+            OutputStream outputStream,
+            BatchSource batchSource,
+            List<String> headers,
+            List<String> fieldNames,
+            String sheetName,
+            Consumer<ExportProgress> progressCallback,
+            long totalCount) {
         
         log.info("开始流式导出Excel，总记录数: {}", totalCount);
         long startTime = System.currentTimeMillis();
         
-        try {
+        try (BatchSource source = batchSource) {
             // 创建ExcelWriter
             ExcelWriter excelWriter = EasyExcel.write(outputStream)
                     .autoCloseStream(false)
@@ -60,16 +155,14 @@ public class StreamExportServiceImpl implements StreamExportService {
                     .build();
             
             // 分批查询并写入
-            int pageNum = 1;
+            int batchNum = 1;
             long processedCount = 0;
-            boolean hasMoreData = true;
             
-            while (hasMoreData) {
+            while (true) {
                 // 查询一批数据
-                List<Map<String, Object>> batchData = dataProvider.getData(pageNum, DEFAULT_BATCH_SIZE);
+                List<Map<String, Object>> batchData = source.nextBatch();
                 
                 if (batchData == null || batchData.isEmpty()) {
-                    hasMoreData = false;
                     break;
                 }
                 
@@ -81,30 +174,17 @@ public class StreamExportServiceImpl implements StreamExportService {
                 
                 // 更新进度
                 processedCount += batchData.size();
-                if (progressCallback != null) {
-                    ExportProgress progress = new ExportProgress(totalCount, processedCount);
-                    progress.setStartTime(startTime);
-                    progress.setElapsedTime(System.currentTimeMillis() - startTime);
-                    
-                    // 估算剩余时间
-                    if (processedCount > 0) {
-                        long avgTimePerRecord = progress.getElapsedTime() / processedCount;
-                        progress.setEstimatedTime(avgTimePerRecord * (totalCount - processedCount));
-                    }
-                    
-                    progress.setMessage(String.format("正在导出第 %d 批数据...", pageNum));
-                    progressCallback.accept(progress);
+                if (reportProgress(progressCallback, totalCount, processedCount, startTime, batchNum)) {
+                    throw new CancellationException("导出已取消");
                 }
                 
                 // 检查是否还有更多数据
                 if (batchData.size() < DEFAULT_BATCH_SIZE) {
-                    hasMoreData = false;
-                } else {
-                    pageNum++;
+                    break;
                 }
+                batchNum++;
                 
                 // 手动触发内存释放
-                batchData.clear();
                 excelData.clear();
             }
             
@@ -113,116 +193,283 @@ public class StreamExportServiceImpl implements StreamExportService {
             
             long endTime = System.currentTimeMillis();
             log.info("Excel导出完成，总记录数: {}，耗时: {} ms", processedCount, (endTime - startTime));
+            reportFinished(progressCallback, totalCount, processedCount, endTime - startTime);
             
-            // 发送完成进度
-            if (progressCallback != null) {
-                ExportProgress finalProgress = new ExportProgress(totalCount, processedCount);
-                finalProgress.setPercentage(100);
-                finalProgress.setMessage("导出完成");
-                finalProgress.setElapsedTime(endTime - startTime);
-                progressCallback.accept(finalProgress);
-            }
-            
+        } catch (CancellationException e) {
+            log.info("Excel流式导出已取消");
+            throw e;
         } catch (Exception e) {
             log.error("Excel流式导出失败", e);
             throw new RuntimeException("Excel导出失败: " + e.getMessage(), e);
         }
     }
     
-    @Override
-    public void exportToCsvStream(
+    private void writeCsv(
             OutputStream outputStream,
-            DataProvider dataProvider,
+            BatchSource batchSource,
             List<String> headers,
             List<String> fieldNames,
             Consumer<ExportProgress> progressCallback,
-            long totalCount) throws Exception {
+            long totalCount) {
         
         log.info("开始流式导出CSV，总记录数: {}", totalCount);
         long startTime = System.currentTimeMillis();
         
-        try (BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+        try (BatchSource source = batchSource;
+             Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
             
             // 写入UTF-8 BOM（Excel打开时正确显示中文）
             writer.write('\ufeff');
             
+            // 单元格直接编码进复用缓冲区，列访问器只解析一次
+            CsvRowWriter<Map<String, Object>> csvWriter = CsvRowWriter.forMaps(writer, fieldNames);
+            
             // 写入表头
-            writer.write(String.join(",", headers));
-            writer.newLine();
+            csvWriter.writeHeader(headers);
             
             // 分批查询并写入
-            int pageNum = 1;
+            int batchNum = 1;
             long processedCount = 0;
-            boolean hasMoreData = true;
             
-            while (hasMoreData) {
+            while (true) {
                 // 查询一批数据
-                List<Map<String, Object>> batchData = dataProvider.getData(pageNum, DEFAULT_BATCH_SIZE);
+                List<Map<String, Object>> batchData = source.nextBatch();
                 
                 if (batchData == null || batchData.isEmpty()) {
-                    hasMoreData = false;
                     break;
                 }
                 
                 // 写入数据行
                 for (Map<String, Object> row : batchData) {
-                    List<String> values = new ArrayList<>();
-                    for (String fieldName : fieldNames) {
-                        Object value = row.get(fieldName);
-                        values.add(formatCsvValue(value));
-                    }
-                    writer.write(String.join(",", values));
-                    writer.newLine();
+                    csvWriter.writeRow(row);
                 }
                 
                 // 更新进度
                 processedCount += batchData.size();
-                if (progressCallback != null) {
-                    ExportProgress progress = new ExportProgress(totalCount, processedCount);
-                    progress.setStartTime(startTime);
-                    progress.setElapsedTime(System.currentTimeMillis() - startTime);
-                    
-                    if (processedCount > 0) {
-                        long avgTimePerRecord = progress.getElapsedTime() / processedCount;
-                        progress.setEstimatedTime(avgTimePerRecord * (totalCount - processedCount));
-                    }
-                    
-                    progress.setMessage(String.format("正在导出第 %d 批数据...", pageNum));
-                    progressCallback.accept(progress);
+                if (reportProgress(progressCallback, totalCount, processedCount, startTime, batchNum)) {
+                    throw new CancellationException("导出已取消");
                 }
                 
                 // 检查是否还有更多数据
                 if (batchData.size() < DEFAULT_BATCH_SIZE) {
-                    hasMoreData = false;
-                } else {
-                    pageNum++;
+                    break;
                 }
-                
-                // 手动触发内存释放
-                batchData.clear();
+                batchNum++;
             }
             
-            writer.flush();
+            csvWriter.flush();
             
             long endTime = System.currentTimeMillis();
             log.info("CSV导出完成，总记录数: {}，耗时: {} ms", processedCount, (endTime - startTime));
+            reportFinished(progressCallback, totalCount, processedCount, endTime - startTime);
             
-            // 发送完成进度
-            if (progressCallback != null) {
-                ExportProgress finalProgress = new ExportProgress(totalCount, processedCount);
-                finalProgress.setPercentage(100);
-                finalProgress.setMessage("导出完成");
-                finalProgress.setElapsedTime(endTime - startTime);
-                progressCallback.accept(finalProgress);
-            }
-            
+        } catch (CancellationException e) {
+            log.info("CSV流式导出已取消");
+            throw e;
         } catch (Exception e) {
             log.error("CSV流式导出失败", e);
             throw new RuntimeException("CSV导出失败: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 发送批次进度
+     * 
+     * @return 回调中是否请求了取消
+     */
+    private boolean reportProgress(Consumer<ExportProgress> progressCallback, long totalCount,
+                                   long processedCount, long startTime, int batchNum) {
+        if (progressCallback == null) {
+            return Thread.currentThread().isInterrupted();
+        }
+        ExportProgress progress = new ExportProgress(totalCount, processedCount);
+        progress.setStartTime(startTime);
+        progress.setElapsedTime(System.currentTimeMillis() - startTime);
+        
+        // 估算剩余时间
+        if (processedCount > 0) {
+            long avgTimePerRecord = progress.getElapsedTime() / processedCount;
+            progress.setEstimatedTime(avgTimePerRecord * (totalCount - processedCount));
+        }
+        
+        progress.setMessage(String.format("正在导出第 %d 批数据...", batchNum));
+        progressCallback.accept(progress);
+        return progress.isCancelRequested() || Thread.currentThread().isInterrupted();
+    }
+    
+    /**
+     * 发送完成进度
+     */
+    private void reportFinished(Consumer<ExportProgress> progressCallback, long totalCount,
+                                long processedCount, long elapsedTime) {
+        if (progressCallback == null) {
+            return;
+        }
+        ExportProgress finalProgress = new ExportProgress(totalCount, processedCount);
+        finalProgress.setPercentage(100);
+        finalProgress.setMessage("导出完成");
+        finalProgress.setElapsedTime(elapsedTime);
+        progressCallback.accept(finalProgress);
+    }
+    
+    /**
+     * 页码分页数据源（兼容原有 DataProvider，批次越靠后 OFFSET 代价越高）
+     */
+    private BatchSource offsetSource(DataProvider dataProvider) {
+        int[] pageNum = {1};
+        return () -> dataProvider.getData(pageNum[0]++, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * 游标分页数据源：记录上一批最后一行的游标值，下一批从该值之后开始查询
+     */
+    private BatchSource keysetSource(KeysetDataProvider dataProvider, String keyField) {
+        if (keyField == null || keyField.isEmpty()) {
+            throw new IllegalArgumentException("游标字段不能为空");
+        }
+        Object[] lastKey = {null};
+        return () -> {
+            List<Map<String, Object>> batch = dataProvider.getDataAfter(lastKey[0], DEFAULT_BATCH_SIZE);
+            if (batch != null && !batch.isEmpty()) {
+                Object key = batch.get(batch.size() - 1).get(keyField);
+                if (key == null) {
+                    throw new IllegalStateException("游标字段值为空: " + keyField);
+                }
+                if (key.equals(lastKey[0])) {
+                    throw new IllegalStateException("游标未向前推进，请检查查询条件与排序: " + keyField);
+                }
+                lastKey[0] = key;
+            }
+            return batch;
+        };
+    }
+    
+    /**
+     * 逐行迭代数据源：从迭代器中按批大小切出批次，不额外查询数据库
+     */
+    private BatchSource iteratorSource(Iterable<Map<String, Object>> rows) {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        return () -> {
+            List<Map<String, Object>> batch = new ArrayList<>(DEFAULT_BATCH_SIZE);
+            while (batch.size() < DEFAULT_BATCH_SIZE && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            return batch;
+        };
+    }
+    
+    /**
+     * 按配置将数据源包装为流水线；逐行迭代数据源（如 MyBatis Cursor）绑定调用线程的会话，不做包装
+     */
+    private BatchSource pipelined(BatchSource upstream) {
+        PerformanceProperties.Export export = performanceProperties.getExport();
+        if (!Boolean.TRUE.equals(export.getPipelineEnabled())) {
+            return upstream;
+        }
+        PipelinedBatchSource pipeline = new PipelinedBatchSource(upstream, Math.max(1, export.getPipelineQueueCapacity()));
+        try {
+            exportExecutor.execute(pipeline::produce);
+            return pipeline;
+        } catch (RejectedExecutionException e) {
+            log.warn("导出取数线程已耗尽，本次导出回退为顺序模式");
+            return upstream;
+        }
+    }
+    
+    /**
+     * 批次数据源
+     */
+    @FunctionalInterface
+    private interface BatchSource extends AutoCloseable {
+        List<Map<String, Object>> nextBatch() throws Exception;
+        
+        @Override
+        default void close() {
+        }
+    }
+    
+    /**
+     * 流水线数据源
+     * 取数线程从上游读取批次放入有界队列（队列满即背压），写出线程从队列取批次；
+     * 写出端关闭或失败时置取消标记并清空队列，取数线程在下一次入队时退出
+     */
+    private static final class PipelinedBatchSource implements BatchSource {
+        
+        /** 取数结束标记 */
+        private static final List<Map<String, Object>> END = new ArrayList<>(0);
+        
+        private final BatchSource upstream;
+        private final BlockingQueue<List<Map<String, Object>>> queue;
+        private volatile boolean cancelled;
+        private volatile Exception failure;
+        private volatile boolean finished;
+        
+        private PipelinedBatchSource(BatchSource upstream, int capacity) {
+            this.upstream = upstream;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+        
+        private void produce() {
+            try {
+                while (!cancelled) {
+                    List<Map<String, Object>> batch = upstream.nextBatch();
+                    if (batch == null || batch.isEmpty()) {
+                        break;
+                    }
+                    if (!offer(batch) || batch.size() < DEFAULT_BATCH_SIZE) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                upstream.close();
+                offer(END);
+                finished = true;
+            }
+        }
+        
+        /**
+         * 入队，队列满时等待写出端消费；取消后放弃
+         */
+        private boolean offer(List<Map<String, Object>> batch) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new CancellationException("导出取数线程被中断");
+            }
+            return false;
+        }
+        
+        @Override
+        public List<Map<String, Object>> nextBatch() throws Exception {
+            while (true) {
+                List<Map<String, Object>> batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (batch != null && batch != END) {
+                    return batch;
+                }
+                // 取数线程异常退出时可能未能放入结束标记，以 finished 兜底
+                if (batch == END || (finished && queue.isEmpty())) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return END;
+                }
+            }
+        }
+        
+        @Override
+        public void close() {
+            cancelled = true;
+            queue.clear();
+        }
+    }
+    
     /**
      * 构建EasyExcel表头
      */
@@ -268,28 +515,5 @@ public class StreamExportServiceImpl implements StreamExportService {
         
         return value;
     }
-    
-    /**
-     * 格式化CSV值（处理逗号、引号等特殊字符）
-     */
-    private String formatCsvValue(Object value) {
-        if (value == null) {
-            return "";
-        }
-        
-        String strValue;
-        if (value instanceof LocalDateTime) {
-            strValue = ((LocalDateTime) value).format(DATE_FORMATTER);
-        } else {
-            strValue = value.toString();
-        }
-        
-        // 如果包含逗号、引号或换行符，需要用引号包裹并转义引号
-        if (strValue.contains(",") || strValue.contains("\"") || strValue.contains("\n")) {
-            strValue = "\"" + strValue.replace("\"", "\"\"") + "\"";
-        }
-        
-        return strValue;
-    }
 }
 
@@ -3,6 +3,8 @@ package com.archive.management.service.impl;
 import com.archive.management.entity.SystemConfig;
 import com.archive.management.mapper.SystemConfigMapper;
 import com.archive.management.service.SystemConfigService;
+import com.archive.management.sysconfig.SystemConfigSnapshot;
+import com.archive.management.sysconfig.SystemConfigSnapshotHolder;
 import com.archive.management.exception.BusinessException;
 import com.archive.management.util.JsonUtil;
 import com.archive.management.util.EncryptionUtil;
@@ -37,6 +39,7 @@ import java.util.stream.Collectors;
 public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, SystemConfig> implements SystemConfigService {
 
     private final SystemConfigMapper systemConfigMapper;
+    private final SystemConfigSnapshotHolder configSnapshotHolder;
     
     @Override
     public SystemConfigMapper getBaseMapper() {
@@ -80,6 +83,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         }
         
         log.info("系统配置创建成功: {}", config.getConfigKey());
+        configSnapshotHolder.rebuildAfterCommit();
         return config;
     }
 
@@ -170,6 +174,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         }
         
         log.info("系统配置更新成功: {}", config.getConfigKey());
+        configSnapshotHolder.rebuildAfterCommit();
         return config;
     }
 
@@ -198,6 +203,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         boolean result = updateById(config);
         if (result) {
             log.info("系统配置删除成功: {}", config.getConfigKey());
+            configSnapshotHolder.rebuildAfterCommit();
         } else {
             throw new BusinessException("删除系统配置失败");
         }
@@ -225,6 +231,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         boolean result = removeById(id);
         if (result) {
             log.info("系统配置物理删除成功: {}", config.getConfigKey());
+            configSnapshotHolder.rebuildAfterCommit();
         } else {
             throw new BusinessException("物理删除系统配置失败");
         }
@@ -379,154 +386,207 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
 
     @Override
     public String getStringValue(String configKey) {
-        SystemConfig config = getConfigByKey(configKey);
-        return config.getConfigValue();
+        return lookupValue(configKey).getRaw();
     }
 
     @Override
     public String getStringValue(String configKey, String defaultValue) {
-        try {
-            return getStringValue(configKey);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
-            return defaultValue;
-        }
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        return value != null ? value.getRaw() : defaultValue;
     }
 
     @Override
     public Integer getIntValue(String configKey) {
-        String value = getStringValue(configKey);
-        try {
-            return Integer.valueOf(value);
-        } catch (NumberFormatException e) {
-            throw new BusinessException("配置值不是有效的整数: " + configKey + " = " + value);
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        if (value.getIntValue() == null) {
+            throw new BusinessException("配置值不是有效的整数: " + configKey + " = " + value.getRaw());
         }
+        return value.getIntValue();
     }
 
     @Override
     public Integer getIntValue(String configKey, Integer defaultValue) {
-        try {
-            return getIntValue(configKey);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
             return defaultValue;
         }
+        return typedOrDefault(configKey, value.getIntValue(), defaultValue);
     }
 
     @Override
     public Long getLongValue(String configKey) {
-        String value = getStringValue(configKey);
-        try {
-            return Long.valueOf(value);
-        } catch (NumberFormatException e) {
-            throw new BusinessException("配置值不是有效的长整数: " + configKey + " = " + value);
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        if (value.getLongValue() == null) {
+            throw new BusinessException("配置值不是有效的长整数: " + configKey + " = " + value.getRaw());
         }
+        return value.getLongValue();
     }
 
     @Override
     public Long getLongValue(String configKey, Long defaultValue) {
-        try {
-            return getLongValue(configKey);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
             return defaultValue;
         }
+        return typedOrDefault(configKey, value.getLongValue(), defaultValue);
     }
 
     @Override
     public Double getDoubleValue(String configKey) {
-        String value = getStringValue(configKey);
-        try {
-            return Double.valueOf(value);
-        } catch (NumberFormatException e) {
-            throw new BusinessException("配置值不是有效的双精度浮点数: " + configKey + " = " + value);
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        if (value.getDoubleValue() == null) {
+            throw new BusinessException("配置值不是有效的双精度浮点数: " + configKey + " = " + value.getRaw());
         }
+        return value.getDoubleValue();
     }
 
     @Override
     public Double getDoubleValue(String configKey, Double defaultValue) {
-        try {
-            return getDoubleValue(configKey);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
             return defaultValue;
         }
+        return typedOrDefault(configKey, value.getDoubleValue(), defaultValue);
     }
 
     @Override
     public Boolean getBooleanValue(String configKey) {
-        String value = getStringValue(configKey);
-        return Boolean.valueOf(value);
+        return lookupValue(configKey).getBooleanValue();
     }
 
     @Override
     public Boolean getBooleanValue(String configKey, Boolean defaultValue) {
-        try {
-            return getBooleanValue(configKey);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
-            return defaultValue;
-        }
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        return value != null ? value.getBooleanValue() : defaultValue;
     }
 
     @Override
     public <T> T getJsonValue(String configKey, Class<T> clazz) {
-        String value = getStringValue(configKey);
-        try {
-            return JsonUtil.fromJson(value, clazz);
-        } catch (Exception e) {
-            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value);
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        T result = value.toObject(clazz);
+        if (result == null) {
+            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value.getRaw());
         }
+        return result;
     }
 
     @Override
     public <T> T getJsonValue(String configKey, Class<T> clazz, T defaultValue) {
-        try {
-            return getJsonValue(configKey, clazz);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
             return defaultValue;
         }
+        return typedOrDefault(configKey, value.toObject(clazz), defaultValue);
     }
 
     @Override
     public <T> T getJsonValue(String configKey, TypeReference<T> typeReference) {
-        String value = getStringValue(configKey);
-        try {
-            return JsonUtil.fromJson(value, typeReference);
-        } catch (Exception e) {
-            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value);
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        T result = value.toObject(typeReference);
+        if (result == null) {
+            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value.getRaw());
         }
+        return result;
     }
 
     @Override
     public <T> T getJsonValue(String configKey, TypeReference<T> typeReference, T defaultValue) {
-        try {
-            return getJsonValue(configKey, typeReference);
-        } catch (Exception e) {
-            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
             return defaultValue;
         }
+        return typedOrDefault(configKey, value.toObject(typeReference), defaultValue);
     }
 
     @Override
     public List<String> getListValue(String configKey) {
-        return getJsonValue(configKey, new TypeReference<List<String>>() {});
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        if (value.getListValue() == null) {
+            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value.getRaw());
+        }
+        return value.getListValue();
     }
 
     @Override
     public List<String> getListValue(String configKey, List<String> defaultValue) {
-        return getJsonValue(configKey, new TypeReference<List<String>>() {}, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
+            return defaultValue;
+        }
+        return typedOrDefault(configKey, value.getListValue(), defaultValue);
     }
 
     @Override
     public Map<String, Object> getMapValue(String configKey) {
-        return getJsonValue(configKey, new TypeReference<Map<String, Object>>() {});
+        SystemConfigSnapshot.ConfigValue value = lookupValue(configKey);
+        if (value.getMapValue() == null) {
+            throw new BusinessException("配置值不是有效的JSON: " + configKey + " = " + value.getRaw());
+        }
+        return value.getMapValue();
     }
 
     @Override
     public Map<String, Object> getMapValue(String configKey, Map<String, Object> defaultValue) {
-        return getJsonValue(configKey, new TypeReference<Map<String, Object>>() {}, defaultValue);
+        SystemConfigSnapshot.ConfigValue value = findValue(configKey, defaultValue);
+        if (value == null) {
+            return defaultValue;
+        }
+        return typedOrDefault(configKey, value.getMapValue(), defaultValue);
+    }
+
+    /**
+     * 读取预解析的配置值：快照就绪时只读内存，否则查询数据库并当场解析
+     *
+     * @return 配置不存在时为空
+     */
+    private SystemConfigSnapshot.ConfigValue readValue(String configKey) {
+        if (configSnapshotHolder.isReady()) {
+            return configSnapshotHolder.current().get(configKey);
+        }
+        SystemConfig config = systemConfigMapper.findByConfigKey(configKey);
+        if (config == null) {
+            return null;
+        }
+        String value = config.getConfigValue();
+        if (Boolean.TRUE.equals(config.getSensitive()) && StringUtils.hasText(value)) {
+            value = EncryptionUtil.decrypt(value);
+        }
+        return SystemConfigSnapshot.ConfigValue.of(value);
+    }
+
+    /**
+     * 读取配置值，不存在时抛出异常
+     */
+    private SystemConfigSnapshot.ConfigValue lookupValue(String configKey) {
+        SystemConfigSnapshot.ConfigValue value = readValue(configKey);
+        if (value == null) {
+            throw new BusinessException("系统配置不存在: " + configKey);
+        }
+        return value;
+    }
+
+    /**
+     * 读取配置值，不存在或读取失败时记录日志并返回空，由调用方使用默认值
+     */
+    private SystemConfigSnapshot.ConfigValue findValue(String configKey, Object defaultValue) {
+        try {
+            SystemConfigSnapshot.ConfigValue value = readValue(configKey);
+            if (value == null) {
+                log.debug("配置不存在，使用默认值: {} -> {}", configKey, defaultValue);
+            }
+            return value;
+        } catch (Exception e) {
+            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+            return null;
+        }
+    }
+
+    private <T> T typedOrDefault(String configKey, T typed, T defaultValue) {
+        if (typed == null) {
+            log.warn("获取配置值失败，使用默认值: {} -> {}", configKey, defaultValue);
+            return defaultValue;
+        }
+        return typed;
     }
 
     // ==================== 配置值设置 ====================
@@ -541,6 +601,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         if (result == 0) {
             throw new BusinessException("配置不存在或更新失败: " + configKey);
         }
+        configSnapshotHolder.rebuildAfterCommit();
         
         return true;
     }
@@ -640,6 +701,9 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         }
         
         log.info("批量更新配置值完成，成功更新: {}/{}", totalUpdated, configValues.size());
+        if (totalUpdated > 0) {
+            configSnapshotHolder.rebuildAfterCommit();
+        }
         return totalUpdated > 0;
     }
 
@@ -852,6 +916,9 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
             }
             
             log.info("恢复系统配置完成，成功恢复: {}/{}", restored, configs.size());
+            if (restored > 0) {
+                configSnapshotHolder.rebuildAfterCommit();
+            }
             return restored > 0;
             
         } catch (Exception e) {
@@ -867,7 +934,8 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
                         CACHE_CONFIG_TYPES, CACHE_CONFIG_GROUPS}, allEntries = true)
     public void syncConfigs() {
         log.info("同步系统配置");
-        // 清除所有缓存，下次访问时重新加载
+        // 清除所有缓存，下次访问时重新加载；快照按配置表指纹判断是否重建
+        configSnapshotHolder.refreshIfChanged();
     }
 
     @Override
@@ -877,6 +945,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
     public void refreshCache() {
         log.info("刷新系统配置缓存");
         // 清除所有缓存，下次访问时重新加载
+        configSnapshotHolder.rebuild();
     }
 
     @Override
@@ -1008,6 +1077,9 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         }
         
         log.info("修复配置不一致问题完成，修复数量: {}", fixed);
+        if (fixed > 0) {
+            configSnapshotHolder.rebuildAfterCommit();
+        }
         return fixed > 0;
     }
 
@@ -1087,6 +1159,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
         boolean result = updateById(config);
         if (result) {
             log.info("系统配置状态更新成功: {} -> {}", config.getConfigKey(), status);
+            configSnapshotHolder.rebuildAfterCommit();
         } else {
             throw new BusinessException("更新系统配置状态失败");
         }
@@ -1129,6 +1202,7 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
             if (configKey == null || configKey.trim().isEmpty()) {
                 // 刷新所有缓存
                 log.info("刷新所有配置缓存");
+                configSnapshotHolder.rebuild();
                 return true;
             } else {
                 // 刷新指定配置的缓存
@@ -2,6 +2,7 @@ package com.archive.management.service.impl;
 
 import com.archive.management.dto.*;
 import com.archive.management.entity.User;
+import com.archive.management.event.UserAuthChangedEvent;
 import com.archive.management.mapper.UserMapper;
 import com.archive.management.service.UserService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -12,6 +13,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,6 +39,7 @@ import java.util.stream.Collectors;
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher applicationEventPublisher;
     
     @Override
     public UserMapper getBaseMapper() {
@@ -201,6 +204,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, "PASSWORD");
             log.info("用户密码重置成功: {}", request.getUserId());
         } else {
             log.error("用户密码重置失败: {}", request.getUserId());
@@ -234,6 +238,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, "PASSWORD");
             log.info("用户密码修改成功: {}", request.getUserId());
         } else {
             log.error("用户密码修改失败: {}", request.getUserId());
@@ -258,6 +263,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, "DELETE");
             log.info("用户删除成功: {}", id);
         } else {
             log.error("用户删除失败: {}", id);
@@ -303,6 +309,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 user.setUpdatedTime(LocalDateTime.now());
                 user.setUpdatedBy(updatedBy);
                 if (updateById(user)) {
+                    publishUserAuthChanged(user, "STATUS");
                     count++;
                 }
             }
@@ -355,6 +362,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, "LOCK");
             log.info("用户锁定成功: {}", id);
         } else {
             log.error("用户锁定失败: {}", id);
@@ -381,6 +389,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, "UNLOCK");
             log.info("用户解锁成功: {}", id);
         } else {
             log.error("用户解锁失败: {}", id);
@@ -706,6 +715,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         boolean result = updateById(user);
         
         if (result) {
+            publishUserAuthChanged(user, enabled ? "ENABLE" : "DISABLE");
             log.info("用户状态更新成功: {}", id);
         } else {
             log.error("用户状态更新失败: {}", id);
@@ -714,6 +724,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         return result;
     }
 
+    /**
+     * 发布用户认证信息变更事件，使已缓存的认证主体失效
+     */
+    private void publishUserAuthChanged(User user, String action) {
+        applicationEventPublisher.publishEvent(
+            new UserAuthChangedEvent(this, user.getUserId(), user.getUsername(), action));
+    }
+
     /**
      * 转换User实体为UserResponse DTO
      */
@@ -983,6 +1001,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 user.setAccountNonLocked(false);
                 user.setUpdatedTime(LocalDateTime.now());
                 updateById(user);
+                publishUserAuthChanged(user, "LOCK");
                 // 同时清理该用户的所有会话
                 cleanupAllUserSessions(userId);
             }
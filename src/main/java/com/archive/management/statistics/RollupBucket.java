@@ -0,0 +1,29 @@
+package com.archive.management.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 汇总桶
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupBucket {
+
+    /** 指标名 */
+    private String metric;
+
+    /** 桶起始时间 */
+    private LocalDateTime bucketStart;
+
+    /** 计数 */
+    private Long value;
+}
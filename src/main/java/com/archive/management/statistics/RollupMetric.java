@@ -0,0 +1,88 @@
+package com.archive.management.statistics;
+
+/**
+ * 汇总指标
+ * 每个指标对应一张原始表中按时间列落桶计数的一类记录，补算任务据此按原始表重算。
+ * 去重计数指标（如活跃用户数）不能由小时桶相加得到，只按天从原始表计算，也不接受增量
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public enum RollupMetric {
+
+    /** 新建档案 */
+    ARCHIVE_CREATED("arc_archive", "create_time", "", null),
+
+    /** 新注册用户 */
+    USER_REGISTERED("sys_user", "create_time", "", null),
+
+    /** 借阅申请 */
+    BORROW_APPLIED("arc_borrow", "apply_time", "", null),
+
+    /** 借阅批准（含其后进入借阅、归还、逾期状态的） */
+    BORROW_APPROVED("arc_borrow", "approve_time", "AND status IN (2, 4, 5, 6)", null),
+
+    /** 借阅拒绝 */
+    BORROW_REJECTED("arc_borrow", "approve_time", "AND status = 3", null),
+
+    /** 实际借出 */
+    BORROW_STARTED("arc_borrow", "borrow_start_time", "", null),
+
+    /** 归还 */
+    BORROW_RETURNED("arc_borrow", "return_time", "", null),
+
+    /** 逾期：按应还时间落桶，到期未还或晚于应还时间归还 */
+    BORROW_OVERDUE("arc_borrow", "borrow_end_time",
+        "AND borrow_end_time < NOW() AND (return_time IS NULL OR return_time > borrow_end_time)", null),
+
+    /** 成功登录次数 */
+    LOGIN("sys_login_log", "login_time", "AND status = 1", null),
+
+    /** 当天成功登录过的用户数 */
+    LOGIN_USERS("sys_login_log", "login_time", "AND status = 1", "user_id"),
+
+    /** 操作次数 */
+    OPERATION("audit_log", "create_time", "", null),
+
+    /** 查询、查看类操作次数 */
+    ARCHIVE_ACCESS("audit_log", "create_time", "AND operation_type = 6", null),
+
+    /** 导出、下载类操作次数 */
+    FILE_DOWNLOAD("audit_log", "create_time", "AND operation_type = 8", null);
+
+    private final String table;
+    private final String timeColumn;
+    private final String condition;
+    private final String distinctColumn;
+
+    RollupMetric(String table, String timeColumn, String condition, String distinctColumn) {
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.condition = condition;
+        this.distinctColumn = distinctColumn;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getTimeColumn() {
+        return timeColumn;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public String getDistinctColumn() {
+        return distinctColumn;
+    }
+
+    /**
+     * 是否为去重计数指标
+     */
+    public boolean isDistinct() {
+        return distinctColumn != null;
+    }
+}
@@ -0,0 +1,419 @@
+package com.archive.management.statistics;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.mapper.StatisticsRollupMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 统计汇总服务
+ * 按指标维护小时桶和天桶两级汇总表，趋势查询按桶数读取而不扫描原始表。
+ * 汇总有两个来源：消息监听器记录的事件先在本地按小时累加，定时合并写入；
+ * 补算任务按原始表重算已结束的最近若干小时（首次运行时从最早的记录开始），覆盖写入并推进进度。
+ * 进度之前的小时桶归补算所有，增量只累加到进度及之后的桶，落在进度之前的增量丢弃，由补算计入；
+ * 两者在事务中锁定同一指标的进度行，覆盖与进度推进同时生效，不会有增量在覆盖之后再累加到同一个桶。
+ * 覆盖写入使丢失或迟到的增量在下一次补算后得到修正，多个节点同时补算结果相同。
+ * 分类、密级、借阅状态等当前分布随补算一起刷新为快照
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class StatisticsRollupService {
+
+    /** 档案分类分布快照 */
+    public static final String DIMENSION_ARCHIVE_CATEGORY = "archive_category";
+
+    /** 档案密级分布快照 */
+    public static final String DIMENSION_SECURITY_LEVEL = "archive_security_level";
+
+    /** 借阅状态分布快照 */
+    public static final String DIMENSION_BORROW_STATUS = "borrow_status";
+
+    /** 每条多行 INSERT 包含的桶数 */
+    private static final int WRITE_CHUNK_SIZE = 500;
+
+    private final StatisticsRollupMapper rollupMapper;
+    private final TransactionTemplate writeTransaction;
+    private final PerformanceProperties.Statistics config;
+
+    /** 尚未写入汇总表的增量，按指标和小时累加 */
+    private final Map<PendingKey, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public StatisticsRollupService(StatisticsRollupMapper rollupMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   PerformanceProperties performanceProperties) {
+        this.rollupMapper = rollupMapper;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.config = performanceProperties.getStatistics();
+    }
+
+    /**
+     * 记录一次事件
+     * 去重计数指标和早于补算回看窗口的事件不记录，由补算按原始表计算
+     *
+     * @param metric 指标
+     * @param time   事件发生时间，为空时取当前时间
+     */
+    public void record(RollupMetric metric, LocalDateTime time) {
+        if (!enabled() || metric.isDistinct()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime eventTime = time != null ? time : now;
+        if (eventTime.isBefore(now.minusHours(config.getLookbackHours()))) {
+            return;
+        }
+        pending.computeIfAbsent(new PendingKey(metric, eventTime.truncatedTo(ChronoUnit.HOURS)),
+            key -> new LongAdder()).increment();
+    }
+
+    /**
+     * 定时把本地增量合并写入小时桶和天桶
+     */
+    @Scheduled(fixedDelayString = "${archive.performance.statistics.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 取出与累加之间的极小窗口内可能丢失个别增量，由补算修正
+        Map<PendingKey, Long> drained = new HashMap<>();
+        for (PendingKey key : new ArrayList<>(pending.keySet())) {
+            LongAdder adder = pending.remove(key);
+            long value = adder != null ? adder.sum() : 0L;
+            if (value > 0) {
+                drained.put(key, value);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            Integer written = writeTransaction.execute(status -> writeIncrements(drained));
+            log.debug("统计增量写入完成: 小时桶{}, 已由补算覆盖而丢弃{}", written, drained.size() - written);
+        } catch (Exception e) {
+            log.warn("统计增量写入失败，保留到下次写入: 小时桶{}", drained.size(), e);
+            drained.forEach((key, value) -> pending.computeIfAbsent(key, k -> new LongAdder()).add(value));
+        }
+    }
+
+    /**
+     * 锁定涉及指标的进度行后累加增量，须在事务中调用
+     * 进度行按枚举顺序锁定；尚未补算过的指标和进度之前的桶不写入
+     *
+     * @return 写入的小时桶数
+     */
+    private int writeIncrements(Map<PendingKey, Long> drained) {
+        EnumSet<RollupMetric> metrics = EnumSet.noneOf(RollupMetric.class);
+        drained.keySet().forEach(key -> metrics.add(key.metric));
+        Map<RollupMetric, LocalDateTime> watermarks = new EnumMap<>(RollupMetric.class);
+        for (RollupMetric metric : metrics) {
+            LocalDateTime watermark = rollupMapper.selectWatermarkForUpdate(metric.name());
+            if (watermark != null) {
+                watermarks.put(metric, watermark);
+            }
+        }
+
+        Map<PendingKey, Long> daily = new HashMap<>();
+        List<RollupBucket> hourlyBuckets = new ArrayList<>(drained.size());
+        drained.forEach((key, value) -> {
+            LocalDateTime watermark = watermarks.get(key.metric);
+            if (watermark == null || key.bucketStart.isBefore(watermark)) {
+                return;
+            }
+            hourlyBuckets.add(new RollupBucket(key.metric.name(), key.bucketStart, value));
+            daily.merge(new PendingKey(key.metric, key.bucketStart.truncatedTo(ChronoUnit.DAYS)), value, Long::sum);
+        });
+        List<RollupBucket> dailyBuckets = new ArrayList<>(daily.size());
+        daily.forEach((key, value) -> dailyBuckets.add(new RollupBucket(key.metric.name(), key.bucketStart, value)));
+
+        writeChunked(hourlyBuckets, rollupMapper::addHourly);
+        writeChunked(dailyBuckets, rollupMapper::addDaily);
+        return hourlyBuckets.size();
+    }
+
+    /**
+     * 定时按原始表补算各指标，并刷新分布快照
+     */
+    @Scheduled(fixedDelayString = "${archive.performance.statistics.catch-up-interval-ms:300000}",
+               initialDelayString = "${archive.performance.statistics.flush-interval-ms:5000}")
+    public void catchUp() {
+        if (!enabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        int windows = 0;
+        for (RollupMetric metric : RollupMetric.values()) {
+            try {
+                windows += catchUp(metric, currentHour);
+            } catch (Exception e) {
+                log.error("统计补算失败: metric={}", metric, e);
+            }
+        }
+        refreshSnapshots();
+        log.debug("统计补算完成: 窗口{}, 耗时{}ms", windows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按天读取指标序列
+     *
+     * @param metrics 指标
+     * @param from    起始日期（含）
+     * @param to      结束日期（含）
+     * @return 各指标的日期到计数，没有记录的日期不出现
+     */
+    public Map<RollupMetric, NavigableMap<LocalDate, Long>> dailySeries(Collection<RollupMetric> metrics,
+                                                                        LocalDate from, LocalDate to) {
+        Map<RollupMetric, NavigableMap<LocalDate, Long>> series = new EnumMap<>(RollupMetric.class);
+        List<String> names = new ArrayList<>(metrics.size());
+        for (RollupMetric metric : metrics) {
+            series.put(metric, new TreeMap<>());
+            names.add(metric.name());
+        }
+        if (names.isEmpty() || from.isAfter(to)) {
+            return series;
+        }
+        for (RollupBucket bucket : rollupMapper.selectDaily(names, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            series.get(RollupMetric.valueOf(bucket.getMetric()))
+                .merge(bucket.getBucketStart().toLocalDate(), bucket.getValue(), Long::sum);
+        }
+        return series;
+    }
+
+    /**
+     * 指标在日期范围内的合计
+     *
+     * @param metric 指标，去重计数指标的合计是各天之和
+     * @param from   起始日期（含）
+     * @param to     结束日期（含）
+     */
+    public long total(RollupMetric metric, LocalDate from, LocalDate to) {
+        return sum(dailySeries(List.of(metric), from, to).get(metric), from, to.plusDays(1));
+    }
+
+    /**
+     * 序列在 [from, to) 内的合计
+     */
+    public static long sum(NavigableMap<LocalDate, Long> series, LocalDate from, LocalDate to) {
+        long total = 0L;
+        if (series == null || !from.isBefore(to)) {
+            return total;
+        }
+        for (Long value : series.subMap(from, true, to, false).values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * 读取分布快照
+     *
+     * @param dimension 维度
+     * @return 名称到计数，尚未生成快照时为空
+     */
+    public Map<String, Long> snapshot(String dimension) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map<String, Object> row : rollupMapper.selectSnapshot(dimension)) {
+            result.put(String.valueOf(row.get("dimKey")), ((Number) row.get("value")).longValue());
+        }
+        return result;
+    }
+
+    /**
+     * 按当前数据刷新分布快照
+     */
+    public void refreshSnapshots() {
+        refreshSnapshot(DIMENSION_ARCHIVE_CATEGORY, rollupMapper::countArchivesByCategory, Function.identity());
+        refreshSnapshot(DIMENSION_SECURITY_LEVEL, rollupMapper::countArchivesBySecurityLevel,
+            StatisticsRollupService::securityLevelName);
+        refreshSnapshot(DIMENSION_BORROW_STATUS, rollupMapper::countBorrowsByStatus,
+            StatisticsRollupService::borrowStatusName);
+    }
+
+    private int catchUp(RollupMetric metric, LocalDateTime currentHour) {
+        // 去重计数指标不接受增量，重算到当前小时为止；其它指标的当前小时仍在累加增量，只重算已结束的小时
+        LocalDateTime end = metric.isDistinct() ? currentHour.plusHours(1) : currentHour;
+        LocalDateTime watermark = rollupMapper.selectWatermark(metric.name());
+        LocalDateTime from;
+        if (watermark != null) {
+            from = watermark.minusHours(config.getLookbackHours());
+        } else {
+            LocalDateTime earliest = rollupMapper.selectRawMinTime(metric.getTable(), metric.getTimeColumn(),
+                metric.getCondition());
+            from = earliest != null ? earliest : currentHour.minusHours(config.getLookbackHours());
+        }
+        from = from.truncatedTo(ChronoUnit.HOURS);
+        if (metric.isDistinct()) {
+            from = from.truncatedTo(ChronoUnit.DAYS);
+        }
+        if (watermark == null) {
+            rollupMapper.initWatermark(metric.name(), from);
+        }
+
+        int windows = 0;
+        long maxHours = Math.max(1, config.getMaxCatchUpHours());
+        while (from.isBefore(end)) {
+            LocalDateTime windowFrom = from;
+            LocalDateTime windowTo = from.plusHours(maxHours).isAfter(end) ? end : from.plusHours(maxHours);
+            // 覆盖与推进进度在同一事务中持有进度行锁，增量写入要么在覆盖之前完成，要么之后读到新进度而跳过这些桶
+            writeTransaction.executeWithoutResult(status -> {
+                rollupMapper.selectWatermarkForUpdate(metric.name());
+                if (metric.isDistinct()) {
+                    recomputeDistinct(metric, windowFrom, windowTo);
+                } else {
+                    recompute(metric, windowFrom, windowTo);
+                }
+                rollupMapper.advanceWatermark(metric.name(), windowTo.isAfter(currentHour) ? currentHour : windowTo);
+            });
+            from = windowTo;
+            windows++;
+        }
+        return windows;
+    }
+
+    /**
+     * 重算 [from, to) 内的每个小时桶（没有记录的小时写0），再由小时桶汇总出涉及的天桶
+     */
+    private void recompute(RollupMetric metric, LocalDateTime from, LocalDateTime to) {
+        Map<LocalDateTime, Long> counts = new HashMap<>();
+        for (RollupBucket bucket : rollupMapper.countRawHourly(metric.getTable(), metric.getTimeColumn(),
+                metric.getCondition(), from, to)) {
+            counts.put(bucket.getBucketStart(), bucket.getValue());
+        }
+        List<RollupBucket> buckets = new ArrayList<>();
+        for (LocalDateTime hour = from; hour.isBefore(to); hour = hour.plusHours(1)) {
+            buckets.add(new RollupBucket(metric.name(), hour, counts.getOrDefault(hour, 0L)));
+        }
+        writeChunked(buckets, rollupMapper::overwriteHourly);
+        rollupMapper.rollupDaily(metric.name(), from.truncatedTo(ChronoUnit.DAYS), ceilingDay(to));
+    }
+
+    /**
+     * 去重计数指标按天从原始表重算 [from, to) 涉及的每一天
+     */
+    private void recomputeDistinct(RollupMetric metric, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime dayFrom = from.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime dayTo = ceilingDay(to);
+        Map<LocalDateTime, Long> counts = new HashMap<>();
+        for (RollupBucket bucket : rollupMapper.countRawDailyDistinct(metric.getTable(), metric.getTimeColumn(),
+                metric.getDistinctColumn(), metric.getCondition(), dayFrom, dayTo)) {
+            counts.put(bucket.getBucketStart(), bucket.getValue());
+        }
+        List<RollupBucket> buckets = new ArrayList<>();
+        for (LocalDateTime day = dayFrom; day.isBefore(dayTo); day = day.plusDays(1)) {
+            buckets.add(new RollupBucket(metric.name(), day, counts.getOrDefault(day, 0L)));
+        }
+        writeChunked(buckets, rollupMapper::overwriteDaily);
+    }
+
+    private void refreshSnapshot(String dimension, Supplier<List<Map<String, Object>>> query,
+                                 Function<String, String> naming) {
+        try {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map<String, Object> row : query.get()) {
+                Map<String, Object> named = new HashMap<>();
+                named.put("dimKey", naming.apply(String.valueOf(row.get("dimKey"))));
+                named.put("value", row.get("value"));
+                rows.add(named);
+            }
+            writeTransaction.executeWithoutResult(status -> {
+                rollupMapper.deleteSnapshot(dimension);
+                if (!rows.isEmpty()) {
+                    rollupMapper.insertSnapshot(dimension, rows);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("刷新统计快照失败: dimension={}", dimension, e);
+        }
+    }
+
+    private static void writeChunked(List<RollupBucket> buckets, Function<List<RollupBucket>, Integer> writer) {
+        for (int from = 0; from < buckets.size(); from += WRITE_CHUNK_SIZE) {
+            writer.apply(buckets.subList(from, Math.min(from + WRITE_CHUNK_SIZE, buckets.size())));
+        }
+    }
+
+    private static LocalDateTime ceilingDay(LocalDateTime time) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return day.equals(time) ? day : day.plusDays(1);
+    }
+
+    private static String securityLevelName(String level) {
+        switch (level) {
+            case "0": return "公开";
+            case "1": return "内部";
+            case "2": return "秘密";
+            case "3": return "机密";
+            default: return "未知";
+        }
+    }
+
+    private static String borrowStatusName(String status) {
+        switch (status) {
+            case "1": return "PENDING";
+            case "2": return "APPROVED";
+            case "3": return "REJECTED";
+            case "4": return "BORROWED";
+            case "5": return "RETURNED";
+            case "6": return "OVERDUE";
+            default: return "UNKNOWN";
+        }
+    }
+
+    private boolean enabled() {
+        return Boolean.TRUE.equals(config.getRollupEnabled());
+    }
+
+    private static final class PendingKey {
+        private final RollupMetric metric;
+        private final LocalDateTime bucketStart;
+
+        private PendingKey(RollupMetric metric, LocalDateTime bucketStart) {
+            this.metric = metric;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PendingKey)) {
+                return false;
+            }
+            PendingKey other = (PendingKey) o;
+            return metric == other.metric && bucketStart.equals(other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metric, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.archive.management.sysconfig;
+
+import com.archive.management.util.JsonUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统配置只读快照
+ * 构建时把每个配置值预先解析为整数、长整数、浮点数、布尔和 JSON 树，
+ * 字符串列表和对象形式的 JSON 另外保存不可修改的副本；快照构建后不再变化，
+ * 读取不加锁、不解析
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+public final class SystemConfigSnapshot {
+
+    public static final SystemConfigSnapshot EMPTY = new SystemConfigSnapshot(0L, "", Collections.emptyMap());
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    private final long version;
+    private final String fingerprint;
+    private final Map<String, ConfigValue> values;
+
+    private SystemConfigSnapshot(long version, String fingerprint, Map<String, ConfigValue> values) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.values = values;
+    }
+
+    /**
+     * 构建快照
+     *
+     * @param version     快照版本
+     * @param fingerprint 构建时配置表的指纹，用于判断是否需要重建
+     * @param rawValues   配置键到明文配置值
+     */
+    public static SystemConfigSnapshot build(long version, String fingerprint, Map<String, String> rawValues) {
+        Map<String, ConfigValue> values = new HashMap<>(Math.max(16, rawValues.size() * 2));
+        rawValues.forEach((key, raw) -> values.put(key, ConfigValue.of(raw)));
+        return new SystemConfigSnapshot(version, fingerprint, Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * 取配置值
+     *
+     * @return 配置不存在时为空
+     */
+    public ConfigValue get(String configKey) {
+        return configKey == null ? null : values.get(configKey);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * 预解析的单个配置值，不能解析为对应类型的字段为空
+     */
+    public static final class ConfigValue {
+
+        private final String raw;
+        private final Integer intValue;
+        private final Long longValue;
+        private final Double doubleValue;
+        private final Boolean booleanValue;
+        private final JsonNode json;
+        private final List<String> listValue;
+        private final Map<String, Object> mapValue;
+
+        private ConfigValue(String raw) {
+            this.raw = raw;
+            String trimmed = raw != null ? raw.trim() : null;
+            this.intValue = parseInt(trimmed);
+            this.longValue = parseLong(trimmed);
+            this.doubleValue = parseDouble(trimmed);
+            this.booleanValue = Boolean.valueOf(trimmed);
+            this.json = isJsonContainer(trimmed) ? JsonUtil.parseJson(trimmed) : null;
+            this.listValue = toStringList(json);
+            this.mapValue = json != null && json.isObject()
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(JsonUtil.getObjectMapper().convertValue(json, MAP_TYPE)))
+                : null;
+        }
+
+        /**
+         * 解析单个配置值，快照不可用时也用于直接从数据库读取的值
+         */
+        public static ConfigValue of(String raw) {
+            return new ConfigValue(raw);
+        }
+
+        public String getRaw() {
+            return raw;
+        }
+
+        public Integer getIntValue() {
+            return intValue;
+        }
+
+        public Long getLongValue() {
+            return longValue;
+        }
+
+        public Double getDoubleValue() {
+            return doubleValue;
+        }
+
+        public Boolean getBooleanValue() {
+            return booleanValue;
+        }
+
+        /**
+         * 字符串数组形式的 JSON，不可修改
+         */
+        public List<String> getListValue() {
+            return listValue;
+        }
+
+        /**
+         * 对象形式的 JSON，不可修改
+         */
+        public Map<String, Object> getMapValue() {
+            return mapValue;
+        }
+
+        /**
+         * 转换为指定类型；调用方可能修改返回的对象，每次转换出新实例，
+         * 对象和数组从预解析的 JSON 树转换，不再解析字符串
+         *
+         * @return 不是有效的 JSON 时为空
+         */
+        public <T> T toObject(Class<T> clazz) {
+            if (json == null) {
+                return JsonUtil.fromJson(raw, clazz);
+            }
+            try {
+                return JsonUtil.getObjectMapper().treeToValue(json, clazz);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * 转换为指定泛型类型，规则同 {@link #toObject(Class)}
+         */
+        public <T> T toObject(TypeReference<T> typeReference) {
+            if (json == null) {
+                return JsonUtil.fromJson(raw, typeReference);
+            }
+            try {
+                return JsonUtil.getObjectMapper().convertValue(json, typeReference);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private static boolean isJsonContainer(String value) {
+            return value != null && !value.isEmpty() && (value.charAt(0) == '{' || value.charAt(0) == '[');
+        }
+
+        private static List<String> toStringList(JsonNode node) {
+            if (node == null || !node.isArray()) {
+                return null;
+            }
+            List<String> list = new ArrayList<>(node.size());
+            for (JsonNode element : node) {
+                if (!element.isValueNode()) {
+                    return null;
+                }
+                list.add(element.isNull() ? null : element.asText());
+            }
+            return Collections.unmodifiableList(list);
+        }
+
+        private static Integer parseInt(String value) {
+            try {
+                return value != null ? Integer.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Long parseLong(String value) {
+            try {
+                return value != null ? Long.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Double parseDouble(String value) {
+            try {
+                return value != null ? Double.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.archive.management.sysconfig;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.mapper.SystemConfigMapper;
+import com.archive.management.util.EncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 系统配置快照持有者
+ * 启动完成后从配置表构建 {@link SystemConfigSnapshot}，之后只在收到变更时整体重建并替换，
+ * 读取配置只是一次 volatile 读。变更来源：本节点的配置写入（事务提交后）、
+ * 配置变更消息、以及定时同步任务发现配置表指纹变化。
+ * 快照未就绪时 {@link #isReady()} 返回 false，调用方应回退到数据库查询
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@Slf4j
+@Component
+public class SystemConfigSnapshotHolder {
+
+    private final SystemConfigMapper systemConfigMapper;
+    private final PerformanceProperties.ConfigSnapshot config;
+    private final AtomicReference<SystemConfigSnapshot> snapshot = new AtomicReference<>(SystemConfigSnapshot.EMPTY);
+    private final AtomicLong versions = new AtomicLong();
+    private final Object rebuildLock = new Object();
+    private volatile boolean ready;
+
+    public SystemConfigSnapshotHolder(SystemConfigMapper systemConfigMapper,
+                                      PerformanceProperties performanceProperties) {
+        this.systemConfigMapper = systemConfigMapper;
+        this.config = performanceProperties.getConfigSnapshot();
+    }
+
+    /**
+     * 应用启动完成后构建快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled()) {
+            log.info("系统配置快照未启用，读取配置将直接查询数据库");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * 当前快照，未就绪时为空快照
+     */
+    public SystemConfigSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * 快照是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 全量重建快照
+     */
+    public void rebuild() {
+        if (!enabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            synchronized (rebuildLock) {
+                String fingerprint = fingerprint();
+                Map<String, String> rawValues = new HashMap<>();
+                for (Map<String, Object> row : systemConfigMapper.selectSnapshotRows()) {
+                    String key = (String) row.get("configKey");
+                    Object value = row.get("configValue");
+                    String raw = value != null ? value.toString() : null;
+                    if (raw != null && !raw.isEmpty() && isTrue(row.get("sensitive"))) {
+                        raw = EncryptionUtil.decrypt(raw);
+                    }
+                    rawValues.put(key, raw);
+                }
+                snapshot.set(SystemConfigSnapshot.build(versions.incrementAndGet(), fingerprint, rawValues));
+            }
+            ready = true;
+            log.info("系统配置快照构建完成，配置数: {}, 版本: {}, 耗时: {}ms",
+                snapshot.get().size(), snapshot.get().getVersion(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            ready = false;
+            log.error("系统配置快照构建失败，读取配置将回退到数据库查询", e);
+        }
+    }
+
+    /**
+     * 配置表指纹变化（或快照尚未就绪）时重建
+     *
+     * @return 是否执行了重建
+     */
+    public boolean refreshIfChanged() {
+        if (!enabled()) {
+            return false;
+        }
+        try {
+            if (ready && Objects.equals(fingerprint(), snapshot.get().getFingerprint())) {
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("读取系统配置指纹失败，执行全量重建", e);
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * 在当前事务提交后重建，没有事务时立即重建
+     */
+    public void rebuildAfterCommit() {
+        if (!enabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+
+    private String fingerprint() {
+        Map<String, Object> row = systemConfigMapper.selectSnapshotFingerprint();
+        if (row == null) {
+            return "";
+        }
+        return row.get("total") + ":" + row.get("deletedCount") + ":" + row.get("lastUpdated");
+    }
+
+    private static boolean isTrue(Object flag) {
+        if (flag instanceof Boolean) {
+            return (Boolean) flag;
+        }
+        if (flag instanceof Number) {
+            return ((Number) flag).intValue() != 0;
+        }
+        return flag != null && ("1".equals(flag.toString()) || "true".equalsIgnoreCase(flag.toString()));
+    }
+
+    private boolean enabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+}
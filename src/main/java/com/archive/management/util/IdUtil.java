@@ -39,8 +39,9 @@ public class IdUtil {
     
     private static long workerId = 1L;
     private static long datacenterId = 1L;
-    private static long lastTimestamp = -1L;
-    private static long sequence = 0L;
+
+    /** 雪花算法状态：高位为上次时间戳（相对EPOCH），低 SEQUENCE_BITS 位为该毫秒内已用序号，CAS 更新 */
+    private static final AtomicLong SNOWFLAKE_STATE = new AtomicLong(0);
     
     static {
         // 自动获取机器ID
@@ -94,33 +95,40 @@ public class IdUtil {
 
     /**
      * 生成雪花ID
+     * 时间戳与序号打包在一个 AtomicLong 中，通过 CAS 无锁推进
      * 
      * @return 雪花ID
      */
-    public static synchronized long snowflakeId() {
-        long timestamp = timeGen();
+    public static long snowflakeId() {
+        while (true) {
+            // 先读状态再读时钟，时钟只会不小于状态中的时间戳，除非系统时钟回拨
+            long state = SNOWFLAKE_STATE.get();
+            long lastTimestamp = state >>> SEQUENCE_BITS;
+            long timestamp = timeGen() - EPOCH;
+
+            if (timestamp < lastTimestamp) {
+                throw new RuntimeException(String.format(
+                    "Clock moved backwards. Refusing to generate id for %d milliseconds", 
+                    lastTimestamp - timestamp));
+            }
 
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format(
-                "Clock moved backwards. Refusing to generate id for %d milliseconds", 
-                lastTimestamp - timestamp));
-        }
+            long sequence = 0L;
+            if (timestamp == lastTimestamp) {
+                sequence = (state & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    // 本毫秒序号用尽，等到下一毫秒重试
+                    tilNextMillis(lastTimestamp + EPOCH);
+                    continue;
+                }
+            }
 
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & SEQUENCE_MASK;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+            if (SNOWFLAKE_STATE.compareAndSet(state, (timestamp << SEQUENCE_BITS) | sequence)) {
+                return (timestamp << TIMESTAMP_LEFT_SHIFT) |
+                       (datacenterId << DATACENTER_ID_SHIFT) |
+                       (workerId << WORKER_ID_SHIFT) |
+                       sequence;
             }
-        } else {
-            sequence = 0L;
         }
-
-        lastTimestamp = timestamp;
-
-        return ((timestamp - EPOCH) << TIMESTAMP_LEFT_SHIFT) |
-               (datacenterId << DATACENTER_ID_SHIFT) |
-               (workerId << WORKER_ID_SHIFT) |
-               sequence;
     }
 
     /**
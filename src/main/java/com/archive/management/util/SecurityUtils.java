@@ -64,7 +64,7 @@ public class SecurityUtils {
         if (username != null && userService != null) {
             try {
                 User user = userService.getUserByUsername(username);
-                return user != null ? user.getId() : null;
+                return user != null ? user.getUserId() : null;
             } catch (Exception e) {
                 logger.error("获取当前用户ID失败: {}", e.getMessage(), e);
             }
@@ -55,9 +55,6 @@ public class NotificationMessageHandler {
             boolean success = notificationService.markAsRead(notificationId, userId);
             
             if (success) {
-                // 更新用户的未读通知数量
-                webSocketHandler.updateUnreadCount(userId);
-                
                 return Map.of(
                     "success", true,
                     "message", "通知已标记为已读",
@@ -105,9 +102,6 @@ public class NotificationMessageHandler {
             // 批量标记通知为已读
             int successCount = notificationService.markBatchAsRead(notificationIds, userId);
             
-            // 更新用户的未读通知数量
-            webSocketHandler.updateUnreadCount(userId);
-            
             return Map.of(
                 "success", true,
                 "message", String.format("成功标记 %d 个通知为已读", successCount),
@@ -147,9 +141,6 @@ public class NotificationMessageHandler {
             // 标记所有通知为已读
             int successCount = notificationService.markAllAsRead(userId);
             
-            // 更新用户的未读通知数量
-            webSocketHandler.updateUnreadCount(userId);
-            
             return Map.of(
                 "success", true,
                 "message", String.format("成功标记 %d 个通知为已读", successCount),
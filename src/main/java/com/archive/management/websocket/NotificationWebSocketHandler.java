@@ -13,7 +13,12 @@ import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -34,6 +39,9 @@ public class NotificationWebSocketHandler {
     // 存储用户会话信息
     private final Map<String, String> userSessions = new ConcurrentHashMap<>();
 
+    // 在线用户及其会话数，批量推送时按用户判断是否在线
+    private final Map<String, Integer> onlineUsers = new ConcurrentHashMap<>();
+
     /**
      * 处理用户连接消息
      * 
@@ -50,7 +58,7 @@ public class NotificationWebSocketHandler {
             String sessionId = headerAccessor.getSessionId();
             
             if (userId != null && sessionId != null) {
-                userSessions.put(sessionId, userId);
+                bindSession(sessionId, userId);
                 log.info("用户 {} 连接到通知WebSocket，会话ID: {}", userId, sessionId);
                 
                 return Map.of(
@@ -81,7 +89,7 @@ public class NotificationWebSocketHandler {
     public void handleDisconnect(@Payload Map<String, Object> message,
                                 SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        String userId = userSessions.remove(sessionId);
+        String userId = unbindSession(sessionId);
         
         if (userId != null) {
             log.info("用户 {} 断开通知WebSocket连接，会话ID: {}", userId, sessionId);
@@ -142,6 +150,52 @@ public class NotificationWebSocketHandler {
         }
     }
 
+    /**
+     * 批量推送通知，只推给在线用户
+     * 同一用户的多条通知合并为一条消息，离线用户跳过（上线后从通知列表拉取）
+     * 
+     * @param notifications 通知列表
+     * @return 已推送的通知数
+     */
+    public int sendNotificationsToOnlineUsers(List<Notification> notifications) {
+        Map<String, List<Notification>> byUser = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            if (notification.getUserId() != null && notification.needWebsocketNotify()) {
+                String userId = String.valueOf(notification.getUserId());
+                if (onlineUsers.containsKey(userId)) {
+                    byUser.computeIfAbsent(userId, key -> new ArrayList<>(1)).add(notification);
+                }
+            }
+        }
+
+        int pushed = 0;
+        for (Map.Entry<String, List<Notification>> entry : byUser.entrySet()) {
+            List<Notification> userNotifications = entry.getValue();
+            try {
+                Map<String, Object> message = new LinkedHashMap<>();
+                if (userNotifications.size() == 1) {
+                    message.put("type", "NEW_NOTIFICATION");
+                    message.put("notification", convertNotificationToMap(userNotifications.get(0)));
+                } else {
+                    List<Map<String, Object>> items = new ArrayList<>(userNotifications.size());
+                    for (Notification notification : userNotifications) {
+                        items.add(convertNotificationToMap(notification));
+                    }
+                    message.put("type", "NEW_NOTIFICATIONS");
+                    message.put("notifications", items);
+                }
+                message.put("timestamp", LocalDateTime.now());
+
+                messagingTemplate.convertAndSendToUser(entry.getKey(), "/queue/notifications", message);
+                pushed += userNotifications.size();
+            } catch (Exception e) {
+                log.error("批量推送WebSocket通知给用户 {} 时发生错误", entry.getKey(), e);
+            }
+        }
+        log.debug("批量推送WebSocket通知: 在线用户{}, 通知{}/{}", byUser.size(), pushed, notifications.size());
+        return pushed;
+    }
+
     /**
      * 向所有用户广播通知
      * 
@@ -225,7 +279,16 @@ public class NotificationWebSocketHandler {
      * @return 是否在线
      */
     public boolean isUserOnline(String userId) {
-        return userSessions.containsValue(userId);
+        return userId != null && onlineUsers.containsKey(userId);
+    }
+
+    /**
+     * 当前在线用户ID（只读视图）
+     * 
+     * @return 在线用户ID
+     */
+    public Set<String> getOnlineUserIds() {
+        return Collections.unmodifiableSet(onlineUsers.keySet());
     }
 
     /**
@@ -236,7 +299,7 @@ public class NotificationWebSocketHandler {
      */
     public void addUserSession(Long userId, String sessionId) {
         if (userId != null && sessionId != null) {
-            userSessions.put(sessionId, String.valueOf(userId));
+            bindSession(sessionId, String.valueOf(userId));
             log.info("添加用户会话: userId={}, sessionId={}", userId, sessionId);
         }
     }
@@ -249,11 +312,38 @@ public class NotificationWebSocketHandler {
      */
     public void removeUserSession(Long userId, String sessionId) {
         if (sessionId != null) {
-            String removedUserId = userSessions.remove(sessionId);
+            String removedUserId = unbindSession(sessionId);
             log.info("移除用户会话: userId={}, sessionId={}, removedUserId={}", userId, sessionId, removedUserId);
         }
     }
 
+    /**
+     * 绑定会话到用户，会话原先绑定的其他用户计数相应减一
+     */
+    private void bindSession(String sessionId, String userId) {
+        String previous = userSessions.put(sessionId, userId);
+        if (userId.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            onlineUsers.computeIfPresent(previous, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        onlineUsers.merge(userId, 1, Integer::sum);
+    }
+
+    /**
+     * 解除会话绑定，用户最后一个会话断开后视为离线
+     * 
+     * @return 会话原先绑定的用户ID
+     */
+    private String unbindSession(String sessionId) {
+        String userId = userSessions.remove(sessionId);
+        if (userId != null) {
+            onlineUsers.computeIfPresent(userId, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        return userId;
+    }
+
     /**
      * 更新用户未读通知数量
      * 
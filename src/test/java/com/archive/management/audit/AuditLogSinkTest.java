@@ -0,0 +1,277 @@
+package com.archive.management.audit;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.AuditLog;
+import com.archive.management.mapper.AuditLogMapper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计日志异步写入测试类
+ * 覆盖同步写入、落盘补写往返、补写失败时的隔离、批次被拒绝时逐条写入以及停机与提交并发时不丢记录
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("审计日志异步写入测试")
+class AuditLogSinkTest {
+
+    @TempDir
+    Path spillDir;
+
+    private AuditLogMapper auditLogMapper;
+    private PerformanceProperties properties;
+    private List<AuditLog> inserted;
+
+    @BeforeEach
+    void setUp() {
+        auditLogMapper = mock(AuditLogMapper.class);
+        properties = new PerformanceProperties();
+        properties.getAudit().setAsyncEnabled(false);
+        properties.getAudit().setSpillDir(spillDir.toString());
+        properties.getAudit().setSpillMaxReplayAttempts(2);
+        inserted = Collections.synchronizedList(new ArrayList<>());
+        when(auditLogMapper.batchInsertIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<AuditLog> batch = invocation.getArgument(0);
+            for (AuditLog auditLog : batch) {
+                if ("poison".equals(auditLog.getBusinessType())) {
+                    throw new DataIntegrityViolationException("Data too long for column 'business_type'");
+                }
+            }
+            inserted.addAll(batch);
+            return batch.size();
+        });
+    }
+
+    private AuditLogSink newSink() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        return new AuditLogSink(auditLogMapper, new ConcurrentMapCacheManager(), objectMapper,
+            properties, new SimpleMeterRegistry());
+    }
+
+    private static AuditLog auditLog(String businessType) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(System.nanoTime());
+        auditLog.setUserId(100L);
+        auditLog.setUsername("admin");
+        auditLog.setOperationType(3);
+        auditLog.setModule("档案管理");
+        auditLog.setFunction("更新档案");
+        auditLog.setDescription("更新档案信息");
+        auditLog.setRequestMethod("PUT");
+        auditLog.setRequestUrl("/api/archives/1");
+        auditLog.setOperationResult(1);
+        auditLog.setExecutionTime(35L);
+        auditLog.setClientIp("192.168.1.10");
+        auditLog.setUserAgent("Mozilla/5.0");
+        auditLog.setBusinessId(1L);
+        auditLog.setBusinessType(businessType);
+        auditLog.setBusinessName("2024年度会计凭证");
+        auditLog.setRiskLevel(2);
+        auditLog.setIsSensitive(1);
+        auditLog.setTags("archive,update");
+        // 落盘格式按秒记录时间
+        auditLog.setCreateTime(LocalDateTime.now().withNano(0));
+        return auditLog;
+    }
+
+    private List<AuditLog> spilledRecords() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        List<AuditLog> records = new ArrayList<>();
+        try (Stream<Path> files = Files.list(spillDir)) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                for (String line : Files.readAllLines(file)) {
+                    records.add(objectMapper.readValue(line, AuditLog.class));
+                }
+            }
+        }
+        return records;
+    }
+
+    private List<String> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("未启用异步时同步写库，并补齐ID和创建时间")
+    void testSyncAppend() {
+        AuditLogSink sink = newSink();
+        AuditLog auditLog = auditLog("ARCHIVE");
+        auditLog.setId(null);
+        auditLog.setCreateTime(null);
+
+        sink.append(auditLog);
+
+        assertEquals(1, inserted.size());
+        assertSame(auditLog, inserted.get(0));
+        assertNotNull(auditLog.getId());
+        assertNotNull(auditLog.getCreateTime());
+    }
+
+    @Test
+    @DisplayName("落盘后补写的审计日志与原记录一致，补写完成删除文件")
+    void testSpillReplayRoundTrip() throws IOException {
+        AuditLogSink sink = newSink();
+        AuditLog original = auditLog("ARCHIVE");
+
+        sink.spill(List.of(original));
+        assertEquals(1, spillFiles().size());
+        sink.replaySpilled();
+
+        assertEquals(1, inserted.size());
+        assertEquals(original, inserted.get(0));
+        assertTrue(spillFiles().isEmpty());
+        assertEquals(1L, sink.getStatistics().get("totalReplayed"));
+    }
+
+    @Test
+    @DisplayName("反复补写失败的文件被隔离，不阻塞后面的文件")
+    void testPoisonFileQuarantined() throws IOException {
+        AuditLogSink sink = newSink();
+        AuditLog good = auditLog("ARCHIVE");
+        sink.spill(List.of(auditLog("poison")));
+        sink.spill(List.of(good));
+
+        sink.replaySpilled();
+        assertEquals(List.of(good), inserted);
+        List<String> files = spillFiles();
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).endsWith(".jsonl"));
+
+        sink.replaySpilled();
+        files = spillFiles();
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).endsWith(".jsonl.failed"));
+        assertEquals(1L, sink.getStatistics().get("totalQuarantined"));
+
+        // 隔离后的文件不再补写
+        sink.replaySpilled();
+        verify(auditLogMapper, times(3)).batchInsertIfAbsent(anyList());
+    }
+
+    @Test
+    @DisplayName("数据库不可用时停止本轮补写，不计入失败次数")
+    void testDatabaseUnavailable() throws IOException {
+        reset(auditLogMapper);
+        when(auditLogMapper.batchInsertIfAbsent(anyList()))
+            .thenThrow(new CannotGetJdbcConnectionException("Connection refused"));
+        AuditLogSink sink = newSink();
+        sink.spill(List.of(auditLog("ARCHIVE")));
+        sink.spill(List.of(auditLog("ARCHIVE")));
+
+        for (int i = 0; i < 5; i++) {
+            sink.replaySpilled();
+        }
+
+        List<String> files = spillFiles();
+        assertEquals(2, files.size());
+        assertTrue(files.stream().allMatch(name -> name.endsWith(".jsonl")));
+        verify(auditLogMapper, times(5)).batchInsertIfAbsent(anyList());
+        assertEquals(0L, sink.getStatistics().get("totalQuarantined"));
+    }
+
+    @Test
+    @DisplayName("部分记录被拒绝的落盘文件补写其余记录，只保留被拒绝的记录直至隔离")
+    void testReplayKeepsOnlyRejectedRecords() throws IOException {
+        AuditLogSink sink = newSink();
+        AuditLog first = auditLog("ARCHIVE");
+        AuditLog poison = auditLog("poison");
+        AuditLog last = auditLog("ARCHIVE");
+        sink.spill(List.of(first, poison, last));
+
+        sink.replaySpilled();
+        assertEquals(List.of(first, last), inserted);
+        assertEquals(List.of(poison), spilledRecords());
+        assertEquals(2L, sink.getStatistics().get("totalReplayed"));
+
+        sink.replaySpilled();
+        List<String> files = spillFiles();
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).endsWith(".jsonl.failed"));
+        assertEquals(List.of(poison), spilledRecords());
+        assertEquals(List.of(first, last), inserted);
+    }
+
+    @Test
+    @DisplayName("批次被数据库拒绝时逐条写入，只落盘被拒绝的记录")
+    void testRejectedBatchSpillsOnlyFailures() throws IOException {
+        properties.getAudit().setAsyncEnabled(true);
+        // 写入间隔足够长，记录都留在缓冲中由停机时一批写入
+        properties.getAudit().setFlushIntervalMs(60_000L);
+        AuditLogSink sink = newSink();
+        sink.start();
+        AuditLog first = auditLog("ARCHIVE");
+        AuditLog poison = auditLog("poison");
+        AuditLog last = auditLog("ARCHIVE");
+
+        sink.append(first);
+        sink.append(poison);
+        sink.append(last);
+        sink.shutdown();
+
+        assertEquals(List.of(first, last), inserted);
+        assertEquals(List.of(poison), spilledRecords());
+        assertEquals(1L, sink.getStatistics().get("totalSpilled"));
+    }
+
+    @Test
+    @DisplayName("停机与提交并发时每条记录都写库或落盘")
+    void testShutdownRacingAppendsLosesNothing() throws Exception {
+        properties.getAudit().setAsyncEnabled(true);
+        properties.getAudit().setFlushIntervalMs(1L);
+        properties.getAudit().setBufferCapacity(64);
+        properties.getAudit().setBatchSize(16);
+        AuditLogSink sink = newSink();
+        sink.start();
+        int producers = 4;
+        int perProducer = 2_000;
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < perProducer; i++) {
+                    sink.append(auditLog("ARCHIVE"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+
+        sink.shutdown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals((long) producers * perProducer, sink.getStatistics().get("totalSubmitted"));
+        assertEquals(producers * perProducer, inserted.size() + spilledRecords().size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.archive.management.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多生产者单消费者环形缓冲测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("多生产者单消费者环形缓冲测试")
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("容量按2的幂向上取整")
+    void testCapacityRoundedUp() {
+        assertEquals(8, new MpscRingBuffer<String>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<String>(8).capacity());
+        assertEquals(1, new MpscRingBuffer<String>(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(0));
+    }
+
+    @Test
+    @DisplayName("已满时拒绝放入，取出后可继续放入")
+    void testOfferRejectedWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+
+        drained.clear();
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(2, 3, 4, 5), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    @DisplayName("多线程放入的元素全部按各自顺序取出")
+    void testConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 20000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        int total = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (total < producers * perProducer && System.nanoTime() < deadline) {
+            total += buffer.drain(element -> {
+                int producer = (int) element[0];
+                assertEquals(lastSeen[producer] + 1, element[1]);
+                lastSeen[producer] = element[1];
+            }, 64);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(producers * perProducer, total);
+        for (long last : lastSeen) {
+            assertEquals(perProducer - 1, last);
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
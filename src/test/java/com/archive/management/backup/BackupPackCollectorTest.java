@@ -0,0 +1,171 @@
+package com.archive.management.backup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 备份数据包回收测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("备份数据包回收测试")
+class BackupPackCollectorTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path workDir;
+    private Path sourceDir;
+    private Path packDir;
+    private ExecutorService executor;
+    private ChunkedBackupWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("backup-pack-gc");
+        sourceDir = Files.createDirectories(workDir.resolve("source"));
+        packDir = workDir.resolve("packs");
+        executor = Executors.newFixedThreadPool(2);
+        writer = new ChunkedBackupWriter(executor, CHUNK_SIZE, 2, 6);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        try (Stream<Path> stream = Files.walk(workDir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("过期备份的数据包仍被后续索引引用时保留，不再被引用时删除")
+    void testExpireBackupDeletesOnlyUnreferencedPacks() throws IOException {
+        // 第1次：a、b 都写入 fs_1.pack
+        writeFile("a.bin", randomBytes(2 * CHUNK_SIZE, 1), 0);
+        writeFile("b.bin", randomBytes(2 * CHUNK_SIZE, 2), 0);
+        FileSnapshotIndex first = backup(1, null);
+
+        // 第2次：a 未变化引用 fs_1.pack，b 的新内容写入 fs_2.pack
+        writeFile("b.bin", randomBytes(2 * CHUNK_SIZE, 3), 60_000);
+        FileSnapshotIndex second = backup(2, first);
+
+        // 第3次：a 的新内容写入 fs_3.pack，b 未变化引用 fs_2.pack
+        writeFile("a.bin", randomBytes(2 * CHUNK_SIZE, 4), 120_000);
+        FileSnapshotIndex third = backup(3, second);
+        assertTrue(Files.exists(packDir.resolve("fs_3.pack")));
+
+        // 备份1过期：fs_1.pack 仍被备份2的 a 引用
+        expire(1);
+        BackupPackCollector.Result result = BackupPackCollector.collect(packDir, objectMapper);
+        assertEquals(2, result.getIndexes());
+        assertEquals(0, result.getDeletedPacks());
+        assertTrue(Files.exists(packDir.resolve("fs_1.pack")));
+
+        // 备份2过期：fs_1.pack 不再被引用，fs_2.pack 仍被备份3的 b 引用
+        long fs1Size = Files.size(packDir.resolve("fs_1.pack"));
+        expire(2);
+        result = BackupPackCollector.collect(packDir, objectMapper);
+        assertEquals(1, result.getDeletedPacks());
+        assertEquals(fs1Size, result.getFreedBytes());
+        assertFalse(Files.exists(packDir.resolve("fs_1.pack")));
+        assertTrue(Files.exists(packDir.resolve("fs_2.pack")));
+        assertTrue(Files.exists(packDir.resolve("fs_3.pack")));
+
+        // 保留的备份仍可完整恢复
+        Path target = workDir.resolve("restore");
+        assertEquals(2, ChunkedBackupReader.restore(third, packDir, target));
+        assertArrayEquals(Files.readAllBytes(sourceDir.resolve("a.bin")), Files.readAllBytes(target.resolve("a.bin")));
+        assertArrayEquals(Files.readAllBytes(sourceDir.resolve("b.bin")), Files.readAllBytes(target.resolve("b.bin")));
+    }
+
+    @Test
+    @DisplayName("没有索引写入的残留数据包被回收")
+    void testOrphanPackCollected() throws IOException {
+        writeFile("a.bin", randomBytes(CHUNK_SIZE, 5), 0);
+        backup(1, null);
+        writer.write(sources(), packDir, "fs_2", null, null);
+
+        BackupPackCollector.Result result = BackupPackCollector.collect(packDir, objectMapper);
+
+        assertEquals(1, result.getDeletedPacks());
+        assertTrue(Files.exists(packDir.resolve("fs_1.pack")));
+        assertFalse(Files.exists(packDir.resolve("fs_2.pack")));
+    }
+
+    @Test
+    @DisplayName("索引无法读取时不删除任何数据包")
+    void testUnreadableIndexAbortsSweep() throws IOException {
+        writeFile("a.bin", randomBytes(CHUNK_SIZE, 6), 0);
+        backup(1, null);
+        writer.write(sources(), packDir, "fs_2", null, null);
+        Files.writeString(packDir.resolve("fs_3" + ChunkedBackupWriter.INDEX_SUFFIX), "{broken");
+
+        assertThrows(IOException.class, () -> BackupPackCollector.collect(packDir, objectMapper));
+        assertTrue(Files.exists(packDir.resolve("fs_1.pack")));
+        assertTrue(Files.exists(packDir.resolve("fs_2.pack")));
+    }
+
+    @Test
+    @DisplayName("数据包目录不存在时不做处理")
+    void testMissingPackDirectory() throws IOException {
+        BackupPackCollector.Result result = BackupPackCollector.collect(packDir, objectMapper);
+        assertEquals(0, result.getIndexes());
+        assertEquals(0, result.getDeletedPacks());
+    }
+
+    private FileSnapshotIndex backup(long backupId, FileSnapshotIndex previous) throws IOException {
+        FileSnapshotIndex index = writer.write(sources(), packDir, "fs_" + backupId, previous, null);
+        index.setBackupId(backupId);
+        objectMapper.writeValue(indexFile(backupId).toFile(), index);
+        return index;
+    }
+
+    private void expire(long backupId) throws IOException {
+        Files.delete(indexFile(backupId));
+    }
+
+    private Path indexFile(long backupId) {
+        return packDir.resolve("fs_" + backupId + ChunkedBackupWriter.INDEX_SUFFIX);
+    }
+
+    private void writeFile(String path, byte[] content, long modifiedOffsetMs) throws IOException {
+        Path file = sourceDir.resolve(path);
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L + modifiedOffsetMs));
+    }
+
+    private List<ChunkedBackupWriter.SourceFile> sources() throws IOException {
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            List<ChunkedBackupWriter.SourceFile> sources = new ArrayList<>();
+            stream.filter(Files::isRegularFile).sorted().forEach(path -> sources.add(
+                new ChunkedBackupWriter.SourceFile(path, sourceDir.relativize(path).toString())));
+            return sources;
+        }
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
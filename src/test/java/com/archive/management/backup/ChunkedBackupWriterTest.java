@@ -0,0 +1,164 @@
+package com.archive.management.backup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行分块备份写入器测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("并行分块备份写入器测试")
+class ChunkedBackupWriterTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private Path workDir;
+    private Path sourceDir;
+    private Path packDir;
+    private ExecutorService executor;
+    private ChunkedBackupWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("chunked-backup");
+        sourceDir = Files.createDirectories(workDir.resolve("source"));
+        packDir = workDir.resolve("packs");
+        executor = Executors.newFixedThreadPool(4);
+        writer = new ChunkedBackupWriter(executor, CHUNK_SIZE, 3, 6);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        try (Stream<Path> stream = Files.walk(workDir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("写入后恢复内容与修改时间一致")
+    void testRoundTrip() throws IOException {
+        writeFile("a/large.bin", randomBytes(10 * CHUNK_SIZE + 17, 1));
+        writeFile("b/small.txt", "档案备份".getBytes());
+        writeFile("empty.txt", new byte[0]);
+
+        FileSnapshotIndex index = writer.write(sources(), packDir, "fs_1", null, null);
+        assertEquals("fs_1" + ChunkedBackupWriter.PACK_SUFFIX, index.getPack());
+        assertEquals(3, index.getFiles().size());
+
+        Path target = workDir.resolve("restore");
+        assertEquals(3, ChunkedBackupReader.restore(index, packDir, target));
+        for (String path : List.of("a/large.bin", "b/small.txt", "empty.txt")) {
+            assertArrayEquals(Files.readAllBytes(sourceDir.resolve(path)), Files.readAllBytes(target.resolve(path)));
+            assertEquals(Files.getLastModifiedTime(sourceDir.resolve(path)).toMillis(),
+                Files.getLastModifiedTime(target.resolve(path)).toMillis());
+        }
+    }
+
+    @Test
+    @DisplayName("相同内容的数据块只存储一次")
+    void testDuplicateChunksStoredOnce() throws IOException {
+        byte[] content = randomBytes(4 * CHUNK_SIZE, 2);
+        writeFile("copy1.bin", content);
+        writeFile("copy2.bin", content);
+
+        FileSnapshotIndex index = writer.write(sources(), packDir, "fs_1", null, null);
+
+        assertEquals(index.getFiles().get(0).getChunks(), index.getFiles().get(1).getChunks());
+        assertTrue(index.getStoredBytes() < content.length + 512);
+    }
+
+    @Test
+    @DisplayName("未变化的文件引用上次备份的数据包")
+    void testUnchangedFilesReferencePreviousPack() throws IOException {
+        writeFile("keep.bin", randomBytes(3 * CHUNK_SIZE, 3));
+        writeFile("change.bin", randomBytes(3 * CHUNK_SIZE, 4));
+        FileSnapshotIndex first = writer.write(sources(), packDir, "fs_1", null, null);
+
+        byte[] changed = randomBytes(3 * CHUNK_SIZE, 4);
+        changed[CHUNK_SIZE * 2 + 5] ^= 1;
+        writeFile("change.bin", changed);
+        Files.setLastModifiedTime(sourceDir.resolve("change.bin"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        List<Integer> progress = new ArrayList<>();
+        FileSnapshotIndex second = writer.write(sources(), packDir, "fs_2", first, progress::add);
+
+        assertEquals(1, second.getReusedFiles());
+        FileSnapshotIndex.FileEntry changedEntry = second.getFiles().stream()
+            .filter(entry -> entry.getPath().equals("change.bin")).findFirst().orElseThrow();
+        assertEquals("fs_1.pack", changedEntry.getChunks().get(0).getPack());
+        assertEquals("fs_2.pack", changedEntry.getChunks().get(2).getPack());
+        assertTrue(second.getStoredBytes() < first.getStoredBytes());
+        assertEquals(100, (int) progress.get(progress.size() - 1));
+
+        Path target = workDir.resolve("restore");
+        ChunkedBackupReader.restore(second, packDir, target);
+        assertArrayEquals(changed, Files.readAllBytes(target.resolve("change.bin")));
+    }
+
+    @Test
+    @DisplayName("没有新内容时不生成数据包")
+    void testNoNewContent() throws IOException {
+        writeFile("keep.bin", randomBytes(2 * CHUNK_SIZE, 5));
+        FileSnapshotIndex first = writer.write(sources(), packDir, "fs_1", null, null);
+
+        FileSnapshotIndex second = writer.write(sources(), packDir, "fs_2", first, null);
+
+        assertNull(second.getPack());
+        assertEquals(0, second.getStoredBytes());
+        assertFalse(Files.exists(packDir.resolve("fs_2.pack")));
+    }
+
+    @Test
+    @DisplayName("数据包损坏时恢复失败")
+    void testCorruptPackDetected() throws IOException {
+        writeFile("data.bin", randomBytes(2 * CHUNK_SIZE, 6));
+        FileSnapshotIndex index = writer.write(sources(), packDir, "fs_1", null, null);
+
+        byte[] pack = Files.readAllBytes(packDir.resolve("fs_1.pack"));
+        pack[pack.length / 2] ^= 0x5A;
+        Files.write(packDir.resolve("fs_1.pack"), pack);
+
+        assertThrows(IOException.class, () -> ChunkedBackupReader.restore(index, packDir, workDir.resolve("restore")));
+    }
+
+    private void writeFile(String path, byte[] content) throws IOException {
+        Path file = sourceDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    private List<ChunkedBackupWriter.SourceFile> sources() throws IOException {
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            List<ChunkedBackupWriter.SourceFile> sources = new ArrayList<>();
+            stream.filter(Files::isRegularFile).sorted().forEach(path -> sources.add(
+                new ChunkedBackupWriter.SourceFile(path, sourceDir.relativize(path).toString().replace('\\', '/'))));
+            return sources;
+        }
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,208 @@
+package com.archive.management.cache;
+
+import com.archive.management.annotation.EvictCacheTags;
+import com.archive.management.aspect.CacheTagAspect;
+import com.archive.management.entity.Permission;
+import com.archive.management.entity.Role;
+import com.archive.management.mapper.PermissionMapper;
+import com.archive.management.mapper.RoleMapper;
+import com.archive.management.mapper.RolePermissionMapper;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.permission.PermissionForest;
+import com.archive.management.permission.PermissionForestHolder;
+import com.archive.management.service.impl.PermissionServiceImpl;
+import com.archive.management.service.impl.RoleServiceImpl;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 角色授权变更的缓存标签测试类
+ * 按 @Cacheable 的标签键缓存查询结果，再按 @EvictCacheTags 解析出的标签失效，
+ * 验证撤销权限后反查角色和用户权限树都不再返回旧结果
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("角色授权缓存标签测试")
+class RolePermissionCacheTagTest {
+
+    private static final Long ROLE_ID = 10L;
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private PermissionMapper permissionMapper;
+
+    @Mock
+    private PermissionDecisionEngine permissionDecisionEngine;
+
+    @Mock
+    private RolePermissionMapper rolePermissionMapper;
+
+    @Mock
+    private PermissionForestHolder permissionForestHolder;
+
+    @Mock
+    private CacheTagInvalidator cacheTagInvalidator;
+
+    @InjectMocks
+    private RoleServiceImpl roleService;
+
+    private PermissionServiceImpl permissionService;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final Map<String, Object> entries = new HashMap<>();
+    private final Map<String, Set<String>> tagIndex = new HashMap<>();
+
+    /** 角色当前拥有的权限ID */
+    private final List<Long> granted = new ArrayList<>(Arrays.asList(1L, 2L));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roleService, "baseMapper", roleMapper);
+        permissionService = new PermissionServiceImpl(permissionMapper, rolePermissionMapper, null, null, null,
+            null, null, permissionDecisionEngine, permissionForestHolder);
+
+        Role role = new Role();
+        role.setId(ROLE_ID);
+        when(roleMapper.selectById(ROLE_ID)).thenReturn(role);
+        when(roleMapper.findByPermissionId(anyLong())).thenAnswer(invocation ->
+            granted.contains(invocation.<Long>getArgument(0)) ? List.of(role) : List.of());
+        when(rolePermissionMapper.selectPermissionIdsByUserId(USER_ID)).thenAnswer(invocation -> new ArrayList<>(granted));
+        when(permissionForestHolder.get()).thenReturn(PermissionForest.build(1L, List.of(permission(1L), permission(2L))));
+    }
+
+    private static Permission permission(Long id) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setParentId(0L);
+        permission.setSortOrder(id.intValue());
+        return permission;
+    }
+
+    @Test
+    @DisplayName("撤销权限后按权限反查角色和用户权限树都重新加载")
+    void testRevokedPermissionEvictsReverseLookupAndUserTree() throws Exception {
+        assertEquals(1, rolesByPermission(2L).size());
+        assertEquals(Set.of(1L, 2L), treeIds(userPermissionTree()));
+
+        // 重新分配为只有权限1，权限2被撤销
+        List<Long> permissionIds = List.of(1L);
+        when(permissionMapper.selectBatchIds(permissionIds)).thenReturn(List.of(permission(1L)));
+        assertTrue(roleService.assignPermissions(ROLE_ID, permissionIds, 1L));
+        granted.retainAll(permissionIds);
+        evictTagsOf(RoleServiceImpl.class.getMethod("assignPermissions", Long.class, List.class, Long.class),
+            ROLE_ID, permissionIds, 1L);
+
+        assertTrue(rolesByPermission(2L).isEmpty());
+        assertEquals(Set.of(1L), treeIds(userPermissionTree()));
+        verify(roleMapper, times(2)).findByPermissionId(2L);
+        verify(rolePermissionMapper, times(2)).selectPermissionIdsByUserId(USER_ID);
+    }
+
+    @Test
+    @DisplayName("移除权限后按权限反查角色和用户权限树都重新加载")
+    void testRemovedPermissionEvictsReverseLookupAndUserTree() throws Exception {
+        assertEquals(1, rolesByPermission(2L).size());
+        assertEquals(Set.of(1L, 2L), treeIds(userPermissionTree()));
+
+        List<Long> permissionIds = List.of(2L);
+        when(roleMapper.deleteRolePermissionsByIds(ROLE_ID, permissionIds)).thenReturn(true);
+        assertTrue(roleService.removePermissions(ROLE_ID, permissionIds, 1L));
+        granted.removeAll(permissionIds);
+        evictTagsOf(RoleServiceImpl.class.getMethod("removePermissions", Long.class, List.class, Long.class),
+            ROLE_ID, permissionIds, 1L);
+
+        assertTrue(rolesByPermission(2L).isEmpty());
+        assertEquals(Set.of(1L), treeIds(userPermissionTree()));
+    }
+
+    private List<?> rolesByPermission(Long permissionId) throws Exception {
+        return cached(RoleServiceImpl.class.getMethod("getRolesByPermission", Long.class),
+            new Object[]{permissionId}, () -> roleService.getRolesByPermission(permissionId));
+    }
+
+    private List<?> userPermissionTree() throws Exception {
+        return cached(PermissionServiceImpl.class.getMethod("getUserPermissionTree", Long.class),
+            new Object[]{USER_ID}, () -> permissionService.getUserPermissionTree(USER_ID));
+    }
+
+    private static Set<Long> treeIds(List<?> tree) {
+        return tree.stream().map(node -> (Long) ((Map<?, ?>) node).get("id")).collect(Collectors.toSet());
+    }
+
+    /**
+     * 按方法上 @Cacheable 的标签键读缓存，未命中时加载并登记标签
+     */
+    private List<?> cached(Method method, Object[] args, Supplier<List<?>> loader) {
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        CacheTags.TaggedKey key = (CacheTags.TaggedKey) parser.parseExpression(cacheable.key())
+            .getValue(new MethodBasedEvaluationContext(null, method, args, new DefaultParameterNameDiscoverer()));
+        String entryKey = cacheable.value()[0] + "::" + key.getKey();
+        if (entries.containsKey(entryKey)) {
+            return (List<?>) entries.get(entryKey);
+        }
+        List<?> value = loader.get();
+        entries.put(entryKey, value);
+        for (String tag : key.getTags()) {
+            tagIndex.computeIfAbsent(tag, t -> new HashSet<>()).add(entryKey);
+        }
+        return value;
+    }
+
+    /**
+     * 经 CacheTagAspect 解析方法上的 @EvictCacheTags，失效带有这些标签的条目
+     */
+    @SuppressWarnings("unchecked")
+    private void evictTagsOf(Method method, Object... args) {
+        JoinPoint joinPoint = mock(JoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getArgs()).thenReturn(args);
+
+        new CacheTagAspect(cacheTagInvalidator).evictTags(joinPoint, method.getAnnotation(EvictCacheTags.class));
+
+        ArgumentCaptor<Collection<String>> tags = ArgumentCaptor.forClass(Collection.class);
+        verify(cacheTagInvalidator, atLeastOnce()).evict(tags.capture());
+        for (String tag : tags.getValue()) {
+            Set<String> keys = tagIndex.remove(tag);
+            if (keys != null) {
+                keys.forEach(entries::remove);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.archive.management.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("二级缓存测试")
+class TwoLevelCacheTest {
+
+    private final ConcurrentMapCache redisCache = new ConcurrentMapCache("roles");
+    private final List<String> registered = Collections.synchronizedList(new ArrayList<>());
+    private final TwoLevelCache cache = new TwoLevelCache("roles", Caffeine.newBuilder().build(), redisCache,
+        (name, key) -> { }, (name, key) -> registered.add(name + ":" + key + "=" + key.getTags()));
+
+    @Test
+    @DisplayName("同一键并发未命中只加载一次")
+    void testSingleFlight() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "role-1";
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("role-1", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals("role-1", redisCache.get("1").get());
+    }
+
+    @Test
+    @DisplayName("带标签的键以原始键存储并登记标签")
+    void testTaggedKey() {
+        CacheTags.TaggedKey key = CacheTags.key(5L, "role:5", "role:*");
+        cache.put(key, "role-5");
+
+        assertEquals("role-5", redisCache.get(5L).get());
+        assertEquals("role-5", cache.get(5L).get());
+        assertEquals(Collections.singletonList("roles:5=[role:5, role:*]"), registered);
+
+        cache.evict(5L);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    @DisplayName("加载失败时等待者收到同一异常，之后可重新加载")
+    void testLoaderFailure() {
+        assertThrows(RuntimeException.class, () -> cache.get("2", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", cache.get("2", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("L2 写入失败时退化为只用 L1，不向调用方抛出")
+    void testRemoteWriteFailureFallsBackToLocal() {
+        ConcurrentMapCache failingRedis = new ConcurrentMapCache("departments") {
+            @Override
+            public void put(Object key, Object value) {
+                throw new SerializationException("cannot serialize " + value.getClass().getName());
+            }
+        };
+        TwoLevelCache departments = new TwoLevelCache("departments", Caffeine.newBuilder().build(), failingRedis,
+            (name, key) -> { }, (name, key) -> { });
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("tree", departments.get("tree", () -> {
+            loads.incrementAndGet();
+            return "tree";
+        }));
+        assertEquals("tree", departments.get("tree", () -> "reloaded"));
+        assertEquals(1, loads.get());
+
+        departments.put("root", "dept-1");
+        assertEquals("dept-1", departments.get("root").get());
+        assertNull(failingRedis.get("root"));
+    }
+
+    @Test
+    @DisplayName("L2 读取失败时按未命中处理并重新加载")
+    void testRemoteReadFailureTreatedAsMiss() {
+        ConcurrentMapCache failingRedis = new ConcurrentMapCache("departments") {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new SerializationException("cannot deserialize");
+            }
+        };
+        TwoLevelCache departments = new TwoLevelCache("departments", Caffeine.newBuilder().build(), failingRedis,
+            (name, key) -> { }, (name, key) -> { });
+
+        assertNull(departments.get("root"));
+        assertEquals("dept-1", departments.get("root", () -> "dept-1"));
+    }
+}
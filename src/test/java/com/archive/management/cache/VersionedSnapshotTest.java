@@ -0,0 +1,45 @@
+package com.archive.management.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 版本快照测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("版本快照测试")
+class VersionedSnapshotTest {
+
+    @Test
+    @DisplayName("版本未变时复用快照，失效后重建")
+    void testRebuildOnlyAfterInvalidate() {
+        AtomicInteger builds = new AtomicInteger();
+        VersionedSnapshot<Integer> snapshot = new VersionedSnapshot<>();
+
+        assertEquals(1, (int) snapshot.get(builds::incrementAndGet, 0));
+        assertEquals(1, (int) snapshot.get(builds::incrementAndGet, 0));
+
+        snapshot.invalidate();
+        assertEquals(2, (int) snapshot.get(builds::incrementAndGet, 0));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    @DisplayName("构建期间发生变更，下次读取再次重建")
+    void testInvalidateDuringBuild() {
+        VersionedSnapshot<String> snapshot = new VersionedSnapshot<>();
+
+        assertEquals("stale", snapshot.get(() -> {
+            snapshot.invalidate();
+            return "stale";
+        }, 0));
+        assertEquals("fresh", snapshot.get(() -> "fresh", 0));
+    }
+}
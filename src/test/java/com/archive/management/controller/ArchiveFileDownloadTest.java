@@ -0,0 +1,131 @@
+package com.archive.management.controller;
+
+import com.archive.management.counter.AccessCounterBuffer;
+import com.archive.management.download.RangedDownloadEngine;
+import com.archive.management.entity.ArchiveFile;
+import com.archive.management.exception.ResourceNotFoundException;
+import com.archive.management.service.ArchiveFileService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 档案文件下载测试类
+ * 本地文件的长度和修改时间以磁盘为准，磁盘文件缺失时返回404
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("档案文件下载测试")
+class ArchiveFileDownloadTest {
+
+    private static final byte[] CONTENT = "archive-content".getBytes(StandardCharsets.UTF_8);
+    private static final long MODIFIED = 1_700_000_000_000L;
+
+    @Mock
+    private ArchiveFileService archiveFileService;
+
+    @Mock
+    private AccessCounterBuffer accessCounterBuffer;
+
+    private ArchiveFileController controller;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        controller = new ArchiveFileController(archiveFileService, accessCounterBuffer, new RangedDownloadEngine(null));
+        file = Files.createTempFile("archive-download", ".bin");
+        Files.write(file, CONTENT);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(MODIFIED));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private ArchiveFile archiveFile(Long fileSize) {
+        ArchiveFile archiveFile = new ArchiveFile();
+        archiveFile.setId(1L);
+        archiveFile.setFileName("stored.bin");
+        archiveFile.setOriginalName("report.bin");
+        archiveFile.setFileSize(fileSize);
+        when(archiveFileService.getArchiveFileById(1L)).thenReturn(archiveFile);
+        return archiveFile;
+    }
+
+    private MockHttpServletResponse download() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadFile(1L, 2L, new MockHttpServletRequest("GET", "/api/archive-files/1/download"), response);
+        return response;
+    }
+
+    @Test
+    @DisplayName("数据库文件大小为空时按磁盘长度返回完整内容")
+    void testNullFileSizeUsesDiskLength() {
+        ArchiveFile archiveFile = archiveFile(null);
+        when(archiveFileService.getFileDownloadPath(archiveFile)).thenReturn(file.toString());
+
+        MockHttpServletResponse response = download();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT.length, response.getContentLengthLong());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals(MODIFIED, response.getDateHeader("Last-Modified"));
+        verify(archiveFileService).incrementDownloadCount(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("数据库文件大小过期时不截断也不越界")
+    void testStaleFileSizeUsesDiskLength() {
+        ArchiveFile archiveFile = archiveFile(CONTENT.length + 100L);
+        when(archiveFileService.getFileDownloadPath(archiveFile)).thenReturn(file.toString());
+
+        MockHttpServletResponse response = download();
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("磁盘文件缺失时返回404且不计下载次数")
+    void testMissingFileReturns404() {
+        ArchiveFile archiveFile = archiveFile(10L);
+        when(archiveFileService.getFileDownloadPath(archiveFile)).thenThrow(ResourceNotFoundException.fileNotFound(1L));
+
+        MockHttpServletResponse response = download();
+
+        assertEquals(404, response.getStatus());
+        verify(archiveFileService, never()).incrementDownloadCount(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("解析路径后文件被删除时同样返回404")
+    void testFileRemovedAfterResolveReturns404() throws IOException {
+        ArchiveFile archiveFile = archiveFile(10L);
+        when(archiveFileService.getFileDownloadPath(archiveFile)).thenReturn(file.toString());
+        Files.delete(file);
+
+        MockHttpServletResponse response = download();
+
+        assertEquals(404, response.getStatus());
+        verify(archiveFileService, never()).incrementDownloadCount(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,289 @@
+package com.archive.management.counter;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.counter.AccessCounterBuffer.CounterType;
+import com.archive.management.entity.Archive;
+import com.archive.management.mapper.ArchiveFileMapper;
+import com.archive.management.mapper.ArchiveMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 访问计数写回缓冲测试类
+ * Redis 日志哈希用内存 Map 模拟，扣减脚本按同样的语义原子执行；
+ * 覆盖写回与日志扣减、写回失败保留增量、写回与累加并发、启动补写以及写回后失效缓存
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("访问计数写回缓冲测试")
+class AccessCounterBufferTest {
+
+    private static final String JOURNAL_KEY = "archive:counter:journal:node-1";
+
+    @Mock
+    private ArchiveMapper archiveMapper;
+
+    @Mock
+    private ArchiveFileMapper archiveFileMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    private PerformanceProperties properties;
+
+    /** 模拟的 Redis 日志哈希 */
+    private final Map<Object, Object> journal = new HashMap<>();
+
+    /** 已写入数据库的查看次数 */
+    private final Map<Long, Long> persistedViews = new ConcurrentHashMap<>();
+
+    /** 每次 HINCRBY 之前执行的动作，用于把写回插入到累加中间 */
+    private Runnable beforeJournalIncrement = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        properties = new PerformanceProperties();
+        properties.getCounter().setInstanceId("node-1");
+
+        lenient().when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        lenient().when(hashOperations.increment(eq(JOURNAL_KEY), any(), anyLong())).thenAnswer(invocation -> {
+            beforeJournalIncrement.run();
+            synchronized (journal) {
+                journal.merge(invocation.getArgument(1), invocation.<Long>getArgument(2), (a, b) -> toLong(a) + toLong(b));
+            }
+            return null;
+        });
+        lenient().when(hashOperations.entries(JOURNAL_KEY)).thenAnswer(invocation -> {
+            synchronized (journal) {
+                return new HashMap<>(journal);
+            }
+        });
+        // 与 JOURNAL_SETTLE_SCRIPT 相同：按 field/增量 成对扣减，扣减到0及以下的字段删除
+        lenient().when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(JOURNAL_KEY)), any(Object[].class)))
+            .thenAnswer(invocation -> {
+                Object[] args = (Object[]) invocation.getRawArguments()[2];
+                synchronized (journal) {
+                    for (int i = 0; i < args.length; i += 2) {
+                        long value = toLong(journal.get(args[i])) - Long.parseLong(args[i + 1].toString());
+                        if (value <= 0) {
+                            journal.remove(args[i]);
+                        } else {
+                            journal.put(args[i], value);
+                        }
+                    }
+                }
+                return 1L;
+            });
+        lenient().when(archiveMapper.batchAddViewCount(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Long> deltas = invocation.getArgument(0);
+            deltas.forEach((id, delta) -> persistedViews.merge(id, delta, Long::sum));
+            return deltas.size();
+        });
+    }
+
+    private AccessCounterBuffer newBuffer() {
+        return new AccessCounterBuffer(archiveMapper, archiveFileMapper, stringRedisTemplate, cacheManager,
+            properties, 8080);
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    @Test
+    @DisplayName("写回按ID合并增量，成功后扣减日志")
+    void testFlushAggregatesAndSettlesJournal() {
+        AccessCounterBuffer buffer = newBuffer();
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+        buffer.increment(CounterType.ARCHIVE_VIEW, 2L);
+        assertEquals(2, buffer.pending(CounterType.ARCHIVE_VIEW, 1L));
+        assertEquals(2L, toLong(journal.get("ARCHIVE_VIEW:1")));
+
+        buffer.flush();
+
+        assertEquals(Map.of(1L, 2L, 2L, 1L), persistedViews);
+        assertEquals(0, buffer.pending(CounterType.ARCHIVE_VIEW, 1L));
+        assertTrue(journal.isEmpty());
+        verify(archiveMapper, times(1)).batchAddViewCount(anyMap());
+    }
+
+    @Test
+    @DisplayName("写回失败时增量放回缓冲，日志保留到下次写回成功")
+    void testFailedFlushKeepsDelta() {
+        when(archiveFileMapper.batchAddDownloadCount(anyMap()))
+            .thenThrow(new IllegalStateException("db down"))
+            .thenReturn(1);
+        AccessCounterBuffer buffer = newBuffer();
+        buffer.increment(CounterType.FILE_DOWNLOAD, 7L);
+        buffer.increment(CounterType.FILE_DOWNLOAD, 7L);
+
+        buffer.flush();
+        assertEquals(2, buffer.pending(CounterType.FILE_DOWNLOAD, 7L));
+        assertEquals(2L, toLong(journal.get("FILE_DOWNLOAD:7")));
+
+        buffer.flush();
+        assertEquals(0, buffer.pending(CounterType.FILE_DOWNLOAD, 7L));
+        assertTrue(journal.isEmpty());
+        verify(archiveFileMapper, times(2)).batchAddDownloadCount(Map.of(7L, 2L));
+    }
+
+    @Test
+    @DisplayName("写回落在累加中间时不留下会被重复补写的日志")
+    void testFlushDuringIncrementLeavesNoStaleJournal() {
+        AccessCounterBuffer buffer = newBuffer();
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+
+        // 第二次访问的 HINCRBY 之前恰好发生一次写回
+        beforeJournalIncrement = buffer::flush;
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+        beforeJournalIncrement = () -> { };
+        buffer.flush();
+
+        assertEquals(2L, persistedViews.get(1L));
+        assertTrue(journal.isEmpty());
+
+        // 重启补写不再重复计数
+        newBuffer().recoverJournal();
+        assertEquals(2L, persistedViews.get(1L));
+    }
+
+    @Test
+    @DisplayName("空闲计数器被移除时并发累加的增量不丢失")
+    void testConcurrentIncrementAndFlush() throws Exception {
+        AccessCounterBuffer buffer = newBuffer();
+        int threads = 4;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger flushes = new AtomicInteger();
+
+        Future<?> flusher = executor.submit(() -> {
+            start.await();
+            while (running.get()) {
+                buffer.flush();
+                flushes.incrementAndGet();
+            }
+            return null;
+        });
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    // 少量ID，计数器频繁被判定空闲后移除
+                    buffer.increment(CounterType.ARCHIVE_VIEW, (long) (i % 3));
+                    if (i % 50 == 0) {
+                        Thread.yield();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        flusher.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        buffer.flush();
+
+        assertTrue(flushes.get() > 0);
+        assertEquals((long) threads * perThread, persistedViews.values().stream().mapToLong(Long::longValue).sum());
+        for (long id = 0; id < 3; id++) {
+            assertEquals(0, buffer.pending(CounterType.ARCHIVE_VIEW, id));
+        }
+        assertTrue(journal.isEmpty());
+    }
+
+    @Test
+    @DisplayName("启动时补写日志中的正增量并扣减，无法识别的字段忽略")
+    void testRecoverJournal() {
+        journal.put("ARCHIVE_VIEW:5", "3");
+        journal.put("FILE_DOWNLOAD:7", "2");
+        journal.put("ARCHIVE_DOWNLOAD:8", "0");
+        journal.put("UNKNOWN:1", "4");
+        journal.put("garbage", "1");
+
+        newBuffer().recoverJournal();
+
+        assertEquals(Map.of(5L, 3L), persistedViews);
+        verify(archiveFileMapper).batchAddDownloadCount(Map.of(7L, 2L));
+        verify(archiveMapper, never()).batchAddDownloadCount(anyMap());
+        assertFalse(journal.containsKey("ARCHIVE_VIEW:5"));
+        assertFalse(journal.containsKey("FILE_DOWNLOAD:7"));
+        assertTrue(journal.containsKey("garbage"));
+    }
+
+    @Test
+    @DisplayName("关闭日志时不读写 Redis")
+    void testJournalDisabled() {
+        properties.getCounter().setJournalEnabled(false);
+        AccessCounterBuffer buffer = newBuffer();
+        buffer.recoverJournal();
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+        buffer.flush();
+
+        assertEquals(Map.of(1L, 1L), persistedViews);
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("写回后同时失效档案的ID键和编号键")
+    void testFlushEvictsIdAndNumberKeys() {
+        ConcurrentMapCache archives = new ConcurrentMapCache("archives");
+        Archive archive = new Archive();
+        archive.setArchiveId(1L);
+        archive.setArchiveNo("A-001");
+        archives.put(1L, archive);
+        archives.put("number:A-001", archive);
+        archives.put("number:A-002", new Archive());
+        when(cacheManager.getCache("archives")).thenReturn(archives);
+        when(archiveMapper.selectBatchIds(anyCollection())).thenReturn(List.of(archive));
+        AccessCounterBuffer buffer = newBuffer();
+        buffer.increment(CounterType.ARCHIVE_VIEW, 1L);
+
+        buffer.flush();
+
+        assertNull(archives.get(1L));
+        assertNull(archives.get("number:A-001"));
+        assertNotNull(archives.get("number:A-002"));
+    }
+}
@@ -0,0 +1,287 @@
+package com.archive.management.counter;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.mapper.NotificationMapper;
+import com.archive.management.websocket.NotificationWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户未读通知计数器测试类
+ * Redis 字符串键用内存 Map 模拟，调整和比较覆盖脚本按同样的语义执行，库中的未读数由测试直接给出；
+ * 覆盖按块调整、键缺失时重新加载、按库校准以及校准期间落下的调整不被覆盖
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用户未读通知计数器测试")
+class UnreadNotificationCounterTest {
+
+    private static final String KEY_PREFIX = "archive:notification:unread:";
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private NotificationWebSocketHandler webSocketHandler;
+
+    private PerformanceProperties properties;
+
+    /** 模拟的 Redis 键值 */
+    private final Map<String, String> redis = new HashMap<>();
+
+    /** 库中各用户的未读数，没有的视为0 */
+    private final Map<Long, Long> database = new HashMap<>();
+
+    /** 在线用户 */
+    private final Set<String> online = new HashSet<>();
+
+    /** 每次校准查询的用户 */
+    private final List<List<Long>> reconcileQueries = new ArrayList<>();
+
+    /** 每次调整脚本涉及的键 */
+    private final List<List<String>> adjustedKeys = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PerformanceProperties();
+        properties.getNotification().setChunkSize(2);
+
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+            .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        // 与 ADJUST_SCRIPT、COMPARE_AND_SET_SCRIPT 相同
+        lenient().when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenAnswer(invocation -> {
+                String script = invocation.<RedisScript<?>>getArgument(0).getScriptAsString();
+                List<String> keys = invocation.getArgument(1);
+                Object[] args = (Object[]) invocation.getRawArguments()[2];
+                if (script.contains("INCRBY")) {
+                    adjustedKeys.add(new ArrayList<>(keys));
+                    List<Object> result = new ArrayList<>();
+                    for (String key : keys) {
+                        if (redis.containsKey(key)) {
+                            long value = Math.max(0, Long.parseLong(redis.get(key)) + Long.parseLong(args[0].toString()));
+                            redis.put(key, String.valueOf(value));
+                            result.add(value);
+                        } else {
+                            result.add(-1L);
+                        }
+                    }
+                    return result;
+                }
+                List<Object> skipped = new ArrayList<>();
+                for (int i = 0; i < keys.size(); i++) {
+                    if (redis.getOrDefault(keys.get(i), "").equals(args[2 * i + 1].toString())) {
+                        redis.put(keys.get(i), args[2 * i + 2].toString());
+                    } else {
+                        skipped.add((long) i);
+                    }
+                }
+                return skipped;
+            });
+        lenient().when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation -> invocation
+            .<Collection<String>>getArgument(0).stream().map(redis::get).collect(Collectors.toList()));
+        lenient().when(notificationMapper.countUnreadGroupByUser(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> userIds = invocation.getArgument(0);
+            reconcileQueries.add(new ArrayList<>(userIds));
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Long userId : userIds) {
+                if (database.getOrDefault(userId, 0L) > 0) {
+                    rows.add(Map.of("userId", userId, "unreadCount", database.get(userId)));
+                }
+            }
+            return rows;
+        });
+        lenient().when(webSocketHandler.getOnlineUserIds()).thenAnswer(invocation -> new HashSet<>(online));
+        lenient().when(webSocketHandler.isUserOnline(anyString()))
+            .thenAnswer(invocation -> online.contains(invocation.<String>getArgument(0)));
+    }
+
+    private UnreadNotificationCounter newCounter() {
+        return new UnreadNotificationCounter(notificationMapper, stringRedisTemplate, webSocketHandler, properties);
+    }
+
+    private String redisValue(long userId) {
+        return redis.get(KEY_PREFIX + userId);
+    }
+
+    @Test
+    @DisplayName("批量累加按块执行调整脚本，重复和空的用户被忽略")
+    void testIncrementAllChunks() {
+        redis.put(KEY_PREFIX + 1, "3");
+        redis.put(KEY_PREFIX + 5, "0");
+        UnreadNotificationCounter counter = newCounter();
+
+        counter.incrementAll(Arrays.asList(1L, 2L, 1L, null, 3L, 4L, 5L));
+
+        assertEquals(List.of(
+            List.of(KEY_PREFIX + 1, KEY_PREFIX + 2),
+            List.of(KEY_PREFIX + 3, KEY_PREFIX + 4),
+            List.of(KEY_PREFIX + 5)), adjustedKeys);
+        assertEquals("4", redisValue(1));
+        assertEquals("1", redisValue(5));
+        // 键不存在的用户不在 Redis 中建键，留待首次读取时从库加载
+        assertNull(redisValue(2));
+    }
+
+    @Test
+    @DisplayName("键缺失的在线用户累加后从库加载并推送")
+    void testIncrementReloadsMissingOnlineUser() {
+        online.add("7");
+        when(notificationMapper.selectCount(any())).thenReturn(6L);
+        UnreadNotificationCounter counter = newCounter();
+
+        counter.increment(7L);
+
+        assertEquals("6", redisValue(7));
+        verify(webSocketHandler).sendUnreadCountUpdate("7", 6L);
+    }
+
+    @Test
+    @DisplayName("已读减少不低于0，数值不变时不重复推送")
+    void testDecrementClampsAndPushesOnChange() {
+        online.add("1");
+        redis.put(KEY_PREFIX + 1, "2");
+        UnreadNotificationCounter counter = newCounter();
+
+        counter.decrement(1L, 5);
+        counter.decrement(1L, 1);
+
+        assertEquals("0", redisValue(1));
+        verify(webSocketHandler, times(1)).sendUnreadCountUpdate("1", 0L);
+    }
+
+    @Test
+    @DisplayName("校准按库覆盖在线用户和本地缓存用户的未读数，只向在线用户推送变化")
+    void testReconcileOverwritesDrift() {
+        online.addAll(List.of("1", "2", "guest"));
+        redis.put(KEY_PREFIX + 1, "5");
+        redis.put(KEY_PREFIX + 2, "3");
+        redis.put(KEY_PREFIX + 3, "7");
+        database.put(1L, 2L);
+        database.put(3L, 4L);
+        UnreadNotificationCounter counter = newCounter();
+        // 离线用户3读取过，进入本地缓存
+        assertEquals(7L, counter.get(3L));
+
+        counter.reconcile();
+
+        assertEquals("2", redisValue(1));
+        assertEquals("0", redisValue(2));
+        assertEquals("4", redisValue(3));
+        assertEquals(4L, counter.get(3L));
+        verify(webSocketHandler).sendUnreadCountUpdate("1", 2L);
+        verify(webSocketHandler).sendUnreadCountUpdate("2", 0L);
+        verify(webSocketHandler, never()).sendUnreadCountUpdate(eq("3"), anyLong());
+        verify(webSocketHandler, never()).sendUnreadCountUpdate(eq("guest"), anyLong());
+
+        // 再次校准数值不变，不再推送
+        counter.reconcile();
+        verify(webSocketHandler, times(2)).sendUnreadCountUpdate(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("校准按块查询和覆盖")
+    void testReconcileChunks() {
+        online.addAll(List.of("1", "2", "3", "4", "5"));
+        database.put(5L, 1L);
+        UnreadNotificationCounter counter = newCounter();
+
+        counter.reconcile();
+
+        assertEquals(3, reconcileQueries.size());
+        assertEquals(List.of(2, 2, 1), reconcileQueries.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L),
+            reconcileQueries.stream().flatMap(List::stream).collect(Collectors.toSet()));
+        assertEquals("1", redisValue(5));
+        assertEquals("0", redisValue(4));
+    }
+
+    @Test
+    @DisplayName("查库与覆盖之间落下的调整不被校准覆盖，留待下次校准")
+    void testReconcileKeepsConcurrentIncrement() {
+        online.addAll(List.of("1", "2"));
+        redis.put(KEY_PREFIX + 1, "5");
+        redis.put(KEY_PREFIX + 2, "3");
+        database.put(1L, 2L);
+        database.put(2L, 1L);
+        UnreadNotificationCounter counter = newCounter();
+        assertEquals(5L, counter.get(1L));
+        // 查库之后、覆盖之前，用户1收到一条新通知
+        when(notificationMapper.countUnreadGroupByUser(anyCollection())).thenAnswer(invocation -> {
+            counter.increment(1L);
+            return List.of(Map.of("userId", 1L, "unreadCount", 2L), Map.of("userId", 2L, "unreadCount", 1L));
+        });
+
+        counter.reconcile();
+
+        assertEquals("6", redisValue(1));
+        assertEquals("1", redisValue(2));
+        assertEquals(6L, counter.get(1L));
+    }
+
+    @Test
+    @DisplayName("闲置的离线用户本地缓存被移除，不再参与校准")
+    void testReconcileEvictsIdleOfflineUsers() throws InterruptedException {
+        properties.getNotification().setUnreadIdleEvictMs(0L);
+        redis.put(KEY_PREFIX + 3, "7");
+        UnreadNotificationCounter counter = newCounter();
+        counter.get(3L);
+        Thread.sleep(5);
+
+        counter.reconcile();
+
+        assertTrue(reconcileQueries.isEmpty());
+        assertEquals("7", redisValue(3));
+    }
+
+    @Test
+    @DisplayName("校准写入 Redis 失败时本地缓存仍按库更新")
+    void testReconcileRedisFailureStillUpdatesLocal() {
+        redis.put(KEY_PREFIX + 3, "7");
+        database.put(3L, 4L);
+        UnreadNotificationCounter counter = newCounter();
+        counter.get(3L);
+        doThrow(new IllegalStateException("redis down"))
+            .when(stringRedisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        counter.reconcile();
+
+        assertEquals(4L, counter.get(3L));
+        assertEquals("7", redisValue(3));
+    }
+}
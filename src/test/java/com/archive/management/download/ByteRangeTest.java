@@ -0,0 +1,106 @@
+package com.archive.management.download;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 字节区间与条件下载测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("字节区间与条件下载测试")
+class ByteRangeTest {
+
+    private static final long LAST_MODIFIED = 1_705_708_800_123L;
+
+    @Test
+    @DisplayName("解析单个、开放和后缀区间")
+    void testParseSingle() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-99", 1000);
+        assertEquals(1, ranges.size());
+        assertEquals(100L, ranges.get(0).getLength());
+        assertEquals("bytes 0-99/1000", ranges.get(0).toContentRange(1000));
+
+        ByteRange open = ByteRange.parse("bytes=900-", 1000).get(0);
+        assertEquals(900L, open.getStart());
+        assertEquals(999L, open.getEnd());
+
+        ByteRange suffix = ByteRange.parse("bytes=-200", 1000).get(0);
+        assertEquals(800L, suffix.getStart());
+        assertEquals(999L, suffix.getEnd());
+
+        // 结束位置超出长度时截断，超过 2GB 的长度按 long 处理
+        long large = 5L * 1024 * 1024 * 1024;
+        ByteRange tail = ByteRange.parse("bytes=4294967296-99999999999", large).get(0);
+        assertEquals(large - 4294967296L, tail.getLength());
+    }
+
+    @Test
+    @DisplayName("多个区间排序并合并重叠部分")
+    void testParseMultiple() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=500-599, 0-99, 50-149, 150-199", 1000);
+        assertEquals(2, ranges.size());
+        assertEquals("0-199", ranges.get(0).toString());
+        assertEquals("500-599", ranges.get(1).toString());
+    }
+
+    @Test
+    @DisplayName("无效请求头返回完整内容，越界区间不可满足")
+    void testParseInvalid() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=abc", 1000));
+        assertNull(ByteRange.parse("bytes=100-50", 1000));
+        StringBuilder many = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRange.MAX_RANGES; i++) {
+            many.append(',').append(i * 10).append('-').append(i * 10);
+        }
+        assertNull(ByteRange.parse(many.toString(), 1000));
+
+        assertTrue(ByteRange.parse("bytes=1000-1100", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+    }
+
+    @Test
+    @DisplayName("ETag 与修改时间的条件请求")
+    void testNotModified() {
+        DownloadResource strong = DownloadResource.ofObject("a/b.pdf", "b.pdf", null, 1000, LAST_MODIFIED, "abc123");
+        assertEquals("\"abc123\"", strong.getEtag());
+        assertTrue(strong.isStrongEtag());
+        assertEquals("application/octet-stream", strong.getContentType());
+
+        assertTrue(RangedDownloadEngine.isNotModified("\"abc123\"", -1, strong));
+        assertTrue(RangedDownloadEngine.isNotModified("\"x\", W/\"abc123\"", -1, strong));
+        assertTrue(RangedDownloadEngine.isNotModified("*", -1, strong));
+        // 有 If-None-Match 时忽略 If-Modified-Since
+        assertFalse(RangedDownloadEngine.isNotModified("\"other\"", LAST_MODIFIED, strong));
+
+        long secondsPrecision = LAST_MODIFIED / 1000 * 1000;
+        assertTrue(RangedDownloadEngine.isNotModified(null, secondsPrecision, strong));
+        assertFalse(RangedDownloadEngine.isNotModified(null, secondsPrecision - 1000, strong));
+        assertFalse(RangedDownloadEngine.isNotModified(null, -1, strong));
+    }
+
+    @Test
+    @DisplayName("If-Range 只接受强 ETag 或一致的修改时间")
+    void testIfRange() {
+        DownloadResource strong = DownloadResource.ofObject("a/b.pdf", "b.pdf", null, 1000, LAST_MODIFIED, "abc123");
+        DownloadResource weak = DownloadResource.ofFile(Paths.get("b.pdf"), "b.pdf", null, 1000, LAST_MODIFIED, null);
+        assertFalse(weak.isStrongEtag());
+
+        assertTrue(RangedDownloadEngine.ifRangeMatches("\"abc123\"", -1, strong));
+        assertFalse(RangedDownloadEngine.ifRangeMatches("\"changed\"", -1, strong));
+        assertFalse(RangedDownloadEngine.ifRangeMatches(weak.getEtag(), -1, weak));
+
+        long secondsPrecision = LAST_MODIFIED / 1000 * 1000;
+        assertTrue(RangedDownloadEngine.ifRangeMatches("Sat, 20 Jan 2024 00:00:00 GMT", secondsPrecision, weak));
+        assertFalse(RangedDownloadEngine.ifRangeMatches("Fri, 19 Jan 2024 00:00:00 GMT", secondsPrecision - 86_400_000L, weak));
+    }
+}
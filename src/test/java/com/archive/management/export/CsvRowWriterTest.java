@@ -0,0 +1,112 @@
+package com.archive.management.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CSV 行编码器测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("CSV 行编码器测试")
+class CsvRowWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    @DisplayName("数字、日期快速路径与通用格式一致")
+    void testFastPaths() throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("a", 0L);
+        row.put("b", -9876543210L);
+        row.put("c", Long.MIN_VALUE);
+        row.put("d", 42);
+        row.put("e", LocalDateTime.of(2024, 1, 5, 7, 8, 9));
+        row.put("f", LocalDate.of(2024, 12, 31));
+        row.put("g", true);
+        row.put("h", new BigDecimal("12.50"));
+
+        assertEquals("0,-9876543210," + Long.MIN_VALUE + ",42,2024-01-05 07:08:09,2024-12-31,true,12.50" + NL,
+            write(List.of("a", "b", "c", "d", "e", "f", "g", "h"), row));
+    }
+
+    @Test
+    @DisplayName("特殊字符加引号转义，空值输出为空")
+    void testEscaping() throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("plain", "档案");
+        row.put("comma", "a,b");
+        row.put("quote", "说\"明\"");
+        row.put("newline", "第一行\n第二行");
+
+        assertEquals("档案,\"a,b\",\"说\"\"明\"\"\",\"第一行\n第二行\"," + NL,
+            write(List.of("plain", "comma", "quote", "newline", "missing"), row));
+    }
+
+    @Test
+    @DisplayName("超过缓冲区大小的长文本完整写出")
+    void testLongValueSpansBuffer() throws Exception {
+        String longText = "档".repeat(20_000);
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 1L);
+        row.put("text", longText);
+
+        assertEquals("1," + longText + NL, write(List.of("id", "text"), row));
+    }
+
+    @Test
+    @DisplayName("按 getter 解析实体字段")
+    void testBeanAccessors() throws Exception {
+        StringWriter out = new StringWriter();
+        CsvRowWriter<Sample> writer = CsvRowWriter.forBeans(out, Sample.class, List.of("id", "name", "active"));
+        writer.writeHeader(List.of("ID", "名称", "启用"));
+        writer.writeRow(new Sample(7L, "报表,年度", true));
+        writer.flush();
+
+        assertEquals("ID,名称,启用" + NL + "7,\"报表,年度\",true" + NL, out.toString());
+        assertThrows(IllegalArgumentException.class,
+            () -> CsvRowWriter.forBeans(out, Sample.class, List.of("unknown")));
+    }
+
+    private static String write(List<String> fields, Map<String, Object> row) throws Exception {
+        StringWriter out = new StringWriter();
+        CsvRowWriter<Map<String, Object>> writer = CsvRowWriter.forMaps(out, fields);
+        writer.writeRow(row);
+        writer.flush();
+        return out.toString();
+    }
+
+    public static class Sample {
+        private final Long id;
+        private final String name;
+        private final boolean active;
+
+        public Sample(Long id, String name, boolean active) {
+            this.id = id;
+            this.name = name;
+            this.active = active;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
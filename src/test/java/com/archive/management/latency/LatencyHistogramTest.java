@@ -0,0 +1,83 @@
+package com.archive.management.latency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟直方图测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("延迟直方图测试")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("分桶连续且相对误差在3%以内")
+    void testBucketLayout() {
+        assertEquals(0, LatencyHistogram.bucketIndex(0));
+        assertEquals(63, LatencyHistogram.bucketIndex(63));
+        assertEquals(64, LatencyHistogram.bucketIndex(64));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE));
+
+        for (long value = 1; value < LatencyHistogram.MAX_VALUE; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value * 0.03 + 1, "误差过大: " + value);
+            assertEquals(index + 1, LatencyHistogram.bucketIndex(highest + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("百分位、最大值与平均值")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        LatencyHistogram.Snapshot.Builder builder = new LatencyHistogram.Snapshot.Builder();
+        histogram.addTo(builder);
+        LatencyHistogram.Snapshot snapshot = builder.build();
+
+        assertEquals(10000, snapshot.getTotalCount());
+        assertEquals(10_000_000L, snapshot.getMax());
+        assertEquals(5_000_500.0, snapshot.getMean(), 0.001);
+        assertEquals(5_000_000.0, snapshot.getValueAtPercentile(50), 5_000_000 * 0.03);
+        assertEquals(9_900_000.0, snapshot.getValueAtPercentile(99), 9_900_000 * 0.03);
+        assertEquals(10_000_000L, snapshot.getValueAtPercentile(100));
+        assertEquals(0L, LatencyHistogram.Snapshot.EMPTY.getValueAtPercentile(99));
+    }
+
+    @Test
+    @DisplayName("编码还原后与原快照一致，合并后计数相加")
+    void testEncodeAndMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(120);
+        first.record(3_500_000);
+        second.record(-5);
+        second.record(LatencyHistogram.MAX_VALUE + 1000);
+
+        LatencyHistogram.Snapshot.Builder builder = new LatencyHistogram.Snapshot.Builder();
+        first.addTo(builder);
+        LatencyHistogram.Snapshot firstSnapshot = builder.build();
+        LatencyHistogram.Snapshot decoded = LatencyHistogram.Snapshot.decode(firstSnapshot.encode());
+        assertEquals(firstSnapshot.getTotalCount(), decoded.getTotalCount());
+        assertEquals(firstSnapshot.getSum(), decoded.getSum());
+        assertEquals(firstSnapshot.getMax(), decoded.getMax());
+        assertEquals(firstSnapshot.getValueAtPercentile(50), decoded.getValueAtPercentile(50));
+
+        builder = new LatencyHistogram.Snapshot.Builder();
+        second.addTo(builder);
+        LatencyHistogram.Snapshot merged = decoded.merge(builder.build());
+        assertEquals(4, merged.getTotalCount());
+        assertEquals(LatencyHistogram.MAX_VALUE, merged.getMax());
+        assertEquals(0L, merged.getValueAtPercentile(1));
+
+        assertThrows(IllegalArgumentException.class, () -> LatencyHistogram.Snapshot.decode("gA=="));
+    }
+}
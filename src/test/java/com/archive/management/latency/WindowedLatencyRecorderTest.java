@@ -0,0 +1,46 @@
+package com.archive.management.latency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 滑动窗口延迟记录器测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("滑动窗口延迟记录器测试")
+class WindowedLatencyRecorderTest {
+
+    @Test
+    @DisplayName("窗口外的时间片不计入快照")
+    void testWindowRotation() {
+        WindowedLatencyRecorder recorder = new WindowedLatencyRecorder(60000, 6);
+        recorder.record(1000, 0);
+        recorder.record(2000, 15000);
+        recorder.record(3000, 59999);
+
+        assertEquals(3, recorder.snapshot(59999).getTotalCount());
+        // 第一个时间片 [0, 10000) 已滑出窗口
+        assertEquals(2, recorder.snapshot(60000).getTotalCount());
+        assertEquals(3000, recorder.snapshot(60000).getMax());
+        assertEquals(0, recorder.snapshot(200000).getTotalCount());
+    }
+
+    @Test
+    @DisplayName("复用槽位时清除旧时间片的数据")
+    void testSlotReuse() {
+        WindowedLatencyRecorder recorder = new WindowedLatencyRecorder(60000, 6);
+        recorder.record(9000, 5000);
+        recorder.record(100, 65000);
+
+        LatencyHistogram.Snapshot snapshot = recorder.snapshot(65000);
+        assertEquals(1, snapshot.getTotalCount());
+        assertEquals(100, snapshot.getMax());
+        assertEquals(60000, recorder.getWindowMillis());
+        assertEquals(55001, recorder.coveredMillis(65000));
+    }
+}
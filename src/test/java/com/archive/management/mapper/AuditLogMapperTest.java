@@ -0,0 +1,81 @@
+package com.archive.management.mapper;
+
+import com.archive.management.entity.AuditLog;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import org.apache.ibatis.annotations.Insert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 审计日志手写 SQL 与实体映射一致性测试类
+ * 批量插入不经过 MyBatis-Plus 的实体映射，列名和属性名都要与 {@link AuditLog} 保持一致
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("审计日志Mapper映射测试")
+class AuditLogMapperTest {
+
+    private static final Pattern INSERT_PATTERN =
+        Pattern.compile("INSERT INTO (\\w+) \\((.+?)\\) VALUES");
+    private static final Pattern PROPERTY_PATTERN = Pattern.compile("#\\{log\\.(\\w+)}");
+
+    /**
+     * 实体的持久化字段：属性名 -> 列名
+     */
+    private static Map<String, String> persistentColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (Field field : AuditLog.class.getDeclaredFields()) {
+            TableId id = field.getAnnotation(TableId.class);
+            TableField column = field.getAnnotation(TableField.class);
+            if (id != null) {
+                columns.put(field.getName(), id.value());
+            } else if (column != null && column.exist()) {
+                columns.put(field.getName(), column.value());
+            }
+        }
+        return columns;
+    }
+
+    @Test
+    @DisplayName("批量插入写入实体对应的表，覆盖全部列且列与属性一一对应")
+    void testBatchInsertIfAbsentMatchesEntity() throws NoSuchMethodException {
+        String sql = AuditLogMapper.class.getMethod("batchInsertIfAbsent", List.class)
+            .getAnnotation(Insert.class).value()[0];
+
+        Matcher insert = INSERT_PATTERN.matcher(sql);
+        assertTrue(insert.find(), sql);
+        assertEquals(AuditLog.class.getAnnotation(TableName.class).value(), insert.group(1));
+
+        List<String> columns = new ArrayList<>();
+        for (String column : insert.group(2).split(",")) {
+            columns.add(column.trim().replace("`", ""));
+        }
+        List<String> properties = new ArrayList<>();
+        Matcher property = PROPERTY_PATTERN.matcher(sql);
+        while (property.find()) {
+            properties.add(property.group(1));
+        }
+
+        Map<String, String> entityColumns = persistentColumns();
+        assertEquals(columns.size(), properties.size());
+        assertEquals(entityColumns.size(), columns.size());
+        for (int i = 0; i < properties.size(); i++) {
+            assertTrue(entityColumns.containsKey(properties.get(i)), "实体没有属性: " + properties.get(i));
+            assertEquals(entityColumns.get(properties.get(i)), columns.get(i), "列与属性不对应: " + properties.get(i));
+        }
+    }
+}
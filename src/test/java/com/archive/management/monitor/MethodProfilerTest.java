@@ -0,0 +1,105 @@
+package com.archive.management.monitor;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.dto.ChangePasswordRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方法耗时采集器慢调用参数记录测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("方法耗时采集器参数脱敏测试")
+class MethodProfilerTest {
+
+    private static final String PLAIN_PASSWORD = "Secret123";
+
+    /**
+     * 被监控的服务方法
+     */
+    static class UserOperations {
+        public boolean changePassword(Long userId, ChangePasswordRequest request, Map<String, Object> extra) {
+            return true;
+        }
+    }
+
+    private static MethodProfiler profiler(boolean argumentValues) {
+        PerformanceProperties properties = new PerformanceProperties();
+        // 阈值为0，每次调用都记为慢调用
+        properties.getProfiling().setSlowServiceMs(0L);
+        properties.getProfiling().setArgumentValues(argumentValues);
+        return new MethodProfiler(new SimpleMeterRegistry(), properties);
+    }
+
+    private static List<String> profileChangePassword(MethodProfiler profiler) throws Throwable {
+        Method method = UserOperations.class.getMethod("changePassword", Long.class,
+            ChangePasswordRequest.class, Map.class);
+        ChangePasswordRequest request = ChangePasswordRequest.builder()
+            .oldPassword(PLAIN_PASSWORD)
+            .newPassword(PLAIN_PASSWORD + "New")
+            .confirmNewPassword(PLAIN_PASSWORD + "New")
+            .build();
+        Object[] args = {1L, request, Map.of("token", PLAIN_PASSWORD)};
+        profiler.profile(MethodProfiler.Layer.SERVICE, method, UserOperations.class, new MethodProfiler.Invocation() {
+            @Override
+            public Object proceed() {
+                return new UserOperations().changePassword(1L, request, null);
+            }
+
+            @Override
+            public Object[] arguments() {
+                return args;
+            }
+        });
+        List<SlowCallLog.SlowCall> calls = profiler.getSlowCalls(1);
+        assertEquals(1, calls.size());
+        return calls.get(0).getArguments();
+    }
+
+    @Test
+    @DisplayName("默认只记录参数类型和大小")
+    void testShapeOnlyByDefault() throws Throwable {
+        List<String> arguments = profileChangePassword(profiler(false));
+
+        assertEquals(3, arguments.size());
+        assertEquals("1", arguments.get(0));
+        assertEquals("ChangePasswordRequest", arguments.get(1));
+        assertTrue(arguments.get(2).endsWith("[size=1]"));
+        arguments.forEach(argument -> assertFalse(argument.contains(PLAIN_PASSWORD), argument));
+    }
+
+    @Test
+    @DisplayName("记录参数值时 DTO 和 Map 中的敏感字段不出现明文")
+    void testArgumentValuesMasked() throws Throwable {
+        List<String> arguments = profileChangePassword(profiler(true));
+
+        assertEquals(3, arguments.size());
+        arguments.forEach(argument -> assertFalse(argument.contains(PLAIN_PASSWORD), argument));
+        assertEquals("{token=******}", arguments.get(2));
+    }
+
+    @Test
+    @DisplayName("类型描述与字段脱敏")
+    void testDescribeAndMask() {
+        assertEquals("null", MethodProfiler.describeShape(null));
+        assertEquals("42", MethodProfiler.describeShape(42L));
+        assertEquals("String[length=9]", MethodProfiler.describeShape(PLAIN_PASSWORD));
+        assertEquals("byte[16]", MethodProfiler.describeShape(new byte[16]));
+        assertEquals("ArrayList[size=2]", MethodProfiler.describeShape(new ArrayList<>(List.of(1, 2))));
+
+        assertEquals("LoginForm(username=admin, password=******, captchaToken=******)",
+            MethodProfiler.maskSensitiveFields("LoginForm(username=admin, password=p@ss, captchaToken=abc)"));
+        assertEquals("[apiSecret=******]", MethodProfiler.maskSensitiveFields("[apiSecret=xyz]"));
+    }
+}
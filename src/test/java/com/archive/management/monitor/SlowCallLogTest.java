@@ -0,0 +1,55 @@
+package com.archive.management.monitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 慢调用环形缓冲测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("慢调用环形缓冲测试")
+class SlowCallLogTest {
+
+    private static SlowCallLog.SlowCall call(String methodName) {
+        return new SlowCallLog.SlowCall(System.currentTimeMillis(), "SERVICE", "ArchiveServiceImpl", methodName,
+            1200.0, Collections.emptyList(), null, Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("容量取2的幂，最新的记录在前")
+    void testRecentOrder() {
+        SlowCallLog log = new SlowCallLog(3);
+        assertEquals(4, log.capacity());
+        assertTrue(log.recent(10).isEmpty());
+
+        log.add(call("first"));
+        log.add(call("second"));
+        List<SlowCallLog.SlowCall> calls = log.recent(10);
+        assertEquals(2, calls.size());
+        assertEquals("second", calls.get(0).getMethodName());
+        assertEquals("first", calls.get(1).getMethodName());
+        assertEquals(1, log.recent(1).size());
+    }
+
+    @Test
+    @DisplayName("写满后覆盖最旧的记录")
+    void testOverwrite() {
+        SlowCallLog log = new SlowCallLog(4);
+        for (int i = 0; i < 10; i++) {
+            log.add(call("m" + i));
+        }
+        List<SlowCallLog.SlowCall> calls = log.recent(100);
+        assertEquals(4, calls.size());
+        assertEquals("m9", calls.get(0).getMethodName());
+        assertEquals("m6", calls.get(3).getMethodName());
+        assertEquals(10, log.total());
+    }
+}
@@ -0,0 +1,220 @@
+package com.archive.management.notification;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.constant.BusinessConstants;
+import com.archive.management.counter.UnreadNotificationCounter;
+import com.archive.management.entity.Notification;
+import com.archive.management.mapper.NotificationMapper;
+import com.archive.management.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 通知批量投递测试类
+ * 投递在调用线程上同步执行，多行 INSERT 按生成的主键回填通知ID；
+ * 覆盖分块边界、主键回填、块写入失败以及事务提交后才投递
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("通知批量投递测试")
+class NotificationFanoutTest {
+
+    private static final int CHUNK_SIZE = 3;
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private NotificationWebSocketHandler webSocketHandler;
+
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+
+    private NotificationFanout fanout;
+
+    /** 每次 batchInsert 的接收人，按调用顺序 */
+    private final List<List<Long>> insertedChunks = new ArrayList<>();
+
+    /** 模拟的自增主键 */
+    private final AtomicLong nextId = new AtomicLong(1000);
+
+    @BeforeEach
+    void setUp() {
+        PerformanceProperties properties = new PerformanceProperties();
+        properties.getNotification().setChunkSize(CHUNK_SIZE);
+        fanout = new NotificationFanout(notificationMapper, webSocketHandler, unreadCounter, Runnable::run,
+            properties, new SimpleMeterRegistry());
+
+        lenient().when(notificationMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<Notification> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setNotificationId(nextId.getAndIncrement()));
+            insertedChunks.add(rows.stream().map(Notification::getUserId).collect(Collectors.toList()));
+            return rows.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Notification notification(Long userId) {
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setNotificationType(1);
+        notification.setStatus(BusinessConstants.NotificationStatus.UNREAD);
+        notification.setWebsocketNotify(1);
+        return notification;
+    }
+
+    private static List<Long> users(int count) {
+        return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "2, 1", "3, 1", "4, 2", "6, 2", "7, 3"})
+    @DisplayName("接收人按块大小分块写库，块数向上取整且不产生空块")
+    void testChunkBoundaries(int recipients, int expectedChunks) {
+        NotificationFanout.FanoutResult result = fanout.submit(users(recipients), NotificationFanoutTest::notification, null)
+            .join();
+
+        assertEquals(expectedChunks, insertedChunks.size());
+        for (List<Long> chunk : insertedChunks) {
+            assertFalse(chunk.isEmpty());
+            assertTrue(chunk.size() <= CHUNK_SIZE);
+        }
+        assertEquals(users(recipients), insertedChunks.stream().flatMap(List::stream).collect(Collectors.toList()));
+        assertEquals(recipients, result.getRecipients());
+        assertEquals(recipients, result.getInserted());
+        assertEquals(0, result.getFailed());
+        verify(unreadCounter, times(expectedChunks)).incrementAll(anyList());
+        verify(webSocketHandler, times(expectedChunks)).sendNotificationsToOnlineUsers(anyList());
+    }
+
+    @Test
+    @DisplayName("重复和空的接收人被忽略，只写一次")
+    void testDuplicateAndNullRecipients() {
+        NotificationFanout.FanoutResult result = fanout.submit(Arrays.asList(1L, 2L, null, 1L, 3L, 2L, 4L),
+            NotificationFanoutTest::notification, null).join();
+
+        assertEquals(4, result.getRecipients());
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L)), insertedChunks);
+    }
+
+    @Test
+    @DisplayName("写库后的回调、推送和未读计数拿到回填了主键的通知")
+    void testGeneratedKeysVisibleAfterInsert() {
+        when(webSocketHandler.sendNotificationsToOnlineUsers(anyList())).thenAnswer(invocation -> {
+            List<Notification> rows = invocation.getArgument(0);
+            rows.forEach(row -> assertNotNull(row.getNotificationId()));
+            // 每块第一个接收人在线
+            return 1;
+        });
+        List<Long> callbackIds = new ArrayList<>();
+
+        NotificationFanout.FanoutResult result = fanout.submit(users(4), NotificationFanoutTest::notification,
+            notification -> callbackIds.add(notification.getNotificationId())).join();
+
+        assertEquals(List.of(1000L, 1001L, 1002L, 1003L), callbackIds);
+        assertEquals(2, result.getPushed());
+        assertEquals(2, result.getOfflineSkipped());
+        verify(unreadCounter).incrementAll(List.of(1L, 2L, 3L));
+        verify(unreadCounter).incrementAll(List.of(4L));
+    }
+
+    @Test
+    @DisplayName("一块写库失败时计入失败并继续后续块，失败块不计未读、不推送、不回调")
+    void testFailedChunkSkipped() {
+        when(notificationMapper.batchInsert(anyList()))
+            .thenAnswer(invocation -> {
+                List<Notification> rows = invocation.getArgument(0);
+                insertedChunks.add(rows.stream().map(Notification::getUserId).collect(Collectors.toList()));
+                return rows.size();
+            })
+            .thenThrow(new IllegalStateException("db down"))
+            .thenAnswer(invocation -> invocation.<List<Notification>>getArgument(0).size());
+        List<Long> callbackUsers = new ArrayList<>();
+
+        NotificationFanout.FanoutResult result = fanout.submit(users(7), NotificationFanoutTest::notification,
+            notification -> callbackUsers.add(notification.getUserId())).join();
+
+        assertEquals(4, result.getInserted());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(1L, 2L, 3L, 7L), callbackUsers);
+        verify(unreadCounter, never()).incrementAll(List.of(4L, 5L, 6L));
+        verify(webSocketHandler, times(2)).sendNotificationsToOnlineUsers(anyList());
+    }
+
+    @Test
+    @DisplayName("已读或不需推送的通知不计未读")
+    void testOnlyUnreadCounted() {
+        fanout.submit(users(2), userId -> {
+            Notification notification = notification(userId);
+            if (userId == 2L) {
+                notification.setStatus(BusinessConstants.NotificationStatus.READ);
+            }
+            return notification;
+        }, null).join();
+
+        verify(unreadCounter).incrementAll(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("调用方在事务中时提交后才投递，回滚则不投递")
+    void testDispatchAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        CompletableFuture<NotificationFanout.FanoutResult> committed =
+            fanout.submit(users(2), NotificationFanoutTest::notification, null);
+        CompletableFuture<NotificationFanout.FanoutResult> rolledBack =
+            fanout.submit(users(2), NotificationFanoutTest::notification, null);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(2, synchronizations.size());
+        assertFalse(committed.isDone());
+        verifyNoInteractions(notificationMapper);
+
+        synchronizations.get(0).afterCommit();
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(2, committed.join().getInserted());
+        assertTrue(rolledBack.isCancelled());
+        assertEquals(1, insertedChunks.size());
+    }
+
+    @Test
+    @DisplayName("没有接收人时直接完成，不写库")
+    void testEmptyRecipients() {
+        NotificationFanout.FanoutResult result = fanout.submit(Arrays.asList(null, null),
+            NotificationFanoutTest::notification, null).join();
+
+        assertEquals(0, result.getRecipients());
+        verifyNoInteractions(notificationMapper, webSocketHandler, unreadCounter);
+    }
+}
@@ -0,0 +1,108 @@
+package com.archive.management.performance;
+
+import com.archive.management.export.CsvRowWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV 行编码 JMH 基准
+ * 对比 exportToCsvStream 原有的 逐单元格格式化 + String.join 写法与 {@link CsvRowWriter}，
+ * 使用 -prof gc 可同时观察每行分配字节数。
+ * 运行：mvn test-compile 后执行本类 main 方法
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvRowWriterBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final List<String> FIELDS = List.of(
+        "id", "archiveNo", "title", "categoryId", "securityLevel", "createTime", "remark");
+
+    private List<Map<String, Object>> rows;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(1000);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 20, 8, 30, 0);
+        for (long i = 1; i <= 1000; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("archiveNo", "ARC-2024-" + i);
+            row.put("title", "2024年度档案整理报告第" + i + "卷");
+            row.put("categoryId", (int) (i % 32));
+            row.put("securityLevel", i % 3 == 0 ? "机密" : "公开");
+            row.put("createTime", base.plusMinutes(i));
+            row.put("remark", i % 10 == 0 ? "含逗号,和\"引号\"的备注" : null);
+            rows.add(row);
+        }
+    }
+
+    @Benchmark
+    public void legacyJoin() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(Writer.nullWriter())) {
+            for (Map<String, Object> row : rows) {
+                List<String> values = new ArrayList<>();
+                for (String fieldName : FIELDS) {
+                    values.add(legacyFormat(row.get(fieldName)));
+                }
+                writer.write(String.join(",", values));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Benchmark
+    public void csvRowWriter() throws IOException {
+        CsvRowWriter<Map<String, Object>> writer = CsvRowWriter.forMaps(Writer.nullWriter(), FIELDS);
+        for (Map<String, Object> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.flush();
+    }
+
+    /**
+     * 原 StreamExportServiceImpl.formatCsvValue 实现
+     */
+    private static String legacyFormat(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String strValue;
+        if (value instanceof LocalDateTime) {
+            strValue = ((LocalDateTime) value).format(DATE_FORMATTER);
+        } else {
+            strValue = value.toString();
+        }
+        if (strValue.contains(",") || strValue.contains("\"") || strValue.contains("\n")) {
+            strValue = "\"" + strValue.replace("\"", "\"\"") + "\"";
+        }
+        return strValue;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CsvRowWriterBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,151 @@
+package com.archive.management.performance;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.monitor.MethodProfiler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法耗时采集 JMH 基准
+ * 对比直接调用、原切面每次构建并注册 Timer 的写法、{@link MethodProfiler} 全量写入与10%采样写入的单次调用耗时。
+ * 预算：全量写入比直接调用多出的耗时不超过 {@link #FULL_BUDGET_NANOS} 纳秒，
+ * 10%采样不超过 {@link #SAMPLED_BUDGET_NANOS} 纳秒；main 方法运行后输出各项开销并检查预算。
+ * 运行：mvn test-compile 后以测试 classpath 执行本类 main 方法，如
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.archive.management.performance.MethodProfilerBenchmark；
+ * 采样和计时的误差在单核机器上较大，判断是否超出预算时应比较多次运行的结果
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodProfilerBenchmark {
+
+    static final double FULL_BUDGET_NANOS = 150.0;
+    static final double SAMPLED_BUDGET_NANOS = 100.0;
+
+    private MeterRegistry meterRegistry;
+    private MethodProfiler fullProfiler;
+    private MethodProfiler sampledProfiler;
+    private Method method;
+    private Target target;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        fullProfiler = new MethodProfiler(meterRegistry, properties(1.0));
+        sampledProfiler = new MethodProfiler(meterRegistry, properties(0.1));
+        method = Target.class.getMethod("work", long.class);
+        target = new Target();
+    }
+
+    @Benchmark
+    public Object baseline() {
+        return new TargetInvocation(target, 42L).proceed();
+    }
+
+    @Benchmark
+    public Object legacy() throws Throwable {
+        // 原切面 Controller 层写法：毫秒计时，每次调用按类名方法名构建并注册 Timer
+        String methodName = method.getName();
+        String className = target.getClass().getSimpleName();
+        long startTime = System.currentTimeMillis();
+        Object result = new TargetInvocation(target, 42L).proceed();
+        long executionTime = System.currentTimeMillis() - startTime;
+        Timer.builder("api.response.time")
+                .tag("class", className)
+                .tag("method", methodName)
+                .register(meterRegistry)
+                .record(executionTime, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @Benchmark
+    public Object profiled() throws Throwable {
+        return fullProfiler.profile(MethodProfiler.Layer.SERVICE, method, Target.class, new TargetInvocation(target, 42L));
+    }
+
+    @Benchmark
+    public Object sampled() throws Throwable {
+        return sampledProfiler.profile(MethodProfiler.Layer.SERVICE, method, Target.class, new TargetInvocation(target, 42L));
+    }
+
+    private static PerformanceProperties properties(double sampleRate) {
+        PerformanceProperties properties = new PerformanceProperties();
+        properties.getProfiling().setSampleRate(sampleRate);
+        return properties;
+    }
+
+    /**
+     * 被监控的方法，计算量很小，结果主要反映采集本身的开销
+     */
+    public static class Target {
+        private long state = 17;
+
+        public long work(long input) {
+            state = state * 31 + input;
+            return state;
+        }
+    }
+
+    private static final class TargetInvocation implements MethodProfiler.Invocation {
+        private final Target target;
+        private final long input;
+
+        private TargetInvocation(Target target, long input) {
+            this.target = target;
+            this.input = input;
+        }
+
+        @Override
+        public Object proceed() {
+            return target.work(input);
+        }
+
+        @Override
+        public Object[] arguments() {
+            return new Object[]{input};
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(MethodProfilerBenchmark.class.getSimpleName())
+            .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> scores = new HashMap<>();
+        for (RunResult result : results) {
+            String label = result.getParams().getBenchmark();
+            scores.put(label.substring(label.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+        }
+        double baseline = scores.get("baseline");
+        double full = scores.get("profiled") - baseline;
+        double sampled = scores.get("sampled") - baseline;
+        System.out.printf("原切面写法额外开销: %.1f ns/次%n", scores.get("legacy") - baseline);
+        System.out.printf("全量写入额外开销: %.1f ns/次 (预算 %.0f)%n", full, FULL_BUDGET_NANOS);
+        System.out.printf("10%%采样额外开销: %.1f ns/次 (预算 %.0f)%n", sampled, SAMPLED_BUDGET_NANOS);
+        if (full > FULL_BUDGET_NANOS || sampled > SAMPLED_BUDGET_NANOS) {
+            System.out.println("方法耗时采集开销超出预算");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.archive.management.performance;
+
+import com.archive.management.entity.Permission;
+import com.archive.management.permission.PermissionSnapshot;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 权限决策 JMH 基准
+ * 在 H2 内存库中执行 PermissionMapper 现有的鉴权计数 SQL，与编译后的权限快照位运算比较单次判定耗时，
+ * 另测全量构建快照的耗时；main 方法运行后输出各项耗时，快照判定不快于 SQL 时以非0状态退出。
+ * 运行：mvn test-compile 后以测试 classpath 执行本类 main 方法，如
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.archive.management.performance.PermissionDecisionBenchmark；
+ * 两种实现判定结果一致由 {@link PermissionDecisionBenchmarkTest} 在同一份数据上校验
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionDecisionBenchmark {
+
+    static final int PERMISSION_COUNT = 500;
+    static final int ROLE_COUNT = 40;
+    static final int USER_COUNT = 500;
+    static final int REQUEST_COUNT = 20_000;
+
+    /** 与 PermissionMapper.checkUserPermissionByCode 相同的 SQL */
+    private static final String CHECK_BY_CODE_SQL = "SELECT COUNT(*) FROM sys_permission p " +
+            "INNER JOIN sys_role_permission rp ON p.id = rp.permission_id " +
+            "INNER JOIN sys_user_role ur ON rp.role_id = ur.role_id " +
+            "WHERE ur.user_id = ? AND p.permission_code = ? " +
+            "AND p.deleted = 0 AND p.status = 1";
+
+    private Connection connection;
+    private PreparedStatement checkStatement;
+
+    /** 启用的权限 */
+    List<Permission> permissions;
+    Map<Long, List<Long>> rolePermissions;
+    Map<Long, List<Long>> userRoles;
+
+    PermissionSnapshot snapshot;
+    private Map<Long, BitSet> userMasks;
+
+    /** 固定种子生成的请求序列，各基准方法依次循环取用 */
+    long[] requestUsers;
+    String[] requestCodes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:permission_bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sys_permission (id BIGINT PRIMARY KEY, permission_code VARCHAR(100), " +
+                "permission_path VARCHAR(200), status INT, deleted INT)");
+            statement.execute("CREATE INDEX idx_permission_code ON sys_permission (permission_code)");
+            statement.execute("CREATE TABLE sys_role_permission (role_id BIGINT, permission_id BIGINT)");
+            statement.execute("CREATE INDEX idx_rp_role ON sys_role_permission (role_id)");
+            statement.execute("CREATE TABLE sys_user_role (user_id BIGINT, role_id BIGINT)");
+            statement.execute("CREATE INDEX idx_ur_user ON sys_user_role (user_id)");
+        }
+
+        Random random = new Random(42);
+        permissions = new ArrayList<>();
+        rolePermissions = new HashMap<>();
+        userRoles = new HashMap<>();
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO sys_permission VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= PERMISSION_COUNT; id++) {
+                // 每10个权限中有1个禁用，验证两种实现对状态的过滤一致
+                int status = id % 10 == 0 ? 0 : 1;
+                insert.setLong(1, id);
+                insert.setString(2, "perm:" + id);
+                insert.setString(3, "0/" + (id % 20));
+                insert.setInt(4, status);
+                insert.setInt(5, 0);
+                insert.addBatch();
+                if (status == 1) {
+                    Permission permission = new Permission();
+                    permission.setId(id);
+                    permission.setPermissionCode("perm:" + id);
+                    permission.setPermissionPath("0/" + (id % 20));
+                    permission.setStatus(status);
+                    permissions.add(permission);
+                }
+            }
+            insert.executeBatch();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO sys_role_permission VALUES (?, ?)")) {
+            for (long roleId = 1; roleId <= ROLE_COUNT; roleId++) {
+                Set<Long> granted = new HashSet<>();
+                while (granted.size() < 60) {
+                    granted.add(1L + random.nextInt(PERMISSION_COUNT));
+                }
+                for (Long permissionId : granted) {
+                    insert.setLong(1, roleId);
+                    insert.setLong(2, permissionId);
+                    insert.addBatch();
+                }
+                rolePermissions.put(roleId, new ArrayList<>(granted));
+            }
+            insert.executeBatch();
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO sys_user_role VALUES (?, ?)")) {
+            for (long userId = 1; userId <= USER_COUNT; userId++) {
+                List<Long> roles = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    long roleId = 1L + random.nextInt(ROLE_COUNT);
+                    if (!roles.contains(roleId)) {
+                        roles.add(roleId);
+                        insert.setLong(1, userId);
+                        insert.setLong(2, roleId);
+                        insert.addBatch();
+                    }
+                }
+                userRoles.put(userId, roles);
+            }
+            insert.executeBatch();
+        }
+
+        requestUsers = new long[REQUEST_COUNT];
+        requestCodes = new String[REQUEST_COUNT];
+        Random requests = new Random(7);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            requestUsers[i] = 1L + requests.nextInt(USER_COUNT);
+            requestCodes[i] = "perm:" + (1 + requests.nextInt(PERMISSION_COUNT));
+        }
+
+        checkStatement = connection.prepareStatement(CHECK_BY_CODE_SQL);
+        snapshot = PermissionSnapshot.build(1L, permissions, rolePermissions);
+        userMasks = new HashMap<>();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        checkStatement.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean sqlCount() throws SQLException {
+        int i = nextRequest();
+        return checkBySql(requestUsers[i], requestCodes[i]);
+    }
+
+    @Benchmark
+    public boolean snapshotBitmask() {
+        int i = nextRequest();
+        return checkBySnapshot(requestUsers[i], requestCodes[i]);
+    }
+
+    @Benchmark
+    public PermissionSnapshot snapshotBuild() {
+        return PermissionSnapshot.build(1L, permissions, rolePermissions);
+    }
+
+    boolean checkBySql(long userId, String permissionCode) throws SQLException {
+        checkStatement.setLong(1, userId);
+        checkStatement.setString(2, permissionCode);
+        try (ResultSet rs = checkStatement.executeQuery()) {
+            rs.next();
+            return rs.getInt(1) > 0;
+        }
+    }
+
+    boolean checkBySnapshot(long userId, String permissionCode) {
+        BitSet mask = userMasks.computeIfAbsent(userId, id -> snapshot.userMask(userRoles.get(id)));
+        return snapshot.hasCode(mask, permissionCode);
+    }
+
+    private int nextRequest() {
+        int i = cursor;
+        cursor = i + 1 == REQUEST_COUNT ? 0 : i + 1;
+        return i;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(PermissionDecisionBenchmark.class.getSimpleName())
+            .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> scores = new HashMap<>();
+        for (RunResult result : results) {
+            String label = result.getParams().getBenchmark();
+            scores.put(label.substring(label.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+        }
+        double sql = scores.get("sqlCount");
+        double engine = scores.get("snapshotBitmask");
+        System.out.printf("SQL 计数查询: %.1f ns/次%n", sql);
+        System.out.printf("快照位运算: %.1f ns/次 (SQL 的 %.1f 倍速)%n", engine, sql / engine);
+        System.out.printf("快照全量构建: %.1f us/次%n", scores.get("snapshotBuild") / 1000);
+        if (engine >= sql) {
+            System.out.println("快照判定未快于 SQL 计数查询");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.archive.management.performance;
+
+import com.archive.management.entity.Permission;
+import com.archive.management.permission.PermissionSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 权限决策一致性测试
+ * 在 {@link PermissionDecisionBenchmark} 的 H2 数据上校验快照位运算与 PermissionMapper 鉴权计数 SQL
+ * 的判定结果一致，以及增量变更与全量构建一致；耗时对比见该 JMH 基准
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("权限决策一致性测试")
+class PermissionDecisionBenchmarkTest {
+
+    private PermissionDecisionBenchmark fixture;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        fixture = new PermissionDecisionBenchmark();
+        fixture.setUp();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        fixture.tearDown();
+    }
+
+    @Test
+    @DisplayName("快照判定与SQL一致")
+    void testSnapshotMatchesSql() throws SQLException {
+        int granted = 0;
+        for (int i = 0; i < PermissionDecisionBenchmark.REQUEST_COUNT; i++) {
+            long userId = fixture.requestUsers[i];
+            String code = fixture.requestCodes[i];
+            boolean expected = fixture.checkBySql(userId, code);
+            assertThat(fixture.checkBySnapshot(userId, code))
+                .as("用户 %d 权限 %s", userId, code)
+                .isEqualTo(expected);
+            if (expected) {
+                granted++;
+            }
+        }
+        // 请求序列中允许和拒绝的判定都要覆盖到
+        assertThat(granted).isBetween(1, PermissionDecisionBenchmark.REQUEST_COUNT - 1);
+    }
+
+    @Test
+    @DisplayName("增量变更与全量构建结果一致")
+    void testIncrementalUpdateMatchesRebuild() {
+        List<Permission> permissions = fixture.permissions;
+        Map<Long, List<Long>> rolePermissions = fixture.rolePermissions;
+        PermissionSnapshot snapshot = PermissionSnapshot.build(1L, permissions, rolePermissions);
+        List<Long> roles = fixture.userRoles.get(1L);
+
+        Permission added = new Permission();
+        added.setId(10_000L);
+        added.setPermissionCode("perm:new");
+        added.setPermissionPath("0/99");
+        added.setApiUrl("/api/archives/{id}/files/**");
+        added.setHttpMethod("GET");
+        added.setStatus(1);
+
+        PermissionSnapshot updated = snapshot.withPermission(2L, added, List.of(roles.get(0)));
+        BitSet mask = updated.userMask(roles);
+        assertThat(updated.hasCode(mask, "perm:new")).isTrue();
+        assertThat(updated.hasPath(mask, "0/99")).isTrue();
+        assertThat(updated.hasApi(mask, "GET", "/api/archives/12/files/a/b.pdf")).isTrue();
+        assertThat(updated.hasApi(mask, "POST", "/api/archives/12/files/a.pdf")).isFalse();
+        assertThat(updated.hasApi(mask, "GET", "/api/archives/12")).isFalse();
+
+        PermissionSnapshot removed = updated.withoutPermission(3L, 10_000L);
+        assertThat(removed.hasCode(removed.userMask(roles), "perm:new")).isFalse();
+        // 旧快照不受影响
+        assertThat(updated.hasCode(mask, "perm:new")).isTrue();
+
+        Long roleId = roles.get(0);
+        PermissionSnapshot revoked = snapshot.withRolePermissions(4L, roleId, Collections.emptyList());
+        Set<Long> expected = new HashSet<>();
+        roles.stream().filter(r -> !r.equals(roleId)).forEach(r -> expected.addAll(rolePermissions.get(r)));
+        BitSet revokedMask = revoked.userMask(roles);
+        for (Permission permission : permissions) {
+            assertThat(revoked.hasCode(revokedMask, permission.getPermissionCode()))
+                .isEqualTo(expected.contains(permission.getId()));
+        }
+    }
+}
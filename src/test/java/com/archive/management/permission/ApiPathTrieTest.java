@@ -0,0 +1,71 @@
+package com.archive.management.permission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * API 路径模式前缀树测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("API路径前缀树测试")
+class ApiPathTrieTest {
+
+    private static BitSet bits(int... bits) {
+        BitSet set = new BitSet();
+        for (int bit : bits) {
+            set.set(bit);
+        }
+        return set;
+    }
+
+    @Test
+    @DisplayName("字面量、单段通配和方法限制")
+    void testLiteralAndSingleWildcard() {
+        ApiPathTrie trie = new ApiPathTrie();
+        trie.add("/api/archives", "GET", 1);
+        trie.add("/api/archives/{id}", "DELETE", 2);
+        trie.add("/api/archives/*", null, 3);
+
+        assertEquals(bits(1), trie.match("GET", "/api/archives"));
+        assertEquals(bits(), trie.match("POST", "/api/archives"));
+        assertEquals(bits(2, 3), trie.match("DELETE", "/api/archives/12"));
+        assertEquals(bits(3), trie.match("GET", "/api/archives/12?detail=true"));
+        assertEquals(bits(), trie.match("GET", "/api/archives/12/files"));
+    }
+
+    @Test
+    @DisplayName("末尾的 ** 匹配零个或多个路径段")
+    void testTrailingMultiWildcard() {
+        ApiPathTrie trie = new ApiPathTrie();
+        trie.add("/api/system/**", "ALL", 1);
+
+        assertEquals(bits(1), trie.match("GET", "/api/system"));
+        assertEquals(bits(1), trie.match("POST", "/api/system/config/cache"));
+        assertEquals(bits(), trie.match("GET", "/api/users"));
+    }
+
+    @Test
+    @DisplayName("中间的 ** 之后的路径段仍需匹配，不放大授权范围")
+    void testInnerMultiWildcard() {
+        ApiPathTrie trie = new ApiPathTrie();
+        trie.add("/api/**/export", "GET", 1);
+        trie.add("/api/**/{id}/files", null, 2);
+
+        assertEquals(bits(), trie.match("DELETE", "/api/users/delete"));
+        assertEquals(bits(), trie.match("GET", "/api/users/delete"));
+        assertEquals(bits(), trie.match("GET", "/api"));
+        assertEquals(bits(1), trie.match("GET", "/api/export"));
+        assertEquals(bits(1), trie.match("GET", "/api/archives/export"));
+        assertEquals(bits(1), trie.match("GET", "/api/archives/2024/export"));
+        assertEquals(bits(), trie.match("GET", "/api/archives/export/pdf"));
+        assertEquals(bits(2), trie.match("GET", "/api/archives/12/files"));
+        assertEquals(bits(2), trie.match("GET", "/api/12/files"));
+    }
+}
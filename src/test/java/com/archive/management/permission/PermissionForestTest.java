@@ -0,0 +1,63 @@
+package com.archive.management.permission;
+
+import com.archive.management.entity.Permission;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 权限森林测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("权限森林测试")
+class PermissionForestTest {
+
+    private static Permission permission(long id, Long parentId, int sortOrder) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setParentId(parentId);
+        permission.setSortOrder(sortOrder);
+        return permission;
+    }
+
+    private static String render(Permission permission, List<String> children) {
+        return children.isEmpty() ? String.valueOf(permission.getId()) : permission.getId() + children.toString();
+    }
+
+    private final PermissionForest forest = PermissionForest.build(1L, Arrays.asList(
+        permission(3, 1L, 2),
+        permission(1, 0L, 1),
+        permission(2, 1L, 1),
+        permission(4, 2L, 1),
+        permission(5, null, 0),
+        permission(6, 99L, 0)));
+
+    @Test
+    @DisplayName("全量投影按排序号排列子节点，孤立节点不出现")
+    void testProjectAll() {
+        assertEquals("[5, 1[2[4], 3]]", forest.project(forest.all(), PermissionForestTest::render).toString());
+    }
+
+    @Test
+    @DisplayName("掩码投影只保留祖先链完整的节点")
+    void testProjectMask() {
+        assertEquals("[1[3]]",
+            forest.project(forest.maskOf(Arrays.asList(1L, 3L, 4L)), PermissionForestTest::render).toString());
+    }
+
+    @Test
+    @DisplayName("后代ID按层级返回")
+    void testDescendantIds() {
+        assertEquals(Arrays.asList(2L, 3L, 4L), forest.descendantIds(1L));
+        assertTrue(forest.descendantIds(42L).isEmpty());
+        assertTrue(PermissionForest.EMPTY.project(PermissionForest.EMPTY.all(), PermissionForestTest::render).isEmpty());
+        assertTrue(forest.descendantIds(4L).isEmpty());
+    }
+}
@@ -0,0 +1,174 @@
+package com.archive.management.ratelimit;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 混合限流器测试类
+ * Redis 以模拟的 execute 代替，按领取脚本的语义在内存中记录每个标识的已用量，
+ * 并可改为返回拒绝、异常或不完整的结果；覆盖本地拦截、按批领取、集群配额用尽和 Redis 不可用时的退化
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("混合限流器测试")
+class HybridRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private PerformanceProperties properties;
+
+    private HybridRateLimiter limiter;
+
+    /** 模拟的集群窗口已用量 */
+    private final Map<String, Long> clusterUsed = new HashMap<>();
+
+    /** 每次调用脚本的参数：窗口毫秒数、限额、请求份数 */
+    private final List<List<String>> scriptCalls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PerformanceProperties();
+        limiter = new HybridRateLimiter(stringRedisTemplate, properties);
+        lenient().when(stringRedisTemplate.execute(ArgumentMatchers.<RedisScript<List<Long>>>any(), anyList(),
+            any(Object[].class))).thenAnswer(invocation -> {
+                String key = invocation.<List<String>>getArgument(1).get(0);
+                Object[] args = (Object[]) invocation.getRawArguments()[2];
+                scriptCalls.add(List.of((String) args[0], (String) args[1], (String) args[2]));
+                long limit = Long.parseLong((String) args[1]);
+                long requested = Long.parseLong((String) args[2]);
+                long used = clusterUsed.getOrDefault(key, 0L);
+                long granted = Math.max(0, Math.min(requested, limit - used));
+                clusterUsed.put(key, used + granted);
+                return List.of(granted, used + granted);
+            });
+    }
+
+    private void stubScriptResult(List<Long> result) {
+        doReturn(result).when(stringRedisTemplate).execute(ArgumentMatchers.<RedisScript<List<Long>>>any(),
+            anyList(), any(Object[].class));
+    }
+
+    private int acquire(String key, int times, int limit) {
+        int allowed = 0;
+        for (int i = 0; i < times; i++) {
+            if (limiter.tryAcquire(key, limit, 60)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Test
+    @DisplayName("关闭集群汇总时只按本地令牌桶限流，不访问 Redis")
+    void testLocalOnlyDecision() {
+        properties.getRateLimit().setClusterEnabled(false);
+
+        assertEquals(5, acquire("client:/api/a", 8, 5));
+
+        verifyNoInteractions(stringRedisTemplate);
+        Map<String, Object> statistics = limiter.getStatistics();
+        assertEquals(5L, statistics.get("localGranted"));
+        assertEquals(3L, statistics.get("localRejected"));
+        assertEquals(0L, statistics.get("redisCalls"));
+    }
+
+    @Test
+    @DisplayName("通过令牌桶的请求按批领取集群配额，批内请求不访问 Redis")
+    void testLeaseBatching() {
+        assertEquals(30, acquire("client:/api/a", 30, 100));
+
+        // 限额100、分10批，每批10份
+        assertEquals(3, scriptCalls.size());
+        assertEquals(List.of("60000", "100", "10"), scriptCalls.get(0));
+        assertEquals(30L, clusterUsed.get("rate_limit:client:/api/a"));
+        Map<String, Object> statistics = limiter.getStatistics();
+        assertEquals(3L, statistics.get("clusterGranted"));
+        assertEquals(27L, statistics.get("localGranted"));
+        assertEquals(0.1, (double) statistics.get("redisCallsPerGrant"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("集群配额用尽时拒绝，只领到部分份数的按实际份数消耗")
+    void testClusterQuotaExhausted() {
+        // 其它节点已用去95份，本节点只能再领到5份
+        clusterUsed.put("rate_limit:client:/api/a", 95L);
+
+        assertEquals(5, acquire("client:/api/a", 8, 100));
+
+        assertEquals(4, scriptCalls.size());
+        assertEquals(3L, limiter.getStatistics().get("clusterRejected"));
+        assertEquals(0, limiter.getRemaining("client:/api/a", 100, 60));
+        assertEquals(List.of("60000", "100", "0"), scriptCalls.get(scriptCalls.size() - 1));
+    }
+
+    @Test
+    @DisplayName("本地拒绝的请求不访问 Redis")
+    void testLocalRejectionSkipsRedis() {
+        assertEquals(2, acquire("client:/api/a", 5, 2));
+
+        // 限额2时每批1份，两次放行各领取一次，之后本地拒绝
+        assertEquals(2, scriptCalls.size());
+        assertEquals(3L, limiter.getStatistics().get("localRejected"));
+    }
+
+    @Test
+    @DisplayName("Redis 异常或返回不完整结果时按本地令牌桶放行")
+    void testRedisFailureFallsBackToLocal() {
+        doThrow(new RedisConnectionFailureException("down")).when(stringRedisTemplate)
+            .execute(ArgumentMatchers.<RedisScript<List<Long>>>any(), anyList(), any(Object[].class));
+        assertEquals(3, acquire("client:/api/a", 4, 3));
+        assertEquals(3L, limiter.getStatistics().get("redisErrors"));
+
+        stubScriptResult(List.of(1L));
+        assertTrue(limiter.tryAcquire("client:/api/b", 3, 60));
+        stubScriptResult(null);
+        assertTrue(limiter.tryAcquire("client:/api/b", 3, 60));
+        // 没有领到配额，下一次仍访问 Redis
+        assertEquals(5L, limiter.getStatistics().get("redisCalls"));
+        assertEquals(5L, limiter.getStatistics().get("localGranted"));
+    }
+
+    @Test
+    @DisplayName("剩余数取集群余量与本地令牌数中较小的一个")
+    void testRemaining() {
+        assertEquals(10, limiter.getRemaining("client:/api/a", 10, 60));
+
+        clusterUsed.put("rate_limit:client:/api/a", 7L);
+        assertEquals(3, limiter.getRemaining("client:/api/a", 10, 60));
+
+        clusterUsed.clear();
+        acquire("client:/api/a", 4, 10);
+        assertEquals(6, limiter.getRemaining("client:/api/a", 10, 60));
+    }
+
+    @Test
+    @DisplayName("关闭限流时全部放行")
+    void testDisabled() {
+        properties.getRateLimit().setEnabled(false);
+
+        assertEquals(10, acquire("client:/api/a", 10, 1));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+}
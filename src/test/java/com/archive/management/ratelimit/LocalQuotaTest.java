@@ -0,0 +1,65 @@
+package com.archive.management.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地限流状态测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("本地限流状态测试")
+class LocalQuotaTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("令牌用完后拒绝，按速率补充")
+    void testTokenBucketRefill() {
+        LocalQuota quota = new LocalQuota(5, 60, 0L);
+        for (int i = 0; i < 5; i++) {
+            assertNotEquals(LocalQuota.Decision.REJECTED, quota.acquire(0L));
+        }
+        assertEquals(LocalQuota.Decision.REJECTED, quota.acquire(0L));
+
+        // 每12秒补充一个令牌
+        assertEquals(LocalQuota.Decision.REJECTED, quota.acquire(11 * SECOND));
+        assertNotEquals(LocalQuota.Decision.REJECTED, quota.acquire(12 * SECOND));
+        assertEquals(0, quota.availableTokens(12 * SECOND));
+        assertEquals(5, quota.availableTokens(1000 * SECOND));
+    }
+
+    @Test
+    @DisplayName("预领配额用完或过期前不再要求领取")
+    void testLeaseConsumption() {
+        LocalQuota quota = new LocalQuota(100, 60, 0L);
+        assertEquals(LocalQuota.Decision.LEASE_REQUIRED, quota.acquire(0L));
+        quota.addLease(3, 5 * SECOND);
+
+        assertEquals(LocalQuota.Decision.GRANTED, quota.acquire(SECOND));
+        assertEquals(LocalQuota.Decision.GRANTED, quota.acquire(SECOND));
+        assertEquals(LocalQuota.Decision.LEASE_REQUIRED, quota.acquire(SECOND));
+
+        quota.addLease(10, 5 * SECOND);
+        assertEquals(LocalQuota.Decision.GRANTED, quota.acquire(2 * SECOND));
+        // 过期后剩余份数作废
+        assertEquals(LocalQuota.Decision.LEASE_REQUIRED, quota.acquire(6 * SECOND));
+        assertEquals(LocalQuota.Decision.LEASE_REQUIRED, quota.acquire(6 * SECOND));
+    }
+
+    @Test
+    @DisplayName("令牌桶拒绝时不消耗预领配额")
+    void testRejectedKeepsLease() {
+        LocalQuota quota = new LocalQuota(2, 60, 0L);
+        assertEquals(LocalQuota.Decision.LEASE_REQUIRED, quota.acquire(0L));
+        quota.addLease(2, 60 * SECOND);
+        assertEquals(LocalQuota.Decision.GRANTED, quota.acquire(0L));
+        assertEquals(LocalQuota.Decision.REJECTED, quota.acquire(0L));
+    }
+}
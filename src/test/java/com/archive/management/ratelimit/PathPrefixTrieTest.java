@@ -0,0 +1,65 @@
+package com.archive.management.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路径前缀树测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("路径前缀树测试")
+class PathPrefixTrieTest {
+
+    private PathPrefixTrie<String> buildTrie() {
+        Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("/api/", "api");
+        prefixes.put("/api/auth/login", "login");
+        prefixes.put("/api/search", "search");
+        prefixes.put("/api/files/upload", "upload");
+        return new PathPrefixTrie<>(prefixes);
+    }
+
+    @Test
+    @DisplayName("返回最长匹配前缀的值")
+    void testLongestPrefixWins() {
+        PathPrefixTrie<String> trie = buildTrie();
+
+        assertEquals("login", trie.longestPrefixMatch("/api/auth/login"));
+        assertEquals("search", trie.longestPrefixMatch("/api/search/advanced"));
+        assertEquals("upload", trie.longestPrefixMatch("/api/files/upload"));
+        assertEquals("api", trie.longestPrefixMatch("/api/files/download/1"));
+        assertEquals("api", trie.longestPrefixMatch("/api/auth/logout"));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    @DisplayName("没有匹配的前缀时返回空")
+    void testNoMatch() {
+        PathPrefixTrie<String> trie = buildTrie();
+
+        assertNull(trie.longestPrefixMatch("/static/index.html"));
+        assertNull(trie.longestPrefixMatch("/api"));
+        assertNull(trie.longestPrefixMatch(""));
+        assertNull(new PathPrefixTrie<String>(new HashMap<>()).longestPrefixMatch("/api/"));
+    }
+
+    @Test
+    @DisplayName("空前缀匹配所有路径")
+    void testEmptyPrefix() {
+        Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("", "default");
+        prefixes.put("/api/", "api");
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>(prefixes);
+
+        assertEquals("default", trie.longestPrefixMatch("/other"));
+        assertEquals("api", trie.longestPrefixMatch("/api/archives"));
+    }
+}
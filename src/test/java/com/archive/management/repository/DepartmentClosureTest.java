@@ -0,0 +1,302 @@
+package com.archive.management.repository;
+
+import com.archive.management.entity.Department;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 部门层级闭包表测试类
+ * 在 H2（MySQL 模式）上执行迁移脚本和 {@link DepartmentRepository} 中维护闭包表的原生 SQL，
+ * 子树移动走仓库的 relocateSubtree；每次变更后按 parent_id 重新推导闭包、层级和路径并与库中比较
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("部门层级闭包表测试")
+class DepartmentClosureTest {
+
+    private static final String MIGRATION = "database/12_department_closure_table.sql";
+
+    private static final RowMapper<Department> DEPARTMENT_ROW_MAPPER = (rs, rowNum) -> {
+        Department department = new Department();
+        department.setId(rs.getLong("id"));
+        department.setCode(rs.getString("code"));
+        department.setParentId(rs.getObject("parent_id", Long.class));
+        department.setLevel(rs.getInt("level"));
+        department.setPath(rs.getString("path"));
+        department.setDeleted(rs.getBoolean("deleted"));
+        return department;
+    };
+
+    private NamedParameterJdbcTemplate jdbc;
+    private DepartmentRepository departmentRepository;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbc = new NamedParameterJdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:department_closure;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        jdbc.getJdbcTemplate().execute("CREATE TABLE department (id BIGINT PRIMARY KEY, code VARCHAR(50), " +
+            "parent_id BIGINT, level INT, path VARCHAR(500), sort_order INT, deleted BOOLEAN, " +
+            "update_time TIMESTAMP)");
+        for (String statement : migrationStatements()) {
+            jdbc.getJdbcTemplate().execute(statement);
+        }
+        departmentRepository = mock(DepartmentRepository.class, this::answer);
+
+        // HQ ─ FIN ─ ACC ─ TAX
+        //    └ OPS ─ LOG
+        // BR
+        create("HQ", null);
+        create("FIN", "HQ");
+        create("ACC", "FIN");
+        create("TAX", "ACC");
+        create("OPS", "HQ");
+        create("LOG", "OPS");
+        create("BR", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.getJdbcTemplate().execute("DROP ALL OBJECTS");
+    }
+
+    /**
+     * 迁移脚本按语句拆分：建表和按 parent_id 回填
+     */
+    private static List<String> migrationStatements() throws IOException {
+        String script = Files.readAllLines(Paths.get(MIGRATION), StandardCharsets.UTF_8).stream()
+            .filter(line -> !line.trim().startsWith("--"))
+            .collect(Collectors.joining("\n"));
+        List<String> statements = new ArrayList<>();
+        for (String statement : script.split(";")) {
+            if (!statement.isBlank()) {
+                statements.add(statement.trim());
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * 仓库模拟：原生 SQL 在 H2 上原样执行，默认方法调用真实实现
+     */
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.isDefault()) {
+            return invocation.callRealMethod();
+        }
+        Query query = method.getAnnotation(Query.class);
+        if (query == null || !query.nativeQuery()) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof Param) {
+                    params.addValue(((Param) annotation).value(), invocation.getArgument(i));
+                }
+            }
+        }
+        if (method.isAnnotationPresent(Modifying.class)) {
+            return jdbc.update(query.value(), params);
+        }
+        if (method.getReturnType() == long.class) {
+            return jdbc.queryForObject(query.value(), params, Long.class);
+        }
+        return jdbc.query(query.value(), params, DEPARTMENT_ROW_MAPPER);
+    }
+
+    private void save(Department department) {
+        jdbc.update("MERGE INTO department (id, code, parent_id, level, path, deleted) KEY (id) " +
+                "VALUES (:id, :code, :parentId, :level, :path, :deleted)",
+            new MapSqlParameterSource()
+                .addValue("id", department.getId())
+                .addValue("code", department.getCode())
+                .addValue("parentId", department.getParentId())
+                .addValue("level", department.getLevel())
+                .addValue("path", department.getPath())
+                .addValue("deleted", department.getDeleted()));
+    }
+
+    private Department load(String code) {
+        return jdbc.queryForObject("SELECT * FROM department WHERE code = :code", Map.of("code", code),
+            DEPARTMENT_ROW_MAPPER);
+    }
+
+    private Long id(String code) {
+        return load(code).getId();
+    }
+
+    /**
+     * 与 DepartmentServiceImpl 新建部门相同：按父部门设置层级和路径，保存后写入闭包行
+     */
+    private void create(String code, String parentCode) {
+        Department parent = parentCode == null ? null : load(parentCode);
+        Department department = new Department();
+        department.setId(nextId++);
+        department.setCode(code);
+        department.setParentId(parent == null ? null : parent.getId());
+        department.setLevel(parent == null ? 1 : parent.getLevel() + 1);
+        department.buildPath(parent == null ? null : parent.getPath());
+        department.setDeleted(false);
+        save(department);
+        departmentRepository.insertClosure(department.getId(), department.getParentId());
+    }
+
+    /**
+     * 与 DepartmentServiceImpl 移动部门相同：重挂子树后保存子树根
+     */
+    private void move(String code, String newParentCode) {
+        Department department = load(code);
+        departmentRepository.relocateSubtree(department, newParentCode == null ? null : load(newParentCode));
+        save(department);
+    }
+
+    private Set<String> closureRows() {
+        return new TreeSet<>(jdbc.getJdbcTemplate().query(
+            "SELECT ancestor_id, descendant_id, depth FROM department_closure",
+            (rs, rowNum) -> rs.getLong(1) + ">" + rs.getLong(2) + ":" + rs.getInt(3)));
+    }
+
+    /**
+     * 按 parent_id 推导闭包、层级和路径（含已删除部门）并与库中比较
+     */
+    private void assertClosureConsistent() {
+        Map<Long, Department> departments = new HashMap<>();
+        jdbc.query("SELECT * FROM department", DEPARTMENT_ROW_MAPPER)
+            .forEach(department -> departments.put(department.getId(), department));
+
+        Set<String> expected = new TreeSet<>();
+        for (Department department : departments.values()) {
+            LinkedList<Department> chain = new LinkedList<>();
+            for (Department node = department; node != null; node = departments.get(node.getParentId())) {
+                expected.add(node.getId() + ">" + department.getId() + ":" + chain.size());
+                chain.addFirst(node);
+            }
+            assertEquals(chain.size(), department.getLevel(), "层级: " + department.getCode());
+            assertEquals(chain.stream().map(node -> "/" + node.getCode()).collect(Collectors.joining()),
+                department.getPath(), "路径: " + department.getCode());
+        }
+        assertEquals(expected, closureRows());
+    }
+
+    private static List<String> codes(List<Department> departments) {
+        return departments.stream().map(Department::getCode).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("新建部门写入自身和全部祖先的闭包行")
+    void testInsertMaintainsClosure() {
+        assertClosureConsistent();
+        assertEquals(List.of("HQ", "FIN", "ACC"), codes(departmentRepository.findAncestors(id("TAX"))));
+        assertEquals(Set.of("FIN", "OPS", "ACC", "LOG", "TAX"),
+            Set.copyOf(codes(departmentRepository.findDescendants(id("HQ")))));
+        assertTrue(departmentRepository.findAncestors(id("BR")).isEmpty());
+        assertEquals(1, departmentRepository.countAncestry(id("FIN"), id("TAX")));
+        assertEquals(0, departmentRepository.countAncestry(id("TAX"), id("FIN")));
+        assertEquals(0, departmentRepository.countAncestry(id("FIN"), id("FIN")));
+        assertEquals(0, departmentRepository.countAncestry(id("FIN"), id("LOG")));
+    }
+
+    @Test
+    @DisplayName("迁移脚本按 parent_id 回填的闭包与逐个新建的一致")
+    void testBackfillMatchesIncrementalInserts() throws IOException {
+        Set<String> incremental = closureRows();
+        jdbc.getJdbcTemplate().execute("DELETE FROM department_closure");
+
+        jdbc.getJdbcTemplate().execute(migrationStatements().get(1));
+
+        assertEquals(incremental, closureRows());
+    }
+
+    @Test
+    @DisplayName("子树移到其它分支下，闭包、后代层级和路径随之调整")
+    void testMoveSubtreeUnderAnotherBranch() {
+        move("FIN", "LOG");
+
+        assertClosureConsistent();
+        assertEquals("/HQ/OPS/LOG/FIN/ACC/TAX", load("TAX").getPath());
+        assertEquals(6, load("TAX").getLevel());
+        assertEquals(List.of("HQ", "OPS", "LOG", "FIN", "ACC"),
+            codes(departmentRepository.findAncestors(id("TAX"))));
+        assertEquals(1, departmentRepository.countAncestry(id("OPS"), id("TAX")));
+    }
+
+    @Test
+    @DisplayName("子树移为根部门再挂到另一棵树下")
+    void testMoveSubtreeToRootAndBack() {
+        move("ACC", null);
+        assertClosureConsistent();
+        assertEquals(1, load("ACC").getLevel());
+        assertEquals(List.of("ACC"), codes(departmentRepository.findAncestors(id("TAX"))));
+        assertTrue(departmentRepository.findDescendants(id("FIN")).isEmpty());
+
+        move("ACC", "BR");
+        assertClosureConsistent();
+        assertEquals("/BR/ACC/TAX", load("TAX").getPath());
+    }
+
+    @Test
+    @DisplayName("在同一分支内上移和下移")
+    void testMoveWithinBranch() {
+        move("TAX", "HQ");
+        assertClosureConsistent();
+
+        move("OPS", "ACC");
+        assertClosureConsistent();
+        assertEquals("/HQ/FIN/ACC/OPS/LOG", load("LOG").getPath());
+    }
+
+    @Test
+    @DisplayName("软删除保留闭包行，移动子树时已删除的后代一并调整")
+    void testSoftDeleteKeepsClosure() {
+        Set<String> before = closureRows();
+        Department tax = load("TAX");
+        tax.softDelete(1L);
+        save(tax);
+
+        assertEquals(before, closureRows());
+        Department deleted = departmentRepository.findDescendants(id("FIN")).stream()
+            .filter(department -> department.getCode().equals("TAX")).findFirst().orElseThrow();
+        assertTrue(deleted.getDeleted());
+
+        move("FIN", "BR");
+        assertClosureConsistent();
+        assertEquals("/BR/FIN/ACC/TAX", load("TAX").getPath());
+
+        tax = load("TAX");
+        tax.restore();
+        save(tax);
+        assertEquals(List.of("BR", "FIN", "ACC"), codes(departmentRepository.findAncestors(id("TAX"))));
+    }
+}
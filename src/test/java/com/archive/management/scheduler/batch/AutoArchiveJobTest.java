@@ -0,0 +1,108 @@
+package com.archive.management.scheduler.batch;
+
+import com.archive.management.entity.Archive;
+import com.archive.management.mapper.ArchiveMapper;
+import com.archive.management.mq.producer.ArchiveMessageProducer;
+import com.archive.management.search.ArchiveSearchIndex;
+import com.archive.management.service.AuditLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 自动归档任务测试类
+ * 覆盖加锁复核后只归档仍满足条件的档案，以及块提交后失效缓存、刷新索引
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("自动归档任务测试")
+class AutoArchiveJobTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private ArchiveMapper archiveMapper;
+
+    @Mock
+    private ArchiveMessageProducer archiveMessageProducer;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private ArchiveSearchIndex archiveSearchIndex;
+
+    private final ConcurrentMapCache archiveCache = new ConcurrentMapCache("archives");
+
+    private AutoArchiveJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new AutoArchiveJob(archiveMapper, archiveMessageProducer, auditLogService, archiveCache,
+            archiveSearchIndex, CUTOFF);
+    }
+
+    private static Archive archive(Long id, String archiveNo) {
+        Archive archive = new Archive();
+        archive.setArchiveId(id);
+        archive.setArchiveNo(archiveNo);
+        archive.setStatus(2);
+        return archive;
+    }
+
+    @Test
+    @DisplayName("只归档加锁复核后仍满足条件的档案")
+    void testWriteChunkArchivesLockedOnly() {
+        when(archiveMapper.lockAutoArchiveCandidates(List.of(1L, 2L, 3L), CUTOFF)).thenReturn(List.of(1L, 3L));
+
+        assertEquals(List.of(1L, 3L), job.writeChunk(List.of(1L, 2L, 3L)));
+        verify(archiveMapper).batchArchiveArchives(List.of(1L, 3L), null);
+    }
+
+    @Test
+    @DisplayName("复核后没有档案时不执行更新")
+    void testWriteChunkSkipsEmpty() {
+        when(archiveMapper.lockAutoArchiveCandidates(anyList(), eq(CUTOFF))).thenReturn(List.of());
+
+        assertTrue(job.writeChunk(List.of(1L)).isEmpty());
+        verify(archiveMapper, never()).batchArchiveArchives(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("块提交后按ID和编号失效缓存并刷新索引")
+    void testAfterChunkCommittedEvictsCacheAndRefreshesIndex() {
+        Archive first = archive(1L, "A-001");
+        Archive second = archive(3L, "A-003");
+        archiveCache.put(1L, first);
+        archiveCache.put("number:A-001", first);
+        archiveCache.put(3L, second);
+        archiveCache.put("number:A-003", second);
+        archiveCache.put(2L, archive(2L, "A-002"));
+        when(archiveMapper.selectBatchIds(List.of(1L, 3L))).thenReturn(List.of(first, second));
+
+        job.afterChunkCommitted(List.of(1L, 3L));
+
+        assertNull(archiveCache.get(1L));
+        assertNull(archiveCache.get("number:A-001"));
+        assertNull(archiveCache.get(3L));
+        assertNull(archiveCache.get("number:A-003"));
+        assertNotNull(archiveCache.get(2L));
+        verify(archiveSearchIndex).onArchiveSaved(first);
+        verify(archiveSearchIndex).onArchiveSaved(second);
+        verify(archiveMessageProducer).sendBatchArchiveMessage(eq("AUTO_ARCHIVE"), anyMap(), isNull());
+    }
+}
@@ -0,0 +1,294 @@
+package com.archive.management.scheduler.batch;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.mapper.BatchCheckpointMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分块批处理任务执行器测试类
+ * 覆盖租约获取与续期失败、从检查点续跑、块失败后逐条重试跳过以及检查点被接管
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("分块批处理任务执行器测试")
+class ChunkedJobRunnerTest {
+
+    private static final String JOB = "testJob";
+
+    @Mock
+    private BatchCheckpointMapper checkpointMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ChunkedJobRunner runner;
+
+    /** 续期脚本依次返回的结果，用完后一直返回成功 */
+    private final List<Long> renewResults = new ArrayList<>();
+    private final AtomicInteger releases = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        PerformanceProperties properties = new PerformanceProperties();
+        properties.getBatch().setChunkSize(2);
+        properties.getBatch().setChunkPauseMs(0L);
+        runner = new ChunkedJobRunner(checkpointMapper, stringRedisTemplate, transactionManager, properties,
+            new SimpleMeterRegistry());
+
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.setIfAbsent(eq("archive:batch:lease:" + JOB), anyString(), any(Duration.class)))
+            .thenReturn(true);
+        lenient().when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenAnswer(invocation -> {
+                String script = invocation.<RedisScript<?>>getArgument(0).getScriptAsString();
+                if (script.contains("EXPIRE")) {
+                    return renewResults.isEmpty() ? 1L : renewResults.remove(0);
+                }
+                releases.incrementAndGet();
+                return 1L;
+            });
+        lenient().when(checkpointMapper.advance(eq(JOB), anyString(), any(), anyLong(), anyLong())).thenReturn(1);
+    }
+
+    private static BatchCheckpoint checkpoint(String status, Long cursorKey) {
+        BatchCheckpoint checkpoint = new BatchCheckpoint();
+        checkpoint.setJobName(JOB);
+        checkpoint.setRunId("run-1");
+        checkpoint.setStatus(status);
+        checkpoint.setCursorKey(cursorKey);
+        checkpoint.setProcessed(2L);
+        return checkpoint;
+    }
+
+    @Test
+    @DisplayName("其它节点持有租约时跳过，不读写检查点")
+    void testSkipWhenLeaseHeld() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        ListJob job = new ListJob(1L, 2L, 3L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.SKIPPED, result.getStatus());
+        assertTrue(job.written.isEmpty());
+        verifyNoInteractions(checkpointMapper);
+        assertEquals(0, releases.get());
+    }
+
+    @Test
+    @DisplayName("从头执行时开启新一轮，逐块推进检查点直到完成")
+    void testRunToCompletion() {
+        ListJob job = new ListJob(1L, 2L, 3L, 4L, 5L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.COMPLETED, result.getStatus());
+        assertFalse(result.isResumed());
+        assertEquals(3, result.getChunks());
+        assertEquals(5, result.getProcessed());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), job.written);
+        verify(checkpointMapper).startRun(JOB, result.getRunId());
+        verify(checkpointMapper).advance(JOB, result.getRunId(), 2L, 2, 0);
+        verify(checkpointMapper).advance(JOB, result.getRunId(), 4L, 2, 0);
+        verify(checkpointMapper).advance(JOB, result.getRunId(), 5L, 1, 0);
+        verify(checkpointMapper).finishRun(JOB, result.getRunId(), BatchJobResult.COMPLETED);
+        assertEquals(BatchJobResult.COMPLETED, job.finished.getStatus());
+        assertEquals(1, releases.get());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> statistics = (Map<String, Object>) runner.getStatistics().get(JOB);
+        assertEquals(3, statistics.get("chunks"));
+        assertEquals(5L, statistics.get("cursor"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {BatchCheckpoint.STATUS_RUNNING, BatchCheckpoint.STATUS_FAILED})
+    @DisplayName("未完成的检查点沿用原轮次并从游标处继续")
+    void testResumeFromCheckpoint(String status) {
+        when(checkpointMapper.selectByJobName(JOB)).thenReturn(checkpoint(status, 2L));
+        ListJob job = new ListJob(1L, 2L, 3L, 4L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.COMPLETED, result.getStatus());
+        assertTrue(result.isResumed());
+        assertEquals("run-1", result.getRunId());
+        assertEquals(List.of(3L, 4L), job.written);
+        assertEquals(List.of(2L, 4L), job.readCursors);
+        verify(checkpointMapper, never()).startRun(anyString(), anyString());
+        verify(checkpointMapper).advance(JOB, "run-1", 4L, 2, 0);
+        verify(checkpointMapper).finishRun(JOB, "run-1", BatchJobResult.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("已完成的检查点开启新一轮")
+    void testCompletedCheckpointStartsNewRun() {
+        when(checkpointMapper.selectByJobName(JOB)).thenReturn(checkpoint(BatchCheckpoint.STATUS_COMPLETED, 9L));
+        ListJob job = new ListJob(1L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertFalse(result.isResumed());
+        assertNotEquals("run-1", result.getRunId());
+        assertEquals(List.of(1L), job.written);
+        verify(checkpointMapper).startRun(JOB, result.getRunId());
+    }
+
+    @Test
+    @DisplayName("整块写入失败时逐条重试，仍失败的记录跳过并计数")
+    void testPerItemFallback() {
+        ListJob job = new ListJob(1L, 2L, 3L, 4L, 5L);
+        job.poison = 3L;
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.COMPLETED, result.getStatus());
+        assertEquals(4, result.getProcessed());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of(1L, 2L, 4L, 5L), job.written);
+        assertEquals(List.of(3L), job.failedItems);
+        verify(checkpointMapper).advance(JOB, result.getRunId(), 4L, 1, 1);
+        // 整块失败回滚一次，逐条重试中失败的记录再回滚一次
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    @DisplayName("续期租约失败时停止，检查点保持未完成以便续跑")
+    void testStopWhenLeaseLost() {
+        renewResults.add(1L);
+        renewResults.add(0L);
+        ListJob job = new ListJob(1L, 2L, 3L, 4L, 5L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.STOPPED, result.getStatus());
+        assertEquals(1, result.getChunks());
+        assertEquals(List.of(1L, 2L), job.written);
+        verify(checkpointMapper, never()).finishRun(anyString(), anyString(), anyString());
+        assertEquals(BatchJobResult.STOPPED, job.finished.getStatus());
+    }
+
+    @Test
+    @DisplayName("本轮检查点被其它节点重新开始时停止，不覆盖其状态")
+    void testStopWhenCheckpointLost() {
+        when(checkpointMapper.advance(eq(JOB), anyString(), eq(4L), anyLong(), anyLong())).thenReturn(0);
+        ListJob job = new ListJob(1L, 2L, 3L, 4L, 5L);
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.STOPPED, result.getStatus());
+        assertEquals(1, result.getChunks());
+        assertEquals(2, result.getProcessed());
+        // 检查点丢失不进入逐条重试
+        assertTrue(job.failedItems.isEmpty());
+        assertEquals(List.of(0L, 2L), job.readCursors);
+        verify(checkpointMapper, never()).finishRun(anyString(), anyString(), anyString());
+        assertEquals(1, releases.get());
+    }
+
+    @Test
+    @DisplayName("读取失败时本轮记为失败，下次从游标处继续")
+    void testFailWhenReadThrows() {
+        ListJob job = new ListJob(1L, 2L, 3L) {
+            @Override
+            public List<Long> readChunk(Long afterKey, int limit) {
+                if (afterKey != null) {
+                    throw new IllegalStateException("db down");
+                }
+                return super.readChunk(afterKey, limit);
+            }
+        };
+
+        BatchJobResult result = runner.run(job);
+
+        assertEquals(BatchJobResult.FAILED, result.getStatus());
+        assertEquals(2, result.getProcessed());
+        verify(checkpointMapper).finishRun(JOB, result.getRunId(), BatchJobResult.FAILED);
+    }
+
+    /**
+     * 按主键升序读取内存列表的任务，写入包含毒记录的块时失败
+     */
+    private static class ListJob implements ChunkedJob<Long> {
+
+        private final List<Long> keys;
+        private final List<Long> written = new ArrayList<>();
+        private final List<Long> failedItems = new ArrayList<>();
+        private final List<Long> readCursors = new ArrayList<>();
+        private Long poison;
+        private BatchJobResult finished;
+
+        private ListJob(Long... keys) {
+            this.keys = List.of(keys);
+        }
+
+        @Override
+        public String getName() {
+            return JOB;
+        }
+
+        @Override
+        public List<Long> readChunk(Long afterKey, int limit) {
+            readCursors.add(afterKey == null ? 0L : afterKey);
+            return keys.stream()
+                .filter(key -> afterKey == null || key > afterKey)
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public Long keyOf(Long item) {
+            return item;
+        }
+
+        @Override
+        public List<Long> writeChunk(List<Long> items) {
+            if (items.contains(poison)) {
+                throw new IllegalStateException("写入失败: " + poison);
+            }
+            written.addAll(items);
+            return items;
+        }
+
+        @Override
+        public void onItemFailed(Long item, Exception e) {
+            failedItems.add(item);
+        }
+
+        @Override
+        public void onRunFinished(BatchJobResult result) {
+            finished = result;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.archive.management.search;
+
+import com.archive.management.cache.CacheInvalidationMessage;
+import com.archive.management.cache.TwoLevelCacheManager;
+import com.archive.management.config.CacheProperties;
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.Archive;
+import com.archive.management.mapper.ArchiveMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 档案全文索引测试类
+ * 档案表用内存 Map 模拟，两个节点共用同一个模拟的失效频道，检索执行器在调用线程上执行；
+ * 覆盖重建期间的更新不丢失、重建失败保留旧索引、跨节点按库刷新以及与默认语言环境无关的分词
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("档案全文索引测试")
+class ArchiveSearchIndexTest {
+
+    @Mock
+    private ArchiveMapper archiveMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final CacheProperties cacheProperties = new CacheProperties();
+
+    private PerformanceProperties properties;
+
+    /** 模拟的档案表 */
+    private final TreeMap<Long, Archive> table = new TreeMap<>();
+
+    /** 每次按游标读取一批后执行的动作，用于把修改插入到重建中间 */
+    private Runnable afterBatch = () -> { };
+
+    /** 已建立的节点，失效消息投递给全部节点 */
+    private final List<TwoLevelCacheManager> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PerformanceProperties();
+        properties.getSearch().setIndexBuildBatchSize(2);
+
+        lenient().when(archiveMapper.findIndexBatchAfterId(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long lastId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            List<Archive> batch = table.tailMap(lastId, false).values().stream()
+                .limit(limit).collect(Collectors.toList());
+            afterBatch.run();
+            return batch;
+        });
+        lenient().when(archiveMapper.findByIdsIncludingDeleted(anyList())).thenAnswer(invocation -> invocation
+            .<List<Long>>getArgument(0).stream().map(table::get).filter(archive -> archive != null)
+            .collect(Collectors.toList()));
+        lenient().doAnswer(invocation -> {
+            CacheInvalidationMessage message = CacheInvalidationMessage.decode(invocation.getArgument(1));
+            nodes.forEach(node -> node.onInvalidation(message));
+            return (long) nodes.size();
+        }).when(stringRedisTemplate).convertAndSend(eq(cacheProperties.getInvalidationTopic()), anyString());
+    }
+
+    private ArchiveSearchIndex newNode() {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(cacheProperties, null, stringRedisTemplate);
+        nodes.add(cacheManager);
+        return new ArchiveSearchIndex(archiveMapper, properties, Runnable::run, cacheManager);
+    }
+
+    private static Archive archive(long id, String title) {
+        Archive archive = new Archive();
+        archive.setArchiveId(id);
+        archive.setTitle(title);
+        archive.setArchiveNo("ARC-" + id);
+        archive.setDeleted(0);
+        return archive;
+    }
+
+    private void save(Archive archive) {
+        table.put(archive.getId(), archive);
+    }
+
+    private static List<Long> search(ArchiveSearchIndex index, String keyword) {
+        return index.search(keyword, false, new Page<>(1, 10)).getRecords().stream()
+            .map(Archive::getId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("重建期间提交的新增和修改在新索引上重放，不会丢失")
+    void testUpdatesDuringRebuildAreKept() {
+        save(archive(1L, "财务报告"));
+        save(archive(2L, "会议纪要"));
+        save(archive(3L, "人事档案"));
+        ArchiveSearchIndex index = newNode();
+        index.rebuild();
+        afterBatch = () -> {
+            afterBatch = () -> { };
+            // 游标已扫过档案1时修改其标题，并新增一个游标之前的档案
+            Archive renamed = archive(1L, "年度预算");
+            save(renamed);
+            index.onArchiveSaved(renamed);
+            Archive added = archive(0L, "预算说明");
+            save(added);
+            index.onArchiveSaved(added);
+        };
+
+        index.rebuild();
+
+        assertEquals(List.of(0L, 1L), search(index, "预算"));
+        assertEquals(List.of(), search(index, "财务"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("重建失败时保留旧索引继续检索")
+    void testFailedRebuildKeepsOldIndex() {
+        save(archive(1L, "财务报告"));
+        ArchiveSearchIndex index = newNode();
+        index.rebuild();
+        when(archiveMapper.findIndexBatchAfterId(anyLong(), anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), search(index, "财务"));
+    }
+
+    @Test
+    @DisplayName("一个节点的修改和删除通知其它节点按库刷新")
+    void testRemoteNodesRefreshFromDatabase() {
+        save(archive(1L, "财务报告"));
+        save(archive(2L, "会议纪要"));
+        ArchiveSearchIndex nodeA = newNode();
+        ArchiveSearchIndex nodeB = newNode();
+        nodeA.rebuild();
+        nodeB.rebuild();
+
+        Archive renamed = archive(1L, "年度预算");
+        save(renamed);
+        nodeA.onArchiveSaved(renamed);
+        Archive deleted = archive(2L, "会议纪要");
+        deleted.setDeleted(1);
+        save(deleted);
+        nodeA.onArchiveDeleted(2L);
+
+        assertEquals(List.of(1L), search(nodeB, "预算"));
+        assertEquals(List.of(), search(nodeB, "财务"));
+        assertEquals(List.of(), search(nodeB, "会议"));
+
+        // 档案已从库中移除的，其它节点移出索引
+        table.remove(1L);
+        nodeA.onArchiveDeleted(1L);
+        assertEquals(List.of(), search(nodeB, "预算"));
+        assertEquals(1, nodeB.size());
+    }
+
+    @Test
+    @DisplayName("分词大小写转换与默认语言环境无关")
+    void testTokenizeIndependentOfDefaultLocale() {
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals(List.of("title", "archive"), TextAnalyzer.tokenize("TITLE ARCHIVE"));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+}
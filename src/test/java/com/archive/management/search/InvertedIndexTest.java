@@ -0,0 +1,119 @@
+package com.archive.management.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存倒排索引测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("内存倒排索引测试")
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.upsert(1L, fields("2023年度财务报告", "ARC-2023-001"), false);
+        index.upsert(2L, fields("会议纪要 Annual Meeting", "ARC-2023-002"), false);
+        index.upsert(3L, fields("财务报表汇总", "ARC-2023-003"), false);
+        index.upsert(4L, fields("人事档案", "ARC-2023-004"), true);
+    }
+
+    @Test
+    @DisplayName("中文二元分词")
+    void testTokenizeCjkBigrams() {
+        assertEquals(List.of("财务", "务报", "报告"), TextAnalyzer.tokenize("财务报告"));
+        assertEquals(List.of("档", "arc", "001"), TextAnalyzer.tokenize("档 ARC-001"));
+    }
+
+    @Test
+    @DisplayName("中文关键词检索")
+    void testSearchChinese() {
+        InvertedIndex.SearchResult result = index.search("财务", false, 0, 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(1L, 3L).stream().sorted().collect(Collectors.toList()),
+            ids(result).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("拉丁文本不区分大小写")
+    void testSearchLatinCaseInsensitive() {
+        InvertedIndex.SearchResult result = index.search("annual", false, 0, 10);
+
+        assertEquals(List.of(2L), ids(result));
+    }
+
+    @Test
+    @DisplayName("多个查询词取交集")
+    void testSearchRequiresAllTerms() {
+        assertEquals(List.of(3L), ids(index.search("财务报表", false, 0, 10)));
+        assertEquals(0, index.search("财务 meeting", false, 0, 10).getTotal());
+    }
+
+    @Test
+    @DisplayName("删除标记过滤")
+    void testDeletedFilter() {
+        assertEquals(0, index.search("人事", false, 0, 10).getTotal());
+        assertEquals(List.of(4L), ids(index.search("人事", true, 0, 10)));
+        assertEquals(List.of(4L), ids(index.search("人事", null, 0, 10)));
+
+        index.markDeleted(1L, true);
+        assertEquals(List.of(3L), ids(index.search("财务", false, 0, 10)));
+    }
+
+    @Test
+    @DisplayName("分页返回总数与当前页")
+    void testPaging() {
+        InvertedIndex.SearchResult firstPage = index.search("arc", null, 0, 3);
+        InvertedIndex.SearchResult secondPage = index.search("arc", null, 3, 3);
+
+        assertEquals(4, firstPage.getTotal());
+        assertEquals(3, firstPage.getHits().size());
+        assertEquals(1, secondPage.getHits().size());
+    }
+
+    @Test
+    @DisplayName("BM25 排序：短文档中的高权重命中排名靠前")
+    void testRanking() {
+        index.upsert(5L, Map.of("财务", 3.0f), false);
+
+        assertEquals(5L, ids(index.search("财务", false, 0, 10)).get(0));
+    }
+
+    @Test
+    @DisplayName("覆盖写入与移除")
+    void testUpsertAndRemove() {
+        index.upsert(2L, fields("合同文件", "ARC-2023-002"), false);
+        assertEquals(0, index.search("会议", null, 0, 10).getTotal());
+        assertEquals(List.of(2L), ids(index.search("合同", false, 0, 10)));
+
+        index.remove(2L);
+        assertEquals(0, index.search("合同", null, 0, 10).getTotal());
+        assertEquals(3, index.size());
+    }
+
+    private static Map<String, Float> fields(String title, String archiveNo) {
+        Map<String, Float> fields = new LinkedHashMap<>();
+        fields.put(title, 3.0f);
+        fields.put(archiveNo, 2.0f);
+        return fields;
+    }
+
+    private static List<Long> ids(InvertedIndex.SearchResult result) {
+        return result.getHits().stream().map(InvertedIndex.Hit::getDocId).collect(Collectors.toList());
+    }
+}
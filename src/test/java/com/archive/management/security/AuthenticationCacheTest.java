@@ -0,0 +1,184 @@
+package com.archive.management.security;
+
+import com.archive.management.cache.CacheInvalidationMessage;
+import com.archive.management.cache.TwoLevelCacheManager;
+import com.archive.management.config.CacheProperties;
+import com.archive.management.event.PermissionChangedEvent;
+import com.archive.management.event.UserAuthChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 认证主体缓存测试类
+ * 验证用户状态和权限变更在事务提交后才失效缓存，回滚时保留缓存，并广播到其它节点
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("认证主体缓存测试")
+class AuthenticationCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+    private AuthenticationCache cache;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(TestConfig.class);
+        cache = context.getBean(AuthenticationCache.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        cache.put("alice", principal("alice"), null);
+        cache.put("bob", principal("bob"), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    private static UserDetails principal(String username) {
+        return new User(username, "", Collections.emptyList());
+    }
+
+    private void publish(ApplicationEvent event) {
+        context.publishEvent(event);
+    }
+
+    @Test
+    @DisplayName("禁用用户在提交后失效，提交前重新缓存的旧主体也被清除")
+    void testInvalidateAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publish(new UserAuthChangedEvent(this, 1L, "alice", "DISABLE"));
+            assertNotNull(cache.get("alice"));
+
+            // 提交前的并发请求读到未提交的旧数据并重新缓存
+            cache.put("alice", principal("alice"), null);
+        });
+
+        assertNull(cache.get("alice"));
+        assertNotNull(cache.get("bob"));
+    }
+
+    @Test
+    @DisplayName("事务回滚时不失效缓存")
+    void testKeepOnRollback() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publish(new UserAuthChangedEvent(this, 1L, "alice", "LOCK"));
+            publish(new PermissionChangedEvent(this, 5L, "UPDATE", 1L, "更新权限"));
+            status.setRollbackOnly();
+        });
+
+        assertNotNull(cache.get("alice"));
+        assertNotNull(cache.get("bob"));
+    }
+
+    @Test
+    @DisplayName("权限变更在提交后全部失效，无事务时立即失效")
+    void testPermissionChangedAndNoTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publish(new PermissionChangedEvent(this, 5L, "UPDATE", 1L, "更新权限"));
+            assertEquals(2, cache.size());
+        });
+        assertNull(cache.get("alice"));
+        assertNull(cache.get("bob"));
+
+        cache.put("alice", principal("alice"), new Date(System.currentTimeMillis() + 60_000));
+        publish(new UserAuthChangedEvent(this, 1L, "alice", "PASSWORD"));
+        assertNull(cache.get("alice"));
+    }
+
+    @Test
+    @DisplayName("失效广播到其它节点，收到其它节点的广播只失效本节点")
+    void testInvalidationBroadcastAcrossNodes() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        CacheProperties properties = new CacheProperties();
+        TwoLevelCacheManager nodeA = new TwoLevelCacheManager(properties, null, redis);
+        TwoLevelCacheManager nodeB = new TwoLevelCacheManager(properties, null, redis);
+        AuthenticationCache cacheA = new AuthenticationCache(100, 300, nodeA);
+        AuthenticationCache cacheB = new AuthenticationCache(100, 300, nodeB);
+        // 模拟 Redis 频道：每条消息投递给所有节点，发送节点自行忽略
+        doAnswer(invocation -> {
+            CacheInvalidationMessage message = CacheInvalidationMessage.decode(invocation.getArgument(1));
+            nodeA.onInvalidation(message);
+            nodeB.onInvalidation(message);
+            return 2L;
+        }).when(redis).convertAndSend(eq(properties.getInvalidationTopic()), anyString());
+        for (AuthenticationCache node : List.of(cacheA, cacheB)) {
+            node.put("alice", principal("alice"), null);
+            node.put("bob", principal("bob"), null);
+        }
+
+        cacheA.onUserAuthChanged(new UserAuthChangedEvent(this, 1L, "alice", "DISABLE"));
+
+        assertNull(cacheB.get("alice"));
+        assertNotNull(cacheB.get("bob"));
+        verify(redis, times(1)).convertAndSend(anyString(), anyString());
+
+        cacheB.onPermissionChanged(new PermissionChangedEvent(this, 5L, "UPDATE", 1L, "更新权限"));
+
+        assertNull(cacheA.get("bob"));
+        verify(redis, times(2)).convertAndSend(anyString(), anyString());
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TestConfig {
+
+        @Bean
+        AuthenticationCache authenticationCache() {
+            return new AuthenticationCache(100, 300, null);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+    }
+
+    /**
+     * 不连接资源的事务管理器，只驱动事务同步回调
+     */
+    static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.archive.management.sequence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 号段序列测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("号段序列测试")
+class SegmentedSequenceTest {
+
+    @Test
+    @DisplayName("单线程按号段连续取值")
+    void testSequentialWithinSegment() {
+        AtomicInteger leases = new AtomicInteger();
+        Map<String, AtomicLong> store = new ConcurrentHashMap<>();
+        SegmentedSequence sequence = new SegmentedSequence((key, size) -> {
+            leases.incrementAndGet();
+            return store.computeIfAbsent(key, k -> new AtomicLong(1)).getAndAdd(size);
+        }, 10);
+
+        for (int i = 1; i <= 25; i++) {
+            assertEquals(i, sequence.next("A"));
+        }
+        assertEquals(1, sequence.next("B"));
+        assertEquals(4, leases.get());
+    }
+
+    @Test
+    @DisplayName("多节点并发取值不重复")
+    void testConcurrentNodesUnique() throws InterruptedException {
+        AtomicLong store = new AtomicLong(1);
+        SegmentedSequence.SegmentLeaser leaser = (key, size) -> store.getAndAdd(size);
+        SegmentedSequence nodeA = new SegmentedSequence(leaser, 50);
+        SegmentedSequence nodeB = new SegmentedSequence(leaser, 50);
+
+        int threads = 8;
+        int perThread = 5000;
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            SegmentedSequence node = t % 2 == 0 ? nodeA : nodeB;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        values.add(node.next("ARC:2024"));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, values.size());
+    }
+
+    @Test
+    @DisplayName("放弃号段后重新租用，允许出现空洞")
+    void testResetLeavesGap() {
+        AtomicLong store = new AtomicLong(1);
+        SegmentedSequence sequence = new SegmentedSequence((key, size) -> store.getAndAdd(size), 10);
+
+        assertEquals(1, sequence.next("A"));
+        sequence.reset("A");
+        assertEquals(11, sequence.next("A"));
+    }
+}
@@ -4,6 +4,7 @@ import com.archive.management.entity.Archive;
 import com.archive.management.entity.User;
 import com.archive.management.mapper.ArchiveMapper;
 import com.archive.management.mapper.UserMapper;
+import com.archive.management.search.ArchiveSearchIndex;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.junit.jupiter.api.BeforeEach;
@@ -49,6 +50,9 @@ class AdvancedSearchServiceTest {
     @Mock
     private MonitoringService monitoringService;
 
+    @Mock
+    private ArchiveSearchIndex archiveSearchIndex;
+
     @InjectMocks
     private AdvancedSearchService advancedSearchService;
 
@@ -0,0 +1,221 @@
+package com.archive.management.service;
+
+import com.archive.management.dto.BackupManifest;
+import com.archive.management.entity.Backup;
+import com.archive.management.repository.BackupRepository;
+import com.archive.management.service.impl.BackupServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * 备份服务实现测试类
+ * 备份记录由模拟的仓库给出，备份包写在临时目录；覆盖增量备份链回溯、清单读写往返以及恢复时拒绝越界条目
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("备份服务实现测试")
+class BackupServiceImplTest {
+
+    @TempDir
+    Path backupDir;
+
+    @Mock
+    private BackupRepository backupRepository;
+
+    @InjectMocks
+    private BackupServiceImpl backupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(backupService, "backupPath", backupDir.toString());
+        ReflectionTestUtils.setField(backupService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        lenient().when(backupRepository.findById(anyLong())).thenReturn(Optional.empty());
+    }
+
+    private Backup backup(Long id, String backupType, Long baseBackupId) throws IOException {
+        Backup backup = new Backup();
+        backup.setId(id);
+        backup.setBackupType(backupType);
+        backup.setBaseBackupId(baseBackupId);
+        backup.setStatus("completed");
+        backup.setFilePath(Files.createFile(backupDir.resolve("backup_" + id + ".zip")).toString());
+        lenient().when(backupRepository.findById(id)).thenReturn(Optional.of(backup));
+        return backup;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> resolveChain(Long backupId) {
+        List<Backup> chain = ReflectionTestUtils.invokeMethod(backupService, "resolveBackupChain", backupId);
+        return chain.stream().map(Backup::getId).collect(Collectors.toList());
+    }
+
+    private Path zip(String name, String... entries) throws IOException {
+        Path zipPath = backupDir.resolve(name);
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
+            for (String entry : entries) {
+                zos.putNextEntry(new ZipEntry(entry));
+                zos.write(entry.getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return zipPath;
+    }
+
+    @Test
+    @DisplayName("增量备份沿基础备份回溯到完整备份，按时间顺序返回")
+    void testResolveIncrementalChain() throws IOException {
+        backup(1L, "full", null);
+        backup(2L, "incremental", 1L);
+        backup(3L, "incremental", 2L);
+
+        assertEquals(List.of(1L, 2L, 3L), resolveChain(3L));
+        assertEquals(List.of(1L), resolveChain(1L));
+    }
+
+    @Test
+    @DisplayName("数据库备份可作为备份链根节点")
+    void testResolveChainRootedAtDatabaseBackup() throws IOException {
+        backup(1L, "database", null);
+        backup(2L, "incremental", 1L);
+
+        assertEquals(List.of(1L, 2L), resolveChain(2L));
+    }
+
+    @Test
+    @DisplayName("基础备份记录缺失时拒绝恢复")
+    void testMissingBaseBackup() throws IOException {
+        backup(3L, "incremental", 2L);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> backupService.restoreFullBackup(3L, 1L));
+        assertEquals("备份记录不存在: 2", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("基础备份文件缺失或状态不正确时拒绝恢复")
+    void testBrokenBaseBackup() throws IOException {
+        Backup base = backup(1L, "full", null);
+        backup(2L, "incremental", 1L);
+
+        Files.delete(Path.of(base.getFilePath()));
+        RuntimeException error = assertThrows(RuntimeException.class, () -> backupService.restoreFullBackup(2L, 1L));
+        assertEquals("备份链中的备份文件不存在: 1", error.getMessage());
+
+        Files.createFile(Path.of(base.getFilePath()));
+        base.setStatus("failed");
+        error = assertThrows(RuntimeException.class, () -> backupService.restoreFullBackup(2L, 1L));
+        assertEquals("备份链中的备份状态不正确: 1", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("根节点不是完整或数据库备份、或存在循环引用时拒绝恢复")
+    void testInvalidChainRejected() throws IOException {
+        backup(1L, "file", null);
+        backup(2L, "incremental", 1L);
+        backup(3L, "incremental", 4L);
+        backup(4L, "incremental", 3L);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> resolveChain(2L));
+        assertEquals("备份链的根节点必须是完整备份或数据库备份", error.getMessage());
+        error = assertThrows(RuntimeException.class, () -> resolveChain(3L));
+        assertTrue(error.getMessage().startsWith("备份链存在循环引用"));
+    }
+
+    @Test
+    @DisplayName("清单写入备份包后读回内容一致")
+    void testManifestRoundTrip() throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        manifest.setBackupId(3L);
+        manifest.setBackupType("incremental");
+        manifest.setParentBackupId(2L);
+        manifest.setRootBackupId(1L);
+        manifest.setSince(LocalDateTime.of(2024, 1, 20, 2, 0, 0));
+        manifest.setUntil(LocalDateTime.of(2024, 1, 21, 2, 0, 0, 123_000_000));
+        manifest.setDatabaseName("archive_management");
+        manifest.setTableDumps(List.of(
+            new BackupManifest.TableDump("db/001_update_time.sql", "update_time", List.of("arc_archive", "sys_user")),
+            new BackupManifest.TableDump("db/002_full.sql", null, List.of("sys_dict"))));
+        manifest.setFileIndex("packs/fs_3.idx.json");
+        manifest.setFileCount(42);
+        Path zipPath = backupDir.resolve("manifest.zip");
+
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
+            ReflectionTestUtils.invokeMethod(backupService, "writeManifest", manifest, zos);
+        }
+        BackupManifest read;
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            read = ReflectionTestUtils.invokeMethod(backupService, "readManifest", zip);
+        }
+
+        assertEquals(manifest, read);
+    }
+
+    @Test
+    @DisplayName("缺少清单的备份包被拒绝")
+    void testMissingManifestRejected() throws IOException {
+        Path zipPath = zip("no_manifest.zip", "db/001.sql");
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            RuntimeException error = assertThrows(RuntimeException.class,
+                () -> ReflectionTestUtils.invokeMethod(backupService, "readManifest", zip));
+            assertTrue(error.getMessage().startsWith("备份包缺少清单文件"));
+        }
+    }
+
+    @Test
+    @DisplayName("回放增量备份时拒绝越出工作目录的条目")
+    void testExtractEntriesRejectsTraversal() throws IOException {
+        Path zipPath = zip("traversal.zip", "db/001_update_time.sql", "db/../../evil.sql");
+        Path workDir = Files.createDirectories(backupDir.resolve("restore").resolve("work"));
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            RuntimeException error = assertThrows(RuntimeException.class,
+                () -> ReflectionTestUtils.invokeMethod(backupService, "extractEntries", zip, "db/", workDir));
+            assertEquals("备份包条目路径非法: db/../../evil.sql", error.getMessage());
+        }
+        assertTrue(Files.exists(workDir.resolve("001_update_time.sql")));
+        assertFalse(Files.exists(backupDir.resolve("evil.sql")));
+    }
+
+    @Test
+    @DisplayName("恢复文件备份时拒绝越出目标目录的条目")
+    void testRestoreFileBackupRejectsTraversal() throws IOException {
+        Backup backup = new Backup();
+        backup.setId(5L);
+        backup.setBackupType("file");
+        backup.setStatus("completed");
+        backup.setFilePath(zip("files.zip", "../evil.txt").toString());
+        lenient().when(backupRepository.findById(5L)).thenReturn(Optional.of(backup));
+        Path target = backupDir.resolve("target");
+
+        assertFalse(backupService.restoreFileBackup(5L, target.toString(), 1L));
+        assertFalse(Files.exists(backupDir.resolve("evil.txt")));
+    }
+}
@@ -0,0 +1,280 @@
+package com.archive.management.service;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.entity.Archive;
+import com.archive.management.entity.Role;
+import com.archive.management.entity.User;
+import com.archive.management.event.UserAuthChangedEvent;
+import com.archive.management.mapper.ArchiveMapper;
+import com.archive.management.mapper.RoleMapper;
+import com.archive.management.mapper.UserMapper;
+import com.archive.management.permission.PermissionDecisionEngine;
+import com.archive.management.service.BatchOperationService.BatchOperationResult;
+import com.archive.management.service.BatchOperationService.ChunkResult;
+import com.archive.management.service.impl.BatchOperationServiceImpl;
+import com.archive.management.util.SecurityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量操作服务实现测试类
+ * 覆盖分块执行、分块失败隔离、取消、任务发起人校验以及提交后失效缓存
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchOperationServiceImplTest {
+
+    private static final String TASK_ID = "task-123";
+
+    @Mock
+    private ArchiveMapper archiveMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserService userService;
+
+    private BatchOperationServiceImpl batchOperationService;
+
+    @BeforeEach
+    void setUp() {
+        PerformanceProperties properties = new PerformanceProperties();
+        properties.getBatchOperation().setChunkSize(2);
+        // 分块在调用线程中依次执行，便于在分块内部观察任务状态
+        batchOperationService = new BatchOperationServiceImpl(archiveMapper, userMapper, roleMapper, null, null,
+            eventPublisher, properties, transactionManager, Runnable::run);
+
+        when(userService.getUserByUsername(anyString())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setUserId("alice".equals(invocation.getArgument(0)) ? 1L : 2L);
+            return user;
+        });
+        new SecurityUtils().setUserService(userService);
+        loginAs("alice");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void loginAs(String username) {
+        org.springframework.security.core.userdetails.User principal =
+            new org.springframework.security.core.userdetails.User(username, "", Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+    }
+
+    private static Archive archive(Long id) {
+        Archive archive = new Archive();
+        archive.setId(id);
+        return archive;
+    }
+
+    @Test
+    @DisplayName("按分块执行多行更新，影响行数不足时报告不存在的档案")
+    void testBatchUpdateArchiveStatusInChunks() {
+        when(archiveMapper.batchUpdateStatus(anyList(), eq(2))).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.contains(5L) ? chunk.size() - 1 : chunk.size();
+        });
+        when(archiveMapper.selectBatchIds(anyList())).thenReturn(List.of(archive(4L)));
+
+        Map<String, Object> result = batchOperationService.batchUpdateArchiveStatus(
+            TASK_ID, new ArrayList<>(List.of(1L, 2L, 3L, 3L, 4L, 5L)), 2);
+
+        verify(archiveMapper, times(3)).batchUpdateStatus(anyList(), eq(2));
+        assertEquals(5, result.get("total"));
+        assertEquals(4, result.get("successCount"));
+        assertEquals(1, result.get("failedCount"));
+        assertEquals(Map.of("ARCHIVE_NOT_FOUND: 档案不存在", 1), result.get("failureSummary"));
+    }
+
+    @Test
+    @DisplayName("分块失败只回滚该分块，其他分块照常提交")
+    void testFailedChunkRollsBackAlone() {
+        BatchOperationResult result = batchOperationService.executeChunkedOperation(TASK_ID,
+            List.of(1L, 2L, 3L, 4L, 5L), 0, chunk -> {
+                if (chunk.contains(3L)) {
+                    throw new IllegalStateException("死锁");
+                }
+                return ChunkResult.success(chunk.size());
+            }, null);
+
+        assertEquals(3, result.getSuccessCount());
+        assertEquals(2, result.getFailureCount());
+        assertEquals(Map.of("CHUNK_FAILED: 死锁", 2), result.getFailureSummary());
+        // 失败的分块计入失败数，其余分块照常执行完毕
+        assertTrue(result.isCompleted());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("取消后尚未开始的分块被跳过，结束的任务不能再取消")
+    void testCancelSkipsRemainingChunks() {
+        List<List<Long>> executed = new ArrayList<>();
+        BatchOperationResult result = batchOperationService.executeChunkedOperation(TASK_ID,
+            List.of(1L, 2L, 3L, 4L, 5L), 0, chunk -> {
+                executed.add(chunk);
+                assertTrue(batchOperationService.cancelBatchOperation(TASK_ID));
+                return ChunkResult.success(chunk.size());
+            }, null);
+
+        assertEquals(List.of(List.of(1L, 2L)), executed);
+        assertTrue(result.isCancelled());
+        assertFalse(result.isCompleted());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(Map.of("CANCELLED: 操作已取消", 3), result.getFailureSummary());
+
+        BatchOperationService.BatchProgress progress = batchOperationService.getBatchProgress(TASK_ID);
+        assertNotNull(progress);
+        assertEquals(5, progress.getProcessedCount());
+        assertFalse(batchOperationService.cancelBatchOperation(TASK_ID));
+        assertFalse(batchOperationService.cancelBatchOperation("missing"));
+        assertNull(batchOperationService.getBatchProgress("missing"));
+    }
+
+    @Test
+    @DisplayName("只有任务发起人可以查询进度和取消任务")
+    void testOnlyOwnerCanViewOrCancel() {
+        BatchOperationResult result = batchOperationService.executeChunkedOperation(TASK_ID,
+            List.of(1L, 2L, 3L), 0, chunk -> {
+                if (chunk.contains(1L)) {
+                    loginAs("bob");
+                    assertNull(batchOperationService.getBatchProgress(TASK_ID));
+                    assertFalse(batchOperationService.cancelBatchOperation(TASK_ID));
+
+                    loginAs("alice");
+                    assertNotNull(batchOperationService.getBatchProgress(TASK_ID));
+                }
+                return ChunkResult.success(chunk.size());
+            }, null);
+
+        assertFalse(result.isCancelled());
+        assertTrue(result.isCompleted());
+        assertEquals(3, result.getSuccessCount());
+    }
+
+    @Test
+    @DisplayName("同一任务ID正在执行时拒绝重复提交")
+    void testRejectRunningTaskId() {
+        batchOperationService.executeChunkedOperation(TASK_ID, List.of(1L), 0, chunk -> {
+            assertThrows(IllegalStateException.class, () -> batchOperationService.executeChunkedOperation(
+                TASK_ID, List.of(2L), 0, inner -> ChunkResult.success(inner.size()), null));
+            return ChunkResult.success(chunk.size());
+        }, null);
+
+        // 结束后可以复用任务ID
+        BatchOperationResult rerun = batchOperationService.executeChunkedOperation(TASK_ID, List.of(2L), 0,
+            chunk -> ChunkResult.success(chunk.size()), null);
+        assertTrue(rerun.isCompleted());
+    }
+
+    @Test
+    @DisplayName("分配角色后在分块提交之后才失效权限缓存，回滚的分块不失效")
+    void testAssignRolesInvalidatesAfterCommit() {
+        List<String> events = new ArrayList<>();
+        PermissionDecisionEngine engine = mock(PermissionDecisionEngine.class);
+        doAnswer(invocation -> {
+            // 提交后事务同步已清除，引擎内部的延迟失效会立即执行
+            assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+            events.add("invalidate:" + invocation.getArgument(0));
+            return null;
+        }).when(engine).invalidateUser(anyLong());
+        PerformanceProperties properties = new PerformanceProperties();
+        properties.getBatchOperation().setChunkSize(2);
+        BatchOperationServiceImpl service = new BatchOperationServiceImpl(archiveMapper, userMapper, roleMapper, null,
+            engine, eventPublisher, properties, new RecordingTransactionManager(events), Runnable::run);
+        Role role = new Role();
+        role.setId(9L);
+        when(roleMapper.selectBatchIds(anyList())).thenReturn(List.of(role));
+        when(userMapper.selectBatchIds(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+            .stream().map(id -> {
+                User user = new User();
+                user.setUserId(id);
+                return user;
+            }).collect(Collectors.toList()));
+        when(roleMapper.batchInsertUsersRoles(anyList(), anyList(), any(), any())).thenAnswer(invocation -> {
+            List<Long> users = invocation.getArgument(0);
+            events.add("insert:" + users);
+            if (users.contains(3L)) {
+                throw new IllegalStateException("死锁");
+            }
+            return users.size();
+        });
+
+        service.batchAssignRoles(TASK_ID, List.of(1L, 2L, 3L), List.of(9L));
+
+        assertEquals(List.of("insert:[1, 2]", "commit", "invalidate:1", "invalidate:2", "insert:[3]", "rollback"),
+            events);
+        verify(eventPublisher, times(1)).publishEvent(any(UserAuthChangedEvent.class));
+    }
+
+    /**
+     * 不连接资源的事务管理器，只驱动事务同步回调并记录提交与回滚
+     */
+    static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final List<String> events;
+
+        RecordingTransactionManager(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            events.add("rollback");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.archive.management.service;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.service.impl.StreamExportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式导出服务测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("流式导出服务测试")
+class StreamExportServiceTest {
+
+    private static final List<String> HEADERS = List.of("ID", "标题");
+    private static final List<String> FIELDS = List.of("id", "title");
+
+    private PerformanceProperties performanceProperties;
+    private ExecutorService exportExecutor;
+    private StreamExportService streamExportService;
+
+    @BeforeEach
+    void setUp() {
+        performanceProperties = new PerformanceProperties();
+        exportExecutor = Executors.newCachedThreadPool();
+        streamExportService = new StreamExportServiceImpl(performanceProperties, exportExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("游标分页按上一批最后主键向后定位")
+    void testKeysetExportSeeksOnLastKey() throws Exception {
+        List<Map<String, Object>> table = rows(2500);
+        List<Object> requestedKeys = new ArrayList<>();
+
+        StreamExportService.KeysetDataProvider provider = (lastKey, batchSize) -> {
+            requestedKeys.add(lastKey);
+            long after = lastKey == null ? 0L : (Long) lastKey;
+            return table.stream()
+                .filter(row -> (Long) row.get("id") > after)
+                .limit(batchSize)
+                .collect(Collectors.toList());
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<StreamExportService.ExportProgress> progress = new ArrayList<>();
+        streamExportService.exportToCsvStream(out, provider, "id", HEADERS, FIELDS, progress::add, table.size());
+
+        assertEquals(Arrays.asList(null, 1000L, 2000L), requestedKeys);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r?\n");
+        assertEquals(2501, lines.length);
+        assertEquals("2500,档案2500", lines[2500]);
+        assertEquals(100, progress.get(progress.size() - 1).getPercentage());
+    }
+
+    @Test
+    @DisplayName("游标未推进时中止导出")
+    void testKeysetExportRejectsStuckCursor() {
+        List<Map<String, Object>> batch = rows(1000);
+        StreamExportService.KeysetDataProvider provider = (lastKey, batchSize) -> batch;
+
+        assertThrows(RuntimeException.class, () -> streamExportService.exportToCsvStream(
+            new ByteArrayOutputStream(), provider, "id", HEADERS, FIELDS, null, 0));
+    }
+
+    @Test
+    @DisplayName("逐行迭代导出与分页导出结果一致")
+    void testIterableExportMatchesPagedExport() throws Exception {
+        List<Map<String, Object>> table = rows(1500);
+
+        ByteArrayOutputStream paged = new ByteArrayOutputStream();
+        streamExportService.exportToCsvStream(paged, (pageNum, pageSize) -> table.subList(
+            Math.min((pageNum - 1) * pageSize, table.size()), Math.min(pageNum * pageSize, table.size())),
+            HEADERS, FIELDS, null, table.size());
+
+        ByteArrayOutputStream iterated = new ByteArrayOutputStream();
+        streamExportService.exportToCsvStream(iterated, table, HEADERS, FIELDS, null, table.size());
+
+        assertArrayEquals(paged.toByteArray(), iterated.toByteArray());
+    }
+
+    @Test
+    @DisplayName("流水线模式与顺序模式输出一致")
+    void testPipelinedExportMatchesSequential() throws Exception {
+        List<Map<String, Object>> table = rows(4321);
+        StreamExportService.DataProvider provider = (pageNum, pageSize) -> table.subList(
+            Math.min((pageNum - 1) * pageSize, table.size()), Math.min(pageNum * pageSize, table.size()));
+
+        ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+        List<Long> processed = new ArrayList<>();
+        streamExportService.exportToCsvStream(pipelined, provider, HEADERS, FIELDS,
+            progress -> processed.add(progress.getProcessedCount()), table.size());
+
+        performanceProperties.getExport().setPipelineEnabled(false);
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        streamExportService.exportToCsvStream(sequential, provider, HEADERS, FIELDS, null, table.size());
+
+        assertArrayEquals(sequential.toByteArray(), pipelined.toByteArray());
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L, 4321L, 4321L), processed);
+    }
+
+    @Test
+    @DisplayName("进度回调取消后停止取数")
+    void testPipelinedExportCancellation() {
+        AtomicInteger fetched = new AtomicInteger();
+        StreamExportService.DataProvider endless = (pageNum, pageSize) -> {
+            fetched.incrementAndGet();
+            return rows(pageSize);
+        };
+
+        assertThrows(CancellationException.class, () -> streamExportService.exportToCsvStream(
+            new ByteArrayOutputStream(), endless, HEADERS, FIELDS, progress -> {
+                if (progress.getProcessedCount() >= 3000) {
+                    progress.cancel();
+                }
+            }, 0));
+
+        int queueCapacity = performanceProperties.getExport().getPipelineQueueCapacity();
+        assertTrue(fetched.get() <= 3 + queueCapacity + 2, "取数未受队列容量约束: " + fetched.get());
+    }
+
+    @Test
+    @DisplayName("取数异常传递到导出调用方")
+    void testPipelinedExportPropagatesFetchFailure() {
+        StreamExportService.DataProvider failing = (pageNum, pageSize) -> {
+            if (pageNum == 2) {
+                throw new IllegalStateException("数据库连接中断");
+            }
+            return rows(pageSize);
+        };
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> streamExportService.exportToCsvStream(
+            new ByteArrayOutputStream(), failing, HEADERS, FIELDS, null, 0));
+        assertTrue(e.getMessage().contains("数据库连接中断"));
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("title", "档案" + id);
+            return row;
+        }).collect(Collectors.toList());
+    }
+}
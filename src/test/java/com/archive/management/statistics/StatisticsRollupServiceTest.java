@@ -0,0 +1,329 @@
+package com.archive.management.statistics;
+
+import com.archive.management.config.properties.PerformanceProperties;
+import com.archive.management.dto.statistics.BorrowTrendDTO;
+import com.archive.management.mapper.StatisticsRollupMapper;
+import com.archive.management.service.impl.StatisticsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 统计汇总服务测试类
+ * 汇总表、进度表和原始表用内存结构模拟，覆盖增量写入、补算、两者落在同一个桶时不重复计数以及按汇总表的趋势查询
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("统计汇总服务测试")
+class StatisticsRollupServiceTest {
+
+    private static final RollupMetric METRIC = RollupMetric.ARCHIVE_CREATED;
+
+    @Mock
+    private StatisticsRollupMapper rollupMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StatisticsRollupService service;
+
+    /** 模拟的小时表、天表，按指标名分开 */
+    private final Map<String, NavigableMap<LocalDateTime, Long>> hourly = new HashMap<>();
+    private final Map<String, NavigableMap<LocalDateTime, Long>> daily = new HashMap<>();
+
+    /** 模拟的进度表 */
+    private final Map<String, LocalDateTime> watermarks = new HashMap<>();
+
+    /** 模拟的 arc_archive 原始记录创建时间 */
+    private final List<LocalDateTime> rawArchives = new ArrayList<>();
+
+    private LocalDateTime currentHour;
+
+    @BeforeEach
+    void setUp() {
+        service = new StatisticsRollupService(rollupMapper, transactionManager, new PerformanceProperties());
+        currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        lenient().when(rollupMapper.addHourly(anyList())).thenAnswer(invocation -> write(hourly, invocation.getArgument(0), true));
+        lenient().when(rollupMapper.addDaily(anyList())).thenAnswer(invocation -> write(daily, invocation.getArgument(0), true));
+        lenient().when(rollupMapper.overwriteHourly(anyList())).thenAnswer(invocation -> write(hourly, invocation.getArgument(0), false));
+        lenient().when(rollupMapper.overwriteDaily(anyList())).thenAnswer(invocation -> write(daily, invocation.getArgument(0), false));
+        lenient().when(rollupMapper.rollupDaily(anyString(), any(), any())).thenAnswer(invocation -> {
+            String metric = invocation.getArgument(0);
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            // 与 GROUP BY DATE(bucket_start) 覆盖相同：有小时桶的天按小时桶之和覆盖
+            Map<LocalDateTime, Long> sums = new TreeMap<>();
+            hourly.getOrDefault(metric, new TreeMap<>()).subMap(from, to)
+                .forEach((hour, value) -> sums.merge(hour.truncatedTo(ChronoUnit.DAYS), value, Long::sum));
+            daily.computeIfAbsent(metric, k -> new TreeMap<>()).putAll(sums);
+            return 1;
+        });
+        lenient().when(rollupMapper.selectDaily(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<String> metrics = invocation.getArgument(0);
+            List<RollupBucket> buckets = new ArrayList<>();
+            for (String metric : metrics) {
+                daily.getOrDefault(metric, new TreeMap<>())
+                    .subMap(invocation.getArgument(1), true, invocation.getArgument(2), false)
+                    .forEach((day, value) -> buckets.add(new RollupBucket(metric, day, value)));
+            }
+            return buckets;
+        });
+        lenient().when(rollupMapper.countRawHourly(anyString(), anyString(), anyString(), any(), any()))
+            .thenAnswer(invocation -> {
+                Map<LocalDateTime, Long> counts = new TreeMap<>();
+                if ("arc_archive".equals(invocation.getArgument(0))) {
+                    LocalDateTime from = invocation.getArgument(3);
+                    LocalDateTime to = invocation.getArgument(4);
+                    rawArchives.stream()
+                        .filter(time -> !time.isBefore(from) && time.isBefore(to))
+                        .forEach(time -> counts.merge(time.truncatedTo(ChronoUnit.HOURS), 1L, Long::sum));
+                }
+                List<RollupBucket> buckets = new ArrayList<>();
+                counts.forEach((hour, value) -> buckets.add(new RollupBucket(null, hour, value)));
+                return buckets;
+            });
+        lenient().when(rollupMapper.selectRawMinTime(anyString(), anyString(), anyString())).thenAnswer(invocation ->
+            "arc_archive".equals(invocation.getArgument(0))
+                ? rawArchives.stream().min(LocalDateTime::compareTo).orElse(null) : null);
+        lenient().when(rollupMapper.selectWatermark(anyString()))
+            .thenAnswer(invocation -> watermarks.get(invocation.<String>getArgument(0)));
+        lenient().when(rollupMapper.selectWatermarkForUpdate(anyString()))
+            .thenAnswer(invocation -> watermarks.get(invocation.<String>getArgument(0)));
+        lenient().when(rollupMapper.initWatermark(anyString(), any())).thenAnswer(invocation -> {
+            watermarks.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1));
+            return 1;
+        });
+        lenient().when(rollupMapper.advanceWatermark(anyString(), any())).thenAnswer(invocation -> {
+            watermarks.merge(invocation.getArgument(0), invocation.getArgument(1),
+                (a, b) -> a.isAfter(b) ? a : b);
+            return 1;
+        });
+    }
+
+    private static int write(Map<String, NavigableMap<LocalDateTime, Long>> table, List<RollupBucket> buckets,
+                             boolean add) {
+        for (RollupBucket bucket : buckets) {
+            NavigableMap<LocalDateTime, Long> rows = table.computeIfAbsent(bucket.getMetric(), k -> new TreeMap<>());
+            if (add) {
+                rows.merge(bucket.getBucketStart(), bucket.getValue(), Long::sum);
+            } else {
+                rows.put(bucket.getBucketStart(), bucket.getValue());
+            }
+        }
+        return buckets.size();
+    }
+
+    private long hourValue(LocalDateTime hour) {
+        return hourly.getOrDefault(METRIC.name(), new TreeMap<>()).getOrDefault(hour, 0L);
+    }
+
+    /**
+     * 天桶应等于当天小时桶之和
+     */
+    private void assertDailyMatchesHourly() {
+        Map<LocalDateTime, Long> expected = new TreeMap<>();
+        hourly.getOrDefault(METRIC.name(), new TreeMap<>())
+            .forEach((hour, value) -> expected.merge(hour.truncatedTo(ChronoUnit.DAYS), value, Long::sum));
+        Map<LocalDateTime, Long> actual = new TreeMap<>(daily.getOrDefault(METRIC.name(), new TreeMap<>()));
+        actual.values().removeIf(value -> value == 0L);
+        expected.values().removeIf(value -> value == 0L);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("增量按小时合并写入小时桶和天桶，去重指标和过早的事件不记录")
+    void testRecordAndFlush() {
+        watermarks.put(METRIC.name(), currentHour.minusHours(2));
+        watermarks.put(RollupMetric.LOGIN_USERS.name(), currentHour.minusHours(2));
+        service.record(METRIC, currentHour);
+        service.record(METRIC, currentHour.plusMinutes(30));
+        service.record(METRIC, currentHour.minusMinutes(10));
+        service.record(METRIC, currentHour.minusHours(5));
+        service.record(RollupMetric.LOGIN_USERS, currentHour);
+
+        service.flush();
+
+        assertEquals(2L, hourValue(currentHour));
+        assertEquals(1L, hourValue(currentHour.minusHours(1)));
+        assertEquals(2, hourly.get(METRIC.name()).size());
+        assertFalse(hourly.containsKey(RollupMetric.LOGIN_USERS.name()));
+        assertDailyMatchesHourly();
+
+        // 已写入的增量不再重复写入
+        service.flush();
+        assertEquals(2L, hourValue(currentHour));
+        verify(rollupMapper, times(1)).addHourly(anyList());
+    }
+
+    @Test
+    @DisplayName("落在补算进度之前的增量丢弃，尚未补算过的指标不写入")
+    void testFlushSkipsBucketsOwnedByCatchUp() {
+        watermarks.put(METRIC.name(), currentHour);
+        service.record(METRIC, currentHour.minusMinutes(10));
+        service.record(METRIC, currentHour);
+        service.record(RollupMetric.USER_REGISTERED, currentHour);
+
+        service.flush();
+
+        assertEquals(1L, hourValue(currentHour));
+        assertEquals(0L, hourValue(currentHour.minusHours(1)));
+        assertFalse(hourly.containsKey(RollupMetric.USER_REGISTERED.name()));
+        assertDailyMatchesHourly();
+
+        // 丢弃的增量不放回缓冲
+        service.flush();
+        verify(rollupMapper, times(1)).addHourly(anyList());
+    }
+
+    @Test
+    @DisplayName("写入失败时增量放回缓冲，下次写入")
+    void testFailedFlushKeepsPending() {
+        watermarks.put(METRIC.name(), currentHour);
+        doThrow(new IllegalStateException("db down"))
+            .doAnswer(invocation -> write(hourly, invocation.getArgument(0), true))
+            .when(rollupMapper).addHourly(anyList());
+        service.record(METRIC, currentHour);
+        service.record(METRIC, currentHour);
+
+        service.flush();
+        assertEquals(0L, hourValue(currentHour));
+
+        service.flush();
+        assertEquals(2L, hourValue(currentHour));
+    }
+
+    @Test
+    @DisplayName("首次补算从最早记录开始重算已结束的小时，当前小时留给增量")
+    void testFirstCatchUpCoversClosedHoursOnly() {
+        rawArchives.add(currentHour.minusHours(30).plusMinutes(5));
+        rawArchives.add(currentHour.minusHours(2).plusMinutes(10));
+        rawArchives.add(currentHour.minusHours(2).plusMinutes(20));
+        rawArchives.add(currentHour.minusMinutes(1));
+        rawArchives.add(currentHour.plusMinutes(1));
+
+        service.catchUp();
+
+        assertEquals(1L, hourValue(currentHour.minusHours(30)));
+        assertEquals(2L, hourValue(currentHour.minusHours(2)));
+        assertEquals(1L, hourValue(currentHour.minusHours(1)));
+        assertFalse(hourly.get(METRIC.name()).containsKey(currentHour));
+        // 没有记录的已结束小时写0
+        assertEquals(Long.valueOf(0L), hourly.get(METRIC.name()).get(currentHour.minusHours(3)));
+        assertEquals(currentHour, watermarks.get(METRIC.name()));
+        assertDailyMatchesHourly();
+        verify(rollupMapper).initWatermark(METRIC.name(), currentHour.minusHours(30));
+    }
+
+    @Test
+    @DisplayName("补算覆盖刚结束的小时后，同一小时的增量不再累加，重复补算结果不变")
+    void testCatchUpThenFlushDoesNotDoubleCount() {
+        // 上次补算在上一小时内完成，上一小时的桶属于增量
+        watermarks.put(METRIC.name(), currentHour.minusHours(1));
+        LocalDateTime previous = currentHour.minusMinutes(5);
+        rawArchives.add(previous);
+        service.record(METRIC, previous);
+
+        // 上一小时结束后补算先于增量写入
+        service.catchUp();
+        service.flush();
+
+        assertEquals(1L, hourValue(currentHour.minusHours(1)));
+        assertEquals(currentHour, watermarks.get(METRIC.name()));
+
+        // 当前小时的事件只经由增量计入，补算不覆盖也不重复
+        rawArchives.add(currentHour.plusMinutes(1));
+        service.record(METRIC, currentHour.plusMinutes(1));
+        service.flush();
+        service.catchUp();
+
+        assertEquals(1L, hourValue(currentHour));
+        assertEquals(1L, hourValue(currentHour.minusHours(1)));
+        assertDailyMatchesHourly();
+
+        // 覆盖写入和进度推进在锁定进度行之后执行
+        InOrder inOrder = inOrder(rollupMapper);
+        inOrder.verify(rollupMapper, calls(1)).selectWatermarkForUpdate(METRIC.name());
+        inOrder.verify(rollupMapper, calls(1)).overwriteHourly(anyList());
+        inOrder.verify(rollupMapper, calls(1)).advanceWatermark(METRIC.name(), currentHour);
+        inOrder.verify(rollupMapper, calls(1)).selectWatermarkForUpdate(METRIC.name());
+        inOrder.verify(rollupMapper, calls(1)).addHourly(anyList());
+    }
+
+    @Test
+    @DisplayName("借阅趋势按天桶分区间累加，不扫描原始表")
+    void testBorrowTrendReadsDailyRollups() {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        daily.put(RollupMetric.BORROW_APPLIED.name(), new TreeMap<>(Map.of(
+            start.atStartOfDay(), 4L,
+            start.plusDays(6).atStartOfDay(), 6L,
+            start.plusDays(8).atStartOfDay(), 5L,
+            start.plusDays(12).atStartOfDay(), 100L)));
+        daily.put(RollupMetric.BORROW_APPROVED.name(), new TreeMap<>(Map.of(
+            start.plusDays(1).atStartOfDay(), 8L,
+            start.plusDays(9).atStartOfDay(), 1L)));
+        daily.put(RollupMetric.BORROW_STARTED.name(), new TreeMap<>(Map.of(start.plusDays(2).atStartOfDay(), 4L)));
+        daily.put(RollupMetric.BORROW_RETURNED.name(), new TreeMap<>(Map.of(start.plusDays(3).atStartOfDay(), 1L)));
+        // 趋势查询只读取汇总服务
+        StatisticsServiceImpl statisticsService = new StatisticsServiceImpl(null, null, null, null, service);
+
+        List<BorrowTrendDTO> trend = statisticsService.getBorrowTrend(start, start.plusDays(9), "week");
+
+        assertEquals(2, trend.size());
+        BorrowTrendDTO firstWeek = trend.get(0);
+        assertEquals(start, firstWeek.getDate());
+        assertEquals(Long.valueOf(10L), firstWeek.getBorrowApplications());
+        assertEquals(Long.valueOf(8L), firstWeek.getBorrowApprovals());
+        assertEquals(Long.valueOf(0L), firstWeek.getBorrowRejections());
+        assertEquals(Long.valueOf(4L), firstWeek.getActualBorrows());
+        assertEquals(Long.valueOf(1L), firstWeek.getReturns());
+        assertEquals(Double.valueOf(80.0), firstWeek.getApprovalRate());
+        assertEquals(Double.valueOf(25.0), firstWeek.getReturnRate());
+        // 第二个区间截止到结束日期，不包含之后的天桶
+        BorrowTrendDTO secondWeek = trend.get(1);
+        assertEquals(Long.valueOf(5L), secondWeek.getBorrowApplications());
+        assertEquals(Long.valueOf(1L), secondWeek.getBorrowApprovals());
+        assertEquals(Double.valueOf(20.0), secondWeek.getApprovalRate());
+
+        verify(rollupMapper, times(1)).selectDaily(anyCollection(), eq(start.atStartOfDay()),
+            eq(start.plusDays(10).atStartOfDay()));
+        verify(rollupMapper, never()).countRawHourly(anyString(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("日期范围合计包含首尾两天")
+    void testTotal() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        daily.put(RollupMetric.USER_REGISTERED.name(), new TreeMap<>(Map.of(
+            day.minusDays(1).atStartOfDay(), 9L,
+            day.atStartOfDay(), 2L,
+            day.plusDays(2).atStartOfDay(), 3L,
+            day.plusDays(3).atStartOfDay(), 7L)));
+
+        assertEquals(5L, service.total(RollupMetric.USER_REGISTERED, day, day.plusDays(2)));
+        assertEquals(0L, service.total(RollupMetric.USER_REGISTERED, day.plusDays(2), day));
+    }
+}
@@ -0,0 +1,80 @@
+package com.archive.management.sysconfig;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 系统配置快照测试类
+ *
+ * @author Archive Management System
+ * @version 1.0
+ * @since 2024-01-20
+ */
+@DisplayName("系统配置快照测试")
+class SystemConfigSnapshotTest {
+
+    private SystemConfigSnapshot buildSnapshot() {
+        Map<String, String> raw = new HashMap<>();
+        raw.put("upload.max.size", " 1024 ");
+        raw.put("session.timeout", "3600000000");
+        raw.put("search.boost", "1.5");
+        raw.put("feature.enabled", "true");
+        raw.put("file.types", "[\"pdf\",\"docx\"]");
+        raw.put("mail.settings", "{\"host\":\"smtp.example.com\",\"port\":25}");
+        raw.put("site.name", "档案管理系统");
+        raw.put("empty.value", null);
+        return SystemConfigSnapshot.build(3L, "10:0:2024-01-20", raw);
+    }
+
+    @Test
+    @DisplayName("构建时预解析各类型配置值")
+    void testTypedValues() {
+        SystemConfigSnapshot snapshot = buildSnapshot();
+
+        assertEquals(8, snapshot.size());
+        assertEquals(3L, snapshot.getVersion());
+        assertEquals("10:0:2024-01-20", snapshot.getFingerprint());
+        assertEquals(1024, snapshot.get("upload.max.size").getIntValue());
+        assertNull(snapshot.get("session.timeout").getIntValue());
+        assertEquals(3600000000L, snapshot.get("session.timeout").getLongValue());
+        assertEquals(1.5, snapshot.get("search.boost").getDoubleValue());
+        assertTrue(snapshot.get("feature.enabled").getBooleanValue());
+        assertFalse(snapshot.get("site.name").getBooleanValue());
+        assertEquals("档案管理系统", snapshot.get("site.name").getRaw());
+        assertEquals(List.of("pdf", "docx"), snapshot.get("file.types").getListValue());
+        assertEquals(25, snapshot.get("mail.settings").getMapValue().get("port"));
+        assertNull(snapshot.get("site.name").getMapValue());
+        assertNull(snapshot.get("empty.value").getIntValue());
+    }
+
+    @Test
+    @DisplayName("不存在的配置返回空")
+    void testMissingKey() {
+        SystemConfigSnapshot snapshot = buildSnapshot();
+
+        assertNull(snapshot.get("not.exists"));
+        assertNull(snapshot.get(null));
+        assertNull(SystemConfigSnapshot.EMPTY.get("upload.max.size"));
+        assertEquals(0, SystemConfigSnapshot.EMPTY.size());
+    }
+
+    @Test
+    @DisplayName("列表与对象值不可修改，转换结果每次为新实例")
+    void testImmutableValues() {
+        SystemConfigSnapshot.ConfigValue types = buildSnapshot().get("file.types");
+
+        assertThrows(UnsupportedOperationException.class, () -> types.getListValue().add("xls"));
+        assertThrows(UnsupportedOperationException.class,
+            () -> buildSnapshot().get("mail.settings").getMapValue().put("port", 465));
+
+        List<?> converted = types.toObject(List.class);
+        assertEquals(2, converted.size());
+        assertNotSame(converted, types.toObject(List.class));
+    }
+}